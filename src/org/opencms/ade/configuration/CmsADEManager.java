@@ -836,7 +836,12 @@ public class CmsADEManager {
      */
     public void shutdown() {
 
-        // do nothing 
+        if (m_onlineCache != null) {
+            m_onlineCache.shutdown();
+        }
+        if (m_offlineCache != null) {
+            m_offlineCache.shutdown();
+        }
     }
 
     /**
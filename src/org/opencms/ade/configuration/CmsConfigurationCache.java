@@ -49,6 +49,12 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.logging.Log;
 
@@ -60,6 +66,12 @@ import org.apache.commons.logging.Log;
  * and a single instance which represents the merged configuration from all the modules. When a sitemap configuration
  * file is updated, only the single instance for that configuration file is updated, whereas if a module configuration file
  * is changed, the configuration of all modules will be read again.<p>
+ * 
+ * The configuration is read from an immutable {@link CmsConfigurationSnapshot}, so that read operations
+ * neither need a lock nor iterate over all sitemap configurations. Changes are applied by a writer which builds
+ * a new snapshot and replaces the current one. Changed configuration files are read by a background thread; 
+ * a read operation only waits for the writer if there are changed configuration files which have not been 
+ * read yet.<p>
  */
 class CmsConfigurationCache implements I_CmsGlobalConfigurationCache {
 
@@ -79,7 +91,7 @@ class CmsConfigurationCache implements I_CmsGlobalConfigurationCache {
     private CmsObject m_cms;
 
     /** The configuration files which have been changed but not read yet. */
-    private Map<String, CmsUUID> m_configurationsToRead = new HashMap<String, CmsUUID>();
+    private Map<String, CmsUUID> m_configurationsToRead = new ConcurrentHashMap<String, CmsUUID>();
 
     /** The cached content types for folders. */
     private Map<String, String> m_folderTypes = new HashMap<String, String>();
@@ -93,6 +105,15 @@ class CmsConfigurationCache implements I_CmsGlobalConfigurationCache {
     /** The configurations from the sitemap / VFS. */
     private Map<String, CmsADEConfigData> m_siteConfigurations = new HashMap<String, CmsADEConfigData>();
 
+    /** The current state of the configuration, which is read without locking. */
+    private volatile CmsConfigurationSnapshot m_snapshot = new CmsConfigurationSnapshot();
+
+    /** The executor used for reading changed configuration files in the background. */
+    private ExecutorService m_updateExecutor;
+
+    /** Indicates if reading the changed configuration files has already been scheduled. */
+    private AtomicBoolean m_updateScheduled = new AtomicBoolean();
+
     /** 
      * Creates a new cache instance.<p>
      * 
@@ -105,6 +126,18 @@ class CmsConfigurationCache implements I_CmsGlobalConfigurationCache {
         m_cms = cms;
         m_configType = configType;
         m_moduleConfigType = moduleConfigType;
+        final String threadName = "OpenCms: ADE configuration update ("
+            + (isOnline() ? "online" : "offline")
+            + ")";
+        m_updateExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+            public Thread newThread(Runnable r) {
+
+                Thread thread = new Thread(r, threadName);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
     }
 
     /**
@@ -162,7 +195,7 @@ class CmsConfigurationCache implements I_CmsGlobalConfigurationCache {
         } catch (Exception e) {
             LOG.error(e.getLocalizedMessage(), e);
         }
-
+        updateSnapshot();
     }
 
     /**
@@ -185,6 +218,14 @@ class CmsConfigurationCache implements I_CmsGlobalConfigurationCache {
         remove(res.getStructureId(), res.getRootPath(), res.getTypeId());
     }
 
+    /**
+     * Stops reading changed configuration files in the background.<p>
+     */
+    public void shutdown() {
+
+        m_updateExecutor.shutdownNow();
+    }
+
     /**
      * Updates the cache entry for the given published resource.<p>
      * 
@@ -220,11 +261,10 @@ class CmsConfigurationCache implements I_CmsGlobalConfigurationCache {
      * 
      * @return the list of detail page info beans 
      */
-    protected synchronized List<CmsDetailPageInfo> getAllDetailPages() {
+    protected List<CmsDetailPageInfo> getAllDetailPages() {
 
-        readRemainingConfigurations();
         List<CmsDetailPageInfo> result = new ArrayList<CmsDetailPageInfo>();
-        for (CmsADEConfigData configData : m_siteConfigurations.values()) {
+        for (CmsADEConfigData configData : getSnapshot().getSiteConfigurations()) {
             result.addAll(configData.getAllDetailPages(true));
         }
         return result;
@@ -252,11 +292,10 @@ class CmsConfigurationCache implements I_CmsGlobalConfigurationCache {
      * 
      * @return the detail pages for that type 
      */
-    protected synchronized List<String> getDetailPages(String type) {
+    protected List<String> getDetailPages(String type) {
 
-        readRemainingConfigurations();
         List<String> result = new ArrayList<String>();
-        for (CmsADEConfigData configData : m_siteConfigurations.values()) {
+        for (CmsADEConfigData configData : getSnapshot().getSiteConfigurations()) {
             for (CmsDetailPageInfo pageInfo : configData.getDetailPagesForType(type)) {
                 result.add(pageInfo.getUri());
             }
@@ -269,11 +308,10 @@ class CmsConfigurationCache implements I_CmsGlobalConfigurationCache {
      * 
      * @return the set of type names with configured detail pages  
      */
-    protected synchronized Set<String> getDetailPageTypes() {
+    protected Set<String> getDetailPageTypes() {
 
-        readRemainingConfigurations();
         Set<String> result = new HashSet<String>();
-        for (CmsADEConfigData configData : m_siteConfigurations.values()) {
+        for (CmsADEConfigData configData : getSnapshot().getSiteConfigurations()) {
             List<CmsDetailPageInfo> detailPageInfos = configData.getAllDetailPages(false);
             for (CmsDetailPageInfo info : detailPageInfos) {
                 result.add(info.getType());
@@ -286,9 +324,9 @@ class CmsConfigurationCache implements I_CmsGlobalConfigurationCache {
      * Gets the merged module configuration.<p>
      * @return the merged module configuration instance
      */
-    protected synchronized CmsADEConfigData getModuleConfiguration() {
+    protected CmsADEConfigData getModuleConfiguration() {
 
-        return m_moduleConfiguration;
+        return getSnapshot().getModuleConfiguration();
     }
 
     /**
@@ -297,14 +335,14 @@ class CmsConfigurationCache implements I_CmsGlobalConfigurationCache {
      * @param rootPath the path of a resource 
      * @return the parent folder content type 
      */
-    protected synchronized String getParentFolderType(String rootPath) {
+    protected String getParentFolderType(String rootPath) {
 
-        readRemainingConfigurations();
+        CmsConfigurationSnapshot snapshot = getSnapshot();
         String parent = CmsResource.getParentFolder(rootPath);
         if (parent == null) {
             return null;
         }
-        String type = m_folderTypes.get(parent);
+        String type = snapshot.getFolderTypes().get(parent);
         // type may be null
         return type;
     }
@@ -321,26 +359,12 @@ class CmsConfigurationCache implements I_CmsGlobalConfigurationCache {
      * @param path a root path  
      * @return the configuration data for the given path, or null if none was found 
      */
-    protected synchronized CmsADEConfigData getSiteConfigData(String path) {
+    protected CmsADEConfigData getSiteConfigData(String path) {
 
         if (path == null) {
             return null;
         }
-        readRemainingConfigurations();
-        String normalizedPath = CmsStringUtil.joinPaths("/", path, "/");
-        List<String> prefixes = new ArrayList<String>();
-        for (String key : m_siteConfigurations.keySet()) {
-            if (normalizedPath.startsWith(CmsStringUtil.joinPaths("/", key, "/"))) {
-                prefixes.add(key);
-            }
-        }
-        if (prefixes.size() == 0) {
-            return null;
-        }
-        Collections.sort(prefixes);
-        // for any two prefixes of a string, one is a prefix of the other. so the alphabetically last
-        // prefix is the longest prefix of all.
-        return m_siteConfigurations.get(prefixes.get(prefixes.size() - 1));
+        return getSnapshot().getSiteConfigData(path);
     }
 
     /**
@@ -373,9 +397,9 @@ class CmsConfigurationCache implements I_CmsGlobalConfigurationCache {
      * 
      * @return true if the resource is configured as a detail page 
      */
-    protected synchronized boolean isDetailPage(CmsObject cms, CmsResource resource) {
+    protected boolean isDetailPage(CmsObject cms, CmsResource resource) {
 
-        readRemainingConfigurations();
+        CmsConfigurationSnapshot snapshot = getSnapshot();
         CmsResource folder;
         if (resource.isFile()) {
             if (!CmsResourceTypeXmlContainerPage.isContainerPage(resource)) {
@@ -392,7 +416,7 @@ class CmsConfigurationCache implements I_CmsGlobalConfigurationCache {
         }
         List<CmsDetailPageInfo> allDetailPages = new ArrayList<CmsDetailPageInfo>();
         // First collect all detail page infos 
-        for (CmsADEConfigData configData : m_siteConfigurations.values()) {
+        for (CmsADEConfigData configData : snapshot.getSiteConfigurations()) {
             List<CmsDetailPageInfo> detailPageInfos = configData.getAllDetailPages();
             allDetailPages.addAll(detailPageInfos);
         }
@@ -498,12 +522,14 @@ class CmsConfigurationCache implements I_CmsGlobalConfigurationCache {
                 String basePath = getBasePath(rootPath);
                 removePath(basePath);
                 LOG.info("Removing config file from cache: " + rootPath);
+                updateSnapshot();
             }
         } else if (isModuleConfiguration(rootPath, type)) {
             LOG.info("Removing module configuration " + rootPath);
             synchronized (this) {
                 m_configurationsToRead.put(MODULE_CONFIG_KEY, CmsUUID.getNullUUID());
             }
+            scheduleUpdate();
         }
 
     }
@@ -538,11 +564,13 @@ class CmsConfigurationCache implements I_CmsGlobalConfigurationCache {
                 LOG.info("Changed configuration file " + rootPath + "(" + structureId + "), will be read later");
                 m_configurationsToRead.put(rootPath, structureId);
             }
+            scheduleUpdate();
         } else if (isModuleConfiguration(rootPath, type)) {
             LOG.info("Changed module configuration file " + rootPath + "(" + structureId + ")");
             synchronized (this) {
                 m_configurationsToRead.put(MODULE_CONFIG_KEY, CmsUUID.getNullUUID());
             }
+            scheduleUpdate();
         }
     }
 
@@ -558,10 +586,25 @@ class CmsConfigurationCache implements I_CmsGlobalConfigurationCache {
             LOG.info("Updating folder types because of a change at " + rootPath);
             synchronized (this) {
                 initializeFolderTypes();
+                updateSnapshot();
             }
         }
     }
 
+    /**
+     * Returns the current configuration snapshot, after reading the configuration files 
+     * which have changed but not been read yet.<p>
+     * 
+     * @return the current configuration snapshot 
+     */
+    private CmsConfigurationSnapshot getSnapshot() {
+
+        if (!m_configurationsToRead.isEmpty()) {
+            readRemainingConfigurations();
+        }
+        return m_snapshot;
+    }
+
     /**
      * Reads the configuration files which have changed but not been read yet.<p>
      */
@@ -606,6 +649,7 @@ class CmsConfigurationCache implements I_CmsGlobalConfigurationCache {
         } catch (CmsRuntimeException e) {
             LOG.warn(e.getLocalizedMessage(), e);
         }
+        updateSnapshot();
     }
 
     /**
@@ -619,4 +663,41 @@ class CmsConfigurationCache implements I_CmsGlobalConfigurationCache {
         m_siteConfigurations.remove(rootPath);
     }
 
+    /**
+     * Schedules reading the changed configuration files in the background.<p>
+     */
+    private void scheduleUpdate() {
+
+        if (!m_updateScheduled.compareAndSet(false, true)) {
+            // the configuration files will be read by the already scheduled update
+            return;
+        }
+        try {
+            m_updateExecutor.execute(new Runnable() {
+
+                public void run() {
+
+                    // reset the flag first, so that changes made while reading schedule another update
+                    m_updateScheduled.set(false);
+                    try {
+                        readRemainingConfigurations();
+                    } catch (Throwable t) {
+                        LOG.error(t.getLocalizedMessage(), t);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // shut down, the configuration files will be read when the configuration is queried
+            m_updateScheduled.set(false);
+        }
+    }
+
+    /**
+     * Replaces the configuration snapshot with a new snapshot of the current configuration.<p>
+     */
+    private synchronized void updateSnapshot() {
+
+        m_snapshot = new CmsConfigurationSnapshot(m_siteConfigurations, m_folderTypes, m_moduleConfiguration);
+    }
+
 }
@@ -0,0 +1,208 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.ade.configuration;
+
+import org.opencms.util.CmsStringUtil;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable state of the configuration cache.<p>
+ * 
+ * The sitemap configurations are stored in a tree of path segments, so that the configuration 
+ * for a path can be found with one lookup per path segment, no matter how many sitemap configurations
+ * exist. Since a snapshot is never changed after its creation, it can be read by any number of threads 
+ * without locking; the configuration cache replaces the whole snapshot when the configuration changes.<p>
+ * 
+ * @since 8.5.2
+ */
+class CmsConfigurationSnapshot {
+
+    /**
+     * A node in the tree of path segments.<p>
+     */
+    private static final class Node {
+
+        /** The child nodes, by path segment. */
+        Map<String, Node> m_children;
+
+        /** The configuration for the path of this node, or <code>null</code>. */
+        CmsADEConfigData m_config;
+
+        /**
+         * Returns the child node for the given path segment, creating it if necessary.<p>
+         * 
+         * @param segment the path segment
+         * 
+         * @return the child node
+         */
+        Node getOrCreateChild(String segment) {
+
+            if (m_children == null) {
+                m_children = new HashMap<String, Node>();
+            }
+            Node child = m_children.get(segment);
+            if (child == null) {
+                child = new Node();
+                m_children.put(segment, child);
+            }
+            return child;
+        }
+    }
+
+    /** The cached content types for folders. */
+    private final Map<String, String> m_folderTypes;
+
+    /** The merged configuration from all the modules. */
+    private final CmsADEConfigData m_moduleConfiguration;
+
+    /** The root node of the path segment tree. */
+    private final Node m_root;
+
+    /** The configurations from the sitemap / VFS, by base path. */
+    private final Map<String, CmsADEConfigData> m_siteConfigurations;
+
+    /**
+     * Creates an empty snapshot.<p>
+     */
+    public CmsConfigurationSnapshot() {
+
+        this(
+            Collections.<String, CmsADEConfigData> emptyMap(),
+            Collections.<String, String> emptyMap(),
+            null);
+    }
+
+    /**
+     * Creates a new snapshot, copying the given maps.<p>
+     * 
+     * @param siteConfigurations the sitemap configurations, by base path 
+     * @param folderTypes the content types for folders, by folder root path 
+     * @param moduleConfiguration the merged module configuration 
+     */
+    public CmsConfigurationSnapshot(
+        Map<String, CmsADEConfigData> siteConfigurations,
+        Map<String, String> folderTypes,
+        CmsADEConfigData moduleConfiguration) {
+
+        m_siteConfigurations = Collections.unmodifiableMap(new HashMap<String, CmsADEConfigData>(siteConfigurations));
+        m_folderTypes = Collections.unmodifiableMap(new HashMap<String, String>(folderTypes));
+        m_moduleConfiguration = moduleConfiguration;
+        m_root = new Node();
+        for (Map.Entry<String, CmsADEConfigData> entry : m_siteConfigurations.entrySet()) {
+            Node node = m_root;
+            for (String segment : getSegments(entry.getKey())) {
+                node = node.getOrCreateChild(segment);
+            }
+            node.m_config = entry.getValue();
+        }
+    }
+
+    /**
+     * Returns the content types for folders.<p>
+     * 
+     * @return an unmodifiable map from folder root paths to content type names 
+     */
+    public Map<String, String> getFolderTypes() {
+
+        return m_folderTypes;
+    }
+
+    /**
+     * Returns the merged module configuration.<p>
+     * 
+     * @return the module configuration, or <code>null</code> if it has not been read yet 
+     */
+    public CmsADEConfigData getModuleConfiguration() {
+
+        return m_moduleConfiguration;
+    }
+
+    /**
+     * Returns the sitemap configuration with the longest base path that is a parent path of, 
+     * or equal to, the given path.<p>
+     * 
+     * @param path a root path 
+     * 
+     * @return the configuration data for the given path, or <code>null</code> if none was found 
+     */
+    public CmsADEConfigData getSiteConfigData(String path) {
+
+        Node node = m_root;
+        CmsADEConfigData result = node.m_config;
+        for (String segment : getSegments(path)) {
+            if (node.m_children == null) {
+                break;
+            }
+            node = node.m_children.get(segment);
+            if (node == null) {
+                break;
+            }
+            if (node.m_config != null) {
+                result = node.m_config;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns all sitemap configurations.<p>
+     * 
+     * @return the sitemap configurations 
+     */
+    public Collection<CmsADEConfigData> getSiteConfigurations() {
+
+        return m_siteConfigurations.values();
+    }
+
+    /**
+     * Returns the sitemap configurations, by base path.<p>
+     * 
+     * @return an unmodifiable map of the sitemap configurations 
+     */
+    public Map<String, CmsADEConfigData> getSiteConfigurationsByPath() {
+
+        return m_siteConfigurations;
+    }
+
+    /**
+     * Splits a path into its segments.<p>
+     * 
+     * @param path the path 
+     * 
+     * @return the segments of the path 
+     */
+    private static List<String> getSegments(String path) {
+
+        return CmsStringUtil.splitAsList(path, '/');
+    }
+}
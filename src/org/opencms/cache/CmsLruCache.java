@@ -29,6 +29,10 @@ package org.opencms.cache;
 
 import org.opencms.main.CmsLog;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
 import org.apache.commons.logging.Log;
 
 /**
@@ -47,6 +51,14 @@ import org.apache.commons.logging.Log;
  * To add/remove cached objects from the data structure that stores them, the objects have to
  * implement the methods defined in the interface I_CmsLruCacheObject to be notified when they
  * are added/removed from the CmsFlexLruCache.<p>
+ * 
+ * The cache may be split into several segments, each with its own lock, its own LRU list and an 
+ * equal share of the cache costs. An object is always stored in the same segment, which is selected 
+ * by its identity hash code, so threads working with objects of different segments do not block 
+ * each other. Read accesses reported with {@link #recordAccess(I_CmsLruCacheObject)} do not 
+ * block at all: they are collected in a small buffer per segment and applied to the LRU list 
+ * by the next thread that gets the segment lock without waiting. If the buffer is full, accesses 
+ * are dropped, so the recency of the objects is only tracked approximately.<p>
  *
  * @see org.opencms.cache.I_CmsLruCacheObject
  * 
@@ -54,32 +66,353 @@ import org.apache.commons.logging.Log;
  */
 public class CmsLruCache extends java.lang.Object {
 
+    /**
+     * A segment of the cache with its own lock and LRU list.<p>
+     * 
+     * All methods except {@link #recordAccess(I_CmsLruCacheObject)} must be called 
+     * while holding the segment lock.<p>
+     */
+    private static final class CmsLruCacheSegment {
+
+        /** The buffer for the recorded read accesses. */
+        AtomicReferenceArray<I_CmsLruCacheObject> m_accessBuffer;
+
+        /** The number of recorded read accesses. */
+        AtomicInteger m_accessCount;
+
+        /** The average sum of costs the cached objects of this segment. */
+        long m_avgCacheCosts;
+
+        /** The head of the list of double linked LRU cache objects. */
+        I_CmsLruCacheObject m_listHead;
+
+        /** The tail of the list of double linked LRU cache objects. */
+        I_CmsLruCacheObject m_listTail;
+
+        /** The lock of this segment. */
+        ReentrantLock m_lock;
+
+        /** The maximum sum of costs the cached objects of this segment might reach. */
+        long m_maxCacheCosts;
+
+        /** The costs of all cached objects of this segment. */
+        volatile int m_objectCosts;
+
+        /** The sum of all cached objects of this segment. */
+        volatile int m_objectCount;
+
+        /**
+         * Creates a new segment.<p>
+         * 
+         * @param maxCacheCosts the maximum cache costs of the objects of this segment
+         * @param avgCacheCosts the average cache costs of the objects of this segment
+         */
+        CmsLruCacheSegment(long maxCacheCosts, long avgCacheCosts) {
+
+            m_maxCacheCosts = maxCacheCosts;
+            m_avgCacheCosts = avgCacheCosts;
+            m_lock = new ReentrantLock();
+            m_accessBuffer = new AtomicReferenceArray<I_CmsLruCacheObject>(ACCESS_BUFFER_SIZE);
+            m_accessCount = new AtomicInteger();
+        }
+
+        /**
+         * Adds a cache object as the new haed to the list of all cached objects in this segment.<p>
+         *
+         * @param theCacheObject the object being added as the new head to the list of all cached objects
+         */
+        void addHead(I_CmsLruCacheObject theCacheObject) {
+
+            // set the list pointers correct
+            if (m_objectCount > 0) {
+                // there is at least 1 object already in the list
+                I_CmsLruCacheObject oldHead = m_listHead;
+                oldHead.setNextLruObject(theCacheObject);
+                theCacheObject.setPreviousLruObject(oldHead);
+                m_listHead = theCacheObject;
+            } else {
+                // it is the first object to be added to the list
+                m_listTail = theCacheObject;
+                m_listHead = theCacheObject;
+                theCacheObject.setPreviousLruObject(null);
+            }
+            theCacheObject.setNextLruObject(null);
+
+            // update cache stats. and notify the cached object
+            increaseCache(theCacheObject);
+        }
+
+        /**
+         * Removes all cached objects in this segment.<p>
+         */
+        void clear() {
+
+            // remove all objects from the linked list from the tail to the head:
+            I_CmsLruCacheObject currentObject = m_listTail;
+            while (currentObject != null) {
+                currentObject = currentObject.getNextLruObject();
+                removeTail();
+            }
+
+            // reset the data structure
+            m_objectCosts = 0;
+            m_objectCount = 0;
+            m_listHead = null;
+            m_listTail = null;
+            for (int i = 0; i < ACCESS_BUFFER_SIZE; i++) {
+                m_accessBuffer.set(i, null);
+            }
+        }
+
+        /**
+         * Decrease this segments statistics
+         * and notify the cached object that it was removed from this cache.<p>
+         *
+         * @param theCacheObject the object being notified that it was removed from the cache
+         */
+        void decreaseCache(I_CmsLruCacheObject theCacheObject) {
+
+            // notify the object that it was now removed from the cache
+            theCacheObject.removeFromLruCache();
+
+            // set the list pointers to null
+            theCacheObject.setNextLruObject(null);
+            theCacheObject.setPreviousLruObject(null);
+
+            // update the cache stats.
+            m_objectCosts -= theCacheObject.getLruCacheCosts();
+            m_objectCount--;
+        }
+
+        /**
+         * Moves all objects of the recorded read accesses that are still cached to the head of the list.<p>
+         */
+        void drainAccesses() {
+
+            for (int i = 0; i < ACCESS_BUFFER_SIZE; i++) {
+                I_CmsLruCacheObject theCacheObject = m_accessBuffer.getAndSet(i, null);
+                if ((theCacheObject != null) && isCached(theCacheObject)) {
+                    moveToHead(theCacheObject);
+                }
+            }
+        }
+
+        /**
+         * Removes the last recently used objects from the list of all cached objects as long
+         * as the costs of all cached objects are higher than the allowed avg. costs of the segment.<p>
+         */
+        void gc() {
+
+            I_CmsLruCacheObject currentObject = m_listTail;
+            while (currentObject != null) {
+                if (m_objectCosts < m_avgCacheCosts) {
+                    break;
+                }
+                currentObject = currentObject.getNextLruObject();
+                removeTail();
+            }
+        }
+
+        /**
+         * Increase this segments statistics 
+         * and notify the cached object that it was added to this cache.<p>
+         *
+         * @param theCacheObject the object being notified that it was added to the cache
+         */
+        void increaseCache(I_CmsLruCacheObject theCacheObject) {
+
+            // notify the object that it was now added to the cache
+            theCacheObject.addToLruCache();
+
+            // update the cache stats.
+            m_objectCosts += theCacheObject.getLruCacheCosts();
+            m_objectCount++;
+        }
+
+        /**
+         * Test if a given object resides inside this segment.<p>
+         *
+         * @param theCacheObject the object to test 
+         * @return true if the object is inside the segment, false otherwise
+         */
+        boolean isCached(I_CmsLruCacheObject theCacheObject) {
+
+            if ((theCacheObject == null) || (m_objectCount == 0)) {
+                // the segment is empty or the object is null (which is never cached)
+                return false;
+            }
+
+            I_CmsLruCacheObject nextObj = theCacheObject.getNextLruObject();
+            I_CmsLruCacheObject prevObj = theCacheObject.getPreviousLruObject();
+
+            if ((nextObj != null) || (prevObj != null)) {
+                // the object has either a predecessor or successor in the linked 
+                // list of all cached objects, so it is inside the cache
+                return true;
+            }
+
+            // both nextObj and preObj are null
+            if ((m_objectCount == 1)
+                && (m_listHead != null)
+                && (m_listTail != null)
+                && m_listHead.equals(theCacheObject)
+                && m_listTail.equals(theCacheObject)) {
+                // the object is the one and only object in the segment
+                return true;
+            }
+
+            return false;
+        }
+
+        /**
+         * Moves a cached object to the head of the list.<p>
+         * 
+         * @param theCacheObject the cached object
+         */
+        void moveToHead(I_CmsLruCacheObject theCacheObject) {
+
+            // set the list pointers correct
+            I_CmsLruCacheObject nextObj = theCacheObject.getNextLruObject();
+            if (nextObj == null) {
+                // case 1: the object is already at the head pos.
+                return;
+            }
+            I_CmsLruCacheObject prevObj = theCacheObject.getPreviousLruObject();
+            if (prevObj == null) {
+                // case 2: the object at the tail pos., remove it from the tail to put it to the front as the new head
+                I_CmsLruCacheObject newTail = nextObj;
+                newTail.setPreviousLruObject(null);
+                m_listTail = newTail;
+            } else {
+                // case 3: the object is somewhere within the list, remove it to put it the front as the new head
+                prevObj.setNextLruObject(nextObj);
+                nextObj.setPreviousLruObject(prevObj);
+            }
+
+            // set the touched object as the new head in the linked list:
+            I_CmsLruCacheObject oldHead = m_listHead;
+            if (oldHead != null) {
+                oldHead.setNextLruObject(theCacheObject);
+                theCacheObject.setNextLruObject(null);
+                theCacheObject.setPreviousLruObject(oldHead);
+            }
+            m_listHead = theCacheObject;
+        }
+
+        /**
+         * Records a read access of a cached object without blocking.<p>
+         * 
+         * The access is applied to the LRU list if the segment lock is free
+         * after some accesses have been collected.<p>
+         * 
+         * @param theCacheObject the accessed object
+         */
+        void recordAccess(I_CmsLruCacheObject theCacheObject) {
+
+            int count = m_accessCount.getAndIncrement();
+            // overwriting a slot that was not drained yet simply drops that access
+            m_accessBuffer.lazySet(count & (ACCESS_BUFFER_SIZE - 1), theCacheObject);
+            if (((count + 1) & (ACCESS_DRAIN_THRESHOLD - 1)) == 0) {
+                if (m_lock.tryLock()) {
+                    try {
+                        drainAccesses();
+                    } finally {
+                        m_lock.unlock();
+                    }
+                }
+            }
+        }
+
+        /**
+         * Removes an object from the list of all cached objects in this segment,
+         * no matter what position it has inside the list.<p>
+         *
+         * @param theCacheObject the cached object being removed from the list of all cached objects
+         */
+        void remove(I_CmsLruCacheObject theCacheObject) {
+
+            // set the list pointers correct
+            if (theCacheObject.getNextLruObject() == null) {
+                // remove the object from the head pos.
+                I_CmsLruCacheObject newHead = theCacheObject.getPreviousLruObject();
+
+                if (newHead != null) {
+                    // if newHead is null, theCacheObject 
+                    // was the only object in the cache
+                    newHead.setNextLruObject(null);
+                }
+
+                m_listHead = newHead;
+            } else if (theCacheObject.getPreviousLruObject() == null) {
+                // remove the object from the tail pos.
+                I_CmsLruCacheObject newTail = theCacheObject.getNextLruObject();
+
+                if (newTail != null) {
+                    // if newTail is null, theCacheObject 
+                    // was the only object in the cache                
+                    newTail.setPreviousLruObject(null);
+                }
+
+                m_listTail = newTail;
+            } else {
+                // remove the object from within the list
+                theCacheObject.getPreviousLruObject().setNextLruObject(theCacheObject.getNextLruObject());
+                theCacheObject.getNextLruObject().setPreviousLruObject(theCacheObject.getPreviousLruObject());
+            }
+
+            // update cache stats. and notify the cached object
+            decreaseCache(theCacheObject);
+        }
+
+        /**
+         * Removes the tailing object from the list of all cached objects.<p>
+         */
+        void removeTail() {
+
+            I_CmsLruCacheObject oldTail = m_listTail;
+            if (oldTail != null) {
+                I_CmsLruCacheObject newTail = oldTail.getNextLruObject();
+
+                // set the list pointers correct
+                if (newTail != null) {
+                    // there are still objects remaining in the list
+                    newTail.setPreviousLruObject(null);
+                    m_listTail = newTail;
+                } else {
+                    // we removed the last object from the list
+                    m_listTail = null;
+                    m_listHead = null;
+                }
+
+                // update cache stats. and notify the cached object
+                decreaseCache(oldTail);
+            }
+        }
+    }
+
+    /** The size of the read access buffer of each segment, must be a power of 2. */
+    static final int ACCESS_BUFFER_SIZE = 32;
+
+    /** The number of recorded read accesses after which a segment tries to apply them, must be a power of 2. */
+    static final int ACCESS_DRAIN_THRESHOLD = 16;
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsLruCache.class);
 
     /** The average sum of costs the cached objects. */
     private long m_avgCacheCosts;
 
-    /** The head of the list of double linked LRU cache objects. */
-    private I_CmsLruCacheObject m_listHead;
-
-    /** The tail of the list of double linked LRU cache objects. */
-    private I_CmsLruCacheObject m_listTail;
-
     /** The maximum sum of costs the cached objects might reach. */
     private long m_maxCacheCosts;
 
     /** The maximum costs of cacheable objects. */
     private int m_maxObjectCosts;
 
-    /** The costs of all cached objects. */
-    private int m_objectCosts;
-
-    /** The sum of all cached objects. */
-    private int m_objectCount;
+    /** The segments of this cache. */
+    private CmsLruCacheSegment[] m_segments;
 
     /**
-     * The constructor with all options.<p>
+     * The constructor with all options for a cache with a single segment.<p>
      *
      * @param theMaxCacheCosts the maximum cache costs of all cached objects
      * @param theAvgCacheCosts the average cache costs of all cached objects
@@ -87,9 +420,35 @@ public class CmsLruCache extends java.lang.Object {
      */
     public CmsLruCache(long theMaxCacheCosts, long theAvgCacheCosts, int theMaxObjectCosts) {
 
+        this(theMaxCacheCosts, theAvgCacheCosts, theMaxObjectCosts, 1);
+    }
+
+    /**
+     * The constructor with all options for a segmented cache.<p>
+     * 
+     * The number of segments is rounded down to a power of 2, and reduced further 
+     * until each segment can hold at least one object with the max. allowed cache costs per object.<p>
+     *
+     * @param theMaxCacheCosts the maximum cache costs of all cached objects
+     * @param theAvgCacheCosts the average cache costs of all cached objects
+     * @param theMaxObjectCosts the maximum allowed cache costs per object. Set theMaxObjectCosts to -1 if you don't want to limit the max. allowed cache costs per object
+     * @param theSegments the requested number of segments
+     */
+    public CmsLruCache(long theMaxCacheCosts, long theAvgCacheCosts, int theMaxObjectCosts, int theSegments) {
+
         m_maxCacheCosts = theMaxCacheCosts;
         m_avgCacheCosts = theAvgCacheCosts;
         m_maxObjectCosts = theMaxObjectCosts;
+
+        int segments = 1;
+        while (((segments * 2) <= theSegments)
+            && ((theMaxObjectCosts == -1) || ((theMaxCacheCosts / (segments * 2)) >= theMaxObjectCosts))) {
+            segments *= 2;
+        }
+        m_segments = new CmsLruCacheSegment[segments];
+        for (int i = 0; i < segments; i++) {
+            m_segments[i] = new CmsLruCacheSegment(theMaxCacheCosts / segments, theAvgCacheCosts / segments);
+        }
     }
 
     /**
@@ -101,7 +460,7 @@ public class CmsLruCache extends java.lang.Object {
      * @param theCacheObject the object being added to the cache
      * @return true if the object was added to the cache, false if the object was denied because its cache costs were higher than the allowed max. cache costs per object
      */
-    public synchronized boolean add(I_CmsLruCacheObject theCacheObject) {
+    public boolean add(I_CmsLruCacheObject theCacheObject) {
 
         if (theCacheObject == null) {
             // null can't be added or touched in the cache 
@@ -109,26 +468,28 @@ public class CmsLruCache extends java.lang.Object {
         }
 
         // only objects with cache costs < the max. allowed object cache costs can be cached!
-        if ((m_maxObjectCosts != -1) && (theCacheObject.getLruCacheCosts() > m_maxObjectCosts)) {
-            if (LOG.isInfoEnabled()) {
-                LOG.info(Messages.get().getBundle().key(
-                    Messages.LOG_CACHE_COSTS_TOO_HIGH_2,
-                    new Integer(theCacheObject.getLruCacheCosts()),
-                    new Integer(m_maxObjectCosts)));
-            }
+        if (isTooExpensive(theCacheObject)) {
             return false;
         }
 
-        if (!isCached(theCacheObject)) {
-            // add the object to the list of all cached objects in the cache
-            addHead(theCacheObject);
-        } else {
-            touch(theCacheObject);
-        }
+        CmsLruCacheSegment segment = getSegment(theCacheObject);
+        segment.m_lock.lock();
+        try {
+            // apply the pending read accesses first, so that the garbage collection uses the current order
+            segment.drainAccesses();
+            if (!segment.isCached(theCacheObject)) {
+                // add the object to the list of all cached objects in the cache
+                segment.addHead(theCacheObject);
+            } else {
+                segment.moveToHead(theCacheObject);
+            }
 
-        // check if the cache has to trash the last-recently-used objects before adding a new object
-        if (m_objectCosts > m_maxCacheCosts) {
-            gc();
+            // check if the cache has to trash the last-recently-used objects before adding a new object
+            if (segment.m_objectCosts > segment.m_maxCacheCosts) {
+                segment.gc();
+            }
+        } finally {
+            segment.m_lock.unlock();
         }
 
         return true;
@@ -137,20 +498,17 @@ public class CmsLruCache extends java.lang.Object {
     /**
      * Removes all cached objects in this cache.<p>
      */
-    public synchronized void clear() {
-
-        // remove all objects from the linked list from the tail to the head:
-        I_CmsLruCacheObject currentObject = m_listTail;
-        while (currentObject != null) {
-            currentObject = currentObject.getNextLruObject();
-            removeTail();
+    public void clear() {
+
+        for (int i = 0; i < m_segments.length; i++) {
+            CmsLruCacheSegment segment = m_segments[i];
+            segment.m_lock.lock();
+            try {
+                segment.clear();
+            } finally {
+                segment.m_lock.unlock();
+            }
         }
-
-        // reset the data structure
-        m_objectCosts = 0;
-        m_objectCount = 0;
-        m_listHead = null;
-        m_listTail = null;
     }
 
     /**
@@ -190,7 +548,37 @@ public class CmsLruCache extends java.lang.Object {
      */
     public int getObjectCosts() {
 
-        return m_objectCosts;
+        int costs = 0;
+        for (int i = 0; i < m_segments.length; i++) {
+            costs += m_segments[i].m_objectCosts;
+        }
+        return costs;
+    }
+
+    /**
+     * Returns the number of segments of this cache.<p>
+     * 
+     * @return the number of segments
+     */
+    public int getSegmentCount() {
+
+        return m_segments.length;
+    }
+
+    /**
+     * Records a read access of a cached object, without blocking the calling thread.<p>
+     * 
+     * In contrast to {@link #touch(I_CmsLruCacheObject)}, the "last-recently-used" state of 
+     * the object is updated later, or not at all if there are too many concurrent accesses.
+     * This should be used for cache hits.<p>
+     * 
+     * @param theCacheObject the object that was read from the cache
+     */
+    public void recordAccess(I_CmsLruCacheObject theCacheObject) {
+
+        if (theCacheObject != null) {
+            getSegment(theCacheObject).recordAccess(theCacheObject);
+        }
     }
 
     /**
@@ -200,45 +588,24 @@ public class CmsLruCache extends java.lang.Object {
      * @param theCacheObject the object being removed from the list of all cached objects
      * @return a reference to the object that was removed
      */
-    public synchronized I_CmsLruCacheObject remove(I_CmsLruCacheObject theCacheObject) {
+    public I_CmsLruCacheObject remove(I_CmsLruCacheObject theCacheObject) {
 
-        if (!isCached(theCacheObject)) {
-            // theCacheObject is null or not inside the cache
+        if (theCacheObject == null) {
             return null;
         }
 
-        // set the list pointers correct
-        if (theCacheObject.getNextLruObject() == null) {
-            // remove the object from the head pos.
-            I_CmsLruCacheObject newHead = theCacheObject.getPreviousLruObject();
-
-            if (newHead != null) {
-                // if newHead is null, theCacheObject 
-                // was the only object in the cache
-                newHead.setNextLruObject(null);
+        CmsLruCacheSegment segment = getSegment(theCacheObject);
+        segment.m_lock.lock();
+        try {
+            if (!segment.isCached(theCacheObject)) {
+                // theCacheObject is not inside the cache
+                return null;
             }
-
-            m_listHead = newHead;
-        } else if (theCacheObject.getPreviousLruObject() == null) {
-            // remove the object from the tail pos.
-            I_CmsLruCacheObject newTail = theCacheObject.getNextLruObject();
-
-            if (newTail != null) {
-                // if newTail is null, theCacheObject 
-                // was the only object in the cache                
-                newTail.setPreviousLruObject(null);
-            }
-
-            m_listTail = newTail;
-        } else {
-            // remove the object from within the list
-            theCacheObject.getPreviousLruObject().setNextLruObject(theCacheObject.getNextLruObject());
-            theCacheObject.getNextLruObject().setPreviousLruObject(theCacheObject.getPreviousLruObject());
+            segment.remove(theCacheObject);
+        } finally {
+            segment.m_lock.unlock();
         }
 
-        // update cache stats. and notify the cached object
-        decreaseCache(theCacheObject);
-
         return theCacheObject;
     }
 
@@ -249,7 +616,11 @@ public class CmsLruCache extends java.lang.Object {
      */
     public int size() {
 
-        return m_objectCount;
+        int count = 0;
+        for (int i = 0; i < m_segments.length; i++) {
+            count += m_segments[i].m_objectCount;
+        }
+        return count;
     }
 
     /**
@@ -264,8 +635,9 @@ public class CmsLruCache extends java.lang.Object {
         buf.append("max. costs: " + m_maxCacheCosts).append(", ");
         buf.append("avg. costs: " + m_avgCacheCosts).append(", ");
         buf.append("max. costs/object: " + m_maxObjectCosts).append(", ");
-        buf.append("costs: " + m_objectCosts).append(", ");
-        buf.append("count: " + m_objectCount);
+        buf.append("costs: " + getObjectCosts()).append(", ");
+        buf.append("count: " + size()).append(", ");
+        buf.append("segments: " + m_segments.length);
         return buf.toString();
     }
 
@@ -276,191 +648,70 @@ public class CmsLruCache extends java.lang.Object {
      * @param theCacheObject the object being touched
      * @return true if an object was found and touched
      */
-    public synchronized boolean touch(I_CmsLruCacheObject theCacheObject) {
+    public boolean touch(I_CmsLruCacheObject theCacheObject) {
 
-        if (!isCached(theCacheObject)) {
+        if (theCacheObject == null) {
             return false;
         }
 
-        // only objects with cache costs < the max. allowed object cache costs can be cached!
-        if ((m_maxObjectCosts != -1) && (theCacheObject.getLruCacheCosts() > m_maxObjectCosts)) {
-            if (LOG.isInfoEnabled()) {
-                LOG.info(Messages.get().getBundle().key(
-                    Messages.LOG_CACHE_COSTS_TOO_HIGH_2,
-                    new Integer(theCacheObject.getLruCacheCosts()),
-                    new Integer(m_maxObjectCosts)));
+        CmsLruCacheSegment segment = getSegment(theCacheObject);
+        segment.m_lock.lock();
+        try {
+            if (!segment.isCached(theCacheObject)) {
+                return false;
             }
-            remove(theCacheObject);
-            return false;
-        }
 
-        // set the list pointers correct
-        I_CmsLruCacheObject nextObj = theCacheObject.getNextLruObject();
-        if (nextObj == null) {
-            // case 1: the object is already at the head pos.
-            return true;
-        }
-        I_CmsLruCacheObject prevObj = theCacheObject.getPreviousLruObject();
-        if (prevObj == null) {
-            // case 2: the object at the tail pos., remove it from the tail to put it to the front as the new head
-            I_CmsLruCacheObject newTail = nextObj;
-            newTail.setPreviousLruObject(null);
-            m_listTail = newTail;
-        } else {
-            // case 3: the object is somewhere within the list, remove it to put it the front as the new head
-            prevObj.setNextLruObject(nextObj);
-            nextObj.setPreviousLruObject(prevObj);
-        }
+            // only objects with cache costs < the max. allowed object cache costs can be cached!
+            if (isTooExpensive(theCacheObject)) {
+                segment.remove(theCacheObject);
+                return false;
+            }
 
-        // set the touched object as the new head in the linked list:
-        I_CmsLruCacheObject oldHead = m_listHead;
-        if (oldHead != null) {
-            oldHead.setNextLruObject(theCacheObject);
-            theCacheObject.setNextLruObject(null);
-            theCacheObject.setPreviousLruObject(oldHead);
+            segment.moveToHead(theCacheObject);
+        } finally {
+            segment.m_lock.unlock();
         }
-        m_listHead = theCacheObject;
 
         return true;
     }
 
     /**
-     * Adds a cache object as the new haed to the list of all cached objects in this cache.<p>
-     *
-     * @param theCacheObject the object being added as the new head to the list of all cached objects
+     * Returns the segment an object is stored in.<p>
+     * 
+     * @param theCacheObject the object
+     * 
+     * @return the segment for the object
      */
-    private void addHead(I_CmsLruCacheObject theCacheObject) {
+    private CmsLruCacheSegment getSegment(I_CmsLruCacheObject theCacheObject) {
 
-        // set the list pointers correct
-        if (m_objectCount > 0) {
-            // there is at least 1 object already in the list
-            I_CmsLruCacheObject oldHead = m_listHead;
-            oldHead.setNextLruObject(theCacheObject);
-            theCacheObject.setPreviousLruObject(oldHead);
-            m_listHead = theCacheObject;
-        } else {
-            // it is the first object to be added to the list
-            m_listTail = theCacheObject;
-            m_listHead = theCacheObject;
-            theCacheObject.setPreviousLruObject(null);
+        if (m_segments.length == 1) {
+            return m_segments[0];
         }
-        theCacheObject.setNextLruObject(null);
-
-        // update cache stats. and notify the cached object
-        increaseCache(theCacheObject);
-    }
-
-    /**
-     * Decrease this caches statistics
-     * and notify the cached object that it was removed from this cache.<p>
-     *
-     * @param theCacheObject the object being notified that it was removed from the cache
-     */
-    private void decreaseCache(I_CmsLruCacheObject theCacheObject) {
-
-        // notify the object that it was now removed from the cache
-        //theCacheObject.notify();
-        theCacheObject.removeFromLruCache();
-
-        // set the list pointers to null
-        theCacheObject.setNextLruObject(null);
-        theCacheObject.setPreviousLruObject(null);
-
-        // update the cache stats.
-        m_objectCosts -= theCacheObject.getLruCacheCosts();
-        m_objectCount--;
+        int hash = System.identityHashCode(theCacheObject);
+        // spread the higher bits, since the identity hash codes are not always well distributed
+        hash ^= (hash >>> 16);
+        hash ^= (hash >>> 7);
+        return m_segments[hash & (m_segments.length - 1)];
     }
 
     /**
-     * Removes the last recently used objects from the list of all cached objects as long
-     * as the costs of all cached objects are higher than the allowed avg. costs of the cache.<p>
+     * Checks if the costs of an object are higher than the max. allowed costs per object.<p>
+     * 
+     * @param theCacheObject the object to check
+     * 
+     * @return <code>true</code> if the object must not be cached
      */
-    private void gc() {
+    private boolean isTooExpensive(I_CmsLruCacheObject theCacheObject) {
 
-        I_CmsLruCacheObject currentObject = m_listTail;
-        while (currentObject != null) {
-            if (m_objectCosts < m_avgCacheCosts) {
-                break;
+        if ((m_maxObjectCosts != -1) && (theCacheObject.getLruCacheCosts() > m_maxObjectCosts)) {
+            if (LOG.isInfoEnabled()) {
+                LOG.info(Messages.get().getBundle().key(
+                    Messages.LOG_CACHE_COSTS_TOO_HIGH_2,
+                    new Integer(theCacheObject.getLruCacheCosts()),
+                    new Integer(m_maxObjectCosts)));
             }
-            currentObject = currentObject.getNextLruObject();
-            removeTail();
-        }
-    }
-
-    /**
-     * Increase this caches statistics 
-     * and notify the cached object that it was added to this cache.<p>
-     *
-     * @param theCacheObject the object being notified that it was added to the cache
-     */
-    private void increaseCache(I_CmsLruCacheObject theCacheObject) {
-
-        // notify the object that it was now added to the cache
-        //theCacheObject.notify();
-        theCacheObject.addToLruCache();
-
-        // update the cache stats.
-        m_objectCosts += theCacheObject.getLruCacheCosts();
-        m_objectCount++;
-    }
-
-    /**
-     * Test if a given object resides inside the cache.<p>
-     *
-     * @param theCacheObject the object to test 
-     * @return true if the object is inside the cache, false otherwise
-     */
-    private boolean isCached(I_CmsLruCacheObject theCacheObject) {
-
-        if ((theCacheObject == null) || (m_objectCount == 0)) {
-            // the cache is empty or the object is null (which is never cached)
-            return false;
-        }
-
-        I_CmsLruCacheObject nextObj = theCacheObject.getNextLruObject();
-        I_CmsLruCacheObject prevObj = theCacheObject.getPreviousLruObject();
-
-        if ((nextObj != null) || (prevObj != null)) {
-            // the object has either a predecessor or successor in the linked 
-            // list of all cached objects, so it is inside the cache
             return true;
         }
-
-        // both nextObj and preObj are null
-        if ((m_objectCount == 1)
-            && (m_listHead != null)
-            && (m_listTail != null)
-            && m_listHead.equals(theCacheObject)
-            && m_listTail.equals(theCacheObject)) {
-            // the object is the one and only object in the cache
-            return true;
-        }
-
         return false;
     }
-
-    /**
-     * Removes the tailing object from the list of all cached objects.<p>
-     */
-    private synchronized void removeTail() {
-
-        I_CmsLruCacheObject oldTail = m_listTail;
-        if (oldTail != null) {
-            I_CmsLruCacheObject newTail = oldTail.getNextLruObject();
-
-            // set the list pointers correct
-            if (newTail != null) {
-                // there are still objects remaining in the list
-                newTail.setPreviousLruObject(null);
-                m_listTail = newTail;
-            } else {
-                // we removed the last object from the list
-                m_listTail = null;
-                m_listHead = null;
-            }
-
-            // update cache stats. and notify the cached object
-            decreaseCache(oldTail);
-        }
-    }
-}
\ No newline at end of file
+}
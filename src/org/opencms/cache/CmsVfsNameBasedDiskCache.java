@@ -76,13 +76,8 @@ public class CmsVfsNameBasedDiskCache {
     public byte[] getCacheContent(String rfsName) {
 
         try {
-            File f = new File(rfsName);
-            if (f.exists()) {
-                long age = f.lastModified();
-                if ((System.currentTimeMillis() - age) > 3600000) {
-                    // file has not been touched for 1 hour, touch the file with the current date
-                    f.setLastModified(System.currentTimeMillis());
-                }
+            File f = getCacheFile(rfsName);
+            if (f != null) {
                 return CmsFileUtil.readFile(f);
             }
         } catch (IOException e) {
@@ -91,6 +86,30 @@ public class CmsVfsNameBasedDiskCache {
         return null;
     }
 
+    /**
+     * Returns the cache file for the given RFS name, or <code>null</code> if no such file exists in the cache.<p>
+     * 
+     * This allows the cached content to be delivered directly from the file system
+     * without reading it into memory first.<p>
+     * 
+     * @param rfsName the RFS name of the cache file
+     * 
+     * @return the cache file for the given RFS name, or <code>null</code>
+     */
+    public File getCacheFile(String rfsName) {
+
+        File f = new File(rfsName);
+        if (f.exists()) {
+            long age = f.lastModified();
+            if ((System.currentTimeMillis() - age) > 3600000) {
+                // file has not been touched for 1 hour, touch the file with the current date
+                f.setLastModified(System.currentTimeMillis());
+            }
+            return f;
+        }
+        return null;
+    }
+
     /**
      * Returns the RFS name to use for caching the given VFS resource with parameters in the disk cache.<p>  
      * 
@@ -58,6 +58,15 @@ import org.dom4j.Element;
  */
 public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
 
+    /** The "connectionsperhost" attribute. */
+    public static final String A_CONNECTIONS_PER_HOST = "connectionsperhost";
+
+    /** The "retries" attribute. */
+    public static final String A_RETRIES = "retries";
+
+    /** The "threads" attribute. */
+    public static final String A_THREADS = "threads";
+
     /** The name of the DTD for this configuration. */
     public static final String CONFIGURATION_DTD_NAME = "opencms-importexport.dtd";
 
@@ -223,6 +232,9 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
     /**  The node name of the static export exportworkpath node. */
     public static final String N_STATICEXPORT_EXPORTWORKPATH = "exportworkpath";
 
+    /** Node name for the settings of the parallel export requests. */
+    public static final String N_STATICEXPORT_EXPORTWORKERS = "exportworkers";
+
     /**  The node name of the static export handler node. */
     public static final String N_STATICEXPORT_HANDLER = "staticexporthandler";
 
@@ -502,6 +514,17 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
             + N_STATICEXPORT_RENDERSETTINGS
             + "/"
             + N_STATICEXPORT_TESTRESOURCE, 0, A_URI);
+        // parallel export requests
+        String exportWorkersPath = "*/"
+            + N_STATICEXPORT
+            + "/"
+            + N_STATICEXPORT_RENDERSETTINGS
+            + "/"
+            + N_STATICEXPORT_EXPORTWORKERS;
+        digester.addCallMethod(exportWorkersPath, "setExportWorkers", 3);
+        digester.addCallParam(exportWorkersPath, 0, A_THREADS);
+        digester.addCallParam(exportWorkersPath, 1, A_CONNECTIONS_PER_HOST);
+        digester.addCallParam(exportWorkersPath, 2, A_RETRIES);
         // resources to export rule
         digester.addCallMethod("*/"
             + N_STATICEXPORT
@@ -858,6 +881,14 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
         Element testresourceElement = rendersettingsElement.addElement(N_STATICEXPORT_TESTRESOURCE);
         testresourceElement.addAttribute(A_URI, m_staticExportManager.getTestResource());
 
+        // <exportworkers> node
+        Element exportworkersElement = rendersettingsElement.addElement(N_STATICEXPORT_EXPORTWORKERS);
+        exportworkersElement.addAttribute(A_THREADS, String.valueOf(m_staticExportManager.getExportThreads()));
+        exportworkersElement.addAttribute(
+            A_CONNECTIONS_PER_HOST,
+            String.valueOf(m_staticExportManager.getExportConnectionsPerHost()));
+        exportworkersElement.addAttribute(A_RETRIES, String.valueOf(m_staticExportManager.getExportRetries()));
+
         // <resourcestorender> node and <regx> subnodes
         Element resourcetorenderElement = rendersettingsElement.addElement(N_STATICEXPORT_RESOURCESTORENDER);
 
@@ -172,6 +172,9 @@ public class CmsSearchConfiguration extends A_CmsXmlConfiguration {
     /** Node name constant. */
     public static final String N_MAPPING = "mapping";
 
+    /** Node name constant. */
+    public static final String N_MAX_INDEXING_THREADS = "maxIndexingThreads";
+
     /** Node name constant. */
     public static final String N_MAX_MODIFICATIONS_BEFORE_COMMIT = "maxModificationsBeforeCommit";
 
@@ -263,6 +266,9 @@ public class CmsSearchConfiguration extends A_CmsXmlConfiguration {
             "setMaxModificationsBeforeCommit",
             0);
 
+        // rule for max. number of parallel indexing threads
+        digester.addCallMethod(XPATH_SEARCH + "/" + N_MAX_INDEXING_THREADS, "setMaxIndexingThreads", 0);
+
         // rule for the highlighter to highlight the search terms in the excerpt of the search result
         digester.addCallMethod(XPATH_SEARCH + "/" + N_HIGHLIGHTER, "setHighlighter", 0);
 
@@ -415,6 +421,9 @@ public class CmsSearchConfiguration extends A_CmsXmlConfiguration {
         // add <maxModificationsBeforeCommit> element
         searchElement.addElement(N_MAX_MODIFICATIONS_BEFORE_COMMIT).addText(
             String.valueOf(m_searchManager.getMaxModificationsBeforeCommit()));
+        // add <maxIndexingThreads> element
+        searchElement.addElement(N_MAX_INDEXING_THREADS).addText(
+            String.valueOf(m_searchManager.getMaxIndexingThreads()));
         // add <highlighter> element
         searchElement.addElement(N_HIGHLIGHTER).addText(m_searchManager.getHighlighter().getClass().getName());
 
@@ -40,6 +40,7 @@ import org.opencms.mail.CmsMailSettings;
 import org.opencms.main.CmsContextInfo;
 import org.opencms.main.CmsDefaultSessionStorageProvider;
 import org.opencms.main.CmsEventManager;
+import org.opencms.main.I_CmsEventChannel;
 import org.opencms.main.CmsHttpAuthenticationSettings;
 import org.opencms.main.CmsLog;
 import org.opencms.main.CmsServletContainerSettings;
@@ -87,6 +88,12 @@ import org.dom4j.Element;
  */
 public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
 
+    /** The "blocksize" attribute. */
+    public static final String A_BLOCKSIZE = "blocksize";
+
+    /** The "capacity" attribute. */
+    public static final String A_CAPACITY = "capacity";
+
     /** The attribute name for the deleted node. */
     public static final String A_DELETED = "deleted";
 
@@ -96,6 +103,12 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The "exclusive" attribute. */
     public static final String A_EXCLUSIVE = "exclusive";
 
+    /** The "file" attribute. */
+    public static final String A_FILE = "file";
+
+    /** The "folder" attribute. */
+    public static final String A_FOLDER = "folder";
+
     /** The "maxvisited" attribute. */
     public static final String A_MAXVISITED = "maxvisited";
 
@@ -144,6 +157,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the browser-based node. */
     public static final String N_BROWSER_BASED = "browser-based";
 
+    /** The node name for the cache engine node. */
+    public static final String N_CACHEENGINE = "cacheengine";
+
     /** The node name for the cache-enabled node. */
     public static final String N_CACHE_ENABLED = "cache-enabled";
 
@@ -153,6 +169,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for a job class. */
     public static final String N_CLASS = "class";
 
+    /** The node name for the coalesce-jobs node. */
+    public static final String N_COALESCEJOBS = "coalesce-jobs";
+
     /** The configuration node name. */
     public static final String N_CONFIGURATION = "configuration";
 
@@ -186,6 +205,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the login account lock minutes.  */
     public static final String N_DISABLEMINUTES = "disableMinutes";
 
+    /** The node name for the persistent Flex cache store. */
+    public static final String N_DISKSTORE = "disk-store";
+
     /** The node name for the sitemap cache for documents. */
     public static final String N_DOCUMENTS = "documents";
 
@@ -207,6 +229,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the context encoding. */
     public static final String N_ENCODING = "encoding";
 
+    /** The node name for the event channel. */
+    public static final String N_EVENTCHANNEL = "eventchannel";
+
     /** The node name for the request handler classes. */
     public static final String N_EVENTMANAGER = "eventmanager";
 
@@ -243,6 +268,12 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the internationalization node. */
     public static final String N_I18N = "internationalization";
 
+    /** The node name for the interactive-job-size node. */
+    public static final String N_INTERACTIVEJOBSIZE = "interactive-job-size";
+
+    /** The node name for the interactive-role node. */
+    public static final String N_INTERACTIVEROLE = "interactive-role";
+
     /** The node name for a job. */
     public static final String N_JOB = "job";
 
@@ -309,6 +340,12 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The duration after which responsibles will be notified about out-dated content. */
     public static final String N_NOTIFICATION_TIME = "notification-time";
 
+    /** The node name for the off-heap storage of the flexcache. */
+    public static final String N_OFFHEAPSTORAGE = "offheap-storage";
+
+    /** The node name for the maximum number of publish jobs running in parallel. */
+    public static final String N_PARALLELJOBS = "parallel-jobs";
+
     /** The node name for the job parameters. */
     public static final String N_PARAMETERS = "parameters";
 
@@ -330,6 +367,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the "publishhistory" section. */
     public static final String N_PUBLISHMANAGER = "publishmanager";
 
+    /** The node name for the number of threads used to publish the files of a publish job. */
+    public static final String N_PUBLISHTHREADS = "publish-threads";
+
     /** The node name for the "publishhistory" section. */
     public static final String N_QUEUEPERSISTANCE = "queue-persistance";
 
@@ -495,6 +535,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the workplace-server node. */
     public static final String N_WORKPLACE_SERVER = "workplace-server";
 
+    /** The node name for the xmlcontents node. */
+    public static final String N_XMLCONTENTS = "xmlcontents";
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsSystemConfiguration.class);
 
@@ -525,6 +568,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The default content encoding. */
     private String m_defaultContentEncoding;
 
+    /** The configured channel for exchanging events with other cluster nodes. */
+    private I_CmsEventChannel m_eventChannel;
+
     /** The configured OpenCms event manager. */
     private CmsEventManager m_eventManager;
 
@@ -863,6 +909,16 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         digester.addCallMethod("*/" + N_SYSTEM + "/" + N_EVENTS + "/" + N_EVENTMANAGER, "addEventManager", 1);
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_EVENTS + "/" + N_EVENTMANAGER, 0, A_CLASS);
 
+        // add event channel creation rule
+        digester.addObjectCreate(
+            "*/" + N_SYSTEM + "/" + N_EVENTS + "/" + N_EVENTCHANNEL,
+            A_CLASS,
+            CmsConfigurationException.class);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_EVENTS + "/" + N_EVENTCHANNEL,
+            I_CmsConfigurationParameterHandler.INIT_CONFIGURATION_METHOD);
+        digester.addSetNext("*/" + N_SYSTEM + "/" + N_EVENTS + "/" + N_EVENTCHANNEL, "setEventChannel");
+
         // add resource init classes
         digester.addCallMethod(
             "*/" + N_SYSTEM + "/" + N_RESOURCEINIT + "/" + N_RESOURCEINITHANDLER,
@@ -996,6 +1052,14 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
             "setDeviceSelectorConfiguration",
             1);
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_DEVICESELECTOR, 0, A_CLASS);
+        // add flexcache off-heap storage
+        digester.addCallMethod("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_OFFHEAPSTORAGE, "setOffHeapStorage", 4);
+        digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_OFFHEAPSTORAGE, 0, A_MODE);
+        digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_OFFHEAPSTORAGE, 1, A_CAPACITY);
+        digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_OFFHEAPSTORAGE, 2, A_BLOCKSIZE);
+        digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_OFFHEAPSTORAGE, 3, A_FILE);
+        digester.addCallMethod("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_DISKSTORE, "setDiskStore", 1);
+        digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_DISKSTORE, 0, A_FOLDER);
 
         // set the FlexCacheConfiguration initialized once before
         digester.addSetNext("*/" + N_SYSTEM + "/" + N_FLEXCACHE, "setCmsFlexCacheConfiguration");
@@ -1015,6 +1079,14 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         // cache rules
         digester.addObjectCreate("*/" + N_SYSTEM + "/" + N_RESULTCACHE, CmsCacheSettings.class);
         digester.addCallMethod("*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_KEYGENERATOR, "setCacheKeyGenerator", 0);
+        digester.addObjectCreate(
+            "*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_CACHEENGINE,
+            A_CLASS,
+            CmsConfigurationException.class);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_CACHEENGINE,
+            I_CmsConfigurationParameterHandler.INIT_CONFIGURATION_METHOD);
+        digester.addSetNext("*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_CACHEENGINE, "setCacheEngine");
         digester.addCallMethod("*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_SIZE_USERS, "setUserCacheSize", 0);
         digester.addCallMethod("*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_SIZE_GROUPS, "setGroupCacheSize", 0);
         digester.addCallMethod("*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_SIZE_ORGUNITS, "setOrgUnitCacheSize", 0);
@@ -1091,6 +1163,26 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
             "*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_QUEUESHUTDOWNTIME,
             "setPublishQueueShutdowntime",
             0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_PARALLELJOBS,
+            "setParallelPublishJobs",
+            0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_PUBLISHTHREADS,
+            "setPublishThreads",
+            0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_INTERACTIVEJOBSIZE,
+            "setInteractiveJobSize",
+            0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_INTERACTIVEROLE,
+            "setInteractiveRole",
+            0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_COALESCEJOBS,
+            "setCoalescePublishJobs",
+            0);
         digester.addSetNext("*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER, "setPublishManager");
 
         // add rule for session storage provider
@@ -1130,6 +1222,11 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         digester.addCallParam(adeCachePath + "/" + N_GROUPCONTAINERS, 0, A_OFFLINE);
         digester.addCallMethod(adeCachePath + "/" + N_GROUPCONTAINERS, "setGroupContainerOnlineSize", 1);
         digester.addCallParam(adeCachePath + "/" + N_GROUPCONTAINERS, 0, A_ONLINE);
+
+        digester.addCallMethod(adeCachePath + "/" + N_XMLCONTENTS, "setXmlContentOfflineSize", 1);
+        digester.addCallParam(adeCachePath + "/" + N_XMLCONTENTS, 0, A_OFFLINE);
+        digester.addCallMethod(adeCachePath + "/" + N_XMLCONTENTS, "setXmlContentOnlineSize", 1);
+        digester.addCallParam(adeCachePath + "/" + N_XMLCONTENTS, 0, A_ONLINE);
         // set the settings
         digester.addSetNext(adeCachePath, "setAdeCacheSettings");
 
@@ -1241,6 +1338,14 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         Element eventsElement = systemElement.addElement(N_EVENTS);
         Element eventManagerElement = eventsElement.addElement(N_EVENTMANAGER);
         eventManagerElement.addAttribute(A_CLASS, m_eventManager.getClass().getName());
+        if (m_eventChannel != null) {
+            Element eventChannelElement = eventsElement.addElement(N_EVENTCHANNEL);
+            eventChannelElement.addAttribute(A_CLASS, m_eventChannel.getClass().getName());
+            CmsParameterConfiguration channelParameters = m_eventChannel.getConfiguration();
+            if (channelParameters != null) {
+                channelParameters.appendToXml(eventChannelElement);
+            }
+        }
 
         // version history
         Element historyElement = systemElement.addElement(N_VERSIONHISTORY);
@@ -1437,6 +1542,22 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
                 A_CLASS,
                 m_cmsFlexCacheConfiguration.getDeviceSelectorConfiguration());
         }
+        if (m_cmsFlexCacheConfiguration.getOffHeapMode() != null) {
+            Element offHeapElement = flexcacheElement.addElement(N_OFFHEAPSTORAGE);
+            offHeapElement.addAttribute(A_MODE, m_cmsFlexCacheConfiguration.getOffHeapMode());
+            offHeapElement.addAttribute(A_CAPACITY, String.valueOf(m_cmsFlexCacheConfiguration.getOffHeapCapacity()));
+            offHeapElement.addAttribute(
+                A_BLOCKSIZE,
+                String.valueOf(m_cmsFlexCacheConfiguration.getOffHeapBlockSize()));
+            if (m_cmsFlexCacheConfiguration.getOffHeapFile() != null) {
+                offHeapElement.addAttribute(A_FILE, m_cmsFlexCacheConfiguration.getOffHeapFile());
+            }
+        }
+        if (m_cmsFlexCacheConfiguration.getDiskStoreFolder() != null) {
+            flexcacheElement.addElement(N_DISKSTORE).addAttribute(
+                A_FOLDER,
+                m_cmsFlexCacheConfiguration.getDiskStoreFolder());
+        }
 
         // create <http-authentication> node
         Element httpAuthenticationElement = systemElement.addElement(N_HTTP_AUTHENTICATION);
@@ -1450,6 +1571,14 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         // cache settings
         Element cacheElement = systemElement.addElement(N_RESULTCACHE);
         cacheElement.addElement(N_KEYGENERATOR).setText(m_cacheSettings.getCacheKeyGenerator());
+        if (m_cacheSettings.getCacheEngine() != null) {
+            Element cacheEngineElement = cacheElement.addElement(N_CACHEENGINE);
+            cacheEngineElement.addAttribute(A_CLASS, m_cacheSettings.getCacheEngine().getClass().getName());
+            CmsParameterConfiguration engineParameters = m_cacheSettings.getCacheEngine().getConfiguration();
+            if (engineParameters != null) {
+                engineParameters.appendToXml(cacheEngineElement);
+            }
+        }
         cacheElement.addElement(N_SIZE_USERS).setText(Integer.toString(m_cacheSettings.getUserCacheSize()));
         cacheElement.addElement(N_SIZE_GROUPS).setText(Integer.toString(m_cacheSettings.getGroupCacheSize()));
         if (m_cacheSettings.getConfiguredOrgUnitCacheSize() > -1) {
@@ -1503,6 +1632,19 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
                 String.valueOf(m_publishManager.isPublishQueuePersistanceEnabled()));
             pubHistElement.addElement(N_QUEUESHUTDOWNTIME).setText(
                 String.valueOf(m_publishManager.getPublishQueueShutdowntime()));
+            // optional nodes for parallel publishing
+            pubHistElement.addElement(N_PARALLELJOBS).setText(
+                String.valueOf(m_publishManager.getParallelPublishJobs()));
+            pubHistElement.addElement(N_PUBLISHTHREADS).setText(
+                String.valueOf(m_publishManager.getPublishThreads()));
+            // optional nodes for publish job scheduling
+            pubHistElement.addElement(N_INTERACTIVEJOBSIZE).setText(
+                String.valueOf(m_publishManager.getInteractiveJobSize()));
+            if (m_publishManager.getInteractiveRole() != null) {
+                pubHistElement.addElement(N_INTERACTIVEROLE).setText(m_publishManager.getInteractiveRole());
+            }
+            pubHistElement.addElement(N_COALESCEJOBS).setText(
+                String.valueOf(m_publishManager.isCoalescePublishJobs()));
         }
 
         // session storage provider
@@ -1552,6 +1694,10 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
                 groupContainerCacheElem.addAttribute(A_OFFLINE, ""
                     + getAdeCacheSettings().getGroupContainerOfflineSize());
                 groupContainerCacheElem.addAttribute(A_ONLINE, "" + getAdeCacheSettings().getGroupContainerOnlineSize());
+
+                Element xmlContentCacheElem = cacheElem.addElement(N_XMLCONTENTS);
+                xmlContentCacheElem.addAttribute(A_OFFLINE, "" + getAdeCacheSettings().getXmlContentOfflineSize());
+                xmlContentCacheElem.addAttribute(A_ONLINE, "" + getAdeCacheSettings().getXmlContentOnlineSize());
             }
         }
 
@@ -1687,6 +1833,16 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         return CONFIGURATION_DTD_NAME;
     }
 
+    /**
+     * Returns the configured channel for exchanging events with other cluster nodes.<p>
+     * 
+     * @return the configured event channel, or <code>null</code> if no event channel is configured
+     */
+    public I_CmsEventChannel getEventChannel() {
+
+        return m_eventChannel;
+    }
+
     /**
      * Returns the configured OpenCms event manager instance.<p>
      * 
@@ -2281,6 +2437,16 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         }
     }
 
+    /**
+     * Sets the channel for exchanging events with other cluster nodes.<p>
+     * 
+     * @param eventChannel the event channel to set
+     */
+    public void setEventChannel(I_CmsEventChannel eventChannel) {
+
+        m_eventChannel = eventChannel;
+    }
+
     /**
      * Sets the password handler class.<p>
      * 
@@ -0,0 +1,146 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.util.CmsUUID;
+
+/**
+ * Immutable key for the access control list cache of the driver manager.<p>
+ * 
+ * The key holds a reference to the structure id of the resource together with the depth 
+ * and a few bit flags, the hash code is calculated once in the constructor.<p>
+ * 
+ * @since 8.5.2
+ */
+public final class CmsAccessControlListCacheKey {
+
+    /** Flag indicating the access control list is read for a folder. */
+    public static final int FLAG_FOR_FOLDER = 1;
+
+    /** Flag indicating only the inherited entries are collected. */
+    public static final int FLAG_INHERITED_ONLY = 2;
+
+    /** Flag indicating the online project is used. */
+    public static final int FLAG_ONLINE = 4;
+
+    /** The depth of the resource relative to the resource the access control list was requested for. */
+    private final int m_depth;
+
+    /** The flags of this key. */
+    private final int m_flags;
+
+    /** The precalculated hash code. */
+    private final int m_hashCode;
+
+    /** The structure id of the resource. */
+    private final CmsUUID m_structureId;
+
+    /**
+     * Creates a new access control list cache key.<p>
+     * 
+     * @param structureId the structure id of the resource
+     * @param depth the depth of the resource relative to the resource the access control list was requested for
+     * @param flags the flags, a combination of the <code>FLAG_*</code> constants
+     */
+    public CmsAccessControlListCacheKey(CmsUUID structureId, int depth, int flags) {
+
+        m_structureId = structureId;
+        m_depth = depth;
+        m_flags = flags;
+        int hash = m_structureId.hashCode();
+        hash = (31 * hash) + m_depth;
+        m_hashCode = (31 * hash) + m_flags;
+    }
+
+    /**
+     * Returns the flags for the given parameters.<p>
+     * 
+     * @param inheritedOnly if only the inherited entries are collected
+     * @param forFolder if the access control list is read for a folder
+     * @param online if the online project is used
+     * 
+     * @return the flags
+     */
+    public static int getFlags(boolean inheritedOnly, boolean forFolder, boolean online) {
+
+        int flags = 0;
+        if (inheritedOnly) {
+            flags |= FLAG_INHERITED_ONLY;
+        }
+        if (forFolder) {
+            flags |= FLAG_FOR_FOLDER;
+        }
+        if (online) {
+            flags |= FLAG_ONLINE;
+        }
+        return flags;
+    }
+
+    /**
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof CmsAccessControlListCacheKey)) {
+            return false;
+        }
+        CmsAccessControlListCacheKey other = (CmsAccessControlListCacheKey)obj;
+        return (m_hashCode == other.m_hashCode)
+            && (m_flags == other.m_flags)
+            && (m_depth == other.m_depth)
+            && m_structureId.equals(other.m_structureId);
+    }
+
+    /**
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+
+        return m_hashCode;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        StringBuffer result = new StringBuffer(64);
+        result.append(m_flags);
+        result.append('_');
+        result.append(m_depth);
+        result.append('_');
+        result.append(m_structureId);
+        return result.toString();
+    }
+}
@@ -37,7 +37,7 @@ import org.opencms.security.CmsPermissionSet;
  * 
  * @since 6.0.0
  */
-public class CmsCacheKey implements I_CmsCacheKey {
+public class CmsCacheKey implements I_CmsCacheKey, I_CmsPermissionCacheKeyGenerator {
 
     /** Cache key for a list of sub-resources (files and folders) of a folder. */
     public static final String CACHE_KEY_SUBALL = "_all_";
@@ -48,6 +48,9 @@ public class CmsCacheKey implements I_CmsCacheKey {
     /** Cache key for a list of sub-folders of a folder. */
     public static final String CACHE_KEY_SUBFOLDERS = "_folders_";
 
+    /** Separator between the parts of a String cache key. */
+    private static final String SEPARATOR = "_";
+
     /**
      * Constructor to create a new instance of CmsCacheKey.<p>
      */
@@ -64,11 +67,27 @@ public class CmsCacheKey implements I_CmsCacheKey {
         if (!context.getProjectId().isNullUUID()) {
             return "";
         }
-        StringBuffer cacheBuffer = new StringBuffer(64);
-        cacheBuffer.append(prefix);
-        cacheBuffer.append('_');
-        cacheBuffer.append(group.getName());
-        return cacheBuffer.toString();
+        return prefix.concat(SEPARATOR).concat(group.getName());
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsPermissionCacheKeyGenerator#getCacheKeyForPermissions(boolean, boolean, org.opencms.db.CmsDbContext, org.opencms.file.CmsResource, org.opencms.security.CmsPermissionSet)
+     */
+    public Object getCacheKeyForPermissions(
+        boolean requireVisible,
+        boolean checkLock,
+        CmsDbContext context,
+        CmsResource resource,
+        CmsPermissionSet requiredPermissions) {
+
+        if (!context.getProjectId().isNullUUID()) {
+            return null;
+        }
+        return new CmsPermissionCacheKey(
+            context.currentUser().getId(),
+            resource.getStructureId(),
+            requiredPermissions,
+            CmsPermissionCacheKey.getFlags(requireVisible, checkLock, context.currentProject().isOnlineProject()));
     }
 
     /**
@@ -79,11 +98,7 @@ public class CmsCacheKey implements I_CmsCacheKey {
         if (!context.getProjectId().isNullUUID()) {
             return "";
         }
-        StringBuffer cacheBuffer = new StringBuffer(64);
-        cacheBuffer.append(prefix);
-        cacheBuffer.append('_');
-        cacheBuffer.append(user.getName());
-        return cacheBuffer.toString();
+        return prefix.concat(SEPARATOR).concat(user.getName());
     }
 
     /**
@@ -27,6 +27,8 @@
 
 package org.opencms.db;
 
+import org.opencms.monitor.I_CmsCacheEngine;
+
 /**
  * The settings of the OpenCms memory monitor.<p>
  * 
@@ -37,6 +39,9 @@ public class CmsCacheSettings {
     /** The size of the memory monitor's cache for ACLs. */
     private int m_aclCacheSize;
 
+    /** The engine creating the memory monitor's caches. */
+    private I_CmsCacheEngine m_cacheEngine;
+
     /** The name of the class to generate cache keys. */
     private String m_cacheKeyGenerator;
 
@@ -94,6 +99,16 @@ public class CmsCacheSettings {
         return m_aclCacheSize;
     }
 
+    /**
+     * Returns the engine creating the memory monitor's caches.<p>
+     *
+     * @return the cache engine, or <code>null</code> if the default cache engine is used
+     */
+    public I_CmsCacheEngine getCacheEngine() {
+
+        return m_cacheEngine;
+    }
+
     /**
      * Returns the name of the class to generate cache keys.<p>
      *
@@ -294,6 +309,16 @@ public class CmsCacheSettings {
         m_aclCacheSize = getIntValue(size, 1024);
     }
 
+    /**
+     * Sets the engine creating the memory monitor's caches.<p>
+     *
+     * @param cacheEngine the cache engine
+     */
+    public void setCacheEngine(I_CmsCacheEngine cacheEngine) {
+
+        m_cacheEngine = cacheEngine;
+    }
+
     /**
      * Sets the name of the class to generate cache keys.<p>
      *
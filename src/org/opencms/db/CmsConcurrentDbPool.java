@@ -0,0 +1,530 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.main.CmsLog;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.dbcp.ConnectionFactory;
+import org.apache.commons.dbcp.DriverManagerConnectionFactory;
+import org.apache.commons.logging.Log;
+
+/**
+ * Connection pool with low lock contention and leak detection.<p>
+ * 
+ * The number of connections in use is limited by a semaphore, idle connections are kept in a 
+ * non-blocking queue, so getting and returning a connection does not need a pool wide lock.<p>
+ * 
+ * To use this pool, set <code>db.pool.&lt;name&gt;.class=org.opencms.db.CmsConcurrentDbPool</code>
+ * in <code>opencms.properties</code>. The pool supports the following parameters of the pool configuration:
+ * <ul>
+ * <li><code>jdbcDriver</code>, <code>jdbcUrl</code>, <code>jdbcUrl.params</code>, <code>user</code>, 
+ *     <code>password</code>, <code>poolUrl</code>: as for the DBCP pool</li>
+ * <li><code>maxActive</code>: the maximum number of connections in use, default is 10</li>
+ * <li><code>maxIdle</code>: the maximum number of idle connections kept open, default is 5</li>
+ * <li><code>maxWait</code>: the maximum time in milliseconds to wait for a connection, 
+ *     a negative value waits without limit, default is 2000</li>
+ * <li><code>whenExhaustedAction</code>: with <code>fail</code> the pool does not wait for a connection, 
+ *     <code>grow</code> is not supported and treated like <code>block</code></li>
+ * <li><code>minEvictableIdleTime</code>: idle connections older than this time in milliseconds are closed 
+ *     instead of reused, default is 1800000</li>
+ * <li><code>testOnBorrow</code>, <code>testQuery</code>: if set, idle connections are tested with the query
+ *     before they are reused</li>
+ * <li><code>leakThreshold</code>: connections not returned after this time in milliseconds are reported as 
+ *     leaked, together with the stack trace of the code that took them from the pool. 
+ *     Default is 0, which disables the leak detection</li>
+ * </ul>
+ * 
+ * Prepared statements are not pooled by this implementation.<p>
+ * 
+ * @since 8.5.2 
+ */
+public class CmsConcurrentDbPool implements I_CmsDbPool {
+
+    /**
+     * Invocation handler for the connections lent by the pool.<p>
+     * 
+     * Closing the connection returns the underlying connection to the pool.<p>
+     */
+    private class CmsPooledConnection implements InvocationHandler {
+
+        /** The time the connection has been taken from the pool. */
+        private long m_borrowTime;
+
+        /** Flag indicating if the connection has been returned to the pool. */
+        private AtomicBoolean m_closed;
+
+        /** The underlying connection. */
+        private Connection m_connection;
+
+        /** Flag indicating if the connection has already been reported as leaked. */
+        private boolean m_leakReported;
+
+        /** The stack trace of the code that took the connection from the pool, only set with leak detection. */
+        private Throwable m_stack;
+
+        /** The name of the thread that took the connection from the pool. */
+        private String m_thread;
+
+        /**
+         * Creates a new pooled connection.<p>
+         * 
+         * @param connection the underlying connection
+         */
+        CmsPooledConnection(Connection connection) {
+
+            m_connection = connection;
+            m_closed = new AtomicBoolean();
+            m_borrowTime = System.currentTimeMillis();
+            m_thread = Thread.currentThread().getName();
+            if (m_leakThreshold > 0) {
+                m_stack = new Throwable();
+            }
+        }
+
+        /**
+         * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.Object[])
+         */
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+            String name = method.getName();
+            if ("close".equals(name)) {
+                if (m_closed.compareAndSet(false, true)) {
+                    release(this);
+                }
+                return null;
+            } else if ("isClosed".equals(name)) {
+                return Boolean.valueOf(m_closed.get() || m_connection.isClosed());
+            } else if ("equals".equals(name)) {
+                return Boolean.valueOf(proxy == args[0]);
+            } else if ("hashCode".equals(name)) {
+                return new Integer(System.identityHashCode(proxy));
+            } else if ("toString".equals(name)) {
+                return m_poolUrl + ": " + m_connection;
+            }
+            if (m_closed.get()) {
+                throw new SQLException(Messages.get().getBundle().key(Messages.ERR_CONNECTION_CLOSED_0));
+            }
+            try {
+                return method.invoke(m_connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+
+    /**
+     * An idle connection in the pool.<p>
+     */
+    private static class CmsIdleConnection {
+
+        /** The connection. */
+        Connection m_connection;
+
+        /** The time the connection has been returned to the pool. */
+        long m_idleSince;
+
+        /**
+         * Creates a new idle connection entry.<p>
+         * 
+         * @param connection the connection
+         */
+        CmsIdleConnection(Connection connection) {
+
+            m_connection = connection;
+            m_idleSince = System.currentTimeMillis();
+        }
+    }
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsConcurrentDbPool.class);
+
+    /** The connections currently in use. */
+    private Map<CmsPooledConnection, Boolean> m_active;
+
+    /** Flag indicating if the pool has been closed. */
+    private volatile boolean m_closed;
+
+    /** The factory for the physical connections. */
+    private ConnectionFactory m_connectionFactory;
+
+    /** The idle connections. */
+    private Queue<CmsIdleConnection> m_idle;
+
+    /** The number of idle connections, maintained separately since the size of the queue is expensive. */
+    private AtomicInteger m_idleCount;
+
+    /** The time in milliseconds after which a connection is reported as leaked, 0 to disable the detection. */
+    private long m_leakThreshold;
+
+    /** The timer checking for leaked connections. */
+    private Timer m_leakTimer;
+
+    /** The maximum number of idle connections. */
+    private int m_maxIdle;
+
+    /** The maximum time to wait for a connection in milliseconds. */
+    private long m_maxWait;
+
+    /** The time in milliseconds after which an idle connection is closed. */
+    private long m_minEvictableIdleTime;
+
+    /** The permits for the connections in use. */
+    private Semaphore m_permits;
+
+    /** The URL of the pool. */
+    private String m_poolUrl;
+
+    /** The usage statistics. */
+    private CmsDbPoolStatistics m_statistics;
+
+    /** The query to test idle connections with before they are reused. */
+    private String m_testQuery;
+
+    /**
+     * @see org.opencms.db.I_CmsDbPool#close()
+     */
+    public void close() {
+
+        m_closed = true;
+        if (m_leakTimer != null) {
+            m_leakTimer.cancel();
+        }
+        closeIdleConnections();
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsDbPool#getConnection()
+     */
+    public Connection getConnection() throws SQLException {
+
+        long start = System.nanoTime();
+        if (m_closed) {
+            throw new SQLException(Messages.get().getBundle().key(Messages.ERR_POOL_CLOSED_1, m_poolUrl));
+        }
+        try {
+            if (m_maxWait < 0) {
+                m_permits.acquire();
+            } else if (!m_permits.tryAcquire(m_maxWait, TimeUnit.MILLISECONDS)) {
+                m_statistics.addTimeout();
+                throw new SQLException(Messages.get().getBundle().key(
+                    Messages.ERR_POOL_EXHAUSTED_2,
+                    m_poolUrl,
+                    new Long(m_maxWait)));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException(Messages.get().getBundle().key(Messages.ERR_POOL_INTERRUPTED_1, m_poolUrl), e);
+        }
+        CmsPooledConnection pooled;
+        try {
+            Connection con = takeIdleConnection();
+            if (con == null) {
+                con = m_connectionFactory.createConnection();
+            }
+            pooled = new CmsPooledConnection(con);
+        } catch (SQLException e) {
+            m_permits.release();
+            throw e;
+        } catch (RuntimeException e) {
+            m_permits.release();
+            throw e;
+        }
+        m_active.put(pooled, Boolean.TRUE);
+        m_statistics.addBorrow(System.nanoTime() - start);
+        return (Connection)Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] {Connection.class},
+            pooled);
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsDbPool#getNumActive()
+     */
+    public int getNumActive() {
+
+        return m_active.size();
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsDbPool#getNumIdle()
+     */
+    public int getNumIdle() {
+
+        return m_idleCount.get();
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsDbPool#getPoolUrl()
+     */
+    public String getPoolUrl() {
+
+        return m_poolUrl;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsDbPool#getStatistics()
+     */
+    public CmsDbPoolStatistics getStatistics() {
+
+        return m_statistics;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsDbPool#initialize(org.opencms.configuration.CmsParameterConfiguration, java.lang.String)
+     */
+    public void initialize(CmsParameterConfiguration config, String key) throws Exception {
+
+        String prefix = CmsDbPool.KEY_DATABASE_POOL + '.' + key + '.';
+        String jdbcDriver = config.get(prefix + CmsDbPool.KEY_JDBC_DRIVER);
+        String jdbcUrl = config.get(prefix + CmsDbPool.KEY_JDBC_URL);
+        String jdbcUrlParams = config.get(prefix + CmsDbPool.KEY_JDBC_URL_PARAMS);
+        String username = config.getString(prefix + CmsDbPool.KEY_USERNAME, "");
+        String password = config.getString(prefix + CmsDbPool.KEY_PASSWORD, "");
+        String poolUrl = config.get(prefix + CmsDbPool.KEY_POOL_URL);
+        int maxActive = config.getInteger(prefix + CmsDbPool.KEY_MAX_ACTIVE, 10);
+        int maxIdle = config.getInteger(prefix + CmsDbPool.KEY_MAX_IDLE, 5);
+        long maxWait = config.getInteger(prefix + CmsDbPool.KEY_MAX_WAIT, 2000);
+        if ("fail".equalsIgnoreCase(config.getString(prefix + CmsDbPool.KEY_WHEN_EXHAUSTED_ACTION, "").trim())) {
+            maxWait = 0;
+        }
+        long leakThreshold = config.getInteger(prefix + CmsDbPool.KEY_LEAK_THRESHOLD, 0);
+        int connectionAttempts = config.getInteger(prefix + CmsDbPool.KEY_CONNECT_ATTEMTS, 10);
+        int connectionsWait = config.getInteger(prefix + CmsDbPool.KEY_CONNECT_WAITS, 5000);
+        m_minEvictableIdleTime = config.getInteger(prefix + CmsDbPool.KEY_MIN_EVICTABLE_IDLE_TIME, 1800000);
+        boolean testOnBorrow = Boolean.valueOf(
+            config.getString(prefix + CmsDbPool.KEY_TEST_ON_BORROW, "false").trim()).booleanValue();
+        String testQuery = config.get(prefix + CmsDbPool.KEY_TEST_QUERY);
+        if (testOnBorrow && (testQuery != null) && (testQuery.trim().length() > 0)) {
+            m_testQuery = testQuery;
+        }
+        if (jdbcUrlParams != null) {
+            jdbcUrl += jdbcUrlParams;
+        }
+
+        // create an instance of the JDBC driver
+        Class.forName(jdbcDriver).newInstance();
+        ConnectionFactory connectionFactory = new DriverManagerConnectionFactory(jdbcUrl, username, password);
+        initialize(poolUrl, connectionFactory, maxActive, maxIdle, maxWait, leakThreshold);
+        CmsDbPool.testConnection(connectionFactory, poolUrl, jdbcUrl, connectionAttempts, connectionsWait);
+    }
+
+    /**
+     * Checks for connections that are in use longer than the leak threshold and logs them.<p>
+     * 
+     * Each connection is reported only once. Leaked connections are not closed by the pool.<p>
+     */
+    void checkLeaks() {
+
+        long now = System.currentTimeMillis();
+        for (CmsPooledConnection pooled : m_active.keySet()) {
+            long time = now - pooled.m_borrowTime;
+            if (!pooled.m_leakReported && (time > m_leakThreshold)) {
+                pooled.m_leakReported = true;
+                m_statistics.addLeak();
+                LOG.warn(Messages.get().getBundle().key(
+                    Messages.LOG_CONNECTION_LEAK_3,
+                    m_poolUrl,
+                    pooled.m_thread,
+                    new Long(time)), pooled.m_stack);
+            }
+        }
+    }
+
+    /**
+     * Initializes the pool.<p>
+     * 
+     * @param poolUrl the URL of the pool
+     * @param connectionFactory the factory for the physical connections
+     * @param maxActive the maximum number of connections in use
+     * @param maxIdle the maximum number of idle connections
+     * @param maxWait the maximum time to wait for a connection in milliseconds, negative to wait without limit
+     * @param leakThreshold the time in milliseconds after which a connection is reported as leaked, 0 to disable
+     */
+    void initialize(
+        String poolUrl,
+        ConnectionFactory connectionFactory,
+        int maxActive,
+        int maxIdle,
+        long maxWait,
+        long leakThreshold) {
+
+        m_poolUrl = poolUrl;
+        m_connectionFactory = connectionFactory;
+        m_maxIdle = maxIdle;
+        m_maxWait = maxWait;
+        m_leakThreshold = leakThreshold;
+        m_permits = new Semaphore(maxActive, true);
+        m_active = new ConcurrentHashMap<CmsPooledConnection, Boolean>(maxActive * 2);
+        m_idle = new ConcurrentLinkedQueue<CmsIdleConnection>();
+        m_idleCount = new AtomicInteger();
+        m_statistics = new CmsDbPoolStatistics();
+        if (leakThreshold > 0) {
+            long period = Math.max(1000, leakThreshold / 2);
+            m_leakTimer = new Timer("OpenCms DB pool " + poolUrl, true);
+            m_leakTimer.schedule(new TimerTask() {
+
+                @Override
+                public void run() {
+
+                    checkLeaks();
+                }
+            }, period, period);
+        }
+    }
+
+    /**
+     * Closes all idle connections.<p>
+     */
+    private void closeIdleConnections() {
+
+        CmsIdleConnection idle;
+        while ((idle = m_idle.poll()) != null) {
+            m_idleCount.decrementAndGet();
+            destroy(idle.m_connection);
+        }
+    }
+
+    /**
+     * Closes the given physical connection, ignoring errors.<p>
+     * 
+     * @param con the connection to close
+     */
+    private void destroy(Connection con) {
+
+        try {
+            con.close();
+        } catch (SQLException e) {
+            LOG.warn(Messages.get().getBundle().key(Messages.LOG_CLOSE_CONNECTION_FAILED_1, m_poolUrl), e);
+        }
+    }
+
+    /**
+     * Returns a connection to the pool.<p>
+     * 
+     * Uncommitted changes are rolled back, if the pool already has enough idle connections the connection is closed.<p>
+     * 
+     * @param pooled the connection to return
+     */
+    private void release(CmsPooledConnection pooled) {
+
+        m_active.remove(pooled);
+        Connection con = pooled.m_connection;
+        try {
+            if (!m_closed && !con.isClosed()) {
+                if (!con.getAutoCommit()) {
+                    con.rollback();
+                    con.setAutoCommit(true);
+                }
+                if (m_idleCount.incrementAndGet() <= m_maxIdle) {
+                    m_idle.offer(new CmsIdleConnection(con));
+                    con = null;
+                } else {
+                    m_idleCount.decrementAndGet();
+                }
+            }
+        } catch (SQLException e) {
+            LOG.warn(Messages.get().getBundle().key(Messages.LOG_CLOSE_CONNECTION_FAILED_1, m_poolUrl), e);
+        } finally {
+            if (con != null) {
+                destroy(con);
+            }
+            m_permits.release();
+        }
+        if (m_closed) {
+            // the pool may have been closed while the connection was returned
+            closeIdleConnections();
+        }
+    }
+
+    /**
+     * Takes a usable connection from the idle connections.<p>
+     * 
+     * Connections idle for too long or failing the test query are closed.<p>
+     * 
+     * @return an idle connection, or <code>null</code> if there is none
+     */
+    private Connection takeIdleConnection() {
+
+        long now = System.currentTimeMillis();
+        CmsIdleConnection idle;
+        while ((idle = m_idle.poll()) != null) {
+            m_idleCount.decrementAndGet();
+            if (((m_minEvictableIdleTime > 0) && ((now - idle.m_idleSince) > m_minEvictableIdleTime))
+                || !validate(idle.m_connection)) {
+                destroy(idle.m_connection);
+            } else {
+                return idle.m_connection;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Tests an idle connection with the test query, if configured.<p>
+     * 
+     * @param con the connection to test
+     * 
+     * @return <code>true</code> if the connection can be used
+     */
+    private boolean validate(Connection con) {
+
+        if (m_testQuery == null) {
+            return true;
+        }
+        try {
+            Statement stmt = con.createStatement();
+            try {
+                stmt.executeQuery(m_testQuery).close();
+            } finally {
+                stmt.close();
+            }
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+}
@@ -34,21 +34,32 @@ import org.opencms.util.CmsStringUtil;
 import java.sql.Connection;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.dbcp.ConnectionFactory;
 import org.apache.commons.dbcp.DriverManagerConnectionFactory;
 import org.apache.commons.dbcp.PoolableConnectionFactory;
 import org.apache.commons.dbcp.PoolingDriver;
 import org.apache.commons.pool.impl.GenericKeyedObjectPool;
-import org.apache.commons.pool.impl.GenericKeyedObjectPoolFactory;
 import org.apache.commons.pool.impl.GenericObjectPool;
 
 /**
- * Various methods to create DBCP pools.<p>
+ * Various methods to create and access database connection pools.<p>
  * 
+ * The pool implementation is configured with the key <code>db.pool.&lt;name&gt;.class</code>,
+ * if not set a DBCP pool ({@link CmsDbcpPool}) is used.
  * Only JDBC Driver based pools are supported currently. JNDI DataSource 
  * based pools might be added probably later.<p>
  * 
+ * A pool can have read replicas, configured with <code>db.pool.&lt;name&gt;.replicas</code> as a list of 
+ * other pool names. The SQL drivers use {@link #getReadPoolUrl(String)} to send reads of the online project 
+ * to a replica. While a project is published, and for <code>db.pool.&lt;name&gt;.replicaLag</code> milliseconds 
+ * afterwards, all reads use the primary pool, so that no outdated data is read from a replica that is behind.
+ * Other cluster nodes do the same for the replication lag after they have received the publish event.<p>
+ * 
  * <b>Please note:</b> This class is subject to change in later versions.
  * To obtain information about the connections, please use the
  * {@link org.opencms.db.CmsSqlManager}.<p>
@@ -81,6 +92,9 @@ public final class CmsDbPool {
     /** Key for the entity manager pool size. */
     public static final String KEY_ENTITY_MANAGER_POOL_SIZE = "entityMangerPoolSize";
 
+    /** Key for the time in milliseconds after which a borrowed connection is reported as leaked. */
+    public static final String KEY_LEAK_THRESHOLD = "leakThreshold";
+
     /** Key for jdbc driver. */
     public static final String KEY_JDBC_DRIVER = "jdbcDriver";
 
@@ -96,6 +110,9 @@ public final class CmsDbPool {
     /** Key for maximum idle connections. */
     public static final String KEY_MAX_IDLE = "maxIdle";
 
+    /** Key for the maximum number of different SQL statements pooled per connection. */
+    public static final String KEY_MAX_TOTAL = "maxTotal";
+
     /** Key for maximum wait time. */
     public static final String KEY_MAX_WAIT = "maxWait";
 
@@ -111,6 +128,9 @@ public final class CmsDbPool {
     /** Key for database password. */
     public static final String KEY_PASSWORD = "password";
 
+    /** Key for the pool implementation class. */
+    public static final String KEY_POOL_CLASS = "class";
+
     /** Key for default. */
     public static final String KEY_POOL_DEFAULT = "default";
 
@@ -123,6 +143,12 @@ public final class CmsDbPool {
     /** Key for vfs pool. */
     public static final String KEY_POOL_VFS = "vfs";
 
+    /** Key for the time in milliseconds reads stay on the primary pool after a publish. */
+    public static final String KEY_REPLICA_LAG = "replicaLag";
+
+    /** Key for the names of the read replica pools of a pool. */
+    public static final String KEY_REPLICAS = "replicas";
+
     /** Key for pooling flag. */
     public static final String KEY_POOLING = "pooling";
 
@@ -153,6 +179,24 @@ public final class CmsDbPool {
     /** The prefix used for opencms JDBC pools. */
     public static final String OPENCMS_URL_PREFIX = "opencms:";
 
+    /** The created connection pools, with the pool URL as key. */
+    private static final Map<String, I_CmsDbPool> POOLS = new ConcurrentHashMap<String, I_CmsDbPool>();
+
+    /** The number of running operations that pin all reads to the primary pools. */
+    private static final AtomicInteger PRIMARY_PINS = new AtomicInteger();
+
+    /** The time the primary pools have been unpinned the last time. */
+    private static final AtomicLong PRIMARY_UNPIN_TIME = new AtomicLong();
+
+    /** Counter to distribute the reads over the replicas. */
+    private static final AtomicInteger REPLICA_COUNTER = new AtomicInteger();
+
+    /** The replication lag of the pools with replicas in milliseconds, with the primary pool URL as key. */
+    private static final Map<String, Long> REPLICA_LAGS = new ConcurrentHashMap<String, Long>();
+
+    /** The URLs of the read replica pools, with the primary pool URL as key. */
+    private static final Map<String, String[]> REPLICAS = new ConcurrentHashMap<String, String[]>();
+
     /**
      * Default constructor.<p>
      * 
@@ -163,6 +207,67 @@ public final class CmsDbPool {
         super();
     }
 
+    /**
+     * Closes the given connection pool and removes it from the registered pools.<p>
+     * 
+     * @param pool the pool to close
+     * 
+     * @throws Exception if something goes wrong
+     */
+    public static void closePool(I_CmsDbPool pool) throws Exception {
+
+        POOLS.remove(pool.getPoolUrl());
+        REPLICAS.remove(pool.getPoolUrl());
+        REPLICA_LAGS.remove(pool.getPoolUrl());
+        pool.close();
+    }
+
+    /**
+     * Creates the connection pool configured for the given key.<p>
+     * 
+     * The pool is registered with its pool URL and can be accessed with {@link #getPool(String)}.<p>
+     * 
+     * @param config the configuration (opencms.properties)
+     * @param key the key of the database pool in the configuration
+     * 
+     * @return the initialized pool
+     * 
+     * @throws Exception if the pool could not be initialized
+     */
+    public static I_CmsDbPool createConnectionPool(CmsParameterConfiguration config, String key) throws Exception {
+
+        String poolClass = config.getString(
+            KEY_DATABASE_POOL + '.' + key + '.' + KEY_POOL_CLASS,
+            CmsDbcpPool.class.getName()).trim();
+        I_CmsDbPool pool = (I_CmsDbPool)Class.forName(poolClass).newInstance();
+        pool.initialize(config, key);
+        POOLS.put(pool.getPoolUrl(), pool);
+        List<String> replicaNames = config.getList(KEY_DATABASE_POOL + '.' + key + '.' + KEY_REPLICAS);
+        if (!replicaNames.isEmpty()) {
+            String[] replicas = new String[replicaNames.size()];
+            for (int i = 0; i < replicas.length; i++) {
+                replicas[i] = getDbPoolName(config, replicaNames.get(i).trim());
+            }
+            REPLICAS.put(pool.getPoolUrl(), replicas);
+            REPLICA_LAGS.put(
+                pool.getPoolUrl(),
+                new Long(config.getInteger(KEY_DATABASE_POOL + '.' + key + '.' + KEY_REPLICA_LAG, 10000)));
+            if (CmsLog.INIT.isInfoEnabled()) {
+                CmsLog.INIT.info(Messages.get().getBundle().key(
+                    Messages.INIT_JDBC_POOL_REPLICAS_2,
+                    pool.getPoolUrl(),
+                    CmsStringUtil.arrayAsString(replicas, ", ")));
+            }
+        }
+        if (CmsLog.INIT.isInfoEnabled()) {
+            CmsLog.INIT.info(Messages.get().getBundle().key(
+                Messages.INIT_JDBC_POOL_CLASS_2,
+                pool.getPoolUrl(),
+                poolClass));
+        }
+        return pool;
+    }
+
     /**
      * Creates a JDBC DriverManager based DBCP connection pool.<p>
      * 
@@ -235,6 +340,7 @@ public final class CmsDbPool {
         int maxActiveStmts = config.getInteger(KEY_DATABASE_STATEMENTS + '.' + key + '.' + KEY_MAX_ACTIVE, 25);
         int maxWaitStmts = config.getInteger(KEY_DATABASE_STATEMENTS + '.' + key + '.' + KEY_MAX_WAIT, 250);
         int maxIdleStmts = config.getInteger(KEY_DATABASE_STATEMENTS + '.' + key + '.' + KEY_MAX_IDLE, 15);
+        int maxTotalStmts = config.getInteger(KEY_DATABASE_STATEMENTS + '.' + key + '.' + KEY_MAX_TOTAL, 250);
         String whenStmtsExhaustedActionValue = config.get(KEY_DATABASE_STATEMENTS
             + '.'
             + key
@@ -297,14 +403,14 @@ public final class CmsDbPool {
         ConnectionFactory connectionFactory = new DriverManagerConnectionFactory(jdbcUrl, username, password);
 
         // Set up statement pool, if desired
-        GenericKeyedObjectPoolFactory statementFactory = null;
+        CmsStatementPoolFactory statementFactory = null;
         if (poolingStmts) {
-            statementFactory = new GenericKeyedObjectPoolFactory(
-                null,
+            statementFactory = new CmsStatementPoolFactory(
                 maxActiveStmts,
                 whenStmtsExhaustedAction,
                 maxWaitStmts,
-                maxIdleStmts);
+                maxIdleStmts,
+                maxTotalStmts);
         }
 
         // initialize a factory to obtain pooled connections and prepared statements
@@ -314,38 +420,7 @@ public final class CmsDbPool {
         PoolingDriver driver = new PoolingDriver();
         driver.registerPool(poolUrl, connectionPool);
 
-        Connection con = null;
-        boolean connect = false;
-        int connectionTests = 0;
-
-        // try to connect once to the database to ensure it can be connected to at all
-        // if the conection cannot be established, multiple attempts will be done to connect
-        // just in cast the database was not fast enough to start before OpenCms was started
-
-        do {
-            try {
-                // try to connect
-                con = connectionFactory.createConnection();
-                connect = true;
-            } catch (Exception e) {
-                // connection failed, increase attempts, sleept for some seconds and log a message
-                connectionTests++;
-                if (CmsLog.INIT.isInfoEnabled()) {
-                    CmsLog.INIT.info(Messages.get().getBundle().key(
-                        Messages.INIT_WAIT_FOR_DB_4,
-                        new Object[] {poolUrl, jdbcUrl, new Integer(connectionTests), new Integer(connetionsWait)}));
-                }
-                Thread.sleep(connetionsWait);
-            } finally {
-                if (con != null) {
-                    con.close();
-                }
-            }
-        } while (!connect && (connectionTests < connectionAttempts));
-
-        if (CmsLog.INIT.isInfoEnabled()) {
-            CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_JDBC_POOL_2, poolUrl, jdbcUrl));
-        }
+        testConnection(connectionFactory, poolUrl, jdbcUrl, connectionAttempts, connetionsWait);
         return driver;
     }
 
@@ -388,4 +463,146 @@ public final class CmsDbPool {
 
         return OPENCMS_DEFAULT_POOL_NAME;
     }
+
+    /**
+     * Returns the connection pool registered for the given pool URL.<p>
+     * 
+     * @param poolUrl the pool URL, e.g. <code>opencms:default</code>
+     * 
+     * @return the pool, or <code>null</code> if no such pool has been created
+     */
+    public static I_CmsDbPool getPool(String poolUrl) {
+
+        return POOLS.get(poolUrl);
+    }
+
+    /**
+     * Returns the URL of the pool to use for reading online data from the given pool.<p>
+     * 
+     * If the pool has read replicas and reads are not pinned to the primary pool, 
+     * the replicas are used in turn, otherwise the given pool URL is returned.<p>
+     * 
+     * @param poolUrl the URL of the primary pool
+     * 
+     * @return the URL of the pool to read from
+     */
+    public static String getReadPoolUrl(String poolUrl) {
+
+        String[] replicas = REPLICAS.get(poolUrl);
+        if ((replicas == null) || isPrimaryPinned(poolUrl)) {
+            return poolUrl;
+        }
+        int start = REPLICA_COUNTER.getAndIncrement() & Integer.MAX_VALUE;
+        for (int i = 0; i < replicas.length; i++) {
+            String replica = replicas[(start + i) % replicas.length];
+            if (POOLS.containsKey(replica)) {
+                return replica;
+            }
+        }
+        return poolUrl;
+    }
+
+    /**
+     * Checks if all reads of the given pool currently have to use the primary pool.<p>
+     * 
+     * This is the case while an operation has pinned the primary pools, 
+     * and until the configured replication lag has passed after that.<p>
+     * 
+     * @param poolUrl the URL of the primary pool
+     * 
+     * @return <code>true</code> if all reads have to use the primary pool
+     * 
+     * @see #pinPrimary()
+     */
+    public static boolean isPrimaryPinned(String poolUrl) {
+
+        if (PRIMARY_PINS.get() > 0) {
+            return true;
+        }
+        Long lag = REPLICA_LAGS.get(poolUrl);
+        return (lag != null) && (System.currentTimeMillis() < (PRIMARY_UNPIN_TIME.get() + lag.longValue()));
+    }
+
+    /**
+     * Pins all reads to the primary pools, e.g. while a project is published.<p>
+     * 
+     * Every call must be followed by a call to {@link #unpinPrimary()}.<p>
+     */
+    public static void pinPrimary() {
+
+        PRIMARY_PINS.incrementAndGet();
+    }
+
+    /**
+     * Pins all reads to the primary pools for the configured replication lag, starting now.<p>
+     * 
+     * This is used on the cluster nodes that receive a publish event or a cache clearing event from 
+     * another node. These nodes flush their caches, and the reads that fill the caches again must not 
+     * return outdated data from a replica that has not yet caught up with the primary database.<p>
+     */
+    public static void pinPrimaryForReplicaLag() {
+
+        PRIMARY_UNPIN_TIME.set(System.currentTimeMillis());
+    }
+
+    /**
+     * Releases a pin set with {@link #pinPrimary()}.<p>
+     * 
+     * Reads stay on the primary pools for the configured replication lag.<p>
+     */
+    public static void unpinPrimary() {
+
+        PRIMARY_UNPIN_TIME.set(System.currentTimeMillis());
+        PRIMARY_PINS.decrementAndGet();
+    }
+
+    /**
+     * Connects once to the database to ensure it can be connected to at all.<p>
+     * 
+     * If the connection cannot be established, multiple attempts will be done to connect,
+     * just in case the database was not fast enough to start before OpenCms was started.<p>
+     * 
+     * @param connectionFactory the factory for the physical connections
+     * @param poolUrl the URL of the pool
+     * @param jdbcUrl the JDBC URL of the database
+     * @param attempts the number of connection attempts
+     * @param wait the time to wait between two attempts in milliseconds
+     * 
+     * @throws Exception if something goes wrong
+     */
+    static void testConnection(
+        ConnectionFactory connectionFactory,
+        String poolUrl,
+        String jdbcUrl,
+        int attempts,
+        int wait) throws Exception {
+
+        Connection con = null;
+        boolean connect = false;
+        int connectionTests = 0;
+        do {
+            try {
+                // try to connect
+                con = connectionFactory.createConnection();
+                connect = true;
+            } catch (Exception e) {
+                // connection failed, increase attempts, sleept for some seconds and log a message
+                connectionTests++;
+                if (CmsLog.INIT.isInfoEnabled()) {
+                    CmsLog.INIT.info(Messages.get().getBundle().key(
+                        Messages.INIT_WAIT_FOR_DB_4,
+                        new Object[] {poolUrl, jdbcUrl, new Integer(connectionTests), new Integer(wait)}));
+                }
+                Thread.sleep(wait);
+            } finally {
+                if (con != null) {
+                    con.close();
+                }
+            }
+        } while (!connect && (connectionTests < attempts));
+
+        if (CmsLog.INIT.isInfoEnabled()) {
+            CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_JDBC_POOL_2, poolUrl, jdbcUrl));
+        }
+    }
 }
\ No newline at end of file
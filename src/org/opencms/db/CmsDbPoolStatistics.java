@@ -0,0 +1,227 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Usage statistics of a database connection pool.<p>
+ * 
+ * The time needed to get a connection from the pool is recorded in a histogram 
+ * with the buckets defined by {@link #BUCKET_LIMITS}.<p>
+ * 
+ * @since 8.5.2 
+ * 
+ * @see I_CmsDbPool#getStatistics()
+ */
+public class CmsDbPoolStatistics {
+
+    /** The upper limits of the histogram buckets in milliseconds, the last bucket contains all longer times. */
+    public static final long[] BUCKET_LIMITS = {1, 5, 10, 50, 100, 500, 1000, 5000};
+
+    /** The number of connections taken from the pool. */
+    private AtomicLong m_borrows;
+
+    /** The histogram of the borrow times. */
+    private AtomicLongArray m_histogram;
+
+    /** The number of connections detected as leaked. */
+    private AtomicLong m_leaks;
+
+    /** The longest borrow time in nanoseconds. */
+    private AtomicLong m_maxTime;
+
+    /** The number of requests that got no connection in time. */
+    private AtomicLong m_timeouts;
+
+    /** The sum of all borrow times in nanoseconds. */
+    private AtomicLong m_totalTime;
+
+    /**
+     * Creates new, empty pool statistics.<p>
+     */
+    public CmsDbPoolStatistics() {
+
+        m_borrows = new AtomicLong();
+        m_histogram = new AtomicLongArray(BUCKET_LIMITS.length + 1);
+        m_leaks = new AtomicLong();
+        m_maxTime = new AtomicLong();
+        m_timeouts = new AtomicLong();
+        m_totalTime = new AtomicLong();
+    }
+
+    /**
+     * Records a connection taken from the pool.<p>
+     * 
+     * @param nanos the time needed to get the connection in nanoseconds
+     */
+    public void addBorrow(long nanos) {
+
+        m_borrows.incrementAndGet();
+        m_totalTime.addAndGet(nanos);
+        long max = m_maxTime.get();
+        while ((nanos > max) && !m_maxTime.compareAndSet(max, nanos)) {
+            max = m_maxTime.get();
+        }
+        long millis = nanos / 1000000L;
+        int bucket = 0;
+        while ((bucket < BUCKET_LIMITS.length) && (millis >= BUCKET_LIMITS[bucket])) {
+            bucket++;
+        }
+        m_histogram.incrementAndGet(bucket);
+    }
+
+    /**
+     * Increments the number of connections detected as leaked.<p>
+     */
+    public void addLeak() {
+
+        m_leaks.incrementAndGet();
+    }
+
+    /**
+     * Increments the number of requests that got no connection in time.<p>
+     */
+    public void addTimeout() {
+
+        m_timeouts.incrementAndGet();
+    }
+
+    /**
+     * Returns the average time needed to get a connection in milliseconds.<p>
+     * 
+     * @return the average borrow time
+     */
+    public double getAverageTime() {
+
+        long borrows = m_borrows.get();
+        return borrows == 0 ? 0 : (m_totalTime.get() / 1000000.0) / borrows;
+    }
+
+    /**
+     * Returns the number of connections taken from the pool.<p>
+     * 
+     * @return the number of borrowed connections
+     */
+    public long getBorrows() {
+
+        return m_borrows.get();
+    }
+
+    /**
+     * Returns a copy of the borrow time histogram.<p>
+     * 
+     * Entry <code>i</code> contains the number of borrow times below <code>{@link #BUCKET_LIMITS}[i]</code>
+     * milliseconds and not in a lower bucket, the last entry the number of all longer times.<p>
+     * 
+     * @return the borrow time histogram
+     */
+    public long[] getHistogram() {
+
+        long[] result = new long[m_histogram.length()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = m_histogram.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of connections detected as leaked.<p>
+     * 
+     * @return the number of leaks
+     */
+    public long getLeaks() {
+
+        return m_leaks.get();
+    }
+
+    /**
+     * Returns the longest time needed to get a connection in milliseconds.<p>
+     * 
+     * @return the longest borrow time
+     */
+    public long getMaxTime() {
+
+        return m_maxTime.get() / 1000000L;
+    }
+
+    /**
+     * Returns the number of requests that got no connection in time.<p>
+     * 
+     * @return the number of timeouts
+     */
+    public long getTimeouts() {
+
+        return m_timeouts.get();
+    }
+
+    /**
+     * Resets all counters to 0.<p>
+     */
+    public void reset() {
+
+        m_borrows.set(0);
+        for (int i = 0; i < m_histogram.length(); i++) {
+            m_histogram.set(i, 0);
+        }
+        m_leaks.set(0);
+        m_maxTime.set(0);
+        m_timeouts.set(0);
+        m_totalTime.set(0);
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        StringBuffer result = new StringBuffer(128);
+        result.append("borrows=").append(getBorrows());
+        result.append(", avg=").append(Math.round(getAverageTime() * 100) / 100.0).append("ms");
+        result.append(", max=").append(getMaxTime()).append("ms");
+        result.append(", timeouts=").append(getTimeouts());
+        result.append(", leaks=").append(getLeaks());
+        result.append(", histogram=[");
+        long[] histogram = getHistogram();
+        for (int i = 0; i < histogram.length; i++) {
+            if (i > 0) {
+                result.append(' ');
+            }
+            if (i < BUCKET_LIMITS.length) {
+                result.append('<').append(BUCKET_LIMITS[i]);
+            } else {
+                result.append(">=").append(BUCKET_LIMITS[BUCKET_LIMITS.length - 1]);
+            }
+            result.append("ms:").append(histogram[i]);
+        }
+        result.append(']');
+        return result.toString();
+    }
+}
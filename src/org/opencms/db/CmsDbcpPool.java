@@ -0,0 +1,139 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.configuration.CmsParameterConfiguration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.NoSuchElementException;
+
+import org.apache.commons.dbcp.PoolingDriver;
+import org.apache.commons.pool.ObjectPool;
+
+/**
+ * Connection pool based on the Apache DBCP library.<p>
+ * 
+ * This is the default pool implementation, 
+ * see {@link CmsDbPool#createDriverManagerConnectionPool(CmsParameterConfiguration, String)} 
+ * for the supported configuration parameters.<p>
+ * 
+ * @since 8.5.2 
+ */
+public class CmsDbcpPool implements I_CmsDbPool {
+
+    /** The DBCP pool of connections. */
+    private ObjectPool m_connectionPool;
+
+    /** The DBCP driver the pool is registered with. */
+    private PoolingDriver m_driver;
+
+    /** The URL of the pool. */
+    private String m_poolUrl;
+
+    /** The usage statistics. */
+    private CmsDbPoolStatistics m_statistics;
+
+    /**
+     * @see org.opencms.db.I_CmsDbPool#close()
+     */
+    public void close() throws Exception {
+
+        m_driver.closePool(m_poolUrl);
+    }
+
+    /**
+     * Borrows the connection directly from the DBCP pool, 
+     * this avoids the synchronized pool lookup of the {@link PoolingDriver}.<p>
+     * 
+     * @see org.opencms.db.I_CmsDbPool#getConnection()
+     */
+    public Connection getConnection() throws SQLException {
+
+        long start = System.nanoTime();
+        Connection con;
+        try {
+            con = (Connection)m_connectionPool.borrowObject();
+        } catch (NoSuchElementException e) {
+            m_statistics.addTimeout();
+            throw new SQLException(Messages.get().getBundle().key(
+                Messages.ERR_POOL_EXHAUSTED_2,
+                m_poolUrl,
+                new Long((System.nanoTime() - start) / 1000000L)), e);
+        } catch (SQLException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SQLException(Messages.get().getBundle().key(Messages.ERR_ACCESSING_POOL_1, m_poolUrl), e);
+        }
+        m_statistics.addBorrow(System.nanoTime() - start);
+        return con;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsDbPool#getNumActive()
+     */
+    public int getNumActive() {
+
+        return m_connectionPool.getNumActive();
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsDbPool#getNumIdle()
+     */
+    public int getNumIdle() {
+
+        return m_connectionPool.getNumIdle();
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsDbPool#getPoolUrl()
+     */
+    public String getPoolUrl() {
+
+        return m_poolUrl;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsDbPool#getStatistics()
+     */
+    public CmsDbPoolStatistics getStatistics() {
+
+        return m_statistics;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsDbPool#initialize(org.opencms.configuration.CmsParameterConfiguration, java.lang.String)
+     */
+    public void initialize(CmsParameterConfiguration config, String key) throws Exception {
+
+        m_poolUrl = CmsDbPool.getDbPoolName(config, key);
+        m_statistics = new CmsDbPoolStatistics();
+        m_driver = CmsDbPool.createDriverManagerConnectionPool(config, key);
+        m_connectionPool = m_driver.getConnectionPool(m_poolUrl);
+    }
+}
@@ -114,6 +114,8 @@ import org.opencms.util.CmsUUID;
 import org.opencms.util.PrintfFormat;
 import org.opencms.workplace.commons.CmsProgressThread;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -131,9 +133,7 @@ import java.util.TreeSet;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
-import org.apache.commons.dbcp.PoolingDriver;
 import org.apache.commons.logging.Log;
-import org.apache.commons.pool.ObjectPool;
 
 import com.google.common.base.Objects;
 import com.google.common.collect.ArrayListMultimap;
@@ -235,6 +235,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /** DBC attribute key needed to fix publishing behavior involving siblings. */
     public static final String KEY_CHANGED_AND_DELETED = "changedAndDeleted";
 
+    /** DBC attribute key for the resources whose resource version was already increased during publishing. */
+    public static final String KEY_RESOURCE_OPERATIONS = "resourceOperations";
+
     /** The vfs path of the loast and found folder. */
     public static final String LOST_AND_FOUND_FOLDER = "/system/lost-found";
 
@@ -320,7 +323,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
     private static final CmsReadChangedProjectResourceMode RCPRM_FOLDERS_ONLY_MODE = new CmsReadChangedProjectResourceMode();
 
     /** The list of initialized JDBC pools. */
-    private List<PoolingDriver> m_connectionPools;
+    private List<I_CmsDbPool> m_connectionPools;
 
     /** The history driver. */
     private I_CmsHistoryDriver m_historyDriver;
@@ -331,11 +334,14 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /** The class used for cache key generation. */
     private I_CmsCacheKey m_keyGenerator;
 
+    /** The last publish tag handed out to a publish job. */
+    private int m_lastPublishTag;
+
     /** The lock manager. */
     private CmsLockManager m_lockManager;
 
     /** The log entry cache. */
-    private List<CmsLogEntry> m_log = new ArrayList<CmsLogEntry>();
+    private List<CmsLogEntry> m_log = Collections.synchronizedList(new ArrayList<CmsLogEntry>());
 
     /** Local reference to the memory monitor to avoid multiple lookups through the OpenCms singleton. */
     private CmsMemoryMonitor m_monitor;
@@ -352,6 +358,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /** Object used for synchronizing updates to the user publish list. */
     private Object m_publishListUpdateLock = new Object();
 
+    /** Object used for synchronizing the publish tags of parallel publish jobs. */
+    private Object m_publishTagLock = new Object();
+
     /** The security manager (for access checks). */
     private CmsSecurityManager m_securityManager;
 
@@ -432,7 +441,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         driverManager.m_securityManager = securityManager;
 
         // set connection pools
-        driverManager.m_connectionPools = new ArrayList<PoolingDriver>();
+        driverManager.m_connectionPools = new ArrayList<I_CmsDbPool>();
 
         // set the lock manager
         driverManager.m_lockManager = new CmsLockManager(driverManager);
@@ -526,6 +535,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         org.opencms.main.OpenCms.addCmsEventListener(driverManager, new int[] {
             I_CmsEventListener.EVENT_UPDATE_EXPORTS,
             I_CmsEventListener.EVENT_CLEAR_CACHES,
+            I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES,
             I_CmsEventListener.EVENT_CLEAR_PRINCIPAL_CACHES,
             I_CmsEventListener.EVENT_USER_MODIFIED,
             I_CmsEventListener.EVENT_PUBLISH_PROJECT});
@@ -977,13 +987,23 @@ public final class CmsDriverManager implements I_CmsEventListener {
                 CmsUUID publishHistoryId = new CmsUUID((String)event.getData().get(I_CmsEventListener.KEY_PUBLISHID));
                 report = (I_CmsReport)event.getData().get(I_CmsEventListener.KEY_REPORT);
                 dbc = (CmsDbContext)event.getData().get(I_CmsEventListener.KEY_DBCONTEXT);
+                // the publish may have been done by another cluster node, so the replicas may still be behind
+                CmsDbPool.pinPrimaryForReplicaLag();
                 m_monitor.clearCache();
-                writeExportPoints(dbc, report, publishHistoryId);
+                if (dbc != null) {
+                    // no database context is available for events received from other cluster nodes
+                    writeExportPoints(dbc, report, publishHistoryId);
+                }
                 break;
 
             case I_CmsEventListener.EVENT_CLEAR_CACHES:
+                CmsDbPool.pinPrimaryForReplicaLag();
                 m_monitor.clearCache();
                 break;
+            case I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES:
+                // the caches are filled again with the data read afterwards
+                CmsDbPool.pinPrimaryForReplicaLag();
+                break;
             case I_CmsEventListener.EVENT_CLEAR_PRINCIPAL_CACHES:
             case I_CmsEventListener.EVENT_USER_MODIFIED:
                 m_monitor.clearPrincipalsCache();
@@ -3222,18 +3242,18 @@ public final class CmsDriverManager implements I_CmsEventListener {
             }
 
             if (m_connectionPools != null) {
-                for (int i = 0; i < m_connectionPools.size(); i++) {
-                    PoolingDriver driver = m_connectionPools.get(i);
-                    String[] pools = driver.getPoolNames();
-                    for (String pool : pools) {
-                        try {
-                            driver.closePool(pool);
-                            if (CmsLog.INIT.isDebugEnabled()) {
-                                CmsLog.INIT.debug(Messages.get().getBundle().key(Messages.INIT_CLOSE_CONN_POOL_1, pool));
-                            }
-                        } catch (Throwable t) {
-                            LOG.error(Messages.get().getBundle().key(Messages.LOG_CLOSE_CONN_POOL_ERROR_1, pool), t);
+                for (I_CmsDbPool pool : m_connectionPools) {
+                    try {
+                        CmsDbPool.closePool(pool);
+                        if (CmsLog.INIT.isDebugEnabled()) {
+                            CmsLog.INIT.debug(Messages.get().getBundle().key(
+                                Messages.INIT_CLOSE_CONN_POOL_1,
+                                pool.getPoolUrl()));
                         }
+                    } catch (Throwable t) {
+                        LOG.error(
+                            Messages.get().getBundle().key(Messages.LOG_CLOSE_CONN_POOL_ERROR_1, pool.getPoolUrl()),
+                            t);
                     }
                 }
                 m_connectionPools = null;
@@ -3500,18 +3520,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
      */
     public int getActiveConnections(String dbPoolUrl) throws CmsDbException {
 
-        try {
-            for (PoolingDriver d : m_connectionPools) {
-                ObjectPool p = d.getConnectionPool(dbPoolUrl);
-                return p.getNumActive();
-            }
-        } catch (Exception exc) {
-            CmsMessageContainer message = Messages.get().container(Messages.ERR_ACCESSING_POOL_1, dbPoolUrl);
-            throw new CmsDbException(message, exc);
-        }
-
-        CmsMessageContainer message = Messages.get().container(Messages.ERR_UNKNOWN_POOL_URL_1, dbPoolUrl);
-        throw new CmsDbException(message);
+        return getConnectionPool(dbPoolUrl).getNumActive();
     }
 
     /**
@@ -3803,6 +3812,18 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return new ArrayList<CmsGroup>(allChildren);
     }
 
+    /**
+     * Returns the usage statistics of a pool.<p>
+     *
+     * @param dbPoolUrl the url of a pool
+     * @return the usage statistics of the pool
+     * @throws CmsDbException if something goes wrong
+     */
+    public CmsDbPoolStatistics getConnectionStatistics(String dbPoolUrl) throws CmsDbException {
+
+        return getConnectionPool(dbPoolUrl).getStatistics();
+    }
+
     /**
      * Returns the date when the resource was last visited by the user.<p>
      *
@@ -4019,18 +4040,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
      */
     public int getIdleConnections(String dbPoolUrl) throws CmsDbException {
 
-        try {
-            for (PoolingDriver d : m_connectionPools) {
-                ObjectPool p = d.getConnectionPool(dbPoolUrl);
-                return p.getNumIdle();
-            }
-        } catch (Exception exc) {
-            CmsMessageContainer message = Messages.get().container(Messages.ERR_ACCESSING_POOL_1, dbPoolUrl);
-            throw new CmsDbException(message, exc);
-        }
-
-        CmsMessageContainer message = Messages.get().container(Messages.ERR_UNKNOWN_POOL_URL_1, dbPoolUrl);
-        throw new CmsDbException(message);
+        return getConnectionPool(dbPoolUrl).getNumIdle();
     }
 
     /**
@@ -4132,13 +4142,20 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /**
      * Returns the next publish tag for the published historical resources.<p>
      *
+     * Each call returns a new publish tag, even if the publish job that got the 
+     * previous tag has not yet written it to the history tables.<p>
+     *
      * @param dbc the current database context
      *
      * @return the next available publish tag
      */
     public int getNextPublishTag(CmsDbContext dbc) {
 
-        return getHistoryDriver(dbc).readNextPublishTag(dbc);
+        synchronized (m_publishTagLock) {
+            int publishTag = Math.max(getHistoryDriver(dbc).readNextPublishTag(dbc), m_lastPublishTag + 1);
+            m_lastPublishTag = publishTag;
+            return publishTag;
+        }
     }
 
     /**
@@ -5329,7 +5346,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
     public void lockResource(CmsDbContext dbc, CmsResource resource, CmsLockType type) throws CmsException {
 
         // update the resource cache
-        m_monitor.clearResourceCache();
+        clearResourceCache(dbc, resource, false);
 
         CmsProject project = dbc.currentProject();
 
@@ -5586,6 +5603,23 @@ public final class CmsDriverManager implements I_CmsEventListener {
         getSubscriptionDriver().markResourceAsVisitedBy(dbc, poolName, resource, user);
     }
 
+    /**
+     * Merges the resources of a new publish list into the publish list of a waiting publish job.<p>
+     * 
+     * This is used by the publish engine to coalesce publish jobs, the resources
+     * of both lists must already be locked for publishing.<p>
+     * 
+     * @param publishList the publish list of the waiting publish job
+     * @param newPublishList the new publish list to merge
+     * 
+     * @return <code>true</code> if the publish lists have been merged, 
+     *      <code>false</code> if they can not be published together
+     */
+    public boolean mergePublishList(CmsPublishList publishList, CmsPublishList newPublishList) {
+
+        return publishList.merge(newPublishList);
+    }
+
     /**
      * Moves a resource.<p>
      *
@@ -5652,11 +5686,14 @@ public final class CmsDriverManager implements I_CmsEventListener {
         m_lockManager.moveResource(source.getRootPath(), destRes.getRootPath());
 
         // flush all relevant caches
-        m_monitor.clearAccessControlListCache();
         m_monitor.flushCache(
-            CmsMemoryMonitor.CacheType.PROPERTY,
-            CmsMemoryMonitor.CacheType.PROPERTY_LIST,
+            CmsMemoryMonitor.CacheType.ACL,
+            CmsMemoryMonitor.CacheType.PERMISSION,
+            CmsMemoryMonitor.CacheType.HAS_ROLE,
+            CmsMemoryMonitor.CacheType.ROLE_LIST,
             CmsMemoryMonitor.CacheType.PROJECT_RESOURCES);
+        clearResourceCache(dbc, source, true);
+        clearResourceCache(dbc, destRes, true);
 
         List<CmsResource> resources = new ArrayList<CmsResource>(4);
         // source
@@ -5890,10 +5927,10 @@ public final class CmsDriverManager implements I_CmsEventListener {
      */
     public void newPoolInstance(CmsParameterConfiguration configuration, String poolName) throws CmsInitException {
 
-        PoolingDriver driver;
+        I_CmsDbPool pool;
 
         try {
-            driver = CmsDbPool.createDriverManagerConnectionPool(configuration, poolName);
+            pool = CmsDbPool.createConnectionPool(configuration, poolName);
         } catch (Exception e) {
 
             CmsMessageContainer message = Messages.get().container(Messages.ERR_INIT_CONN_POOL_1, poolName);
@@ -5903,7 +5940,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             throw new CmsInitException(message, e);
         }
 
-        m_connectionPools.add(driver);
+        m_connectionPools.add(pool);
     }
 
     /**
@@ -5919,6 +5956,8 @@ public final class CmsDriverManager implements I_CmsEventListener {
     public void publishJob(CmsObject cms, CmsDbContext dbc, CmsPublishList publishList, I_CmsReport report)
     throws CmsException {
 
+        // read replicas may not be up to date while publishing, so read everything from the primary database
+        CmsDbPool.pinPrimary();
         try {
             // check state and lock
             List<CmsResource> allResources = new ArrayList<CmsResource>(publishList.getFolderList());
@@ -5990,6 +6029,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         } finally {
             // clear the cache again
             m_monitor.clearCache();
+            CmsDbPool.unpinPrimary();
         }
     }
 
@@ -6081,7 +6121,10 @@ public final class CmsDriverManager implements I_CmsEventListener {
         // enqueue the publish job
         CmsException enqueueException = null;
         try {
-            m_publishEngine.enqueuePublishJob(cms, publishList, report);
+            // a new publish job is only needed if the resources can not be published with a waiting job
+            if (!m_publishEngine.coalescePublishJob(cms, publishList, report)) {
+                m_publishEngine.enqueuePublishJob(cms, publishList, report);
+            }
         } catch (CmsException exc) {
             enqueueException = exc;
         }
@@ -6410,7 +6453,11 @@ public final class CmsDriverManager implements I_CmsEventListener {
             }
             // cache the sub resources
             if (dbc.getProjectId().isNullUUID()) {
-                m_monitor.cacheResourceList(cacheKey, resourceList);
+                m_monitor.cacheResourceList(
+                    cacheKey,
+                    dbc.currentProject().isOnlineProject(),
+                    resource.getRootPath(),
+                    resourceList);
             }
         }
 
@@ -6418,6 +6465,48 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return updateContextDates(dbc, resourceList, filter);
     }
 
+    /**
+     * Reads the given part of the content of the given file resource and writes it to the given output stream.<p>
+     *
+     * In contrast to {@link #readFile(CmsDbContext, CmsResource)}, the content is not loaded into 
+     * memory as a whole if the VFS driver supports streaming.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the file resource (without content)
+     * @param offset the position of the first byte to write
+     * @param length the maximum number of bytes to write
+     * @param out the output stream to write the content to
+     *
+     * @throws CmsException if the content could not be read
+     * @throws IOException if the content could not be written to the output stream
+     */
+    public void readContent(CmsDbContext dbc, CmsResource resource, long offset, long length, OutputStream out)
+    throws CmsException, IOException {
+
+        if (resource.isFolder()) {
+            throw new CmsVfsResourceNotFoundException(Messages.get().container(
+                Messages.ERR_ACCESS_FOLDER_AS_FILE_1,
+                dbc.removeSiteRoot(resource.getRootPath())));
+        }
+        if (resource instanceof I_CmsHistoryResource) {
+            byte[] content = getHistoryDriver(dbc).readContent(
+                dbc,
+                resource.getResourceId(),
+                ((I_CmsHistoryResource)resource).getPublishTag());
+            if (offset < content.length) {
+                out.write(content, (int)offset, (int)Math.min(length, content.length - offset));
+            }
+        } else {
+            getVfsDriver(dbc).readContent(
+                dbc,
+                dbc.currentProject().getUuid(),
+                resource.getResourceId(),
+                offset,
+                length,
+                out);
+        }
+    }
+
     /**
      * Returns the default file for the given folder.<p>
      *
@@ -7005,6 +7094,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
         String cp = currentPath.toString();
         CmsUUID projectId = getProjectIdForContext(dbc);
+        boolean online = CmsProject.isOnlineProject(projectId);
 
         // key to cache the resources
         String cacheKey = getCacheKey(null, false, projectId, cp);
@@ -7013,7 +7103,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         if ((currentResource == null) || !dbc.getProjectId().isNullUUID()) {
             currentResource = getVfsDriver(dbc).readFolder(dbc, projectId, cp);
             if (dbc.getProjectId().isNullUUID()) {
-                m_monitor.cacheResource(cacheKey, currentResource);
+                m_monitor.cacheResource(cacheKey, online, currentResource);
             }
         }
 
@@ -7039,7 +7129,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             if ((currentResource == null) || !dbc.getProjectId().isNullUUID()) {
                 currentResource = getVfsDriver(dbc).readFolder(dbc, projectId, cp);
                 if (dbc.getProjectId().isNullUUID()) {
-                    m_monitor.cacheResource(cacheKey, currentResource);
+                    m_monitor.cacheResource(cacheKey, online, currentResource);
                 }
             }
 
@@ -7066,7 +7156,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             if ((currentResource == null) || !dbc.getProjectId().isNullUUID()) {
                 currentResource = getVfsDriver(dbc).readResource(dbc, projectId, cp, filter.includeDeleted());
                 if (dbc.getProjectId().isNullUUID()) {
-                    m_monitor.cacheResource(cacheKey, currentResource);
+                    m_monitor.cacheResource(cacheKey, online, currentResource);
                 }
             }
 
@@ -7263,6 +7353,8 @@ public final class CmsDriverManager implements I_CmsEventListener {
         List<CmsProperty> properties = m_monitor.getCachedPropertyList(cacheKey);
 
         if ((properties == null) || !dbc.getProjectId().isNullUUID()) {
+            // the resource is replaced by its parent folders while searching
+            String rootPath = resource.getRootPath();
             // result not cached, let's look it up in the DB
             if (search) {
                 boolean cont;
@@ -7305,13 +7397,81 @@ public final class CmsDriverManager implements I_CmsEventListener {
             CmsProperty.setFrozen(properties);
             if (dbc.getProjectId().isNullUUID()) {
                 // store the result in the cache if needed
-                m_monitor.cachePropertyList(cacheKey, properties);
+                m_monitor.cachePropertyList(cacheKey, CmsProject.isOnlineProject(projectId), rootPath, properties);
             }
         }
 
         return new ArrayList<CmsProperty>(properties);
     }
 
+    /**
+     * Reads all property objects directly mapped to the given resources.<p>
+     *
+     * The properties of resources that are not already cached are read from the database
+     * with as few queries as possible, instead of one query per resource.<p>
+     *
+     * All properties in the result lists will be in frozen (read only) state, so you can't change the values.<p>
+     *
+     * @param dbc the current database context
+     * @param resources the resources to read the properties for
+     *
+     * @return a map from the structure id of each resource to the list of its CmsProperty objects
+     *
+     * @throws CmsException if something goes wrong
+     *
+     * @see #readPropertyObjects(CmsDbContext, CmsResource, boolean)
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(CmsDbContext dbc, List<CmsResource> resources)
+    throws CmsException {
+
+        CmsUUID projectId = getProjectIdForContext(dbc);
+        boolean useCache = dbc.getProjectId().isNullUUID();
+        Map<CmsUUID, List<CmsProperty>> result = new HashMap<CmsUUID, List<CmsProperty>>();
+        List<CmsResource> missing = new ArrayList<CmsResource>();
+        for (CmsResource resource : resources) {
+            List<CmsProperty> properties = null;
+            if (useCache) {
+                properties = m_monitor.getCachedPropertyList(getCacheKey(
+                    CACHE_ALL_PROPERTIES,
+                    false,
+                    projectId,
+                    resource.getRootPath()));
+            }
+            if (properties != null) {
+                result.put(resource.getStructureId(), new ArrayList<CmsProperty>(properties));
+            } else {
+                missing.add(resource);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        Map<CmsUUID, List<CmsProperty>> read = getVfsDriver(dbc).readPropertyObjects(
+            dbc,
+            dbc.currentProject(),
+            missing);
+        for (CmsResource resource : missing) {
+            List<CmsProperty> properties = read.get(resource.getStructureId());
+            if (properties == null) {
+                properties = new ArrayList<CmsProperty>();
+            }
+            // set all properties in the result list as frozen
+            CmsProperty.setFrozen(properties);
+            if (useCache) {
+                // store the result in the cache, so that single reads of these resources will also find it
+                String cacheKey = getCacheKey(CACHE_ALL_PROPERTIES, false, projectId, resource.getRootPath());
+                m_monitor.cachePropertyList(
+                    cacheKey,
+                    CmsProject.isOnlineProject(projectId),
+                    resource.getRootPath(),
+                    properties);
+            }
+            result.put(resource.getStructureId(), new ArrayList<CmsProperty>(properties));
+        }
+        return result;
+    }
+
     /**
      * Reads the resources that were published in a publish task for a given publish history ID.<p>
      *
@@ -7537,7 +7697,11 @@ public final class CmsDriverManager implements I_CmsEventListener {
             }
             // store the result in the resourceList cache
             if (dbc.getProjectId().isNullUUID()) {
-                m_monitor.cacheResourceList(cacheKey, resourceList);
+                m_monitor.cacheResourceList(
+                    cacheKey,
+                    dbc.currentProject().isOnlineProject(),
+                    parent.getRootPath(),
+                    resourceList);
             }
         }
         // we must always apply the result filter and update the context dates
@@ -7620,7 +7784,11 @@ public final class CmsDriverManager implements I_CmsEventListener {
             resourceList = filterPermissions(dbc, resourceList, filter);
             // store the result in the resourceList cache
             if (dbc.getProjectId().isNullUUID()) {
-                m_monitor.cacheResourceList(cacheKey, resourceList);
+                m_monitor.cacheResourceList(
+                    cacheKey,
+                    dbc.currentProject().isOnlineProject(),
+                    folder.getRootPath(),
+                    resourceList);
             }
         }
         // we must always apply the result filter and update the context dates
@@ -8603,7 +8771,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             new String[] {resource.getRootPath()}), false);
 
         // clear the cache
-        m_monitor.clearResourceCache();
+        clearResourceCache(dbc, resource, false);
 
         // fire the event
         Map<String, Object> data = new HashMap<String, Object>(2);
@@ -8645,7 +8813,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             new String[] {resource.getRootPath()}), false);
 
         // clear the cache
-        m_monitor.clearResourceCache();
+        clearResourceCache(dbc, resource, false);
 
         // fire the event
         Map<String, Object> data = new HashMap<String, Object>(2);
@@ -8686,7 +8854,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             new String[] {resource.getRootPath()}), false);
 
         // clear the cache
-        m_monitor.clearResourceCache();
+        clearResourceCache(dbc, resource, false);
 
         // fire the event
         Map<String, Object> data = new HashMap<String, Object>(2);
@@ -8958,7 +9126,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
     throws CmsException {
 
         // update the resource cache
-        m_monitor.clearResourceCache();
+        clearResourceCache(dbc, resource, false);
 
         // now update lock status
         m_lockManager.removeResource(dbc, resource, force, removeSystemLock);
@@ -9139,8 +9307,11 @@ public final class CmsDriverManager implements I_CmsEventListener {
                 return;
             }
 
-            List<CmsLogEntry> log = new ArrayList<CmsLogEntry>(m_log);
-            m_log.clear();
+            List<CmsLogEntry> log;
+            synchronized (m_log) {
+                log = new ArrayList<CmsLogEntry>(m_log);
+                m_log.clear();
+            }
 
             m_projectDriver.log(dbc, log);
             CmsLogToPublishListChangeConverter converter = new CmsLogToPublishListChangeConverter();
@@ -9174,6 +9345,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
         }
         // the set of written relations
         Set<CmsRelation> writtenRelations = new HashSet<CmsRelation>();
+        // the relations of all siblings, written at once
+        List<CmsRelation> relations = new ArrayList<CmsRelation>();
+        List<CmsResource> siblings = null;
 
         // create new relation information
         I_CmsVfsDriver vfsDriver = getVfsDriver(dbc);
@@ -9215,7 +9389,10 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
                 // TODO: it would be good to have the link locale to make the relation just to the right sibling
                 // create the relations in content for all siblings
-                Iterator<CmsResource> itSiblings = readSiblings(dbc, resource, CmsResourceFilter.ALL).iterator();
+                if (siblings == null) {
+                    siblings = readSiblings(dbc, resource, CmsResourceFilter.ALL);
+                }
+                Iterator<CmsResource> itSiblings = siblings.iterator();
                 while (itSiblings.hasNext()) {
                     CmsResource sibling = itSiblings.next();
                     CmsRelation relation = new CmsRelation(
@@ -9224,10 +9401,11 @@ public final class CmsDriverManager implements I_CmsEventListener {
                         originalRelation.getTargetId(),
                         originalRelation.getTargetPath(),
                         link.getType());
-                    vfsDriver.createRelation(dbc, dbc.currentProject().getUuid(), relation);
+                    relations.add(relation);
                 }
             }
         }
+        vfsDriver.createRelations(dbc, dbc.currentProject().getUuid(), relations);
     }
 
     /**
@@ -9687,8 +9865,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
         } finally {
             // update the driver manager cache
-            m_monitor.clearResourceCache();
-            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+            clearResourceCache(dbc, resource, false);
 
             // fire an event that a property of a resource has been modified
             Map<String, Object> data = new HashMap<String, Object>();
@@ -9768,8 +9945,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             }
         } finally {
             // update the driver manager cache
-            m_monitor.clearResourceCache();
-            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+            clearResourceCache(dbc, resource, false);
 
             // fire an event that the properties of a resource have been modified
             OpenCms.fireCmsEvent(new CmsEvent(
@@ -9836,7 +10012,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         }
 
         // update the cache
-        m_monitor.clearResourceCache();
+        clearResourceCache(dbc, resource, false);
         Map<String, Object> data = new HashMap<String, Object>(2);
         data.put(I_CmsEventListener.KEY_RESOURCE, resource);
         data.put(I_CmsEventListener.KEY_CHANGE, new Integer(CHANGED_RESOURCE));
@@ -10359,6 +10535,47 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return false;
     }
 
+    /**
+     * Clears the depending cache entries after the given resource was changed in the current project.<p>
+     *
+     * The cache entries of all siblings of the resource are cleared as well, since they share the resource data.
+     * If the database context uses another project than the current project, all resource caches are flushed.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the changed resource
+     * @param subtree if the cache entries for all resources below the given resource should be cleared as well
+     */
+    private void clearResourceCache(CmsDbContext dbc, CmsResource resource, boolean subtree) {
+
+        if ((dbc.getProjectId() != null) && !dbc.getProjectId().isNullUUID()) {
+            m_monitor.clearResourceCache();
+            return;
+        }
+        boolean online = dbc.currentProject().isOnlineProject();
+        m_monitor.clearResourceCache(online, resource.getRootPath(), subtree);
+        if (resource.getSiblingCount() > 1) {
+            try {
+                Iterator<CmsResource> itSiblings = getVfsDriver(dbc).readSiblings(
+                    dbc,
+                    dbc.currentProject().getUuid(),
+                    resource,
+                    true).iterator();
+                while (itSiblings.hasNext()) {
+                    CmsResource sibling = itSiblings.next();
+                    if (!sibling.getRootPath().equals(resource.getRootPath())) {
+                        m_monitor.clearResourceCache(online, sibling.getRootPath(), false);
+                    }
+                }
+            } catch (CmsDataAccessException e) {
+                // the siblings are unknown, so clear the complete caches
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(e.getLocalizedMessage(), e);
+                }
+                m_monitor.clearResourceCache();
+            }
+        }
+    }
+
     /**
      * Copies all relations from the source resource to the target resource.<p>
      *
@@ -10584,19 +10801,19 @@ public final class CmsDriverManager implements I_CmsEventListener {
         boolean forFolder,
         int depth) throws CmsException {
 
-        String cacheKey = getCacheKey(
-            new String[] {
-                inheritedOnly ? "+" : "-",
-                forFolder ? "+" : "-",
-                Integer.toString(depth),
-                resource.getStructureId().toString()},
-            dbc);
-
-        CmsAccessControlList acl = m_monitor.getCachedACL(cacheKey);
-
-        // return the cached acl if already available
-        if ((acl != null) && dbc.getProjectId().isNullUUID()) {
-            return acl;
+        CmsAccessControlListCacheKey cacheKey = null;
+        CmsAccessControlList acl = null;
+        if (dbc.getProjectId().isNullUUID()) {
+            int flags = CmsAccessControlListCacheKey.getFlags(
+                inheritedOnly,
+                forFolder,
+                dbc.currentProject().isOnlineProject());
+            cacheKey = new CmsAccessControlListCacheKey(resource.getStructureId(), depth, flags);
+            acl = m_monitor.getCachedACL(cacheKey);
+            // return the cached acl if already available
+            if (acl != null) {
+                return acl;
+            }
         }
 
         List<CmsAccessControlEntry> aces = getUserDriver(dbc).readAccessControlEntries(
@@ -10655,7 +10872,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
                 }
             }
         }
-        if (dbc.getProjectId().isNullUUID()) {
+        if (cacheKey != null) {
             m_monitor.cacheACL(cacheKey, acl);
         }
         return acl;
@@ -10673,13 +10890,14 @@ public final class CmsDriverManager implements I_CmsEventListener {
      */
     private String getCacheKey(String prefix, boolean flag, CmsUUID projectId, String resource) {
 
-        StringBuffer b = new StringBuffer(64);
-        if (prefix != null) {
-            b.append(prefix);
-            b.append(flag ? '+' : '-');
+        boolean online = CmsProject.isOnlineProject(projectId);
+        if (prefix == null) {
+            // most frequent case: only a single String has to be allocated 
+            return (online ? "+" : "-").concat(resource);
         }
-        b.append(CmsProject.isOnlineProject(projectId) ? '+' : '-');
-        return b.append(resource).toString();
+        String flags = flag ? (online ? "++" : "+-") : (online ? "-+" : "--");
+        return new StringBuilder(prefix.length() + flags.length() + resource.length()).append(prefix).append(
+            flags).append(resource).toString();
     }
 
     /**
@@ -10695,22 +10913,38 @@ public final class CmsDriverManager implements I_CmsEventListener {
         if (!dbc.getProjectId().isNullUUID()) {
             return "";
         }
-        StringBuffer b = new StringBuffer(64);
+        // calculate the exact length first so that the buffer never has to grow 
         int len = keys.length;
-        if (len > 0) {
-            for (int i = 0; i < len; i++) {
-                b.append(keys[i]);
-                b.append('_');
-            }
+        int size = len + 1;
+        for (int i = 0; i < len; i++) {
+            size += String.valueOf(keys[i]).length();
         }
-        if (dbc.currentProject().isOnlineProject()) {
-            b.append("+");
-        } else {
-            b.append("-");
+        StringBuilder b = new StringBuilder(size);
+        for (int i = 0; i < len; i++) {
+            b.append(keys[i]);
+            b.append('_');
         }
+        b.append(dbc.currentProject().isOnlineProject() ? '+' : '-');
         return b.toString();
     }
 
+    /**
+     * Returns the connection pool with the given URL.<p>
+     *
+     * @param dbPoolUrl the url of a pool
+     * @return the pool
+     * @throws CmsDbException if no pool with the given URL has been created by this driver manager
+     */
+    private I_CmsDbPool getConnectionPool(String dbPoolUrl) throws CmsDbException {
+
+        I_CmsDbPool pool = CmsDbPool.getPool(dbPoolUrl);
+        if ((pool == null) || (m_connectionPools == null) || !m_connectionPools.contains(pool)) {
+            CmsMessageContainer message = Messages.get().container(Messages.ERR_UNKNOWN_POOL_URL_1, dbPoolUrl);
+            throw new CmsDbException(message);
+        }
+        return pool;
+    }
+
     /**
      * Returns the correct project id.<p>
      *
@@ -11300,11 +11534,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             onlineResource,
             CmsRelationFilter.TARGETS);
         // write offline relations
-        Iterator<CmsRelation> itRelations = relations.iterator();
-        while (itRelations.hasNext()) {
-            CmsRelation relation = itRelations.next();
-            vfsDriver.createRelation(dbc, dbc.currentProject().getUuid(), relation);
-        }
+        vfsDriver.createRelations(dbc, dbc.currentProject().getUuid(), relations);
 
         // update the cache
         m_monitor.clearResourceCache();
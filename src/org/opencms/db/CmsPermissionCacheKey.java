@@ -0,0 +1,194 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.security.CmsPermissionSet;
+import org.opencms.util.CmsUUID;
+
+/**
+ * Immutable key for the permission cache.<p>
+ * 
+ * The key only holds references to the (immutable) ids of the user and the resource together with 
+ * the required permissions and a few bit flags, the hash code is calculated once in the constructor. 
+ * Compared to the former String keys, creating a key does not require any String building, and 
+ * a cache lookup with this key does neither have to hash nor to compare long Strings.<p>
+ * 
+ * @since 8.5.2
+ */
+public final class CmsPermissionCacheKey {
+
+    /** Flag indicating the lock state has to be checked. */
+    public static final int FLAG_CHECK_LOCK = 1;
+
+    /** Flag indicating the online project is used. */
+    public static final int FLAG_ONLINE = 2;
+
+    /** Flag indicating the resource has to be visible. */
+    public static final int FLAG_REQUIRE_VISIBLE = 4;
+
+    /** The allowed permissions that are required. */
+    private final int m_allowed;
+
+    /** The denied permissions that are required. */
+    private final int m_denied;
+
+    /** The flags of this key. */
+    private final int m_flags;
+
+    /** The precalculated hash code. */
+    private final int m_hashCode;
+
+    /** The structure id of the resource. */
+    private final CmsUUID m_structureId;
+
+    /** The id of the user. */
+    private final CmsUUID m_userId;
+
+    /**
+     * Creates a new permission cache key.<p>
+     * 
+     * @param userId the id of the user
+     * @param structureId the structure id of the resource
+     * @param requiredPermissions the required permissions
+     * @param flags the flags, a combination of the <code>FLAG_*</code> constants
+     */
+    public CmsPermissionCacheKey(CmsUUID userId, CmsUUID structureId, CmsPermissionSet requiredPermissions, int flags) {
+
+        m_userId = userId;
+        m_structureId = structureId;
+        m_allowed = requiredPermissions.getAllowedPermissions();
+        m_denied = requiredPermissions.getDeniedPermissions();
+        m_flags = flags;
+        int hash = m_structureId.hashCode();
+        hash = (31 * hash) + m_userId.hashCode();
+        hash = (31 * hash) + m_allowed;
+        hash = (31 * hash) + m_denied;
+        m_hashCode = (31 * hash) + m_flags;
+    }
+
+    /**
+     * Returns the flags for the given parameters.<p>
+     * 
+     * @param requireVisible if the resource has to be visible
+     * @param checkLock if the lock state has to be checked
+     * @param online if the online project is used
+     * 
+     * @return the flags
+     */
+    public static int getFlags(boolean requireVisible, boolean checkLock, boolean online) {
+
+        int flags = 0;
+        if (requireVisible) {
+            flags |= FLAG_REQUIRE_VISIBLE;
+        }
+        if (checkLock) {
+            flags |= FLAG_CHECK_LOCK;
+        }
+        if (online) {
+            flags |= FLAG_ONLINE;
+        }
+        return flags;
+    }
+
+    /**
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof CmsPermissionCacheKey)) {
+            return false;
+        }
+        CmsPermissionCacheKey other = (CmsPermissionCacheKey)obj;
+        return (m_hashCode == other.m_hashCode)
+            && (m_flags == other.m_flags)
+            && (m_allowed == other.m_allowed)
+            && (m_denied == other.m_denied)
+            && m_structureId.equals(other.m_structureId)
+            && m_userId.equals(other.m_userId);
+    }
+
+    /**
+     * Returns the flags of this key.<p>
+     * 
+     * @return the flags of this key
+     */
+    public int getFlags() {
+
+        return m_flags;
+    }
+
+    /**
+     * Returns the structure id of the resource.<p>
+     * 
+     * @return the structure id of the resource
+     */
+    public CmsUUID getStructureId() {
+
+        return m_structureId;
+    }
+
+    /**
+     * Returns the id of the user.<p>
+     * 
+     * @return the id of the user
+     */
+    public CmsUUID getUserId() {
+
+        return m_userId;
+    }
+
+    /**
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+
+        return m_hashCode;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        StringBuffer result = new StringBuffer(96);
+        result.append(m_flags);
+        result.append('_');
+        result.append(m_userId);
+        result.append('_');
+        result.append(new CmsPermissionSet(m_allowed, m_denied).getPermissionString());
+        result.append('_');
+        result.append(m_structureId);
+        return result.toString();
+    }
+}
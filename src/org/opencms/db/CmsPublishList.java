@@ -738,6 +738,46 @@ public class CmsPublishList implements Externalizable {
         }
     }
 
+    /**
+     * Adds all resources of the given publish list to this publish list, 
+     * if both lists publish the same project or direct publish in the same way.<p>
+     * 
+     * After merging, the given publish list has the publish history id of this publish list,
+     * since its resources will be published together with this list.<p>
+     * 
+     * @param publishList the publish list to merge into this publish list
+     * 
+     * @return <code>true</code> if the publish lists have been merged
+     */
+    protected boolean merge(CmsPublishList publishList) {
+
+        // it is essential that this method is only visible within the db package!
+        if (m_needsRevive
+            || publishList.m_needsRevive
+            || (isDirectPublish() != publishList.isDirectPublish())
+            || (m_publishSiblings != publishList.m_publishSiblings)
+            || (m_publishSubResources != publishList.m_publishSubResources)
+            || (m_isUserPublishList != publishList.m_isUserPublishList)
+            || ((m_projectId == null) ? (publishList.m_projectId != null) : !m_projectId.equals(publishList.m_projectId))) {
+            return false;
+        }
+        if (isDirectPublish()) {
+            List<CmsResource> directPublishResources = new ArrayList<CmsResource>(m_directPublishResources);
+            Iterator<CmsResource> itResources = publishList.m_directPublishResources.iterator();
+            while (itResources.hasNext()) {
+                CmsResource resource = itResources.next();
+                if (!directPublishResources.contains(resource)) {
+                    directPublishResources.add(resource);
+                }
+            }
+            m_directPublishResources = Collections.unmodifiableList(directPublishResources);
+        }
+        addAll(publishList.getAllResources(), false);
+        initialize();
+        publishList.m_publishHistoryId = m_publishHistoryId;
+        return true;
+    }
+
     /**
      * Removes a Cms resource from the publish list.<p>
      * 
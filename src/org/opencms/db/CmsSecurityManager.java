@@ -92,6 +92,8 @@ import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -4005,6 +4007,40 @@ public final class CmsSecurityManager {
         return result;
     }
 
+    /**
+     * Reads the given part of the content of the given file resource and writes it to the given output stream.<p>
+     *
+     * @param context the current request context
+     * @param resource the file resource (without content)
+     * @param offset the position of the first byte to write
+     * @param length the maximum number of bytes to write
+     * @param out the output stream to write the content to
+     *
+     * @throws CmsException if the content could not be read
+     * @throws IOException if the content could not be written to the output stream
+     *
+     * @see CmsObject#readContent(CmsResource, long, long, OutputStream)
+     */
+    public void readContent(
+        CmsRequestContext context,
+        CmsResource resource,
+        long offset,
+        long length,
+        OutputStream out) throws CmsException, IOException {
+
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            m_driverManager.readContent(dbc, resource, offset, length, out);
+        } catch (IOException e) {
+            // writing to the output stream failed, e.g. because the client aborted the download
+            throw e;
+        } catch (Exception e) {
+            dbc.report(null, Messages.get().container(Messages.ERR_READ_FILE_1, context.getSitePath(resource)), e);
+        } finally {
+            dbc.clear();
+        }
+    }
+
     /**
      * Returns the default file for the given folder.<p>
      *
@@ -4727,6 +4763,36 @@ public final class CmsSecurityManager {
         return result;
     }
 
+    /**
+     * Reads all property objects directly mapped to the given resources.<p>
+     *
+     * @param context the context of the current request
+     * @param resources the resources to read the properties for
+     *
+     * @return a map from the structure id of each resource to the list of its <code>{@link CmsProperty}</code> objects
+     *
+     * @throws CmsException if something goes wrong
+     *
+     * @see CmsObject#readPropertyObjects(List)
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(CmsRequestContext context, List<CmsResource> resources)
+    throws CmsException {
+
+        Map<CmsUUID, List<CmsProperty>> result = null;
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            result = m_driverManager.readPropertyObjects(dbc, resources);
+        } catch (Exception e) {
+            dbc.report(
+                null,
+                Messages.get().container(Messages.ERR_READ_PROPS_FOR_RESOURCES_1, new Integer(resources.size())),
+                e);
+        } finally {
+            dbc.clear();
+        }
+        return result;
+    }
+
     /**
      * Reads the resources that were published in a publish task for a given publish history ID.<p>
      *
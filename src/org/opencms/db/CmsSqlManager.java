@@ -28,6 +28,7 @@
 package org.opencms.db;
 
 import org.opencms.main.CmsLog;
+import org.opencms.main.CmsReqStatistics;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
@@ -94,6 +95,9 @@ public class CmsSqlManager {
     /**
      * Returns a connection to the database using the given pool identified by its full url.<p>
      * 
+     * If the url denotes a pool registered in {@link CmsDbPool}, the connection is taken directly 
+     * from that pool, otherwise from the JDBC driver manager.<p>
+     * 
      * @param dbPoolUrl the pool url
      * @return a database connection
      * @throws SQLException if something goes wrong
@@ -102,9 +106,14 @@ public class CmsSqlManager {
 
         long timer = System.currentTimeMillis();
 
-        Connection con = DriverManager.getConnection(dbPoolUrl);
+        I_CmsDbPool pool = null;
+        if (dbPoolUrl.startsWith(CmsDbPool.DBCP_JDBC_URL_PREFIX)) {
+            pool = CmsDbPool.getPool(dbPoolUrl.substring(CmsDbPool.DBCP_JDBC_URL_PREFIX.length()));
+        }
+        Connection con = (pool != null) ? pool.getConnection() : DriverManager.getConnection(dbPoolUrl);
+        timer = System.currentTimeMillis() - timer;
+        CmsReqStatistics.addConnectionWait(timer);
         if (LOG.isDebugEnabled()) {
-            timer = System.currentTimeMillis() - timer;
 
             if ((timer > 1000)) {
 
@@ -114,6 +123,18 @@ public class CmsSqlManager {
         return con;
     }
 
+    /**
+     * Returns the usage statistics of a pool.<p>
+     * 
+     * @param dbPoolUrl the url of a pool
+     * @return the usage statistics of the pool
+     * @throws CmsDbException if something goes wrong
+     */
+    public CmsDbPoolStatistics getConnectionStatistics(String dbPoolUrl) throws CmsDbException {
+
+        return m_driverManager.getConnectionStatistics(dbPoolUrl);
+    }
+
     /**
      * Returns a list of available database connection pool names.<p>
      * 
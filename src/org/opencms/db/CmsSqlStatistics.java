@@ -0,0 +1,193 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters for the use of prepared statements and batched writes of the SQL drivers.<p>
+ * 
+ * The counters are shared by all database pools and are written to the log by the memory monitor.<p>
+ * 
+ * @since 8.5.2 
+ * 
+ * @see CmsStatementPoolFactory
+ */
+public final class CmsSqlStatistics {
+
+    /** The single instance of the statistics. */
+    private static final CmsSqlStatistics INSTANCE = new CmsSqlStatistics();
+
+    /** The number of rows written with batches. */
+    private AtomicLong m_batchedRows;
+
+    /** The number of executed batches. */
+    private AtomicLong m_batches;
+
+    /** The number of prepared statements requested from the statement pools. */
+    private AtomicLong m_statementRequests;
+
+    /** The number of statements actually prepared by the JDBC driver. */
+    private AtomicLong m_statementsPrepared;
+
+    /**
+     * Hides the public constructor.<p>
+     */
+    private CmsSqlStatistics() {
+
+        m_batchedRows = new AtomicLong();
+        m_batches = new AtomicLong();
+        m_statementRequests = new AtomicLong();
+        m_statementsPrepared = new AtomicLong();
+    }
+
+    /**
+     * Returns the SQL statistics.<p>
+     * 
+     * @return the SQL statistics
+     */
+    public static CmsSqlStatistics getInstance() {
+
+        return INSTANCE;
+    }
+
+    /**
+     * Counts an executed batch.<p>
+     * 
+     * @param rows the number of rows in the batch
+     */
+    public void addBatch(int rows) {
+
+        m_batches.incrementAndGet();
+        m_batchedRows.addAndGet(rows);
+    }
+
+    /**
+     * Increments the number of statements actually prepared by the JDBC driver.<p>
+     */
+    public void addStatementPrepared() {
+
+        m_statementsPrepared.incrementAndGet();
+    }
+
+    /**
+     * Increments the number of prepared statements requested from the statement pools.<p>
+     */
+    public void addStatementRequest() {
+
+        m_statementRequests.incrementAndGet();
+    }
+
+    /**
+     * Returns the average number of rows per batch.<p>
+     * 
+     * @return the average batch size
+     */
+    public double getAverageBatchSize() {
+
+        long batches = m_batches.get();
+        return batches == 0 ? 0 : (double)m_batchedRows.get() / batches;
+    }
+
+    /**
+     * Returns the number of rows written with batches.<p>
+     * 
+     * @return the number of batched rows
+     */
+    public long getBatchedRows() {
+
+        return m_batchedRows.get();
+    }
+
+    /**
+     * Returns the number of executed batches.<p>
+     * 
+     * @return the number of batches
+     */
+    public long getBatches() {
+
+        return m_batches.get();
+    }
+
+    /**
+     * Returns the number of requested prepared statements that were taken from a statement pool.<p>
+     * 
+     * @return the number of reused statements
+     */
+    public long getReusedStatements() {
+
+        return Math.max(0, m_statementRequests.get() - m_statementsPrepared.get());
+    }
+
+    /**
+     * Returns the number of prepared statements requested from the statement pools.<p>
+     * 
+     * @return the number of statement requests
+     */
+    public long getStatementRequests() {
+
+        return m_statementRequests.get();
+    }
+
+    /**
+     * Returns the number of statements actually prepared by the JDBC driver.<p>
+     * 
+     * @return the number of prepared statements
+     */
+    public long getStatementsPrepared() {
+
+        return m_statementsPrepared.get();
+    }
+
+    /**
+     * Resets all counters to 0.<p>
+     */
+    public void reset() {
+
+        m_batchedRows.set(0);
+        m_batches.set(0);
+        m_statementRequests.set(0);
+        m_statementsPrepared.set(0);
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        return "requests="
+            + getStatementRequests()
+            + ", prepared="
+            + getStatementsPrepared()
+            + ", batches="
+            + getBatches()
+            + ", batchedRows="
+            + getBatchedRows();
+    }
+}
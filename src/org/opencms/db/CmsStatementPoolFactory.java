@@ -0,0 +1,250 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.pool.KeyedObjectPool;
+import org.apache.commons.pool.KeyedObjectPoolFactory;
+import org.apache.commons.pool.KeyedPoolableObjectFactory;
+import org.apache.commons.pool.impl.GenericKeyedObjectPool;
+
+/**
+ * Factory for the prepared statement pools of the pooled JDBC connections.<p>
+ * 
+ * Every pooled connection gets its own statement pool, keyed by the SQL of the statements, so a statement
+ * prepared once is reused by all later requests for the same SQL on this connection.
+ * If the number of different SQL statements of a connection exceeds the configured maximum, the idle 
+ * statements for the SQL that was least recently used are closed.<p>
+ * 
+ * The statement requests and the statements actually prepared are counted in the {@link CmsSqlStatistics}.<p>
+ * 
+ * @since 8.5.2 
+ */
+public class CmsStatementPoolFactory implements KeyedObjectPoolFactory {
+
+    /**
+     * Statement pool that counts the requested and the prepared statements and closes 
+     * the statements of the least recently used SQL if the limit is reached.<p>
+     */
+    private static class CmsStatementPool extends GenericKeyedObjectPool {
+
+        /** The maximum number of different SQL statements, a value &lt;= 0 means no limit. */
+        private int m_maxKeys;
+
+        /** The SQL keys in the order of their last use, the least recently used key first. */
+        private Map<Object, Boolean> m_recentKeys;
+
+        /**
+         * Creates a new statement pool.<p>
+         * 
+         * @param maxActive the maximum number of active statements per SQL
+         * @param whenExhaustedAction the action to take when the pool is exhausted
+         * @param maxWait the maximum time to wait for a statement
+         * @param maxIdle the maximum number of idle statements per SQL
+         * @param maxKeys the maximum number of different SQL statements, a value &lt;= 0 means no limit
+         */
+        CmsStatementPool(int maxActive, byte whenExhaustedAction, long maxWait, int maxIdle, int maxKeys) {
+
+            super(null, maxActive, whenExhaustedAction, maxWait, maxIdle);
+            m_maxKeys = maxKeys;
+            // access order, so the iteration starts with the least recently used key
+            m_recentKeys = new LinkedHashMap<Object, Boolean>(16, 0.75f, true);
+        }
+
+        /**
+         * @see org.apache.commons.pool.impl.GenericKeyedObjectPool#borrowObject(java.lang.Object)
+         */
+        @Override
+        public Object borrowObject(Object key) throws Exception {
+
+            CmsSqlStatistics.getInstance().addStatementRequest();
+            Object result = super.borrowObject(key);
+            touch(key);
+            return result;
+        }
+
+        /**
+         * @see org.apache.commons.pool.impl.GenericKeyedObjectPool#clear()
+         */
+        @Override
+        public void clear() {
+
+            synchronized (m_recentKeys) {
+                m_recentKeys.clear();
+            }
+            super.clear();
+        }
+
+        /**
+         * @see org.apache.commons.pool.impl.GenericKeyedObjectPool#returnObject(java.lang.Object, java.lang.Object)
+         */
+        @Override
+        public void returnObject(Object key, Object obj) throws Exception {
+
+            super.returnObject(key, obj);
+            touch(key);
+        }
+
+        /**
+         * @see org.apache.commons.pool.impl.GenericKeyedObjectPool#setFactory(org.apache.commons.pool.KeyedPoolableObjectFactory)
+         */
+        @Override
+        @SuppressWarnings("deprecation")
+        public void setFactory(KeyedPoolableObjectFactory factory) throws IllegalStateException {
+
+            super.setFactory(factory == null ? null : new CmsCountingStatementFactory(factory));
+        }
+
+        /**
+         * Marks the given SQL key as most recently used and closes the idle statements 
+         * of the least recently used key if there are too many keys.<p>
+         * 
+         * @param key the SQL key
+         */
+        private void touch(Object key) {
+
+            Object eldest = null;
+            synchronized (m_recentKeys) {
+                m_recentKeys.put(key, Boolean.TRUE);
+                if ((m_maxKeys > 0) && (m_recentKeys.size() > m_maxKeys)) {
+                    Iterator<Object> itKeys = m_recentKeys.keySet().iterator();
+                    eldest = itKeys.next();
+                    itKeys.remove();
+                }
+            }
+            if (eldest != null) {
+                // only the idle statements are closed, statements in use are not affected
+                clear(eldest);
+            }
+        }
+    }
+
+    /**
+     * Statement factory wrapper that counts the statements prepared by the JDBC driver.<p>
+     */
+    private static class CmsCountingStatementFactory implements KeyedPoolableObjectFactory {
+
+        /** The wrapped factory. */
+        private KeyedPoolableObjectFactory m_factory;
+
+        /**
+         * Creates a new counting statement factory.<p>
+         * 
+         * @param factory the factory to wrap
+         */
+        CmsCountingStatementFactory(KeyedPoolableObjectFactory factory) {
+
+            m_factory = factory;
+        }
+
+        /**
+         * @see org.apache.commons.pool.KeyedPoolableObjectFactory#activateObject(java.lang.Object, java.lang.Object)
+         */
+        public void activateObject(Object key, Object obj) throws Exception {
+
+            m_factory.activateObject(key, obj);
+        }
+
+        /**
+         * @see org.apache.commons.pool.KeyedPoolableObjectFactory#destroyObject(java.lang.Object, java.lang.Object)
+         */
+        public void destroyObject(Object key, Object obj) throws Exception {
+
+            m_factory.destroyObject(key, obj);
+        }
+
+        /**
+         * @see org.apache.commons.pool.KeyedPoolableObjectFactory#makeObject(java.lang.Object)
+         */
+        public Object makeObject(Object key) throws Exception {
+
+            CmsSqlStatistics.getInstance().addStatementPrepared();
+            return m_factory.makeObject(key);
+        }
+
+        /**
+         * @see org.apache.commons.pool.KeyedPoolableObjectFactory#passivateObject(java.lang.Object, java.lang.Object)
+         */
+        public void passivateObject(Object key, Object obj) throws Exception {
+
+            m_factory.passivateObject(key, obj);
+        }
+
+        /**
+         * @see org.apache.commons.pool.KeyedPoolableObjectFactory#validateObject(java.lang.Object, java.lang.Object)
+         */
+        public boolean validateObject(Object key, Object obj) {
+
+            return m_factory.validateObject(key, obj);
+        }
+    }
+
+    /** The maximum number of active statements per SQL. */
+    private int m_maxActive;
+
+    /** The maximum number of idle statements per SQL. */
+    private int m_maxIdle;
+
+    /** The maximum number of different SQL statements per connection. */
+    private int m_maxTotal;
+
+    /** The maximum time to wait for a statement. */
+    private long m_maxWait;
+
+    /** The action to take when the pool is exhausted. */
+    private byte m_whenExhaustedAction;
+
+    /**
+     * Creates a new statement pool factory.<p>
+     * 
+     * @param maxActive the maximum number of active statements per SQL
+     * @param whenExhaustedAction the action to take when the pool is exhausted
+     * @param maxWait the maximum time to wait for a statement
+     * @param maxIdle the maximum number of idle statements per SQL
+     * @param maxTotal the maximum number of different SQL statements per connection, a value &lt;= 0 means no limit
+     */
+    public CmsStatementPoolFactory(int maxActive, byte whenExhaustedAction, long maxWait, int maxIdle, int maxTotal) {
+
+        m_maxActive = maxActive;
+        m_whenExhaustedAction = whenExhaustedAction;
+        m_maxWait = maxWait;
+        m_maxIdle = maxIdle;
+        m_maxTotal = maxTotal;
+    }
+
+    /**
+     * @see org.apache.commons.pool.KeyedObjectPoolFactory#createPool()
+     */
+    public KeyedObjectPool createPool() {
+
+        return new CmsStatementPool(m_maxActive, m_whenExhaustedAction, m_maxWait, m_maxIdle, m_maxTotal);
+    }
+}
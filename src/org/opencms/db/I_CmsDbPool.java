@@ -0,0 +1,104 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.configuration.CmsParameterConfiguration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * A pool of JDBC connections used by the OpenCms SQL drivers.<p>
+ * 
+ * The implementation class of a pool is configured in <code>opencms.properties</code> with the key
+ * <code>db.pool.&lt;name&gt;.class</code>. Implementations must have a public constructor without arguments.<p>
+ * 
+ * @since 8.5.2 
+ * 
+ * @see CmsDbPool#createConnectionPool(CmsParameterConfiguration, String)
+ */
+public interface I_CmsDbPool {
+
+    /**
+     * Closes the pool and all idle connections.<p>
+     * 
+     * Connections currently in use are closed when they are returned to the pool.<p>
+     * 
+     * @throws Exception if something goes wrong
+     */
+    void close() throws Exception;
+
+    /**
+     * Returns a connection from the pool.<p>
+     * 
+     * The connection must be closed after use to return it to the pool.<p>
+     * 
+     * @return a connection
+     * 
+     * @throws SQLException if no connection is available
+     */
+    Connection getConnection() throws SQLException;
+
+    /**
+     * Returns the number of connections currently in use.<p>
+     * 
+     * @return the number of active connections
+     */
+    int getNumActive();
+
+    /**
+     * Returns the number of open connections not currently in use.<p>
+     * 
+     * @return the number of idle connections
+     */
+    int getNumIdle();
+
+    /**
+     * Returns the URL of the pool, e.g. <code>opencms:default</code>.<p>
+     * 
+     * @return the URL of the pool
+     */
+    String getPoolUrl();
+
+    /**
+     * Returns the usage statistics of the pool.<p>
+     * 
+     * @return the usage statistics
+     */
+    CmsDbPoolStatistics getStatistics();
+
+    /**
+     * Initializes the pool.<p>
+     * 
+     * @param config the configuration (opencms.properties)
+     * @param key the key of the database pool in the configuration
+     * 
+     * @throws Exception if the pool could not be initialized
+     */
+    void initialize(CmsParameterConfiguration config, String key) throws Exception;
+}
@@ -0,0 +1,66 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.file.CmsResource;
+import org.opencms.security.CmsPermissionSet;
+
+/**
+ * Optional extension of the cache key generator that creates typed keys for the permission cache.<p>
+ * 
+ * If the configured {@link I_CmsCacheKey} implementation does not implement this interface, 
+ * the String keys of {@link I_CmsCacheKey#getCacheKeyForUserPermissions} are used for the permission cache.<p>
+ * 
+ * @since 8.5.2
+ */
+public interface I_CmsPermissionCacheKeyGenerator {
+
+    /**
+     * Returns the key for the permission cache.<p>
+     * 
+     * The returned key object must implement <code>equals</code> and <code>hashCode</code> 
+     * and should be cheap to create and to compare, since it is created for every permission check.
+     * If the permissions of the given context must not be cached, <code>null</code> is returned.<p>
+     * 
+     * @param requireVisible if the resource has to be visible
+     * @param checkLock if the lock state has to be checked
+     * @param context the context
+     * @param resource the resource
+     * @param requiredPermissions the permissions to check
+     * 
+     * @return a cache key that is unique for the set of parameters, or <code>null</code>
+     * 
+     * @see CmsPermissionCacheKey
+     */
+    Object getCacheKeyForPermissions(
+        boolean requireVisible,
+        boolean checkLock,
+        CmsDbContext context,
+        CmsResource resource,
+        CmsPermissionSet requiredPermissions);
+}
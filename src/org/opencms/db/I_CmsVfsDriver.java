@@ -41,6 +41,8 @@ import org.opencms.relations.CmsRelationFilter;
 import org.opencms.security.CmsOrganizationalUnit;
 import org.opencms.util.CmsUUID;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Collection;
@@ -184,6 +186,20 @@ public interface I_CmsVfsDriver {
      */
     void createRelation(CmsDbContext dbc, CmsUUID projectId, CmsRelation relation) throws CmsDataAccessException;
 
+    /**
+     * Creates the given {@link CmsRelation} objects in the database.<p>
+     *
+     * Implementations should write the relations with as few database round trips as possible.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the project to execute the query in
+     * @param relations the relations to create
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    void createRelations(CmsDbContext dbc, CmsUUID projectId, List<CmsRelation> relations)
+    throws CmsDataAccessException;
+
     /**
      * Creates a new resource from a given {@link CmsResource} object.<p>
      *
@@ -464,6 +480,32 @@ public interface I_CmsVfsDriver {
      */
     byte[] readContent(CmsDbContext dbc, CmsUUID projectId, CmsUUID resourceId) throws CmsDataAccessException;
 
+    /**
+     * Reads the given part of the content of a file specified by it's resource ID 
+     * and writes it to the given output stream.<p>
+     *
+     * In contrast to {@link #readContent(CmsDbContext, CmsUUID, CmsUUID)}, the content is copied in chunks,
+     * so the memory used does not depend on the size of the content. The bytes before <code>offset</code> 
+     * are skipped, and reading stops after <code>length</code> bytes have been written.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the ID of the current project
+     * @param resourceId the id of the resource
+     * @param offset the position of the first byte to write
+     * @param length the maximum number of bytes to write
+     * @param out the output stream to write the content to
+     *
+     * @throws CmsDataAccessException if something goes wrong reading the content
+     * @throws IOException if something goes wrong writing to the output stream
+     */
+    void readContent(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        CmsUUID resourceId,
+        long offset,
+        long length,
+        OutputStream out) throws CmsDataAccessException, IOException;
+
     /**
      * Reads a folder specified by it's structure ID.<p>
      *
@@ -570,6 +612,28 @@ public interface I_CmsVfsDriver {
     List<CmsProperty> readPropertyObjects(CmsDbContext dbc, CmsProject project, CmsResource resource)
     throws CmsDataAccessException;
 
+    /**
+     * Reads all property objects mapped to the given resources from the database.<p>
+     *
+     * This is used to avoid one query per resource when the properties of a complete
+     * folder listing are needed, e.g. for building the navigation.<p>
+     *
+     * The returned map contains an entry for every given resource, keyed by its structure id.
+     * The entry is an empty list if no properties are found for the resource.<p>
+     *
+     * @param dbc the current database context
+     * @param project the current project
+     * @param resources the resources to read the properties for
+     *
+     * @return a map from structure id to the list of CmsProperty objects of the resource
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    Map<CmsUUID, List<CmsProperty>> readPropertyObjects(
+        CmsDbContext dbc,
+        CmsProject project,
+        List<CmsResource> resources) throws CmsDataAccessException;
+
     /**
      * Reads all relations with the given filter for the given resource.<p>
      *
@@ -129,6 +129,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_CONFIG_SUBSCRIPTIONMANAGER_FROZEN_0 = "ERR_CONFIG_SUBSCRIPTIONMANAGER_FROZEN_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_CONNECTION_CLOSED_0 = "ERR_CONNECTION_CLOSED_0";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_COPY_ACE_2 = "ERR_COPY_ACE_2";
 
@@ -405,6 +408,15 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_PERM_NOTLOCKED_2 = "ERR_PERM_NOTLOCKED_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_POOL_CLOSED_1 = "ERR_POOL_CLOSED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_POOL_EXHAUSTED_2 = "ERR_POOL_EXHAUSTED_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_POOL_INTERRUPTED_1 = "ERR_POOL_INTERRUPTED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_PROCESS_DB_CONTEXT_0 = "ERR_PROCESS_DB_CONTEXT_0";
 
@@ -504,6 +516,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_READ_PROJECT_VIEW_1 = "ERR_READ_PROJECT_VIEW_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_READ_PROPS_FOR_RESOURCES_1 = "ERR_READ_PROPS_FOR_RESOURCES_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_READ_PROP_FOR_RESOURCE_2 = "ERR_READ_PROP_FOR_RESOURCE_2";
 
@@ -834,6 +849,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_JDBC_POOL_2 = "INIT_JDBC_POOL_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_JDBC_POOL_CLASS_2 = "INIT_JDBC_POOL_CLASS_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_JDBC_POOL_REPLICAS_2 = "INIT_JDBC_POOL_REPLICAS_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_SECURITY_MANAGER_INIT_0 = "INIT_SECURITY_MANAGER_INIT_0";
 
@@ -846,12 +867,18 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_CHECK_RESOURCE_INSIDE_CURRENT_PROJECT_2 = "LOG_CHECK_RESOURCE_INSIDE_CURRENT_PROJECT_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_CLOSE_CONNECTION_FAILED_1 = "LOG_CLOSE_CONNECTION_FAILED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_CLOSE_CONN_POOL_ERROR_1 = "LOG_CLOSE_CONN_POOL_ERROR_1";
 
     /** Message constant for key in the resource bundle. */
     public static final String LOG_CMS_EVENT_1 = "LOG_CMS_EVENT_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_CONNECTION_LEAK_3 = "LOG_CONNECTION_LEAK_3";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_CREATE_FOLDER_FAILED_1 = "LOG_CREATE_FOLDER_FAILED_1";
 
@@ -74,6 +74,7 @@ import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.publish.CmsPublishJobInfoBean;
 import org.opencms.relations.CmsRelationFilter;
+import org.opencms.report.CmsBufferedReport;
 import org.opencms.report.I_CmsReport;
 import org.opencms.security.CmsOrganizationalUnit;
 import org.opencms.security.I_CmsPrincipal;
@@ -94,10 +95,19 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.commons.logging.Log;
 
@@ -1588,9 +1598,9 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
 
         int publishedFolderCount = 0;
         int deletedFolderCount = 0;
-        int publishedFileCount = 0;
-        Set<CmsUUID> publishedContentIds = new HashSet<CmsUUID>();
-        Set<CmsUUID> publishedIds = new HashSet<CmsUUID>();
+        AtomicInteger publishedFileCount = new AtomicInteger();
+        Set<CmsUUID> publishedContentIds = Collections.synchronizedSet(new HashSet<CmsUUID>());
+        Set<CmsUUID> publishedIds = Collections.synchronizedSet(new HashSet<CmsUUID>());
 
         try {
 
@@ -1711,7 +1721,6 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             ///////////////////////////////////////////////////////////////////////////////////////
             // publish changed/new/deleted files
 
-            publishedFileCount = 0;
             int filesSize = publishList.getFileList().size();
 
             if (filesSize > 0) {
@@ -1732,47 +1741,34 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             Set<CmsUUID> changedAndDeletedResourceIds = Sets.intersection(deletedResourceIds, changedResourceIds);
             dbc.setAttribute(CmsDriverManager.KEY_CHANGED_AND_DELETED, changedAndDeletedResourceIds);
 
-            Iterator<CmsResource> itFiles = publishList.getFileList().iterator();
-            while (itFiles.hasNext()) {
-                CmsResource currentResource = itFiles.next();
-                try {
-                    // bounce the current publish task through all project drivers
-                    projectDriver.publishFile(
+            int publishThreads = (OpenCms.getPublishManager() != null)
+            ? OpenCms.getPublishManager().getPublishThreads()
+            : 1;
+            if ((publishThreads > 1) && (filesSize > 1)) {
+                internalPublishFilesInParallel(
+                    dbc,
+                    report,
+                    publishThreads,
+                    onlineProject,
+                    publishList,
+                    publishTag,
+                    publishedFileCount,
+                    publishedContentIds,
+                    publishedIds);
+            } else {
+                Iterator<CmsResource> itFiles = publishList.getFileList().iterator();
+                while (itFiles.hasNext()) {
+                    internalPublishFile(
                         dbc,
                         report,
-                        ++publishedFileCount,
+                        publishedFileCount.incrementAndGet(),
                         filesSize,
                         onlineProject,
-                        currentResource,
+                        itFiles.next(),
                         publishedContentIds,
+                        publishedIds,
                         publishList.getPublishHistoryId(),
                         publishTag);
-
-                    CmsResourceState state = currentResource.getState();
-                    if (!state.isDeleted()) {
-                        // reset the resource state to UNCHANGED and the last-modified-in-project-ID to 0
-                        internalResetResourceState(dbc, currentResource);
-                    }
-
-                    // unlock it
-                    m_driverManager.unlockResource(dbc, currentResource, true, true);
-                    // log it
-                    CmsLogEntryType type = state.isNew() ? CmsLogEntryType.RESOURCE_PUBLISHED_NEW : (state.isDeleted()
-                    ? CmsLogEntryType.RESOURCE_PUBLISHED_DELETED
-                    : CmsLogEntryType.RESOURCE_PUBLISHED_MODIFIED);
-                    m_driverManager.log(dbc, new CmsLogEntry(
-                        dbc,
-                        currentResource.getStructureId(),
-                        type,
-                        new String[] {currentResource.getRootPath()}), true);
-
-                    publishedIds.add(currentResource.getStructureId());
-                    dbc.pop();
-                } catch (Throwable t) {
-                    dbc.report(
-                        report,
-                        Messages.get().container(Messages.ERR_ERROR_PUBLISHING_FILE_1, currentResource.getRootPath()),
-                        t);
                 }
             }
 
@@ -1859,7 +1855,7 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             // reset vfs driver internal info after publishing
             m_driverManager.getVfsDriver(dbc).publishVersions(dbc, null, false);
             Object[] msgArgs = new Object[] {
-                String.valueOf(publishedFileCount),
+                String.valueOf(publishedFileCount.get()),
                 String.valueOf(publishedFolderCount),
                 String.valueOf(deletedFolderCount),
                 report.formatRuntime()};
@@ -2619,12 +2615,14 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             if (LOG.isDebugEnabled()) {
                 LOG.debug(Messages.get().getBundle().key(Messages.LOG_DBG_CLEAR_LOCKS_1, new Integer(deleted)));
             }
+            m_sqlManager.closeAll(dbc, null, stmt, null);
             stmt = m_sqlManager.getPreparedStatement(conn, "C_RESOURCE_LOCK_WRITE");
             if (LOG.isDebugEnabled()) {
                 LOG.debug("SQL :" + m_sqlManager.readQuery("C_RESOURCE_LOCK_WRITE"));
             }
             Iterator<CmsLock> i = locks.iterator();
             int count = 0;
+            int pending = 0;
             while (i.hasNext()) {
                 CmsLock lock = i.next();
                 // only persist locks that should be written to the DB
@@ -2635,7 +2633,7 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                     stmt.setString(2, sysLock.getUserId().toString());
                     stmt.setString(3, sysLock.getProjectId().toString());
                     stmt.setInt(4, sysLock.getType().hashCode());
-                    stmt.executeUpdate();
+                    pending = m_sqlManager.addBatch(stmt, pending);
                     count++;
                 }
                 CmsLock editLock = lock.getEditionLock();
@@ -2645,10 +2643,11 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                     stmt.setString(2, editLock.getUserId().toString());
                     stmt.setString(3, editLock.getProjectId().toString());
                     stmt.setInt(4, editLock.getType().hashCode());
-                    stmt.executeUpdate();
+                    pending = m_sqlManager.addBatch(stmt, pending);
                     count++;
                 }
             }
+            m_sqlManager.executeBatch(stmt, pending);
             if (LOG.isDebugEnabled()) {
                 LOG.debug(Messages.get().getBundle().key(Messages.LOG_DBG_WRITE_LOCKS_1, new Integer(count)));
             }
@@ -3069,6 +3068,248 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         return (CmsPublishList)oin.readObject();
     }
 
+    /**
+     * Splits the given files to publish into groups that can be published independently of each other.<p>
+     * 
+     * Files with the same root path or the same resource id (siblings) are always put into the same group,
+     * the order of the files inside a group is the order of the given list.<p>
+     * 
+     * @param files the files to publish
+     * 
+     * @return the groups of files
+     */
+    protected List<List<CmsResource>> internalGetPublishFileGroups(List<CmsResource> files) {
+
+        int size = files.size();
+        int[] parents = new int[size];
+        Map<Object, Integer> firstIndexes = new HashMap<Object, Integer>();
+        for (int i = 0; i < size; i++) {
+            parents[i] = i;
+            CmsResource resource = files.get(i);
+            Object[] keys = new Object[] {resource.getResourceId(), resource.getRootPath()};
+            for (int k = 0; k < keys.length; k++) {
+                Integer firstIndex = firstIndexes.get(keys[k]);
+                if (firstIndex == null) {
+                    firstIndexes.put(keys[k], new Integer(i));
+                } else {
+                    // join the groups of both files
+                    int root = internalGetPublishGroupRoot(parents, firstIndex.intValue());
+                    int ownRoot = internalGetPublishGroupRoot(parents, i);
+                    parents[Math.max(root, ownRoot)] = Math.min(root, ownRoot);
+                }
+            }
+        }
+        Map<Integer, List<CmsResource>> groups = new LinkedHashMap<Integer, List<CmsResource>>();
+        for (int i = 0; i < size; i++) {
+            Integer root = new Integer(internalGetPublishGroupRoot(parents, i));
+            List<CmsResource> group = groups.get(root);
+            if (group == null) {
+                group = new ArrayList<CmsResource>();
+                groups.put(root, group);
+            }
+            group.add(files.get(i));
+        }
+        return new ArrayList<List<CmsResource>>(groups.values());
+    }
+
+    /**
+     * Returns the index of the first file of the group the file with the given index belongs to.<p>
+     * 
+     * @param parents the parent index of each file
+     * @param index the index of the file
+     * 
+     * @return the index of the first file of the group
+     */
+    protected int internalGetPublishGroupRoot(int[] parents, int index) {
+
+        int root = index;
+        while (parents[root] != root) {
+            // shorten the path for later lookups
+            parents[root] = parents[parents[root]];
+            root = parents[root];
+        }
+        return root;
+    }
+
+    /**
+     * Publishes a single file, resets its state, unlocks it and writes the log entry.<p>
+     * 
+     * @param dbc the current database context
+     * @param report the report to write to
+     * @param m the number of the file
+     * @param n the number of all files to publish
+     * @param onlineProject the online project
+     * @param resource the file to publish
+     * @param publishedContentIds the ids of the already published contents
+     * @param publishedIds the structure ids of the published resources
+     * @param publishHistoryId the publish history id
+     * @param publishTag the publish tag
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    protected void internalPublishFile(
+        CmsDbContext dbc,
+        I_CmsReport report,
+        int m,
+        int n,
+        CmsProject onlineProject,
+        CmsResource resource,
+        Set<CmsUUID> publishedContentIds,
+        Set<CmsUUID> publishedIds,
+        CmsUUID publishHistoryId,
+        int publishTag) throws CmsException {
+
+        try {
+            // bounce the current publish task through all project drivers
+            m_driverManager.getProjectDriver(dbc).publishFile(
+                dbc,
+                report,
+                m,
+                n,
+                onlineProject,
+                resource,
+                publishedContentIds,
+                publishHistoryId,
+                publishTag);
+
+            CmsResourceState state = resource.getState();
+            if (!state.isDeleted()) {
+                // reset the resource state to UNCHANGED and the last-modified-in-project-ID to 0
+                internalResetResourceState(dbc, resource);
+            }
+
+            // unlock it
+            m_driverManager.unlockResource(dbc, resource, true, true);
+            // log it
+            CmsLogEntryType type = state.isNew() ? CmsLogEntryType.RESOURCE_PUBLISHED_NEW : (state.isDeleted()
+            ? CmsLogEntryType.RESOURCE_PUBLISHED_DELETED
+            : CmsLogEntryType.RESOURCE_PUBLISHED_MODIFIED);
+            m_driverManager.log(
+                dbc,
+                new CmsLogEntry(dbc, resource.getStructureId(), type, new String[] {resource.getRootPath()}),
+                true);
+
+            publishedIds.add(resource.getStructureId());
+            dbc.pop();
+        } catch (Throwable t) {
+            dbc.report(
+                report,
+                Messages.get().container(Messages.ERR_ERROR_PUBLISHING_FILE_1, resource.getRootPath()),
+                t);
+        }
+    }
+
+    /**
+     * Publishes the files of the given publish list with several threads.<p>
+     * 
+     * The files are split into groups of siblings and resources with the same root path.
+     * Each group is published by a single thread with its own database context, in the order
+     * of the publish list. The report output of each file is written as a whole.
+     * If a file can not be published, the error is written to the report and the other files 
+     * are still published, the same way as when the files are published one after the other.
+     * Only if a worker fails outside of the publishing of a file, or if the publish thread is interrupted, 
+     * the workers stop publishing further files and the error is thrown once all workers have finished.<p>
+     * 
+     * @param dbc the current database context
+     * @param report the report to write to
+     * @param publishThreads the number of threads to use
+     * @param onlineProject the online project
+     * @param publishList the publish list
+     * @param publishTag the publish tag
+     * @param publishedFileCount the counter for the published files
+     * @param publishedContentIds the ids of the already published contents, must be thread safe
+     * @param publishedIds the structure ids of the published resources, must be thread safe
+     * 
+     * @throws CmsException if a worker failed or the publish thread has been interrupted
+     */
+    protected void internalPublishFilesInParallel(
+        final CmsDbContext dbc,
+        final I_CmsReport report,
+        int publishThreads,
+        final CmsProject onlineProject,
+        final CmsPublishList publishList,
+        final int publishTag,
+        final AtomicInteger publishedFileCount,
+        final Set<CmsUUID> publishedContentIds,
+        final Set<CmsUUID> publishedIds) throws CmsException {
+
+        final int filesSize = publishList.getFileList().size();
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final AtomicInteger workerCounter = new AtomicInteger();
+        final String threadName = Thread.currentThread().getName();
+        List<List<CmsResource>> groups = internalGetPublishFileGroups(publishList.getFileList());
+        ExecutorService executor = Executors.newFixedThreadPool(
+            Math.min(publishThreads, groups.size()),
+            new ThreadFactory() {
+
+                public Thread newThread(Runnable r) {
+
+                    return new Thread(r, threadName + " - worker " + workerCounter.incrementAndGet());
+                }
+            });
+        try {
+            Iterator<List<CmsResource>> itGroups = groups.iterator();
+            while (itGroups.hasNext()) {
+                final List<CmsResource> group = itGroups.next();
+                executor.execute(new Runnable() {
+
+                    public void run() {
+
+                        CmsDbContext workerDbc = new CmsDbContext(dbc.getRequestContext());
+                        workerDbc.setProjectId(dbc.getProjectId());
+                        workerDbc.setAttribute(
+                            CmsDriverManager.KEY_CHANGED_AND_DELETED,
+                            dbc.getAttribute(CmsDriverManager.KEY_CHANGED_AND_DELETED));
+                        CmsBufferedReport workerReport = new CmsBufferedReport(report);
+                        try {
+                            Iterator<CmsResource> itFiles = group.iterator();
+                            while (itFiles.hasNext() && (failure.get() == null)) {
+                                try {
+                                    internalPublishFile(
+                                        workerDbc,
+                                        workerReport,
+                                        publishedFileCount.incrementAndGet(),
+                                        filesSize,
+                                        onlineProject,
+                                        itFiles.next(),
+                                        publishedContentIds,
+                                        publishedIds,
+                                        publishList.getPublishHistoryId(),
+                                        publishTag);
+                                } finally {
+                                    // write the output of each file as a whole
+                                    workerReport.flush();
+                                }
+                            }
+                        } catch (Throwable t) {
+                            failure.compareAndSet(null, t);
+                        } finally {
+                            workerDbc.clear();
+                        }
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+        }
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                // wait until all files are published
+            }
+        } catch (InterruptedException e) {
+            // the publish thread has been abandoned, stop publishing
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        }
+        Throwable t = failure.get();
+        if (t instanceof CmsException) {
+            throw (CmsException)t;
+        } else if (t != null) {
+            throw new CmsDataAccessException(Messages.get().container(Messages.ERR_PUBLISHING_FILES_FAILED_0), t);
+        }
+    }
+
     /**
      * Creates a new {@link CmsLogEntry} object from the given result set entry.<p>
      *
@@ -29,6 +29,7 @@ package org.opencms.db.generic;
 
 import org.opencms.db.CmsDbContext;
 import org.opencms.db.CmsDbPool;
+import org.opencms.db.CmsSqlStatistics;
 import org.opencms.file.CmsProject;
 import org.opencms.main.CmsLog;
 import org.opencms.main.CmsRuntimeException;
@@ -37,6 +38,7 @@ import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
 import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -46,6 +48,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
 
@@ -56,6 +59,9 @@ import org.apache.commons.logging.Log;
  */
 public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
 
+    /** The maximum number of rows sent to the database with one batch. */
+    public static final int MAX_BATCH_SIZE = 100;
+
     /** A pattern being replaced in SQL queries to generate SQL queries to access online/offline tables. */
     protected static final String QUERY_PROJECT_SEARCH_PATTERN = "_${PROJECT}_";
 
@@ -82,7 +88,7 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
      */
     public CmsSqlManager() {
 
-        m_cachedQueries = new HashMap<String, String>();
+        m_cachedQueries = new ConcurrentHashMap<String, String>();
         m_queries = new HashMap<String, String>();
         loadQueryProperties(QUERY_PROPERTIES);
     }
@@ -131,6 +137,31 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
         return CmsStringUtil.substitute(query, QUERY_PROJECT_SEARCH_PATTERN, replacePattern);
     }
 
+    /**
+     * Adds the current parameters of the given statement to its batch.<p>
+     * 
+     * If the batch has reached the maximum batch size, it is executed.
+     * After the last row has been added, {@link #executeBatch(PreparedStatement, int)} must be called
+     * with the returned number of pending rows to write the rest of the batch.<p>
+     * 
+     * @param stmt the statement
+     * @param pendingRows the number of rows added to the batch and not executed yet
+     * 
+     * @return the number of rows added to the batch and not executed yet, including the added row
+     * 
+     * @throws SQLException if a database access error occurs
+     */
+    public int addBatch(PreparedStatement stmt, int pendingRows) throws SQLException {
+
+        stmt.addBatch();
+        pendingRows++;
+        if (pendingRows >= MAX_BATCH_SIZE) {
+            executeBatch(stmt, pendingRows);
+            pendingRows = 0;
+        }
+        return pendingRows;
+    }
+
     /**
      * Attempts to close the connection, statement and result set after a statement has been executed.<p>
      * 
@@ -185,6 +216,45 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
 
     }
 
+    /**
+     * Executes the pending rows of the batch of the given statement.<p>
+     * 
+     * @param stmt the statement
+     * @param pendingRows the number of rows added to the batch and not executed yet
+     * 
+     * @throws SQLException if a database access error occurs
+     * 
+     * @see #addBatch(PreparedStatement, int)
+     */
+    public void executeBatch(PreparedStatement stmt, int pendingRows) throws SQLException {
+
+        if (pendingRows > 0) {
+            stmt.executeBatch();
+            CmsSqlStatistics.getInstance().addBatch(pendingRows);
+        }
+    }
+
+    /**
+     * Retrieves the value of the designated column in the current row of this ResultSet object as 
+     * a stream of bytes, which can be read in chunks without loading the complete value into memory.<p>
+     * 
+     * The stream must be read before the next row of the result set is accessed. Overwrite this method 
+     * if another database server requires a different handling of byte attributes in tables.<p>
+     * 
+     * @param res the result set
+     * @param attributeName the name of the table attribute
+     * 
+     * @return the column value; if the value is SQL NULL, the value returned is null 
+     * 
+     * @throws SQLException if a database access error occurs
+     * 
+     * @see #getBytes(ResultSet, String)
+     */
+    public InputStream getBinaryStream(ResultSet res, String attributeName) throws SQLException {
+
+        return res.getBinaryStream(attributeName);
+    }
+
     /**
      * Retrieves the value of the designated column in the current row of this ResultSet object as 
      * a byte array in the Java programming language.<p>
@@ -290,6 +360,36 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
         return con.prepareStatement(query);
     }
 
+    /**
+     * Returns a connection for reading data of the given project.<p>
+     * 
+     * Reads of the online project go to a read replica of the pool, if replicas are configured and reads 
+     * are not pinned to the primary database, see {@link CmsDbPool#getReadPoolUrl(String)}. 
+     * Only use this method for connections that are used for reading.<p>
+     * 
+     * @param dbc the current database context
+     * @param projectId the id of the project to read data from
+     * 
+     * @return a JDBC connection
+     * 
+     * @throws SQLException if something goes wrong
+     */
+    public Connection getReadConnection(CmsDbContext dbc, CmsUUID projectId) throws SQLException {
+
+        if ((dbc != null) && dbc.isDefaultDbContext() && CmsProject.ONLINE_PROJECT_ID.equals(projectId)) {
+            String poolUrl = m_poolUrl.substring(CmsDbPool.DBCP_JDBC_URL_PREFIX.length());
+            String readPoolUrl = CmsDbPool.getReadPoolUrl(poolUrl);
+            if (!readPoolUrl.equals(poolUrl)) {
+                try {
+                    return getConnectionByUrl(CmsDbPool.DBCP_JDBC_URL_PREFIX + readPoolUrl);
+                } catch (SQLException e) {
+                    LOG.warn(Messages.get().getBundle().key(Messages.LOG_REPLICA_CONNECTION_FAILED_1, poolUrl), e);
+                }
+            }
+        }
+        return getConnection(dbc);
+    }
+
     /**
      * Initializes this SQL manager.<p>
      * 
@@ -80,6 +80,9 @@ import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -103,6 +106,12 @@ import org.apache.commons.logging.Log;
  */
 public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
+    /** The size of the buffer used to copy file contents to an output stream. */
+    protected static final int CONTENT_BUFFER_SIZE = 32 * 1024;
+
+    /** The maximum number of resources whose properties are read with a single query. */
+    protected static final int PROPERTIES_READ_CHUNK_SIZE = 200;
+
     /** Contains the macro replacement value for the offline project. */
     protected static final String OFFLINE = "OFFLINE";
 
@@ -115,13 +124,6 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     /** The driver manager. */
     protected CmsDriverManager m_driverManager;
 
-    /**
-     * This field is temporarily used to compute the versions during publishing.<p>
-     *
-     * @see #publishVersions(CmsDbContext, CmsResource, boolean)
-     */
-    protected List<CmsUUID> m_resOp = new ArrayList<CmsUUID>();
-
     /** The sql manager. */
     protected CmsSqlManager m_sqlManager;
 
@@ -583,6 +585,47 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#createRelations(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, java.util.List)
+     */
+    public void createRelations(CmsDbContext dbc, CmsUUID projectId, List<CmsRelation> relations)
+    throws CmsDataAccessException {
+
+        if (relations.isEmpty()) {
+            return;
+        }
+        Connection conn = null;
+        PreparedStatement stmt = null;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_CREATE_RELATION");
+            int pending = 0;
+            for (CmsRelation relation : relations) {
+                stmt.setString(1, relation.getSourceId().toString());
+                stmt.setString(2, relation.getSourcePath());
+                stmt.setString(3, relation.getTargetId().toString());
+                stmt.setString(4, relation.getTargetPath());
+                stmt.setInt(5, relation.getType().getId());
+
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(Messages.get().getBundle().key(
+                        Messages.LOG_CREATE_RELATION_2,
+                        String.valueOf(projectId),
+                        relation));
+                }
+                pending = m_sqlManager.addBatch(stmt, pending);
+            }
+            m_sqlManager.executeBatch(stmt, pending);
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(Messages.get().container(
+                Messages.ERR_GENERIC_SQL_1,
+                CmsDbSqlException.getErrorQuery(stmt)), e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, null);
+        }
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#createResource(org.opencms.db.CmsDbContext, CmsUUID, org.opencms.file.CmsResource, byte[])
      */
@@ -1604,7 +1647,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
         // if resource is null just flush the internal cache
         if (resource == null) {
-            m_resOp.clear();
+            dbc.removeAttribute(CmsDriverManager.KEY_RESOURCE_OPERATIONS);
             return;
         }
 
@@ -1615,7 +1658,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
         if (firstSibling) {
             // reset the resource operation flag
-            m_resOp.remove(resource.getResourceId());
+            internalGetResourceOperations(dbc).remove(resource.getResourceId());
         }
 
         boolean resOp = false; // assume structure operation
@@ -1638,7 +1681,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
             if (resOp) {
                 return;
             }
-            if (m_resOp.contains(resource.getResourceId())) {
+            if (internalGetResourceOperations(dbc).contains(resource.getResourceId())) {
                 return;
             }
         }
@@ -1654,7 +1697,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
         if (resOp) {
             if (resource.getSiblingCount() > 1) {
-                m_resOp.add(resource.getResourceId());
+                internalGetResourceOperations(dbc).add(resource.getResourceId());
             }
             resVersion++;
         }
@@ -1770,7 +1813,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         PreparedStatement stmt = null;
         ResultSet res = null;
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             stmt = m_sqlManager.getPreparedStatementForSql(conn, query.toString());
             stmt.setString(1, resource.getStructureId().toString());
             res = stmt.executeQuery();
@@ -1807,7 +1850,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         byte[] byteRes = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             if (projectId.equals(CmsProject.ONLINE_PROJECT_ID)) {
                 stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_ONLINE_FILES_CONTENT");
             } else {
@@ -1838,6 +1881,75 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return byteRes;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readContent(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, org.opencms.util.CmsUUID, long, long, java.io.OutputStream)
+     */
+    public void readContent(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        CmsUUID resourceId,
+        long offset,
+        long length,
+        OutputStream out) throws CmsDataAccessException, IOException {
+
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        Connection conn = null;
+
+        try {
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
+            if (projectId.equals(CmsProject.ONLINE_PROJECT_ID)) {
+                stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_ONLINE_FILES_CONTENT");
+            } else {
+                stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_OFFLINE_FILES_CONTENT");
+            }
+            stmt.setString(1, resourceId.toString());
+            res = stmt.executeQuery();
+
+            if (res.next()) {
+                InputStream in = m_sqlManager.getBinaryStream(res, m_sqlManager.readQuery("C_RESOURCES_FILE_CONTENT"));
+                if (in != null) {
+                    try {
+                        // skip the bytes before the offset without copying them
+                        long skip = offset;
+                        while (skip > 0) {
+                            long skipped = in.skip(skip);
+                            if (skipped <= 0) {
+                                break;
+                            }
+                            skip -= skipped;
+                        }
+                        // only read the requested bytes
+                        byte[] buffer = new byte[CONTENT_BUFFER_SIZE];
+                        long remaining = (skip > 0) ? 0 : length;
+                        int count;
+                        while ((remaining > 0)
+                            && ((count = in.read(buffer, 0, (int)Math.min(buffer.length, remaining))) != -1)) {
+                            out.write(buffer, 0, count);
+                            remaining -= count;
+                        }
+                    } finally {
+                        in.close();
+                    }
+                }
+                while (res.next()) {
+                    // do nothing only move through all rows because of mssql odbc driver
+                }
+            } else {
+                throw new CmsVfsResourceNotFoundException(Messages.get().container(
+                    Messages.ERR_READ_CONTENT_WITH_RESOURCE_ID_2,
+                    resourceId,
+                    Boolean.valueOf(projectId.equals(CmsProject.ONLINE_PROJECT_ID))));
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(Messages.get().container(
+                Messages.ERR_GENERIC_SQL_1,
+                CmsDbSqlException.getErrorQuery(stmt)), e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readFolder(org.opencms.db.CmsDbContext, CmsUUID, org.opencms.util.CmsUUID)
      */
@@ -1849,7 +1961,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         Connection conn = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_RESOURCES_READBYID");
             stmt.setString(1, folderId.toString());
             res = stmt.executeQuery();
@@ -1887,7 +1999,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
         folderPath = CmsFileUtil.removeTrailingSeparator(folderPath);
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_RESOURCES_READ");
 
             stmt.setString(1, folderPath);
@@ -1926,7 +2038,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         PreparedStatement stmt = null;
         Connection conn = null;
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_RESOURCES_READ_PARENT_BY_ID");
             stmt.setString(1, structureId.toString());
             res = stmt.executeQuery();
@@ -2040,7 +2152,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         int resultSize = 0;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_PROPERTIES_READ");
 
             stmt.setString(1, key);
@@ -2111,7 +2223,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         CmsProperty property;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_PROPERTIES_READALL");
             stmt.setString(1, resource.getStructureId().toString());
             stmt.setString(2, resource.getResourceId().toString());
@@ -2160,6 +2272,35 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return new ArrayList<CmsProperty>(propertyMap.values());
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readPropertyObjects(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, java.util.List)
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(
+        CmsDbContext dbc,
+        CmsProject project,
+        List<CmsResource> resources) throws CmsDataAccessException {
+
+        CmsUUID projectId = ((dbc.getProjectId() == null) || dbc.getProjectId().isNullUUID())
+        ? project.getUuid()
+        : dbc.getProjectId();
+
+        Map<CmsUUID, Map<String, CmsProperty>> propertyMaps = new HashMap<CmsUUID, Map<String, CmsProperty>>();
+        for (CmsResource resource : resources) {
+            propertyMaps.put(resource.getStructureId(), new HashMap<String, CmsProperty>());
+        }
+        // the IN list is limited by most databases, so the resources are read in chunks
+        for (int i = 0; i < resources.size(); i += PROPERTIES_READ_CHUNK_SIZE) {
+            List<CmsResource> chunk = resources.subList(i, Math.min(i + PROPERTIES_READ_CHUNK_SIZE, resources.size()));
+            internalReadPropertyObjects(dbc, projectId, chunk, propertyMaps);
+        }
+
+        Map<CmsUUID, List<CmsProperty>> result = new HashMap<CmsUUID, List<CmsProperty>>();
+        for (Map.Entry<CmsUUID, Map<String, CmsProperty>> entry : propertyMaps.entrySet()) {
+            result.put(entry.getKey(), new ArrayList<CmsProperty>(entry.getValue().values()));
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readRelations(org.opencms.db.CmsDbContext, CmsUUID, CmsResource, org.opencms.relations.CmsRelationFilter)
      */
@@ -2176,7 +2317,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         ResultSet res = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             if (filter.isSource()) {
                 List<Object> params = new ArrayList<Object>(7);
 
@@ -2251,7 +2392,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         Connection conn = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_RESOURCES_READBYID");
 
             stmt.setString(1, structureId.toString());
@@ -2302,7 +2443,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         boolean endsWithSlash = (len != path.length());
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_RESOURCES_READ");
 
             stmt.setString(1, path);
@@ -2357,7 +2498,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         Connection conn = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             if (mode == CmsDriverManager.READMODE_MATCHSTATE) {
                 stmt = m_sqlManager.getPreparedStatement(
                     conn,
@@ -2483,7 +2624,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         Connection conn = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             if (value == null) {
                 stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_RESOURCES_GET_RESOURCE_WITH_PROPERTYDEF");
                 stmt.setString(1, propertyDef.toString());
@@ -2557,7 +2698,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         Connection conn = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             StringBuffer queryBuf = new StringBuffer(256);
             queryBuf.append(m_sqlManager.readQuery(projectId, "C_RESOURCES_READ_TREE"));
             queryBuf.append(conditions);
@@ -2651,7 +2792,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         List<CmsResource> vfsLinks = new ArrayList<CmsResource>();
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
 
             if (includeDeleted) {
                 stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_SELECT_VFS_SIBLINGS");
@@ -3018,15 +3159,13 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         // copy offline to online relations
         CmsUUID dbcProjectId = dbc.getProjectId();
         dbc.setProjectId(CmsUUID.getNullUUID());
-        Iterator<CmsRelation> itRelations = m_driverManager.getVfsDriver(dbc).readRelations(
+        List<CmsRelation> relations = m_driverManager.getVfsDriver(dbc).readRelations(
             dbc,
             projectId,
             offlineResource,
-            CmsRelationFilter.TARGETS).iterator();
+            CmsRelationFilter.TARGETS);
         dbc.setProjectId(dbcProjectId);
-        while (itRelations.hasNext()) {
-            vfsDriver.createRelation(dbc, onlineProject.getUuid(), itRelations.next());
-        }
+        vfsDriver.createRelations(dbc, onlineProject.getUuid(), relations);
     }
 
     /**
@@ -3670,6 +3809,30 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return new CmsUrlNameMappingEntry(name, structureId, state, dateChanged, locale);
     }
 
+    /**
+     * Returns the ids of the resources whose resource version was already increased
+     * while publishing with the given database context.<p>
+     *
+     * The ids are kept in the database context, so that publish jobs running in parallel
+     * do not interfere with each other.<p>
+     *
+     * @param dbc the current database context
+     *
+     * @return the ids of the resources whose resource version was already increased
+     *
+     * @see #publishVersions(CmsDbContext, CmsResource, boolean)
+     */
+    protected Set<CmsUUID> internalGetResourceOperations(CmsDbContext dbc) {
+
+        @SuppressWarnings("unchecked")
+        Set<CmsUUID> resOp = (Set<CmsUUID>)dbc.getAttribute(CmsDriverManager.KEY_RESOURCE_OPERATIONS);
+        if (resOp == null) {
+            resOp = new HashSet<CmsUUID>();
+            dbc.setAttribute(CmsDriverManager.KEY_RESOURCE_OPERATIONS, resOp);
+        }
+        return resOp;
+    }
+
     /**
      * Increments a counter.<p>
      *
@@ -3801,6 +3964,116 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return parentId;
     }
 
+    /**
+     * Reads the properties of the given resources with a single query and adds them to the given property maps.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the project to read the properties in
+     * @param resources the resources to read the properties for
+     * @param propertyMaps the property maps to fill, keyed by the structure id of the resources
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    protected void internalReadPropertyObjects(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        List<CmsResource> resources,
+        Map<CmsUUID, Map<String, CmsProperty>> propertyMaps) throws CmsDataAccessException {
+
+        if (resources.isEmpty()) {
+            return;
+        }
+        // siblings share the resource id, so several resources may be found for a resource record mapping
+        Map<String, CmsResource> structureIds = new HashMap<String, CmsResource>();
+        Map<String, List<CmsResource>> resourceIds = new HashMap<String, List<CmsResource>>();
+        for (CmsResource resource : resources) {
+            structureIds.put(resource.getStructureId().toString(), resource);
+            String resourceId = resource.getResourceId().toString();
+            List<CmsResource> siblings = resourceIds.get(resourceId);
+            if (siblings == null) {
+                siblings = new ArrayList<CmsResource>(1);
+                resourceIds.put(resourceId, siblings);
+            }
+            siblings.add(resource);
+        }
+        List<String> params = new ArrayList<String>(structureIds.keySet());
+        params.addAll(resourceIds.keySet());
+
+        StringBuffer query = new StringBuffer(256);
+        query.append(m_sqlManager.readQuery(projectId, "C_PROPERTIES_READALL_FOR_IDS"));
+        query.append(BEGIN_CONDITION);
+        for (int i = 0; i < params.size(); i++) {
+            if (i > 0) {
+                query.append(", ");
+            }
+            query.append("?");
+        }
+        query.append(END_CONDITION);
+
+        ResultSet res = null;
+        PreparedStatement stmt = null;
+        Connection conn = null;
+        try {
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
+            stmt = m_sqlManager.getPreparedStatementForSql(conn, query.toString());
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setString(i + 1, params.get(i));
+            }
+            res = stmt.executeQuery();
+
+            while (res.next()) {
+                String mappingId = res.getString(1);
+                String propertyKey = res.getString(2);
+                String propertyValue = res.getString(3);
+                int mappingType = res.getInt(4);
+
+                List<CmsResource> mappedResources;
+                if (mappingType == CmsProperty.STRUCTURE_RECORD_MAPPING) {
+                    // this property value is mapped to a structure record
+                    CmsResource resource = structureIds.get(mappingId);
+                    mappedResources = (resource != null)
+                    ? Collections.singletonList(resource)
+                    : Collections.<CmsResource> emptyList();
+                } else if (mappingType == CmsProperty.RESOURCE_RECORD_MAPPING) {
+                    // this property value is mapped to a resource record
+                    mappedResources = resourceIds.get(mappingId);
+                    if (mappedResources == null) {
+                        mappedResources = Collections.<CmsResource> emptyList();
+                    }
+                } else {
+                    throw new CmsDbConsistencyException(Messages.get().container(
+                        Messages.ERR_UNKNOWN_PROPERTY_VALUE_MAPPING_3,
+                        mappingId,
+                        new Integer(mappingType),
+                        propertyKey));
+                }
+
+                for (CmsResource resource : mappedResources) {
+                    Map<String, CmsProperty> propertyMap = propertyMaps.get(resource.getStructureId());
+                    CmsProperty property = propertyMap.get(propertyKey);
+                    if (property == null) {
+                        // there doesn't exist a property object for this key yet
+                        property = new CmsProperty();
+                        property.setName(propertyKey);
+                        property.setOrigin(resource.getRootPath());
+                        propertyMap.put(propertyKey, property);
+                    }
+                    if (mappingType == CmsProperty.STRUCTURE_RECORD_MAPPING) {
+                        property.setStructureValue(propertyValue);
+                    } else {
+                        property.setResourceValue(propertyValue);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(Messages.get().container(
+                Messages.ERR_GENERIC_SQL_1,
+                CmsDbSqlException.getErrorQuery(stmt)), e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+    }
+
     /**
      * Creates a new {@link CmsRelation} object from the given result set entry.<p>
      *
@@ -160,6 +160,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_PATH_NOT_IN_PARENT_ORGUNIT_SCOPE_2 = "ERR_PATH_NOT_IN_PARENT_ORGUNIT_SCOPE_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_PUBLISHING_FILES_FAILED_0 = "ERR_PUBLISHING_FILES_FAILED_0";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_PUBLISHLIST_DESERIALIZATION_FAILED_1 = "ERR_PUBLISHLIST_DESERIALIZATION_FAILED_1";
 
@@ -409,6 +412,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_REMOVING_VISITEDLOG_1 = "LOG_REMOVING_VISITEDLOG_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_REPLICA_CONNECTION_FAILED_1 = "LOG_REPLICA_CONNECTION_FAILED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_SQL_MANAGER_INIT_FAILED_1 = "LOG_SQL_MANAGER_INIT_FAILED_1";
 
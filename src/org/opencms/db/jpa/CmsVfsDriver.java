@@ -103,6 +103,8 @@ import org.opencms.util.CmsPair;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.sql.ResultSet;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -400,13 +402,6 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     /** The driver manager. */
     protected CmsDriverManager m_driverManager;
 
-    /**
-     * This field is temporarily used to compute the versions during publishing.<p>
-     *
-     * @see #publishVersions(CmsDbContext, CmsResource, boolean)
-     */
-    protected List<CmsUUID> m_resOp = new ArrayList<CmsUUID>();
-
     /** The sql manager. */
     protected CmsSqlManager m_sqlManager;
 
@@ -816,6 +811,18 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#createRelations(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, java.util.List)
+     */
+    public void createRelations(CmsDbContext dbc, CmsUUID projectId, List<CmsRelation> relations)
+    throws CmsDataAccessException {
+
+        // the entity manager already collects the changes of the current transaction
+        for (CmsRelation relation : relations) {
+            createRelation(dbc, projectId, relation);
+        }
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#createResource(org.opencms.db.CmsDbContext, CmsUUID, org.opencms.file.CmsResource, byte[])
      */
@@ -1766,7 +1773,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
         // if resource is null just flush the internal cache
         if (resource == null) {
-            m_resOp.clear();
+            dbc.removeAttribute(CmsDriverManager.KEY_RESOURCE_OPERATIONS);
             return;
         }
 
@@ -1777,7 +1784,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
         if (firstSibling) {
             // reset the resource operation flag
-            m_resOp.remove(resource.getResourceId());
+            internalGetResourceOperations(dbc).remove(resource.getResourceId());
         }
 
         boolean resOp = false; // assume structure operation
@@ -1800,7 +1807,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
             if (resOp) {
                 return;
             }
-            if (m_resOp.contains(resource.getResourceId())) {
+            if (internalGetResourceOperations(dbc).contains(resource.getResourceId())) {
                 return;
             }
         }
@@ -1816,7 +1823,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
         if (resOp) {
             if (resource.getSiblingCount() > 1) {
-                m_resOp.add(resource.getResourceId());
+                internalGetResourceOperations(dbc).add(resource.getResourceId());
             }
             resVersion++;
         }
@@ -1976,6 +1983,24 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return byteRes == null ? EMPTY_BLOB : byteRes;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readContent(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, org.opencms.util.CmsUUID, long, long, java.io.OutputStream)
+     */
+    public void readContent(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        CmsUUID resourceId,
+        long offset,
+        long length,
+        OutputStream out) throws CmsDataAccessException, IOException {
+
+        // the JPA entities always contain the complete content
+        byte[] content = readContent(dbc, projectId, resourceId);
+        if ((content != null) && (offset < content.length)) {
+            out.write(content, (int)offset, (int)Math.min(length, content.length - offset));
+        }
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readFolder(org.opencms.db.CmsDbContext, CmsUUID, org.opencms.util.CmsUUID)
      */
@@ -2236,6 +2261,22 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return new ArrayList<CmsProperty>(propertyMap.values());
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readPropertyObjects(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, java.util.List)
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(
+        CmsDbContext dbc,
+        CmsProject project,
+        List<CmsResource> resources) throws CmsDataAccessException {
+
+        // JPQL does not support parameter lists in all providers, so the properties are read per resource
+        Map<CmsUUID, List<CmsProperty>> result = new HashMap<CmsUUID, List<CmsProperty>>();
+        for (CmsResource resource : resources) {
+            result.put(resource.getStructureId(), readPropertyObjects(dbc, project, resource));
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readRelations(org.opencms.db.CmsDbContext, CmsUUID, CmsResource, org.opencms.relations.CmsRelationFilter)
      */
@@ -3553,6 +3594,30 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return new CmsUrlNameMappingEntry(name, structureId, state, dateChanged, locale);
     }
 
+    /**
+     * Returns the ids of the resources whose resource version was already increased
+     * while publishing with the given database context.<p>
+     *
+     * The ids are kept in the database context, so that publish jobs running in parallel
+     * do not interfere with each other.<p>
+     *
+     * @param dbc the current database context
+     *
+     * @return the ids of the resources whose resource version was already increased
+     *
+     * @see #publishVersions(CmsDbContext, CmsResource, boolean)
+     */
+    protected Set<CmsUUID> internalGetResourceOperations(CmsDbContext dbc) {
+
+        @SuppressWarnings("unchecked")
+        Set<CmsUUID> resOp = (Set<CmsUUID>)dbc.getAttribute(CmsDriverManager.KEY_RESOURCE_OPERATIONS);
+        if (resOp == null) {
+            resOp = new HashSet<CmsUUID>();
+            dbc.setAttribute(CmsDriverManager.KEY_RESOURCE_OPERATIONS, resOp);
+        }
+        return resOp;
+    }
+
     /**
      * Returns the parent id of the given resource.<p>
      *
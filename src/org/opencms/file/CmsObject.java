@@ -63,6 +63,8 @@ import org.opencms.util.CmsUUID;
 import org.opencms.workplace.CmsWorkplace;
 import org.opencms.xml.content.CmsNumberSuffixNameSequence;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -2185,6 +2187,46 @@ public final class CmsObject {
         return m_securityManager.readBestUrlName(m_context, id, locale, defaultLocales);
     }
 
+    /**
+     * Reads the content of the given file resource and writes it to the given output stream.<p>
+     * 
+     * In contrast to {@link #readFile(CmsResource)}, the content is not loaded into memory 
+     * as a whole, which is useful to deliver large files. As with {@link #readFile(CmsResource)},
+     * no resource filter is applied, since we already have a full resource instance.<p>
+     * 
+     * @param resource the file resource to read the content for
+     * @param out the output stream to write the content to
+     * 
+     * @throws CmsException if the content could not be read for any reason
+     * @throws IOException if the content could not be written to the output stream
+     */
+    public void readContent(CmsResource resource, OutputStream out) throws CmsException, IOException {
+
+        readContent(resource, 0, Long.MAX_VALUE, out);
+    }
+
+    /**
+     * Reads the given part of the content of the given file resource and writes it to the given output stream.<p>
+     * 
+     * Only the bytes from <code>offset</code> on are read from the database, and reading stops 
+     * after <code>length</code> bytes have been written, which is useful to answer HTTP "Range" requests.<p>
+     * 
+     * @param resource the file resource to read the content for
+     * @param offset the position of the first byte to write
+     * @param length the maximum number of bytes to write
+     * @param out the output stream to write the content to
+     * 
+     * @throws CmsException if the content could not be read for any reason
+     * @throws IOException if the content could not be written to the output stream
+     * 
+     * @see #readContent(CmsResource, OutputStream)
+     */
+    public void readContent(CmsResource resource, long offset, long length, OutputStream out)
+    throws CmsException, IOException {
+
+        m_securityManager.readContent(m_context, resource, offset, length, out);
+    }
+
     /**
      * Returns the default resource for the given folder.<p>
      * <ol>
@@ -2759,6 +2801,26 @@ public final class CmsObject {
         return m_securityManager.readPropertyObjects(m_context, resource, search);
     }
 
+    /**
+     * Reads all property objects directly mapped to the given resources.<p>
+     *
+     * Use this instead of calling {@link #readPropertyObjects(CmsResource, boolean)} for every
+     * resource of a list, e.g. a folder listing, since the properties of all
+     * resources are read from the database with as few queries as possible.<p>
+     *
+     * Properties inherited from the parent folders are not included.<p>
+     *
+     * @param resources the resources to read the properties for
+     *
+     * @return a map from the structure id of each resource to the list of its <code>{@link CmsProperty}</code> objects
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(List<CmsResource> resources) throws CmsException {
+
+        return m_securityManager.readPropertyObjects(m_context, resources);
+    }
+
     /**
      * Reads the resources that were published in a publish task for a given publish history ID.<p>
      * 
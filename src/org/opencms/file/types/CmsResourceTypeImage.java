@@ -39,6 +39,7 @@ import org.opencms.file.CmsVfsException;
 import org.opencms.loader.CmsDumpLoader;
 import org.opencms.loader.CmsImageLoader;
 import org.opencms.loader.CmsImageScaler;
+import org.opencms.loader.I_CmsResourceLoader;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
@@ -404,6 +405,29 @@ public class CmsResourceTypeImage extends A_CmsResourceType {
         }
     }
 
+    /**
+     * @see org.opencms.file.types.A_CmsResourceType#initialize(org.opencms.file.CmsObject)
+     */
+    @Override
+    public void initialize(CmsObject cms) {
+
+        super.initialize(cms);
+        if (CmsImageLoader.isEnabled()) {
+            try {
+                I_CmsResourceLoader loader = OpenCms.getResourceManager().getLoader(
+                    CmsImageLoader.RESOURCE_LOADER_ID_IMAGE_LOADER);
+                if (loader instanceof CmsImageLoader) {
+                    // the image loader generates the configured image variants after publishing
+                    ((CmsImageLoader)loader).initialize(cms);
+                }
+            } catch (ArrayIndexOutOfBoundsException e) {
+                // ignore, loader not configured
+            } catch (CmsException e) {
+                LOG.error(e.getLocalizedMessage(), e);
+            }
+        }
+    }
+
     /**
      * @see org.opencms.file.types.I_CmsResourceType#replaceResource(org.opencms.file.CmsObject, org.opencms.db.CmsSecurityManager, org.opencms.file.CmsResource, int, byte[], java.util.List)
      */
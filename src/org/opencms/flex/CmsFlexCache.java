@@ -35,21 +35,22 @@ import org.opencms.loader.CmsJspLoader;
 import org.opencms.main.CmsLog;
 import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsCacheStatistics;
+import org.opencms.monitor.CmsConcurrentCacheMap;
 import org.opencms.security.CmsRole;
-import org.opencms.util.CmsCollectionsGenericWrapper;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashSet;
-import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
-import org.apache.commons.collections.map.LRUMap;
 import org.apache.commons.logging.Log;
 
 /**
@@ -92,6 +93,9 @@ import org.apache.commons.logging.Log;
  * The cache is fully flushed if an event {@link I_CmsEventListener#EVENT_PUBLISH_PROJECT} 
  * or {@link I_CmsEventListener#EVENT_CLEAR_CACHES} is caught.<p>
  * 
+ * Optionally, the online entries are also written to a {@link CmsFlexCacheDiskStore}, 
+ * from which they are restored after a restart when the resource is requested the next time.<p>
+ * 
  * @since 6.0.0 
  * 
  * @see org.opencms.flex.CmsFlexCacheKey
@@ -107,10 +111,10 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
     public static class CmsFlexCacheVariation extends Object {
 
         /** The key belonging to the resource. */
-        public CmsFlexCacheKey m_key;
+        public volatile CmsFlexCacheKey m_key;
 
         /** Maps variations to CmsFlexCacheEntries. */
-        public Map<String, I_CmsLruCacheObject> m_map;
+        public volatile Map<String, I_CmsLruCacheObject> m_map;
 
         /**
          * Generates a new instance of CmsFlexCacheVariation.<p>
@@ -120,17 +124,14 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         public CmsFlexCacheVariation(CmsFlexCacheKey theKey) {
 
             m_key = theKey;
-            m_map = new Hashtable<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
+            m_map = new ConcurrentHashMap<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
         }
     }
 
     /**
-     * Extended LRUMap that handles the variations in case a key is removed.<p>
+     * Concurrent cache map that handles the variations in case a key is evicted.<p>
      */
-    class CmsFlexKeyMap extends LRUMap {
-
-        /** Serial version UID required for safe serialization. */
-        private static final long serialVersionUID = 6931995916013396902L;
+    class CmsFlexKeyMap extends CmsConcurrentCacheMap<String, CmsFlexCacheVariation> {
 
         /**
          * Initialize the map with the given size.<p>
@@ -139,40 +140,32 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
          */
         public CmsFlexKeyMap(int maxSize) {
 
-            super(maxSize);
+            super(maxSize, false, KEY_EVICTION_SAMPLE_SIZE, KEY_CONCURRENCY_LEVEL, new CmsCacheStatistics(), null);
         }
 
         /**
          * Ensures that all variations that referenced by this key are released
          * if the key is released.<p>
          * 
-         * @param entry the entry to remove
-         * 
-         * @return <code>true</code> to actually delete the entry
+         * @param key the key of the evicted entry
+         * @param v the evicted variations
          * 
-         * @see LRUMap#removeLRU(LinkEntry)
+         * @see org.opencms.monitor.CmsConcurrentCacheMap#onEviction(java.lang.Object, java.lang.Object)
          */
         @Override
-        protected boolean removeLRU(LinkEntry entry) {
+        protected void onEviction(String key, CmsFlexCacheVariation v) {
 
-            CmsFlexCacheVariation v = (CmsFlexCacheVariation)entry.getValue();
-            if (v == null) {
-                return true;
-            }
             Map<String, I_CmsLruCacheObject> m = v.m_map;
             if ((m == null) || (m.size() == 0)) {
-                return true;
+                return;
             }
             Collection<I_CmsLruCacheObject> entries = m.values();
-            synchronized (m_variationCache) {
-                for (I_CmsLruCacheObject e : entries) {
-                    m_variationCache.remove(e);
-                }
-                v.m_map.clear();
-                v.m_map = null;
-                v.m_key = null;
+            for (I_CmsLruCacheObject e : entries) {
+                m_variationCache.remove(e);
             }
-            return true;
+            m.clear();
+            v.m_map = null;
+            v.m_key = null;
         }
     }
 
@@ -206,24 +199,39 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
     /** Initial size for variation lists, should be a power of 2. */
     public static final int INITIAL_CAPACITY_VARIATIONS = 8;
 
+    /** The number of segments of the LRU cache for the entries. */
+    public static final int LRU_CACHE_SEGMENTS = 16;
+
     /** Offline repository constant. */
     public static final String REPOSITORY_OFFLINE = "offline";
 
     /** Online repository constant. */
     public static final String REPOSITORY_ONLINE = "online";
 
+    /** The estimated number of threads concurrently adding keys. */
+    private static final int KEY_CONCURRENCY_LEVEL = 16;
+
+    /** The number of keys compared for each eviction from the key map. */
+    private static final int KEY_EVICTION_SAMPLE_SIZE = 8;
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsFlexCache.class);
 
     /** The LRU cache to organize the cached entries. */
     protected CmsLruCache m_variationCache;
 
+    /** The off-heap storage for the cached output, or <code>null</code> if the output is cached on the heap. */
+    private CmsFlexCacheArena m_arena;
+
     /** Indicates if offline resources should be cached or not. */
     private boolean m_cacheOffline;
 
     /** The device selector. */
     private I_CmsJspDeviceSelector m_deviceSelector;
 
+    /** The persistent store for the online entries, or <code>null</code> if the cache is not persisted. */
+    private CmsFlexCacheDiskStore m_diskStore;
+
     /** Indicates if the cache is enabled or not. */
     private boolean m_enabled;
 
@@ -257,14 +265,33 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         int maxEntryBytes = configuration.getMaxEntryBytes();
         int maxKeys = configuration.getMaxKeys();
 
-        m_variationCache = new CmsLruCache(maxCacheBytes, avgCacheBytes, maxEntryBytes);
+        m_variationCache = new CmsLruCache(maxCacheBytes, avgCacheBytes, maxEntryBytes, LRU_CACHE_SEGMENTS);
         OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_entryLruCache", m_variationCache);
 
         if (m_enabled) {
             CmsFlexKeyMap flexKeyMap = new CmsFlexKeyMap(maxKeys);
-            m_keyCache = Collections.synchronizedMap(CmsCollectionsGenericWrapper.<String, CmsFlexCacheVariation> map(flexKeyMap));
+            m_keyCache = flexKeyMap;
             OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_resourceMap", flexKeyMap);
 
+            if (configuration.getOffHeapMode() != null) {
+                m_arena = createArena(configuration);
+                if (m_arena != null) {
+                    OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_arena", m_arena);
+                }
+            }
+
+            if (configuration.getDiskStoreFolder() != null) {
+                // the publish history id is read when the store is used for the first time
+                m_diskStore = new CmsFlexCacheDiskStore(
+                    OpenCms.getSystemInfo().getAbsoluteRfsPathRelativeToWebInf(configuration.getDiskStoreFolder()),
+                    null);
+                if (LOG.isInfoEnabled()) {
+                    LOG.info(Messages.get().getBundle().key(
+                        Messages.LOG_FLEXCACHE_DISKSTORE_CREATED_1,
+                        m_diskStore.getRepositoryPath()));
+                }
+            }
+
             OpenCms.addCmsEventListener(this, new int[] {
                 I_CmsEventListener.EVENT_PUBLISH_PROJECT,
                 I_CmsEventListener.EVENT_CLEAR_CACHES,
@@ -304,11 +331,24 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
 
         switch (event.getType()) {
             case I_CmsEventListener.EVENT_PUBLISH_PROJECT:
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_RECEIVED_EVENT_CLEAR_CACHE_0));
+                }
+                if (m_diskStore != null) {
+                    // the stored entries are outdated now
+                    String publishId = (event.getData() != null)
+                    ? (String)event.getData().get(I_CmsEventListener.KEY_PUBLISHID)
+                    : null;
+                    m_diskStore.setPublishId(publishId != null ? publishId : new CmsUUID().toString());
+                }
+                clear();
+                break;
             case I_CmsEventListener.EVENT_CLEAR_CACHES:
                 if (LOG.isDebugEnabled()) {
                     LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_RECEIVED_EVENT_CLEAR_CACHE_0));
                 }
                 clear();
+                clearDiskStore();
                 break;
             case I_CmsEventListener.EVENT_FLEX_PURGE_JSP_REPOSITORY:
                 if (LOG.isDebugEnabled()) {
@@ -338,15 +378,19 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                 switch (i) {
                     case CLEAR_ALL:
                         clear();
+                        clearDiskStore();
                         break;
                     case CLEAR_ENTRIES:
                         clearEntries();
+                        clearDiskStore();
                         break;
                     case CLEAR_ONLINE_ALL:
                         clearOnline();
+                        clearDiskStore();
                         break;
                     case CLEAR_ONLINE_ENTRIES:
                         clearOnlineEntries();
+                        clearDiskStore();
                         break;
                     case CLEAR_OFFLINE_ALL:
                         clearOffline();
@@ -363,6 +407,16 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         }
     }
 
+    /**
+     * Returns the off-heap storage for the cached output.<p>
+     * 
+     * @return the off-heap storage, or <code>null</code> if the output is cached on the heap
+     */
+    public CmsFlexCacheArena getArena() {
+
+        return m_arena;
+    }
+
     /**
      * Returns the CmsFlexCacheKey data structure for a given
      * key (i.e. resource name).<p>
@@ -430,7 +484,8 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         }
         Object o = m_keyCache.get(key);
         if (o != null) {
-            return ((CmsFlexCacheVariation)o).m_map.keySet();
+            Map<String, I_CmsLruCacheObject> m = ((CmsFlexCacheVariation)o).m_map;
+            return (m != null) ? m.keySet() : null;
         }
         return null;
     }
@@ -495,6 +550,9 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
      * In case a found entry has a timeout set, it will be checked upon lookup.
      * In case the timeout of the entry has been reached, it will be removed from
      * the cache (and null will be returned in this case).<p>
+     * 
+     * A reference to the output of the found entry is added, which must be released 
+     * with {@link CmsFlexCacheEntry#removeReference()} after the entry was delivered.<p>
      *
      * @param key The key to look for in the cache
      * @return the entry found for the key, or null if key is not in the cache
@@ -506,16 +564,26 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
             return null;
         }
         Object o = m_keyCache.get(key.getResource());
+        if ((o == null) && (m_diskStore != null)) {
+            // the resource may have been cached before the last restart
+            o = loadFromDiskStore(key.getResource());
+        }
         if (o != null) {
             // found a matching key in the cache
             CmsFlexCacheVariation v = (CmsFlexCacheVariation)o;
-            String variation = v.m_key.matchRequestKey(key);
+            // the variation may be released concurrently
+            CmsFlexCacheKey cacheKey = v.m_key;
+            Map<String, I_CmsLruCacheObject> m = v.m_map;
+            if ((cacheKey == null) || (m == null)) {
+                return null;
+            }
+            String variation = cacheKey.matchRequestKey(key);
 
             if (CmsStringUtil.isEmpty(variation)) {
                 // requested resource is not cacheable
                 return null;
             }
-            CmsFlexCacheEntry entry = (CmsFlexCacheEntry)v.m_map.get(variation);
+            CmsFlexCacheEntry entry = (CmsFlexCacheEntry)m.get(variation);
             if (entry == null) {
                 // no cache entry available for variation
                 return null;
@@ -525,6 +593,15 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                 m_variationCache.remove(entry);
                 return null;
             }
+            if (!entry.addReference()) {
+                // the off-heap output of the entry was already freed, so it must not be used anymore
+                if (m.get(variation) == entry) {
+                    m.remove(variation);
+                }
+                return null;
+            }
+            // update the recency of the entry without blocking other requests
+            m_variationCache.recordAccess(entry);
             // return the found cache entry
             return entry;
         } else {
@@ -601,7 +678,9 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                     key.getResource(),
                     key.getVariation()));
             }
-            put(key, entry);
+            if (put(key, entry) && (m_diskStore != null)) {
+                m_diskStore.store(key, variation, entry, m_arena);
+            }
             // Note that duplicates are NOT checked, it it assumed that this is done beforehand,
             // while checking if the entry is already in the cache or not.
             return true;
@@ -647,8 +726,9 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
             return;
         }
         CmsFlexCacheVariation o = m_keyCache.get(key.getResource());
-        if (o != null) {
-            I_CmsLruCacheObject old = o.m_map.get(key.getVariation());
+        Map<String, I_CmsLruCacheObject> m = (o != null) ? o.m_map : null;
+        if (m != null) {
+            I_CmsLruCacheObject old = m.get(key.getVariation());
             if (old != null) {
                 getEntryLruCache().remove(old);
             }
@@ -693,6 +773,10 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
             String s = i.next();
             if (s.endsWith(suffix)) {
                 CmsFlexCacheVariation v = m_keyCache.get(s);
+                if ((v == null) || (v.m_map == null)) {
+                    // the key was evicted concurrently
+                    continue;
+                }
                 if (entriesOnly) {
                     // Clear only entry
                     m_size -= v.m_map.size();
@@ -702,7 +786,7 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                         allEntries.remove();
                         m_variationCache.remove(nextObject);
                     }
-                    v.m_map = new Hashtable<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
+                    v.m_map = new ConcurrentHashMap<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
                 } else {
                     // Clear key and entry
                     m_size -= v.m_map.size();
@@ -727,6 +811,16 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         }
     }
 
+    /**
+     * Deletes all entries of the persistent store.<p>
+     */
+    private void clearDiskStore() {
+
+        if (m_diskStore != null) {
+            m_diskStore.clear();
+        }
+    }
+
     /**
      * Clears all entries in the cache, online or offline.<p>
      * 
@@ -748,13 +842,17 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         Iterator<String> i = cacheKeys.iterator();
         while (i.hasNext()) {
             CmsFlexCacheVariation v = m_keyCache.get(i.next());
+            if ((v == null) || (v.m_map == null)) {
+                // the key was evicted concurrently
+                continue;
+            }
             Iterator<I_CmsLruCacheObject> allEntries = v.m_map.values().iterator();
             while (allEntries.hasNext()) {
                 I_CmsLruCacheObject nextObject = allEntries.next();
                 allEntries.remove();
                 m_variationCache.remove(nextObject);
             }
-            v.m_map = new Hashtable<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
+            v.m_map = new ConcurrentHashMap<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
         }
         m_size = 0;
     }
@@ -837,6 +935,64 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         clearAccordingToSuffix(CACHE_ONLINESUFFIX, true);
     }
 
+    /**
+     * Creates the off-heap storage for the cached output.<p>
+     * 
+     * @param configuration the flex cache configuration
+     * 
+     * @return the off-heap storage, or <code>null</code> if it could not be created
+     */
+    private CmsFlexCacheArena createArena(CmsFlexCacheConfiguration configuration) {
+
+        CmsFlexCacheArena arena;
+        if (CmsFlexCacheArena.MODE_MAPPED.equals(configuration.getOffHeapMode())) {
+            String fileName = OpenCms.getSystemInfo().getAbsoluteRfsPathRelativeToWebInf(
+                configuration.getOffHeapFile());
+            try {
+                arena = new CmsFlexCacheArena(
+                    configuration.getOffHeapCapacity(),
+                    configuration.getOffHeapBlockSize(),
+                    new File(fileName));
+            } catch (IOException e) {
+                LOG.error(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_ARENA_FAILED_1, fileName), e);
+                return null;
+            }
+        } else {
+            arena = new CmsFlexCacheArena(configuration.getOffHeapCapacity(), configuration.getOffHeapBlockSize());
+        }
+        if (LOG.isInfoEnabled()) {
+            LOG.info(Messages.get().getBundle().key(
+                Messages.LOG_FLEXCACHE_ARENA_CREATED_3,
+                arena.getMode(),
+                new Long(arena.getCapacity()),
+                new Integer(arena.getBlockSize())));
+        }
+        return arena;
+    }
+
+    /**
+     * Adds the entries of the given resource from the persistent store to the cache.<p>
+     * 
+     * @param resource the resource name, including the online suffix
+     * 
+     * @return the variation map of the resource, or <code>null</code> if nothing was stored
+     */
+    private CmsFlexCacheVariation loadFromDiskStore(String resource) {
+
+        CmsFlexCacheVariation stored = m_diskStore.load(resource);
+        if (stored == null) {
+            return null;
+        }
+        putKey(stored.m_key);
+        Iterator<Map.Entry<String, I_CmsLruCacheObject>> itEntries = stored.m_map.entrySet().iterator();
+        while (itEntries.hasNext()) {
+            Map.Entry<String, I_CmsLruCacheObject> e = itEntries.next();
+            stored.m_key.setVariation(e.getKey());
+            put(stored.m_key, (CmsFlexCacheEntry)e.getValue());
+        }
+        return m_keyCache.get(resource);
+    }
+
     /**
      * This method purges the JSP repository dirs,
      * i.e. it deletes all JSP files that OpenCms has written to the
@@ -863,6 +1019,7 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         CmsFileUtil.purgeDirectory(d);
 
         clear();
+        clearDiskStore();
         if (LOG.isInfoEnabled()) {
             LOG.info(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_PURGED_JSP_REPOSITORY_0));
         }
@@ -873,17 +1030,23 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
      *
      * @param key the key under which the value is saved
      * @param theCacheEntry the entry to cache
+     * 
+     * @return <code>true</code> if the entry was added to the cache
      */
-    private void put(CmsFlexCacheKey key, CmsFlexCacheEntry theCacheEntry) {
+    private boolean put(CmsFlexCacheKey key, CmsFlexCacheEntry theCacheEntry) {
 
         CmsFlexCacheVariation o = m_keyCache.get(key.getResource());
         if (key.getTimeout() > 0) {
             theCacheEntry.setDateExpiresToNextTimeout(key.getTimeout());
         }
-        if (o != null) {
+        if (m_arena != null) {
+            // move the output off the heap before the LRU cache reads the costs of the entry
+            theCacheEntry.moveToArena(m_arena);
+        }
+        boolean wasAdded;
+        Map<String, I_CmsLruCacheObject> m = (o != null) ? o.m_map : null;
+        if (m != null) {
             // We already have a variation map for this resource
-            Map<String, I_CmsLruCacheObject> m = o.m_map;
-            boolean wasAdded = true;
             if (!m.containsKey(key.getVariation())) {
                 wasAdded = m_variationCache.add(theCacheEntry);
             } else {
@@ -898,7 +1061,7 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
             // No variation map for this resource yet, so create one
             CmsFlexCacheVariation list = new CmsFlexCacheVariation(key);
 
-            boolean wasAdded = m_variationCache.add(theCacheEntry);
+            wasAdded = m_variationCache.add(theCacheEntry);
 
             if (wasAdded) {
                 theCacheEntry.setVariationData(key.getVariation(), list.m_map);
@@ -906,6 +1069,10 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                 m_keyCache.put(key.getResource(), list);
             }
         }
+        if (!wasAdded) {
+            // the entry is not cached, so the off-heap output can be freed
+            theCacheEntry.removeReference();
+        }
 
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(
@@ -915,5 +1082,6 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                 key.getVariation()));
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_ADDED_ENTRY_1, theCacheEntry.toString()));
         }
+        return wasAdded;
     }
 }
\ No newline at end of file
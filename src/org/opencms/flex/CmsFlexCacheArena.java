@@ -0,0 +1,438 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Off-heap storage for the output bytes of Flex cache entries.<p>
+ * 
+ * The arena is either a set of direct byte buffers or a memory-mapped file. It is divided 
+ * into blocks of equal size, and the bytes of a stored fragment are spread over as many 
+ * blocks as required. The blocks of a fragment do not have to be adjacent, so freed blocks 
+ * can always be reused. The only waste is the unused rest of the last block of each fragment,
+ * which is reported as fragmentation.<p>
+ * 
+ * Allocating and freeing blocks is synchronized, reading and writing the content of 
+ * allocated blocks is not.<p>
+ * 
+ * @since 8.5.2 
+ * 
+ * @see org.opencms.flex.CmsFlexCacheEntry
+ */
+public class CmsFlexCacheArena {
+
+    /**
+     * A byte sequence stored in the arena.<p>
+     */
+    public static final class CmsArenaFragment {
+
+        /** The blocks of the fragment. */
+        private int[] m_blocks;
+
+        /** The number of bytes of the fragment. */
+        private int m_length;
+
+        /**
+         * Creates a new fragment.<p>
+         * 
+         * @param blocks the blocks of the fragment
+         * @param length the number of bytes of the fragment
+         */
+        CmsArenaFragment(int[] blocks, int length) {
+
+            m_blocks = blocks;
+            m_length = length;
+        }
+
+        /**
+         * Returns the number of blocks of this fragment.<p>
+         * 
+         * @return the number of blocks
+         */
+        public int getBlockCount() {
+
+            return m_blocks.length;
+        }
+
+        /**
+         * Returns the number of bytes of this fragment.<p>
+         * 
+         * @return the number of bytes
+         */
+        public int getLength() {
+
+            return m_length;
+        }
+    }
+
+    /** The default block size. */
+    public static final int DEFAULT_BLOCK_SIZE = 8192;
+
+    /** Mode for an arena of direct byte buffers. */
+    public static final String MODE_DIRECT = "direct";
+
+    /** Mode for an arena in a memory-mapped file. */
+    public static final String MODE_MAPPED = "mapped";
+
+    /** The maximum size of a single buffer. */
+    private static final int MAX_CHUNK_SIZE = 1 << 30;
+
+    /** The number of blocks. */
+    private int m_blockCount;
+
+    /** The size of a block. */
+    private int m_blockSize;
+
+    /** The number of blocks per buffer. */
+    private int m_blocksPerChunk;
+
+    /** The buffers, each containing the same number of blocks. */
+    private ByteBuffer[] m_chunks;
+
+    /** The mapped file, or <code>null</code> for direct buffers. */
+    private File m_file;
+
+    /** The number of free blocks. */
+    private int m_freeBlockCount;
+
+    /** The stack of the free blocks. */
+    private int[] m_freeBlocks;
+
+    /** The number of bytes of all stored fragments. */
+    private long m_storedBytes;
+
+    /** The buffer for copying blocks to output streams, by thread. */
+    private ThreadLocal<byte[]> m_transferBuffer;
+
+    /**
+     * Creates a new arena of direct byte buffers.<p>
+     * 
+     * @param capacity the capacity in bytes, rounded down to full blocks
+     * @param blockSize the size of a block in bytes
+     */
+    public CmsFlexCacheArena(long capacity, int blockSize) {
+
+        init(capacity, blockSize);
+        for (int i = 0; i < m_chunks.length; i++) {
+            m_chunks[i] = ByteBuffer.allocateDirect(getChunkBlocks(i) * m_blockSize);
+        }
+    }
+
+    /**
+     * Creates a new arena in a memory-mapped file.<p>
+     * 
+     * The file is created or overwritten.<p>
+     * 
+     * @param capacity the capacity in bytes, rounded down to full blocks
+     * @param blockSize the size of a block in bytes
+     * @param file the file to map
+     * 
+     * @throws IOException if the file can not be created or mapped
+     */
+    public CmsFlexCacheArena(long capacity, int blockSize, File file)
+    throws IOException {
+
+        init(capacity, blockSize);
+        m_file = file;
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength((long)m_blockCount * m_blockSize);
+            FileChannel channel = raf.getChannel();
+            long offset = 0;
+            for (int i = 0; i < m_chunks.length; i++) {
+                long size = (long)getChunkBlocks(i) * m_blockSize;
+                // the mapping stays valid after the file is closed
+                m_chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE, offset, size);
+                offset += size;
+            }
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Frees the blocks of a fragment.<p>
+     * 
+     * The fragment must not be read after it was freed.<p>
+     * 
+     * @param fragment the fragment to free
+     */
+    public synchronized void free(CmsArenaFragment fragment) {
+
+        for (int i = 0; i < fragment.m_blocks.length; i++) {
+            m_freeBlocks[m_freeBlockCount++] = fragment.m_blocks[i];
+        }
+        m_storedBytes -= fragment.m_length;
+    }
+
+    /**
+     * Returns the size of a block in bytes.<p>
+     * 
+     * @return the size of a block
+     */
+    public int getBlockSize() {
+
+        return m_blockSize;
+    }
+
+    /**
+     * Returns the capacity of this arena in bytes.<p>
+     * 
+     * @return the capacity
+     */
+    public long getCapacity() {
+
+        return (long)m_blockCount * m_blockSize;
+    }
+
+    /**
+     * Returns the mapped file.<p>
+     * 
+     * @return the mapped file, or <code>null</code> if this arena uses direct buffers
+     */
+    public File getFile() {
+
+        return m_file;
+    }
+
+    /**
+     * Returns the percentage of the allocated bytes that is not used by the stored fragments.<p>
+     * 
+     * @return the fragmentation in percent
+     */
+    public synchronized int getFragmentation() {
+
+        long usedBytes = (long)(m_blockCount - m_freeBlockCount) * m_blockSize;
+        if (usedBytes == 0) {
+            return 0;
+        }
+        return (int)(((usedBytes - m_storedBytes) * 100) / usedBytes);
+    }
+
+    /**
+     * Returns the mode of this arena.<p>
+     * 
+     * @return {@link #MODE_DIRECT} or {@link #MODE_MAPPED}
+     */
+    public String getMode() {
+
+        return (m_file == null) ? MODE_DIRECT : MODE_MAPPED;
+    }
+
+    /**
+     * Returns the percentage of the allocated blocks.<p>
+     * 
+     * @return the occupancy in percent
+     */
+    public synchronized int getOccupancy() {
+
+        if (m_blockCount == 0) {
+            return 100;
+        }
+        return (int)(((long)(m_blockCount - m_freeBlockCount) * 100) / m_blockCount);
+    }
+
+    /**
+     * Returns the number of bytes of all stored fragments.<p>
+     * 
+     * @return the number of stored bytes
+     */
+    public synchronized long getStoredBytes() {
+
+        return m_storedBytes;
+    }
+
+    /**
+     * Returns the number of bytes of all allocated blocks.<p>
+     * 
+     * @return the number of used bytes
+     */
+    public synchronized long getUsedBytes() {
+
+        return (long)(m_blockCount - m_freeBlockCount) * m_blockSize;
+    }
+
+    /**
+     * Stores the given bytes in this arena.<p>
+     * 
+     * @param bytes the bytes to store
+     * 
+     * @return the stored fragment, or <code>null</code> if there are not enough free blocks
+     */
+    public CmsArenaFragment store(byte[] bytes) {
+
+        int blockCount = Math.max(1, ((bytes.length + m_blockSize) - 1) / m_blockSize);
+        int[] blocks = new int[blockCount];
+        synchronized (this) {
+            if (m_freeBlockCount < blockCount) {
+                return null;
+            }
+            for (int i = 0; i < blockCount; i++) {
+                blocks[i] = m_freeBlocks[--m_freeBlockCount];
+            }
+            m_storedBytes += bytes.length;
+        }
+        int offset = 0;
+        for (int i = 0; i < blockCount; i++) {
+            int length = Math.min(m_blockSize, bytes.length - offset);
+            getBlock(blocks[i]).put(bytes, offset, length);
+            offset += length;
+        }
+        return new CmsArenaFragment(blocks, bytes.length);
+    }
+
+    /**
+     * Copies the bytes of a fragment to a new byte array.<p>
+     * 
+     * @param fragment the fragment
+     * 
+     * @return the bytes of the fragment
+     */
+    public byte[] toByteArray(CmsArenaFragment fragment) {
+
+        byte[] result = new byte[fragment.m_length];
+        int offset = 0;
+        for (int i = 0; i < fragment.m_blocks.length; i++) {
+            int length = Math.min(m_blockSize, fragment.m_length - offset);
+            getBlock(fragment.m_blocks[i]).get(result, offset, length);
+            offset += length;
+        }
+        return result;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        return "CmsFlexCacheArena ["
+            + getMode()
+            + ", capacity: "
+            + getCapacity()
+            + ", used: "
+            + getUsedBytes()
+            + ", stored: "
+            + getStoredBytes()
+            + "]";
+    }
+
+    /**
+     * Writes the bytes of a fragment to an output stream.<p>
+     * 
+     * The bytes are copied block by block through a small buffer of the current thread,
+     * so no heap memory is allocated for the content of the fragment.<p>
+     * 
+     * @param fragment the fragment
+     * @param out the output stream
+     * 
+     * @throws IOException if writing to the stream fails
+     */
+    public void writeTo(CmsArenaFragment fragment, OutputStream out) throws IOException {
+
+        byte[] buffer = m_transferBuffer.get();
+        int offset = 0;
+        for (int i = 0; i < fragment.m_blocks.length; i++) {
+            int length = Math.min(m_blockSize, fragment.m_length - offset);
+            getBlock(fragment.m_blocks[i]).get(buffer, 0, length);
+            out.write(buffer, 0, length);
+            offset += length;
+        }
+    }
+
+    /**
+     * Returns a view of the given block, positioned at the start of the block.<p>
+     * 
+     * @param block the block
+     * 
+     * @return the view of the block
+     */
+    private ByteBuffer getBlock(int block) {
+
+        ByteBuffer buffer = m_chunks[block / m_blocksPerChunk].duplicate();
+        int start = (block % m_blocksPerChunk) * m_blockSize;
+        buffer.limit(start + m_blockSize);
+        buffer.position(start);
+        return buffer;
+    }
+
+    /**
+     * Returns the number of blocks of the given buffer.<p>
+     * 
+     * @param chunk the index of the buffer
+     * 
+     * @return the number of blocks
+     */
+    private int getChunkBlocks(int chunk) {
+
+        return Math.min(m_blocksPerChunk, m_blockCount - (chunk * m_blocksPerChunk));
+    }
+
+    /**
+     * Initializes the block structure of this arena.<p>
+     * 
+     * @param capacity the capacity in bytes
+     * @param blockSize the size of a block in bytes
+     */
+    private void init(long capacity, int blockSize) {
+
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException(Messages.get().getBundle().key(
+                Messages.ERR_FLEXCACHEARENA_INVALID_BLOCK_SIZE_1,
+                new Integer(blockSize)));
+        }
+        m_blockSize = blockSize;
+        m_blockCount = (int)Math.min(Integer.MAX_VALUE, Math.max(0, capacity) / blockSize);
+        m_blocksPerChunk = Math.max(1, MAX_CHUNK_SIZE / blockSize);
+        m_chunks = new ByteBuffer[((m_blockCount + m_blocksPerChunk) - 1) / m_blocksPerChunk];
+        m_freeBlocks = new int[m_blockCount];
+        // hand out the blocks in ascending order
+        for (int i = 0; i < m_blockCount; i++) {
+            m_freeBlocks[i] = m_blockCount - 1 - i;
+        }
+        m_freeBlockCount = m_blockCount;
+        final int transferSize = blockSize;
+        m_transferBuffer = new ThreadLocal<byte[]>() {
+
+            @Override
+            protected byte[] initialValue() {
+
+                return new byte[transferSize];
+            }
+        };
+    }
+}
@@ -30,6 +30,7 @@ package org.opencms.flex;
 import org.opencms.jsp.util.CmsJspDeviceSelector;
 import org.opencms.jsp.util.I_CmsJspDeviceSelector;
 import org.opencms.main.CmsLog;
+import org.opencms.util.CmsStringUtil;
 
 import org.apache.commons.logging.Log;
 
@@ -58,6 +59,9 @@ public class CmsFlexCacheConfiguration {
     /** The device selector configuration. */
     private String m_deviceSelectorConfiguration;
 
+    /** The folder of the persistent store, relative to the WEB-INF folder, or <code>null</code> if the cache is not persisted. */
+    private String m_diskStoreFolder;
+
     /** 
      * Sizing parameters for the cached "entries" (ie. pages) in the FlexCache.<p>
      *  
@@ -74,6 +78,18 @@ public class CmsFlexCacheConfiguration {
     /** The maximum key. */
     private int m_maxKeys;
 
+    /** The block size of the off-heap storage. */
+    private int m_offHeapBlockSize;
+
+    /** The capacity of the off-heap storage in bytes. */
+    private long m_offHeapCapacity;
+
+    /** The file for the memory-mapped off-heap storage, relative to the WEB-INF folder. */
+    private String m_offHeapFile;
+
+    /** The mode of the off-heap storage, or <code>null</code> if the output is cached on the heap. */
+    private String m_offHeapMode;
+
     /**
      * Empty public constructor for the digester.
      */
@@ -115,6 +131,16 @@ public class CmsFlexCacheConfiguration {
         return m_deviceSelectorConfiguration;
     }
 
+    /**
+     * Returns the folder of the persistent store, relative to the WEB-INF folder.<p>
+     * 
+     * @return the folder of the persistent store, or <code>null</code> if the cache is not persisted
+     */
+    public String getDiskStoreFolder() {
+
+        return m_diskStoreFolder;
+    }
+
     /**
      * Returns the maxCacheBytes.<p>
      *
@@ -145,6 +171,47 @@ public class CmsFlexCacheConfiguration {
         return m_maxKeys;
     }
 
+    /**
+     * Returns the block size of the off-heap storage.<p>
+     * 
+     * @return the block size of the off-heap storage
+     */
+    public int getOffHeapBlockSize() {
+
+        return m_offHeapBlockSize;
+    }
+
+    /**
+     * Returns the capacity of the off-heap storage in bytes.<p>
+     * 
+     * @return the capacity of the off-heap storage
+     */
+    public long getOffHeapCapacity() {
+
+        return m_offHeapCapacity;
+    }
+
+    /**
+     * Returns the file for the memory-mapped off-heap storage, relative to the WEB-INF folder.<p>
+     * 
+     * @return the file for the memory-mapped off-heap storage
+     */
+    public String getOffHeapFile() {
+
+        return m_offHeapFile;
+    }
+
+    /**
+     * Returns the mode of the off-heap storage.<p>
+     * 
+     * @return {@link CmsFlexCacheArena#MODE_DIRECT}, {@link CmsFlexCacheArena#MODE_MAPPED} 
+     *      or <code>null</code> if the output is cached on the heap
+     */
+    public String getOffHeapMode() {
+
+        return m_offHeapMode;
+    }
+
     /**
      * Initializes the flex cache configuration with required parameters.<p>
      * 
@@ -256,6 +323,18 @@ public class CmsFlexCacheConfiguration {
         }
     }
 
+    /**
+     * Configures the persistent store for the online entries of the cache.<p>
+     * 
+     * @param folder the folder of the persistent store, relative to the WEB-INF folder
+     */
+    public void setDiskStore(String folder) {
+
+        if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(folder)) {
+            m_diskStoreFolder = folder.trim();
+        }
+    }
+
     /**
      * Sets the maxCacheBytes.<p>
      *
@@ -285,4 +364,29 @@ public class CmsFlexCacheConfiguration {
 
         m_maxKeys = maxKeys;
     }
+
+    /**
+     * Configures the off-heap storage for the cached output.<p>
+     * 
+     * @param mode {@link CmsFlexCacheArena#MODE_DIRECT} or {@link CmsFlexCacheArena#MODE_MAPPED}
+     * @param capacity the capacity in bytes
+     * @param blockSize the block size in bytes, if empty {@link CmsFlexCacheArena#DEFAULT_BLOCK_SIZE} is used 
+     * @param file the file for the memory-mapped storage, relative to the WEB-INF folder
+     */
+    public void setOffHeapStorage(String mode, String capacity, String blockSize, String file) {
+
+        if (CmsFlexCacheArena.MODE_MAPPED.equalsIgnoreCase(mode) && CmsStringUtil.isNotEmptyOrWhitespaceOnly(file)) {
+            m_offHeapMode = CmsFlexCacheArena.MODE_MAPPED;
+            m_offHeapFile = file.trim();
+        } else {
+            m_offHeapMode = CmsFlexCacheArena.MODE_DIRECT;
+            m_offHeapFile = null;
+        }
+        m_offHeapCapacity = Long.parseLong(capacity.trim());
+        if (CmsStringUtil.isEmptyOrWhitespaceOnly(blockSize)) {
+            m_offHeapBlockSize = CmsFlexCacheArena.DEFAULT_BLOCK_SIZE;
+        } else {
+            m_offHeapBlockSize = Integer.parseInt(blockSize.trim());
+        }
+    }
 }
@@ -0,0 +1,609 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import org.opencms.cache.CmsVfsDiskCache;
+import org.opencms.cache.I_CmsLruCacheObject;
+import org.opencms.flex.CmsFlexCache.CmsFlexCacheVariation;
+import org.opencms.flex.CmsFlexCacheArena.CmsArenaFragment;
+import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
+import org.opencms.publish.CmsPublishJobFinished;
+import org.opencms.util.CmsFileUtil;
+import org.opencms.util.CmsUUID;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Persistent store for the online entries of the Flex cache, so that the cache does not start empty 
+ * after a restart of the server.<p>
+ * 
+ * For every cached resource, one file is written in the RFS, using the same layout as the 
+ * {@link CmsVfsDiskCache}. The file starts with the publish history id that was current when 
+ * the file was created, and the cache directives of the resource. Every entry that is added to 
+ * the Flex cache is appended to the file of its resource, so the store is written incrementally.<p>
+ * 
+ * The files are read lazily when a resource is requested for the first time. Files that were
+ * written for another publish history id than the current one are outdated and deleted. 
+ * If a file contains more records than variations when it is read, it is compacted.<p>
+ * 
+ * Only entries of the online project are stored, since offline resources change without 
+ * a publish event. Entries that have include calls with request attributes can not be 
+ * restored and are not stored.<p>
+ * 
+ * @since 8.5.2 
+ */
+public class CmsFlexCacheDiskStore {
+
+    /** The file name suffix for the store files. */
+    public static final String FILE_SUFFIX = ".flexcache";
+
+    /** Element type for output bytes. */
+    private static final byte ELEMENT_BYTES = 0;
+
+    /** Element type for include calls. */
+    private static final byte ELEMENT_INCLUDE = 1;
+
+    /** Identifies a store file of the current format ("FLX1"). */
+    private static final int FILE_MAGIC = 0x464C5831;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsFlexCacheDiskStore.class);
+
+    /** The resources that were already looked up in the store for the current publish history id. */
+    private Set<String> m_checkedResources;
+
+    /** The disk cache used to calculate the file names. */
+    private CmsVfsDiskCache m_diskCache;
+
+    /** The current publish history id, or <code>null</code> if it is not known yet. */
+    private volatile String m_publishId;
+
+    /** The resources whose file was written for the current publish history id. */
+    private Set<String> m_validResources;
+
+    /**
+     * Creates a new store in the given folder.<p>
+     * 
+     * If no publish history id is given, the id of the last finished publish job is read
+     * from the publish manager when the store is used for the first time.<p>
+     * 
+     * @param folder the absolute path of the folder in the RFS
+     * @param publishId the current publish history id, or <code>null</code>
+     */
+    public CmsFlexCacheDiskStore(String folder, String publishId) {
+
+        m_diskCache = new CmsVfsDiskCache(CmsFileUtil.normalizePath(folder + File.separatorChar), "");
+        m_publishId = publishId;
+        m_checkedResources = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        m_validResources = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    }
+
+    /**
+     * Returns the id of the last finished publish job.<p>
+     * 
+     * @return the id of the last finished publish job, or <code>null</code> if the publish manager is not available
+     */
+    private static String readPublishId() {
+
+        if (OpenCms.getRunLevel() < OpenCms.RUNLEVEL_4_SERVLET_ACCESS) {
+            return null;
+        }
+        CmsPublishJobFinished last = null;
+        Iterator<CmsPublishJobFinished> itJobs = OpenCms.getPublishManager().getPublishHistory().iterator();
+        while (itJobs.hasNext()) {
+            CmsPublishJobFinished job = itJobs.next();
+            if ((last == null) || (job.getFinishTime() > last.getFinishTime())) {
+                last = job;
+            }
+        }
+        return last != null ? last.getPublishHistoryId().toString() : CmsUUID.getNullUUID().toString();
+    }
+
+    /**
+     * Deletes all files of this store.<p>
+     */
+    public synchronized void clear() {
+
+        m_checkedResources.clear();
+        m_validResources.clear();
+        CmsFileUtil.purgeDirectory(new File(m_diskCache.getRepositoryPath()));
+    }
+
+    /**
+     * Returns the RFS name of the store file for the given resource.<p>
+     * 
+     * @param rootPath the root path of the resource
+     * 
+     * @return the RFS name of the store file
+     */
+    public String getFileName(String rootPath) {
+
+        return m_diskCache.getCacheName(true, rootPath, null) + FILE_SUFFIX;
+    }
+
+    /**
+     * Returns the current publish history id.<p>
+     * 
+     * @return the current publish history id, or <code>null</code> if it is not known yet
+     */
+    public String getPublishId() {
+
+        if (m_publishId == null) {
+            m_publishId = readPublishId();
+        }
+        return m_publishId;
+    }
+
+    /**
+     * Returns the absolute path of the folder of this store.<p>
+     * 
+     * @return the absolute path of the folder of this store
+     */
+    public String getRepositoryPath() {
+
+        return m_diskCache.getRepositoryPath();
+    }
+
+    /**
+     * Checks if the given cache key can be stored.<p>
+     * 
+     * @param key the cache key
+     * 
+     * @return <code>true</code> if the entries for the key can be stored
+     */
+    public boolean isStorable(CmsFlexCacheKey key) {
+
+        return key.getResource().endsWith(CmsFlexCache.CACHE_ONLINESUFFIX) && !key.hadParseError();
+    }
+
+    /**
+     * Reads the stored entries for the given resource.<p>
+     * 
+     * Every resource is only read once for the current publish history id. 
+     * The returned variation contains the restored cache key and the entries by variation, 
+     * the entries are not added to any cache yet.<p>
+     * 
+     * @param resource the name of the resource in the Flex cache, including the online suffix
+     * 
+     * @return the restored key and entries, or <code>null</code> if nothing valid was stored
+     */
+    public synchronized CmsFlexCacheVariation load(String resource) {
+
+        if (!resource.endsWith(CmsFlexCache.CACHE_ONLINESUFFIX) || !m_checkedResources.add(resource)) {
+            return null;
+        }
+        String publishId = getPublishId();
+        if (publishId == null) {
+            // we don't know what is valid yet, so read the resource again later
+            m_checkedResources.remove(resource);
+            return null;
+        }
+        String rootPath = resource.substring(0, resource.length() - CmsFlexCache.CACHE_ONLINESUFFIX.length());
+        File file = new File(getFileName(rootPath));
+        if (!file.exists()) {
+            return null;
+        }
+        CmsFlexCacheVariation result = null;
+        int records = 0;
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new FileInputStream(file));
+            if ((in.readInt() != FILE_MAGIC) || !publishId.equals(in.readUTF())) {
+                in.close();
+                in = null;
+                file.delete();
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_DISKSTORE_DISCARDED_1, file));
+                }
+                return null;
+            }
+            String cacheDirectives = in.readBoolean() ? in.readUTF() : null;
+            result = new CmsFlexCacheVariation(new CmsFlexCacheKey(rootPath, cacheDirectives, true));
+            long now = System.currentTimeMillis();
+            byte[] record;
+            while ((record = readRecord(in)) != null) {
+                records++;
+                DataInputStream recordIn = new DataInputStream(new ByteArrayInputStream(record));
+                String variation = recordIn.readUTF();
+                CmsFlexCacheEntry entry = readEntry(recordIn);
+                if (entry.getDateExpires() < now) {
+                    result.m_map.remove(variation);
+                } else {
+                    result.m_map.put(variation, entry);
+                }
+            }
+        } catch (IOException e) {
+            LOG.error(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_DISKSTORE_READ_FAILED_1, file), e);
+            result = null;
+        } finally {
+            closeQuietly(in);
+        }
+        if (result == null) {
+            file.delete();
+            return null;
+        }
+        m_validResources.add(resource);
+        if (records > result.m_map.size()) {
+            // the file contains replaced or expired entries, so write a compacted version
+            compact(file, publishId, result);
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(Messages.get().getBundle().key(
+                Messages.LOG_FLEXCACHE_DISKSTORE_LOADED_2,
+                new Integer(result.m_map.size()),
+                file));
+        }
+        return result.m_map.isEmpty() ? null : result;
+    }
+
+    /**
+     * Sets the current publish history id and forgets which files were already read or written.<p>
+     * 
+     * Files written for other publish history ids are deleted when they are read the next time.<p>
+     * 
+     * @param publishId the current publish history id
+     */
+    public synchronized void setPublishId(String publishId) {
+
+        m_publishId = publishId;
+        m_checkedResources.clear();
+        m_validResources.clear();
+    }
+
+    /**
+     * Appends the given completed entry to the file of its resource.<p>
+     * 
+     * @param key the cache key of the entry
+     * @param variation the variation of the entry
+     * @param entry the entry
+     * @param arena the arena that stores the off-heap output of the entry, or <code>null</code>
+     * 
+     * @return <code>true</code> if the entry was stored
+     */
+    public boolean store(CmsFlexCacheKey key, String variation, CmsFlexCacheEntry entry, CmsFlexCacheArena arena) {
+
+        if (!isStorable(key)) {
+            return false;
+        }
+        String publishId = getPublishId();
+        if (publishId == null) {
+            return false;
+        }
+        byte[] record;
+        if (!entry.addReference()) {
+            // the off-heap output was already freed
+            return false;
+        }
+        try {
+            record = writeEntry(variation, entry, arena);
+        } catch (IOException e) {
+            // the entry contains data that can not be stored
+            return false;
+        } finally {
+            entry.removeReference();
+        }
+        if (record == null) {
+            return false;
+        }
+        String resource = key.getResource();
+        String rootPath = resource.substring(0, resource.length() - CmsFlexCache.CACHE_ONLINESUFFIX.length());
+        String fileName = getFileName(rootPath);
+        synchronized (this) {
+            // a file that was not read or written for the current publish history id is replaced 
+            boolean append = m_validResources.contains(resource);
+            DataOutputStream out = null;
+            try {
+                File file = new File(fileName);
+                if (!append) {
+                    File parent = file.getParentFile();
+                    if (!parent.exists()) {
+                        parent.mkdirs();
+                    }
+                }
+                out = new DataOutputStream(new FileOutputStream(file, append));
+                if (!append) {
+                    writeHeader(out, publishId, key.getCacheDirectives());
+                }
+                out.writeInt(record.length);
+                out.write(record);
+                out.close();
+                out = null;
+                m_validResources.add(resource);
+                m_checkedResources.add(resource);
+                return true;
+            } catch (IOException e) {
+                LOG.error(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_DISKSTORE_WRITE_FAILED_1, fileName), e);
+                m_validResources.remove(resource);
+                new File(fileName).delete();
+                return false;
+            } finally {
+                closeQuietly(out);
+            }
+        }
+    }
+
+    /**
+     * Closes the given stream, ignoring any errors.<p>
+     * 
+     * @param stream the stream to close, may be <code>null</code>
+     */
+    private void closeQuietly(Object stream) {
+
+        try {
+            if (stream instanceof InputStream) {
+                ((InputStream)stream).close();
+            } else if (stream instanceof OutputStream) {
+                ((OutputStream)stream).close();
+            }
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    /**
+     * Replaces the given file with a file that only contains the given entries.<p>
+     * 
+     * @param file the file
+     * @param publishId the current publish history id
+     * @param stored the restored key and entries
+     */
+    private void compact(File file, String publishId, CmsFlexCacheVariation stored) {
+
+        File tempFile = new File(file.getPath() + ".tmp");
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new FileOutputStream(tempFile));
+            writeHeader(out, publishId, stored.m_key.getCacheDirectives());
+            Iterator<Map.Entry<String, I_CmsLruCacheObject>> itEntries = stored.m_map.entrySet().iterator();
+            while (itEntries.hasNext()) {
+                Map.Entry<String, I_CmsLruCacheObject> e = itEntries.next();
+                byte[] record = writeEntry(e.getKey(), (CmsFlexCacheEntry)e.getValue(), null);
+                out.writeInt(record.length);
+                out.write(record);
+            }
+            out.close();
+            out = null;
+            if (!file.delete() || !tempFile.renameTo(file)) {
+                tempFile.delete();
+                m_validResources.remove(stored.m_key.getResource());
+            }
+        } catch (IOException e) {
+            LOG.error(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_DISKSTORE_WRITE_FAILED_1, tempFile), e);
+            tempFile.delete();
+        } finally {
+            closeQuietly(out);
+        }
+    }
+
+    /**
+     * Reads a cache entry from the given stream.<p>
+     * 
+     * @param in the stream
+     * 
+     * @return the completed entry
+     * 
+     * @throws IOException in case the data can not be read
+     */
+    private CmsFlexCacheEntry readEntry(DataInputStream in) throws IOException {
+
+        CmsFlexCacheEntry entry = new CmsFlexCacheEntry();
+        entry.setDateLastModified(in.readLong());
+        entry.setDateExpires(in.readLong());
+        if (in.readBoolean()) {
+            entry.setRedirect(in.readUTF());
+        } else {
+            int headerCount = in.readInt();
+            if (headerCount >= 0) {
+                Map<String, List<String>> headers = new HashMap<String, List<String>>(headerCount);
+                for (int i = 0; i < headerCount; i++) {
+                    String name = in.readUTF();
+                    int valueCount = in.readInt();
+                    List<String> values = new ArrayList<String>(valueCount);
+                    for (int j = 0; j < valueCount; j++) {
+                        values.add(in.readUTF());
+                    }
+                    headers.put(name, values);
+                }
+                entry.addHeaders(headers);
+            }
+            int elementCount = in.readInt();
+            for (int i = 0; i < elementCount; i++) {
+                if (in.readByte() == ELEMENT_BYTES) {
+                    byte[] bytes = new byte[in.readInt()];
+                    in.readFully(bytes);
+                    entry.add(bytes);
+                } else {
+                    String target = in.readUTF();
+                    int paramCount = in.readInt();
+                    Map<String, String[]> params = new HashMap<String, String[]>(paramCount);
+                    for (int j = 0; j < paramCount; j++) {
+                        String name = in.readUTF();
+                        String[] values = new String[in.readInt()];
+                        for (int k = 0; k < values.length; k++) {
+                            values[k] = in.readUTF();
+                        }
+                        params.put(name, values);
+                    }
+                    entry.add(target, params, null);
+                }
+            }
+        }
+        entry.complete();
+        return entry;
+    }
+
+    /**
+     * Reads the next record from the given stream.<p>
+     * 
+     * @param in the stream
+     * 
+     * @return the record, or <code>null</code> if there are no more complete records
+     * 
+     * @throws IOException in case the stream can not be read
+     */
+    private byte[] readRecord(DataInputStream in) throws IOException {
+
+        try {
+            int length = in.readInt();
+            if (length < 0) {
+                return null;
+            }
+            byte[] record = new byte[length];
+            in.readFully(record);
+            return record;
+        } catch (EOFException e) {
+            // the last record may be incomplete if the server was stopped while it was written
+            return null;
+        }
+    }
+
+    /**
+     * Writes the given cache entry to a record.<p>
+     * 
+     * @param variation the variation of the entry
+     * @param entry the entry
+     * @param arena the arena that stores the off-heap output of the entry, or <code>null</code>
+     * 
+     * @return the record, or <code>null</code> if the entry can not be stored
+     * 
+     * @throws IOException in case the entry can not be written
+     */
+    private byte[] writeEntry(String variation, CmsFlexCacheEntry entry, CmsFlexCacheArena arena)
+    throws IOException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(variation);
+        out.writeLong(entry.getDateLastModified());
+        out.writeLong(entry.getDateExpires());
+        String redirect = entry.getRedirectTarget();
+        out.writeBoolean(redirect != null);
+        if (redirect != null) {
+            out.writeUTF(redirect);
+        } else {
+            Map<String, List<String>> headers = entry.getHeaders();
+            if (headers == null) {
+                out.writeInt(-1);
+            } else {
+                out.writeInt(headers.size());
+                Iterator<Map.Entry<String, List<String>>> itHeaders = headers.entrySet().iterator();
+                while (itHeaders.hasNext()) {
+                    Map.Entry<String, List<String>> header = itHeaders.next();
+                    out.writeUTF(header.getKey());
+                    out.writeInt(header.getValue().size());
+                    for (int i = 0; i < header.getValue().size(); i++) {
+                        out.writeUTF(header.getValue().get(i));
+                    }
+                }
+            }
+            List<Object> elements = entry.elements();
+            // each include call uses three elements: the target, the parameters and the attributes
+            int elementCount = 0;
+            for (int i = 0; i < elements.size(); i++) {
+                if (elements.get(i) instanceof String) {
+                    i += 2;
+                }
+                elementCount++;
+            }
+            out.writeInt(elementCount);
+            for (int i = 0; i < elements.size(); i++) {
+                Object o = elements.get(i);
+                if (o instanceof String) {
+                    Map<?, ?> params = (Map<?, ?>)elements.get(++i);
+                    Map<?, ?> attrs = (Map<?, ?>)elements.get(++i);
+                    if (!attrs.isEmpty()) {
+                        // request attributes may be arbitrary objects
+                        return null;
+                    }
+                    out.writeByte(ELEMENT_INCLUDE);
+                    out.writeUTF((String)o);
+                    out.writeInt(params.size());
+                    Iterator<?> itParams = params.entrySet().iterator();
+                    while (itParams.hasNext()) {
+                        Map.Entry<?, ?> param = (Map.Entry<?, ?>)itParams.next();
+                        String[] values = (String[])param.getValue();
+                        out.writeUTF((String)param.getKey());
+                        out.writeInt(values.length);
+                        for (int j = 0; j < values.length; j++) {
+                            out.writeUTF(values[j]);
+                        }
+                    }
+                } else {
+                    byte[] output = (o instanceof CmsArenaFragment)
+                    ? arena.toByteArray((CmsArenaFragment)o)
+                    : (byte[])o;
+                    out.writeByte(ELEMENT_BYTES);
+                    out.writeInt(output.length);
+                    out.write(output);
+                }
+            }
+        }
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes the header of a store file.<p>
+     * 
+     * @param out the stream to write to
+     * @param publishId the publish history id
+     * @param cacheDirectives the cache directives of the resource
+     * 
+     * @throws IOException in case of write errors
+     */
+    private void writeHeader(DataOutputStream out, String publishId, String cacheDirectives) throws IOException {
+
+        out.writeInt(FILE_MAGIC);
+        out.writeUTF(publishId);
+        out.writeBoolean(cacheDirectives != null);
+        if (cacheDirectives != null) {
+            out.writeUTF(cacheDirectives);
+        }
+    }
+}
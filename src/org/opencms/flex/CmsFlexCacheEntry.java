@@ -29,6 +29,7 @@ package org.opencms.flex;
 
 import org.opencms.cache.I_CmsLruCacheObject;
 import org.opencms.file.CmsResource;
+import org.opencms.flex.CmsFlexCacheArena.CmsArenaFragment;
 import org.opencms.i18n.CmsMessageContainer;
 import org.opencms.main.CmsLog;
 import org.opencms.monitor.CmsMemoryMonitor;
@@ -41,6 +42,7 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.servlet.ServletException;
 
@@ -65,6 +67,10 @@ import org.apache.commons.logging.Log;
  * The CmsFlexCacheEntry can also have an expire date value, which indicates the time 
  * that his entry will become invalid and should thus be cleared from the cache.<p>
  * 
+ * If the Flex cache uses off-heap storage, the output bytes are moved to a 
+ * {@link CmsFlexCacheArena} when the entry is added to the cache. The arena blocks are 
+ * freed when the entry was removed from the cache and no request is delivering it anymore.<p>
+ * 
  * @since 6.0.0 
  * 
  * @see org.opencms.cache.I_CmsLruCacheObject
@@ -77,6 +83,9 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsFlexCacheEntry.class);
 
+    /** The arena storing the output bytes, or <code>null</code> if they are stored on the heap. */
+    private CmsFlexCacheArena m_arena;
+
     /** The CacheEntry's size in bytes. */
     private int m_byteSize;
 
@@ -104,6 +113,9 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
     /** A redirection target (if redirection is set). */
     private String m_redirectTarget;
 
+    /** The number of references to the off-heap output, <code>null</code> if the output is stored on the heap. */
+    private AtomicInteger m_references;
+
     /** The key under which this cache entry is stored in the variation map. */
     private String m_variationKey;
 
@@ -194,6 +206,29 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         }
     }
 
+    /**
+     * Adds a reference to the output of this entry, which must be released with {@link #removeReference()}.<p>
+     * 
+     * This prevents that the off-heap output is freed while it is delivered.<p>
+     * 
+     * @return <code>false</code> if the off-heap output was already freed, so the entry can not be used anymore
+     */
+    public boolean addReference() {
+
+        if (m_references == null) {
+            return true;
+        }
+        while (true) {
+            int references = m_references.get();
+            if (references <= 0) {
+                return false;
+            }
+            if (m_references.compareAndSet(references, references + 1)) {
+                return true;
+            }
+        }
+    }
+
     /**
      * @see org.opencms.cache.I_CmsLruCacheObject#addToLruCache()
      */
@@ -263,6 +298,16 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         return m_dateLastModified;
     }
 
+    /**
+     * Returns the headers of this Flex cache entry.<p>
+     * 
+     * @return the headers, or <code>null</code> if no headers were added
+     */
+    public Map<String, List<String>> getHeaders() {
+
+        return m_headers;
+    }
+
     /**
      * @see org.opencms.cache.I_CmsLruCacheObject#getLruCacheCosts()
      */
@@ -295,6 +340,16 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         return m_previous;
     }
 
+    /**
+     * Returns the redirect target of this Flex cache entry.<p>
+     * 
+     * @return the redirect target, or <code>null</code> if this entry is no redirect
+     */
+    public String getRedirectTarget() {
+
+        return m_redirectTarget;
+    }
+
     /**
      * @see org.opencms.cache.I_CmsLruCacheObject#getValue()
      */
@@ -303,6 +358,55 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         return m_elements;
     }
 
+    /**
+     * Returns if the output bytes of this entry are stored off-heap.<p>
+     * 
+     * @return <code>true</code> if the output bytes of this entry are stored off-heap
+     */
+    public boolean isOffHeap() {
+
+        return m_arena != null;
+    }
+
+    /**
+     * Moves the output bytes of this completed entry to the given arena.<p>
+     * 
+     * Output that does not fit into the arena stays on the heap. The cache costs of the entry 
+     * include the arena blocks used by the entry. The entry holds one reference to its
+     * off-heap output, which is released with {@link #removeReference()} when the entry 
+     * is not added to or removed from the cache.<p>
+     * 
+     * @param arena the arena
+     */
+    public void moveToArena(CmsFlexCacheArena arena) {
+
+        if (!m_completed || (m_redirectTarget != null) || (m_elements == null) || (m_arena != null)) {
+            return;
+        }
+        List<Object> elements = new ArrayList<Object>(m_elements.size());
+        boolean moved = false;
+        for (int i = 0; i < m_elements.size(); i++) {
+            Object o = m_elements.get(i);
+            if (o instanceof byte[]) {
+                byte[] bytes = (byte[])o;
+                CmsArenaFragment fragment = arena.store(bytes);
+                if (fragment != null) {
+                    elements.add(fragment);
+                    m_byteSize += (fragment.getBlockCount() * arena.getBlockSize())
+                        - CmsMemoryMonitor.getMemorySize(bytes);
+                    moved = true;
+                    continue;
+                }
+            }
+            elements.add(o);
+        }
+        if (moved) {
+            m_elements = Collections.unmodifiableList(elements);
+            m_arena = arena;
+            m_references = new AtomicInteger(1);
+        }
+    }
+
     /**
      * @see org.opencms.cache.I_CmsLruCacheObject#removeFromLruCache()
      */
@@ -311,6 +415,8 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         if ((m_variationMap != null) && (m_variationKey != null)) {
             m_variationMap.remove(m_variationKey);
         }
+        // release the reference of the cache
+        removeReference();
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(
                 Messages.LOG_FLEXCACHEENTRY_REMOVED_ENTRY_FOR_VARIATION_1,
@@ -318,6 +424,25 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         }
     }
 
+    /**
+     * Releases a reference to the output of this entry.<p>
+     * 
+     * The off-heap output is freed when the last reference was released.<p>
+     * 
+     * @see #addReference()
+     */
+    public void removeReference() {
+
+        if ((m_references != null) && (m_references.decrementAndGet() == 0)) {
+            for (int i = 0; i < m_elements.size(); i++) {
+                Object o = m_elements.get(i);
+                if (o instanceof CmsArenaFragment) {
+                    m_arena.free((CmsArenaFragment)o);
+                }
+            }
+        }
+    }
+
     /** 
      * Processing method for this cached entry.<p>
      *
@@ -380,7 +505,11 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
                     }
                 } else {
                     try {
-                        res.writeToOutputStream((byte[])o, hasNoSubElements);
+                        if (o instanceof CmsArenaFragment) {
+                            res.writeToOutputStream(m_arena, (CmsArenaFragment)o, hasNoSubElements);
+                        } else {
+                            res.writeToOutputStream((byte[])o, hasNoSubElements);
+                        }
                     } catch (IOException e) {
                         CmsMessageContainer message = Messages.get().container(
                             Messages.LOG_FLEXCACHEKEY_NOT_FOUND_1,
@@ -538,6 +667,8 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
                     str += "" + count + " - <cms:include target=" + o + ">\n";
                 } else if (o instanceof byte[]) {
                     str += "" + count + " - <![CDATA[" + new String((byte[])o) + "]]>\n";
+                } else if (o instanceof CmsArenaFragment) {
+                    str += "" + count + " - <!--[off-heap " + ((CmsArenaFragment)o).getLength() + " bytes]-->\n";
                 } else {
                     str += "<!--[" + o.toString() + "]-->";
                 }
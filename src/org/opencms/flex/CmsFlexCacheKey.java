@@ -156,6 +156,9 @@ public class CmsFlexCacheKey {
     /** Cache key variable: List of attributes. */
     private Set<String> m_attrs;
 
+    /** The cache directives this key was created from. */
+    private String m_cacheDirectives;
+
     /** Cache key variable: The current container element. */
     private String m_containerElement;
 
@@ -235,6 +238,7 @@ public class CmsFlexCacheKey {
         m_variation = "never";
         m_always = -1;
         m_timeout = -1;
+        m_cacheDirectives = cacheDirectives;
         if (cacheDirectives != null) {
             parseFlexKey(cacheDirectives);
         }
@@ -726,6 +730,16 @@ public class CmsFlexCacheKey {
         return str.toString();
     }
 
+    /**
+     * Returns the cache directives this key was created from.<p>
+     *
+     * @return the cache directives, or <code>null</code> if no directives were given
+     */
+    protected String getCacheDirectives() {
+
+        return m_cacheDirectives;
+    }
+
     /**
      * Returns the resource.<p>
      *
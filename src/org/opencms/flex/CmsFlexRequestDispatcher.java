@@ -320,6 +320,9 @@ public class CmsFlexRequestDispatcher implements RequestDispatcher {
                         throw new ServletException(Messages.get().getBundle().key(
                             Messages.ERR_FLEXREQUESTDISPATCHER_ERROR_LOADING_RESOURCE_FROM_CACHE_1,
                             m_vfsTarget), t);
+                    } finally {
+                        // the output of the entry may be freed now if it was removed from the cache meanwhile
+                        entry.removeReference();
                     }
                 } else {
                     // cache is on and resource is not yet cached, so we need to read the cache key for the response
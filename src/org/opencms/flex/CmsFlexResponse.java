@@ -1010,6 +1010,37 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
         }
     }
 
+    /** 
+     * Writes the bytes of an off-heap fragment to the current output stream,
+     * this method should be called from CmsFlexCacheEntry.service() only.<p>
+     * 
+     * If the response writes directly to its parent output stream, the bytes are copied 
+     * block by block without creating a heap copy of the complete fragment.<p>
+     *
+     * @param arena the arena storing the fragment
+     * @param fragment the fragment
+     * @param useArray indicates that the byte array should be used directly
+     * 
+     * @throws IOException in case something goes wrong while writing to the stream
+     */
+    void writeToOutputStream(CmsFlexCacheArena arena, CmsFlexCacheArena.CmsArenaFragment fragment, boolean useArray)
+    throws IOException {
+
+        if (isSuspended()) {
+            return;
+        }
+        if (m_writeOnlyToBuffer) {
+            // the buffered output needs the bytes on the heap anyway
+            writeToOutputStream(arena.toByteArray(fragment), useArray);
+        } else {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXRESPONSE_ERROR_WRITING_TO_OUTPUT_STREAM_0));
+            }
+            arena.writeTo(fragment, m_res.getOutputStream());
+            m_res.getOutputStream().flush();
+        }
+    }
+
     /**
      * Helper method to add a value in the internal header list.<p>
      *
@@ -40,6 +40,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_ADD_COOKIE_0 = "ERR_ADD_COOKIE_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_FLEXCACHEARENA_INVALID_BLOCK_SIZE_1 = "ERR_FLEXCACHEARENA_INVALID_BLOCK_SIZE_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_FLEXREQUESTDISPATCHER_CLASSCAST_EXCEPTION_1 = "ERR_FLEXREQUESTDISPATCHER_CLASSCAST_EXCEPTION_1";
 
@@ -91,6 +94,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_FLEXCACHE_ADDED_ENTRY_FOR_RESOURCE_WITH_VARIATION_3 = "LOG_FLEXCACHE_ADDED_ENTRY_FOR_RESOURCE_WITH_VARIATION_3";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_FLEXCACHE_ARENA_CREATED_3 = "LOG_FLEXCACHE_ARENA_CREATED_3";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_FLEXCACHE_ARENA_FAILED_1 = "LOG_FLEXCACHE_ARENA_FAILED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_FLEXCACHE_CLEAR_0 = "LOG_FLEXCACHE_CLEAR_0";
 
@@ -112,6 +121,21 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_FLEXCACHE_CLEAR_ONLINE_KEYS_AND_ENTRIES_0 = "LOG_FLEXCACHE_CLEAR_ONLINE_KEYS_AND_ENTRIES_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_FLEXCACHE_DISKSTORE_CREATED_1 = "LOG_FLEXCACHE_DISKSTORE_CREATED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_FLEXCACHE_DISKSTORE_DISCARDED_1 = "LOG_FLEXCACHE_DISKSTORE_DISCARDED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_FLEXCACHE_DISKSTORE_LOADED_2 = "LOG_FLEXCACHE_DISKSTORE_LOADED_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_FLEXCACHE_DISKSTORE_READ_FAILED_1 = "LOG_FLEXCACHE_DISKSTORE_READ_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_FLEXCACHE_DISKSTORE_WRITE_FAILED_1 = "LOG_FLEXCACHE_DISKSTORE_WRITE_FAILED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_FLEXCACHE_PURGED_JSP_REPOSITORY_0 = "LOG_FLEXCACHE_PURGED_JSP_REPOSITORY_0";
 
@@ -35,6 +35,7 @@ import org.opencms.file.CmsResourceFilter;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.util.CmsFileUtil;
+import org.opencms.util.CmsUUID;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -435,8 +436,14 @@ public class CmsJspNavBuilder {
         }
         boolean includeAll = visibility == Visibility.all;
         boolean includeHidden = visibility == Visibility.includeHidden;
+        Map<CmsUUID, List<CmsProperty>> properties = readPropertyObjects(resources);
         for (CmsResource r : resources) {
-            CmsJspNavElement element = getNavigationForResource(m_cms.getSitePath(r), resourceFilter);
+            CmsJspNavElement element = getNavigationForResource(
+                m_cms.getSitePath(r),
+                r,
+                properties.get(r.getStructureId()),
+                resourceFilter,
+                false);
             if ((element != null)
                 && (includeAll || (element.isInNavigation() && (includeHidden || !element.isHiddenNavigationEntry())))) {
                 result.add(element);
@@ -642,8 +649,14 @@ public class CmsJspNavBuilder {
             return Collections.<CmsJspNavElement> emptyList();
         }
 
+        Map<CmsUUID, List<CmsProperty>> properties = readPropertyObjects(resources);
         for (CmsResource r : resources) {
-            CmsJspNavElement element = getNavigationForResource(m_cms.getSitePath(r), resourceFilter, shallow);
+            CmsJspNavElement element = getNavigationForResource(
+                m_cms.getSitePath(r),
+                r,
+                properties.get(r.getStructureId()),
+                resourceFilter,
+                shallow);
             if ((element != null) && (includeInvisible || element.isInNavigation())) {
                 result.add(element);
             }
@@ -665,14 +678,43 @@ public class CmsJspNavBuilder {
     private CmsJspNavElement getNavigationForResource(String sitePath, CmsResourceFilter resourceFilter, boolean shallow) {
 
         CmsResource resource;
+        try {
+            resource = m_cms.readResource(sitePath, resourceFilter);
+        } catch (Exception e) {
+            // may happen if permissions are not sufficient
+            LOG.error(e.getLocalizedMessage(), e);
+            return null;
+        }
+        return getNavigationForResource(sitePath, resource, null, resourceFilter, shallow);
+    }
+
+    /**
+     * Returns a navigation element for the given resource.<p>
+     * 
+     * @param sitePath the site path of the resource
+     * @param resource the resource to get the navigation information for
+     * @param properties the properties of the resource, if <code>null</code> they are read
+     * @param resourceFilter the filter to use reading the resources
+     * @param shallow <code>true</code> for a shallow look up, not regarding next level resources
+     *              
+     * @return a navigation element for the given resource
+     */
+    private CmsJspNavElement getNavigationForResource(
+        String sitePath,
+        CmsResource resource,
+        List<CmsProperty> properties,
+        CmsResourceFilter resourceFilter,
+        boolean shallow) {
+
         Map<String, String> propertiesMap;
         int level = CmsResource.getPathLevel(sitePath);
         if (sitePath.endsWith("/")) {
             level--;
         }
         try {
-            resource = m_cms.readResource(sitePath, resourceFilter);
-            List<CmsProperty> properties = m_cms.readPropertyObjects(resource, false);
+            if (properties == null) {
+                properties = m_cms.readPropertyObjects(resource, false);
+            }
             propertiesMap = CmsProperty.toMap(properties);
             if (resource.isFolder()) {
                 if (!sitePath.endsWith("/")) {
@@ -697,4 +739,22 @@ public class CmsJspNavBuilder {
 
         return new CmsJspNavElement(sitePath, resource, propertiesMap, level);
     }
+
+    /**
+     * Reads the properties of all given resources at once.<p>
+     * 
+     * @param resources the resources to read the properties for
+     * 
+     * @return a map from structure id to the properties of the resource, empty if the properties could not be read 
+     */
+    private Map<CmsUUID, List<CmsProperty>> readPropertyObjects(List<CmsResource> resources) {
+
+        try {
+            return m_cms.readPropertyObjects(resources);
+        } catch (CmsException e) {
+            // the properties will be read for every single resource
+            LOG.error(e.getLocalizedMessage(), e);
+            return Collections.<CmsUUID, List<CmsProperty>> emptyMap();
+        }
+    }
 }
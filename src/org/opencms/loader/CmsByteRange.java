@@ -0,0 +1,184 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.loader;
+
+/**
+ * A single byte range of a HTTP "Range" request header.<p>
+ * 
+ * Only single ranges are supported. Requests with multiple ranges or invalid range headers
+ * are answered with the complete content, which is allowed by the HTTP specification.<p>
+ * 
+ * @since 8.5.2
+ */
+public final class CmsByteRange {
+
+    /** The prefix of a byte range header. */
+    private static final String BYTES_PREFIX = "bytes=";
+
+    /** The last byte position of the range (inclusive). */
+    private long m_end;
+
+    /** The total length of the content. */
+    private long m_length;
+
+    /** The first byte position of the range. */
+    private long m_start;
+
+    /**
+     * Creates a new byte range.<p>
+     * 
+     * @param start the first byte position
+     * @param end the last byte position (inclusive), or <code>-1</code> for an unsatisfiable range
+     * @param length the total length of the content
+     */
+    private CmsByteRange(long start, long end, long length) {
+
+        m_start = start;
+        m_end = end;
+        m_length = length;
+    }
+
+    /**
+     * Parses the given value of a HTTP "Range" header for a content of the given length.<p>
+     * 
+     * @param header the value of the "Range" header, may be <code>null</code>
+     * @param length the total length of the content
+     * 
+     * @return the requested range, or <code>null</code> if the complete content should be sent
+     */
+    public static CmsByteRange parse(String header, long length) {
+
+        if ((header == null) || (length < 0)) {
+            return null;
+        }
+        String value = header.trim();
+        if (!value.startsWith(BYTES_PREFIX)) {
+            return null;
+        }
+        value = value.substring(BYTES_PREFIX.length()).trim();
+        int dash = value.indexOf('-');
+        if ((dash < 0) || (value.indexOf(',') >= 0)) {
+            // invalid or multiple ranges
+            return null;
+        }
+        try {
+            String first = value.substring(0, dash).trim();
+            String last = value.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.length() == 0) {
+                // suffix range with the number of bytes at the end of the content
+                if (last.length() == 0) {
+                    return null;
+                }
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    return new CmsByteRange(0, -1, length);
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.length() == 0 ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+                if ((start < 0) || ((last.length() > 0) && (Long.parseLong(last) < start))) {
+                    return null;
+                }
+            }
+            if ((start >= length) || (end < start)) {
+                return new CmsByteRange(0, -1, length);
+            }
+            return new CmsByteRange(start, end, length);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the value of the HTTP "Content-Range" header for this range.<p>
+     * 
+     * @return the value of the "Content-Range" header
+     */
+    public String getContentRange() {
+
+        if (!isSatisfiable()) {
+            return "bytes */" + m_length;
+        }
+        return "bytes " + m_start + "-" + m_end + "/" + m_length;
+    }
+
+    /**
+     * Returns the number of bytes in this range.<p>
+     * 
+     * @return the number of bytes in this range
+     */
+    public long getCount() {
+
+        return isSatisfiable() ? (m_end - m_start) + 1 : 0;
+    }
+
+    /**
+     * Returns the last byte position of this range (inclusive).<p>
+     * 
+     * @return the last byte position
+     */
+    public long getEnd() {
+
+        return m_end;
+    }
+
+    /**
+     * Returns the first byte position of this range.<p>
+     * 
+     * @return the first byte position
+     */
+    public long getStart() {
+
+        return m_start;
+    }
+
+    /**
+     * Returns if this range can be served for the content.<p>
+     * 
+     * If not, the request must be answered with status "416 - Requested Range Not Satisfiable".<p>
+     * 
+     * @return <code>true</code> if this range can be served
+     */
+    public boolean isSatisfiable() {
+
+        return m_end >= m_start;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        return getContentRange();
+    }
+}
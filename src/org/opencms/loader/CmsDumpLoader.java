@@ -39,7 +39,12 @@ import org.opencms.util.CmsRequestUtil;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.workplace.CmsWorkplaceManager;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.Iterator;
 import java.util.Locale;
 
@@ -58,15 +63,30 @@ import javax.servlet.http.HttpServletResponse;
  */
 public class CmsDumpLoader implements I_CmsResourceLoader {
 
+    /** Configuration parameter for the size in bytes above which contents are streamed from the database. */
+    public static final String PARAM_STREAMING_THRESHOLD = "streaming.threshold";
+
     /** The id of this loader. */
     public static final int RESOURCE_LOADER_ID = 1;
 
+    /** The default size in bytes above which file contents are streamed from the database. */
+    private static final long DEFAULT_STREAMING_THRESHOLD = 10 * 1024 * 1024;
+
+    /** The value of the "Accept-Ranges" header for byte ranges. */
+    private static final String RANGE_UNIT_BYTES = "bytes";
+
+    /** The HTTP request method for which ranges are supported. */
+    private static final String REQUEST_METHOD_GET = "GET";
+
     /** The maximum age for dumped contents in the clients cache. */
     private static long m_clientCacheMaxAge;
 
     /** The resource loader configuration. */
     private CmsParameterConfiguration m_configuration;
 
+    /** The size in bytes above which contents are streamed from the database, zero or less to disable streaming. */
+    private long m_streamingThreshold;
+
     /**
      * The constructor of the class is empty and does nothing.<p>
      */
@@ -175,11 +195,22 @@ public class CmsDumpLoader implements I_CmsResourceLoader {
         } else {
             m_clientCacheMaxAge = Long.parseLong(String.valueOf(maxAge));
         }
+        Object threshold = m_configuration.get(PARAM_STREAMING_THRESHOLD);
+        if (threshold == null) {
+            m_streamingThreshold = DEFAULT_STREAMING_THRESHOLD;
+        } else {
+            m_streamingThreshold = Long.parseLong(String.valueOf(threshold));
+        }
 
         if (CmsLog.INIT.isInfoEnabled()) {
             if (maxAge != null) {
                 CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_CLIENT_CACHE_MAX_AGE_1, maxAge));
             }
+            if (m_streamingThreshold > 0) {
+                CmsLog.INIT.info(Messages.get().getBundle().key(
+                    Messages.INIT_STREAMING_THRESHOLD_1,
+                    new Long(m_streamingThreshold)));
+            }
             CmsLog.INIT.info(Messages.get().getBundle().key(
                 Messages.INIT_LOADER_INITIALIZED_1,
                 this.getClass().getName()));
@@ -229,35 +260,36 @@ public class CmsDumpLoader implements I_CmsResourceLoader {
             return;
         }
 
-        // make sure we have the file contents available
-        CmsFile file = cms.readFile(resource);
-
-        // set response status to "200 - OK" (required for static export "on-demand")
-        res.setStatus(HttpServletResponse.SC_OK);
-        // set content length header
-        res.setContentLength(file.getContents().length);
-
-        if (CmsWorkplaceManager.isWorkplaceUser(req)) {
-            // prevent caching for Workplace users
-            res.setDateHeader(CmsRequestUtil.HEADER_LAST_MODIFIED, System.currentTimeMillis());
-            CmsRequestUtil.setNoCacheHeaders(res);
-        } else {
-            // set date last modified header
-            res.setDateHeader(CmsRequestUtil.HEADER_LAST_MODIFIED, file.getDateLastModified());
-
-            // set "Expires" only if cache control is not already set
-            if (!res.containsHeader(CmsRequestUtil.HEADER_CACHE_CONTROL)) {
-                long expireTime = resource.getDateExpired();
-                if (expireTime == CmsResource.DATE_EXPIRED_DEFAULT) {
-                    expireTime--;
-                    // flex controller will automatically reduce this to a reasonable value
+        if (isStreamed(resource)) {
+            // large contents are written from the database to the response without reading them into memory
+            CmsByteRange range = getByteRange(resource, resource.getLength(), req);
+            if (prepareResponse(resource, resource.getLength(), range, req, res)) {
+                if (range != null) {
+                    // only the bytes of the range are read from the database
+                    cms.readContent(resource, range.getStart(), range.getCount(), res.getOutputStream());
+                } else {
+                    cms.readContent(resource, res.getOutputStream());
                 }
-                // now set "Expires" header        
-                CmsFlexController.setDateExpiresHeader(res, expireTime, m_clientCacheMaxAge);
             }
+            return;
         }
 
-        service(cms, file, req, res);
+        // make sure we have the file contents available
+        CmsFile file = cms.readFile(resource);
+        byte[] content = file.getContents();
+
+        CmsByteRange range = getByteRange(file, content.length, req);
+        if (range == null) {
+            res.setHeader(CmsRequestUtil.HEADER_ACCEPT_RANGES, RANGE_UNIT_BYTES);
+            // set response status to "200 - OK" (required for static export "on-demand")
+            res.setStatus(HttpServletResponse.SC_OK);
+            // set content length header
+            res.setContentLength(content.length);
+            setCacheHeaders(file, req, res);
+            service(cms, file, req, res);
+        } else if (prepareResponse(file, content.length, range, req, res)) {
+            res.getOutputStream().write(content, (int)range.getStart(), (int)range.getCount());
+        }
     }
 
     /**
@@ -301,4 +333,173 @@ public class CmsDumpLoader implements I_CmsResourceLoader {
         }
         return false;
     }
-}
\ No newline at end of file
+
+    /**
+     * Delivers the content of the given resource from a file in the real file system, 
+     * for example from a disk cache.<p>
+     * 
+     * The file is written to the response with a file channel, so that the content
+     * is not read into memory. "Range" requests are supported.<p>
+     * 
+     * @param resource the resource that is delivered
+     * @param content the file in the real file system that contains the content of the resource
+     * @param req the current request
+     * @param res the current response
+     * 
+     * @throws IOException in case the file could not be read or the response could not be written
+     */
+    protected void load(CmsResource resource, File content, HttpServletRequest req, HttpServletResponse res)
+    throws IOException {
+
+        // open the file first, so that nothing has been sent in case it does not exist any more 
+        FileInputStream in = new FileInputStream(content);
+        try {
+            FileChannel channel = in.getChannel();
+            long length = channel.size();
+            CmsByteRange range = getByteRange(resource, length, req);
+            if (prepareResponse(resource, length, range, req, res)) {
+                long position = (range == null) ? 0 : range.getStart();
+                long end = (range == null) ? length : range.getEnd() + 1;
+                WritableByteChannel target = Channels.newChannel(res.getOutputStream());
+                while (position < end) {
+                    long count = channel.transferTo(position, end - position, target);
+                    if (count <= 0) {
+                        // the file has been truncated
+                        break;
+                    }
+                    position += count;
+                }
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Returns the byte range requested with the "Range" header of the given request, 
+     * or <code>null</code> if the complete content must be sent.<p>
+     * 
+     * Ranges are only supported for top level GET requests. If the request contains an "If-Range" header
+     * which does not match the date of last modification of the resource, the complete content is sent.<p>
+     * 
+     * @param resource the requested resource
+     * @param length the length of the content
+     * @param req the current request
+     * 
+     * @return the requested byte range, or <code>null</code>
+     */
+    private CmsByteRange getByteRange(CmsResource resource, long length, HttpServletRequest req) {
+
+        String header = req.getHeader(CmsRequestUtil.HEADER_RANGE);
+        if ((header == null) || !REQUEST_METHOD_GET.equals(req.getMethod())) {
+            return null;
+        }
+        CmsFlexController controller = CmsFlexController.getController(req);
+        if ((controller != null) && !controller.getCurrentResponse().isTopElement()) {
+            // ranges are not supported for sub-elements of pages
+            return null;
+        }
+        if (req.getHeader(CmsRequestUtil.HEADER_IF_RANGE) != null) {
+            try {
+                // HTTP dates have a resolution of seconds
+                long date = req.getDateHeader(CmsRequestUtil.HEADER_IF_RANGE);
+                if ((date / 1000) != (resource.getDateLastModified() / 1000)) {
+                    return null;
+                }
+            } catch (IllegalArgumentException e) {
+                // the header contains an entity tag, which is never generated for dumped resources
+                return null;
+            }
+        }
+        return CmsByteRange.parse(header, length);
+    }
+
+    /**
+     * Checks if the content of the given resource should be streamed from the database.<p>
+     * 
+     * @param resource the resource to check
+     * 
+     * @return <code>true</code> if the content of the given resource should be streamed from the database
+     */
+    private boolean isStreamed(CmsResource resource) {
+
+        if ((m_streamingThreshold <= 0) || (resource.getLength() <= m_streamingThreshold) || !resource.isFile()) {
+            return false;
+        }
+        // contents already in memory are never read again
+        return !(resource instanceof CmsFile) || (((CmsFile)resource).getContents().length == 0);
+    }
+
+    /**
+     * Sets the status and the headers of the response for sending the given range of a content.<p>
+     * 
+     * @param resource the resource that is delivered
+     * @param length the length of the complete content
+     * @param range the requested range, or <code>null</code> for the complete content
+     * @param req the current request
+     * @param res the current response
+     * 
+     * @return <code>true</code> if the content must be written, <code>false</code> if the range can not be satisfied
+     */
+    private boolean prepareResponse(
+        CmsResource resource,
+        long length,
+        CmsByteRange range,
+        HttpServletRequest req,
+        HttpServletResponse res) {
+
+        res.setHeader(CmsRequestUtil.HEADER_ACCEPT_RANGES, RANGE_UNIT_BYTES);
+        long count = length;
+        if (range == null) {
+            // set response status to "200 - OK" (required for static export "on-demand")
+            res.setStatus(HttpServletResponse.SC_OK);
+        } else if (range.isSatisfiable()) {
+            res.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            res.setHeader(CmsRequestUtil.HEADER_CONTENT_RANGE, range.getContentRange());
+            count = range.getCount();
+        } else {
+            res.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            res.setHeader(CmsRequestUtil.HEADER_CONTENT_RANGE, range.getContentRange());
+            res.setContentLength(0);
+            return false;
+        }
+        if (count <= Integer.MAX_VALUE) {
+            res.setContentLength((int)count);
+        } else {
+            res.setHeader(CmsRequestUtil.HEADER_CONTENT_LENGTH, String.valueOf(count));
+        }
+        setCacheHeaders(resource, req, res);
+        return true;
+    }
+
+    /**
+     * Sets the "Last-Modified" and "Expires" headers for the given resource, 
+     * or the "no cache" headers if the request has been sent by a workplace user.<p>
+     * 
+     * @param resource the resource that is delivered
+     * @param req the current request
+     * @param res the current response
+     */
+    private void setCacheHeaders(CmsResource resource, HttpServletRequest req, HttpServletResponse res) {
+
+        if (CmsWorkplaceManager.isWorkplaceUser(req)) {
+            // prevent caching for Workplace users
+            res.setDateHeader(CmsRequestUtil.HEADER_LAST_MODIFIED, System.currentTimeMillis());
+            CmsRequestUtil.setNoCacheHeaders(res);
+        } else {
+            // set date last modified header
+            res.setDateHeader(CmsRequestUtil.HEADER_LAST_MODIFIED, resource.getDateLastModified());
+
+            // set "Expires" only if cache control is not already set
+            if (!res.containsHeader(CmsRequestUtil.HEADER_CACHE_CONTROL)) {
+                long expireTime = resource.getDateExpired();
+                if (expireTime == CmsResource.DATE_EXPIRED_DEFAULT) {
+                    expireTime--;
+                    // flex controller will automatically reduce this to a reasonable value
+                }
+                // now set "Expires" header        
+                CmsFlexController.setDateExpiresHeader(res, expireTime, m_clientCacheMaxAge);
+            }
+        }
+    }
+}
@@ -29,9 +29,12 @@ package org.opencms.loader;
 
 import org.opencms.cache.CmsVfsNameBasedDiskCache;
 import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.db.CmsPublishedResource;
 import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
 import org.opencms.file.CmsResource;
+import org.opencms.file.types.I_CmsResourceType;
 import org.opencms.main.CmsEvent;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
@@ -39,9 +42,16 @@ import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.scheduler.jobs.CmsImageCacheCleanupJob;
 import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
 
+import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -77,6 +87,18 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
     /** The configuration parameter for the OpenCms XML configuration to enable the image scaling. */
     public static final String CONFIGURATION_SCALING_ENABLED = "image.scaling.enabled";
 
+    /** The configuration parameter for the OpenCms XML configuration to set the maximum number of waiting image scaling operations. */
+    public static final String CONFIGURATION_SCALING_QUEUE_SIZE = "image.scaling.queuesize";
+
+    /** The configuration parameter for the OpenCms XML configuration to set the number of image scaling threads. */
+    public static final String CONFIGURATION_SCALING_THREADS = "image.scaling.threads";
+
+    /** The configuration parameter for the OpenCms XML configuration to add image scaling parameters for variants generated after publishing (may be used multiple times). */
+    public static final String CONFIGURATION_SCALING_VARIANT = "image.scaling.variant";
+
+    /** Default maximum number of waiting image scaling operations. */
+    public static final int DEFAULT_SCALING_QUEUE_SIZE = 100;
+
     /** Default name for the image cache repository. */
     public static final String IMAGE_REPOSITORY_DEFAULT = "/WEB-INF/imagecache/";
 
@@ -107,6 +129,21 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
     /** The maximum image size (width or height) to allow when up scaling an image using request parameters. */
     protected int m_maxScaleSize = CmsImageScaler.SCALE_DEFAULT_MAX_SIZE;
 
+    /** The admin context used to generate the configured image variants after publishing. */
+    private CmsObject m_adminCms;
+
+    /** The pool of worker threads for image scaling. */
+    private CmsImageScalingExecutor m_scalingExecutor;
+
+    /** The maximum number of waiting image scaling operations. */
+    private int m_scalingQueueSize = DEFAULT_SCALING_QUEUE_SIZE;
+
+    /** The number of image scaling threads. */
+    private int m_scalingThreads = Runtime.getRuntime().availableProcessors();
+
+    /** The image scaling parameters of the variants generated after publishing. */
+    private List<String> m_scalingVariants = new ArrayList<String>();
+
     /**
      * Creates a new image loader.<p>
      */
@@ -197,6 +234,17 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
             if (CONFIGURATION_DOWNSCALE.equals(paramName)) {
                 m_downScaleParams = paramValue.trim();
             }
+            if (CONFIGURATION_SCALING_THREADS.equals(paramName)) {
+                m_scalingThreads = Math.max(1, CmsStringUtil.getIntValue(paramValue, m_scalingThreads, paramName));
+            }
+            if (CONFIGURATION_SCALING_QUEUE_SIZE.equals(paramName)) {
+                m_scalingQueueSize = Math.max(
+                    1,
+                    CmsStringUtil.getIntValue(paramValue, DEFAULT_SCALING_QUEUE_SIZE, paramName));
+            }
+            if (CONFIGURATION_SCALING_VARIANT.equals(paramName)) {
+                m_scalingVariants.add(paramValue.trim());
+            }
         }
         super.addConfigurationParameter(paramName, paramValue);
     }
@@ -209,8 +257,17 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         if (event == null) {
             return;
         }
-        // only react on the clear caches event
         int type = event.getType();
+        if (type == I_CmsEventListener.EVENT_PUBLISH_PROJECT) {
+            if ((m_adminCms != null) && !m_scalingVariants.isEmpty() && (event.getData() != null)) {
+                String publishId = (String)event.getData().get(I_CmsEventListener.KEY_PUBLISHID);
+                if (publishId != null) {
+                    generateVariants(new CmsUUID(publishId));
+                }
+            }
+            return;
+        }
+        // otherwise only react on the clear caches event
         if (type != I_CmsEventListener.EVENT_CLEAR_CACHES) {
             return;
         }
@@ -241,6 +298,9 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         m_enabled = false;
         m_imageRepositoryFolder = null;
         m_vfsDiskCache = null;
+        if (m_scalingExecutor != null) {
+            m_scalingExecutor.shutdown();
+        }
     }
 
     /**
@@ -259,6 +319,17 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         return result;
     }
 
+    /**
+     * Returns the pool of worker threads used for image scaling, 
+     * which can be used to monitor the image scaling operations.<p>
+     * 
+     * @return the image scaling pool, or <code>null</code> if image scaling is disabled
+     */
+    public CmsImageScalingExecutor getImageScalingExecutor() {
+
+        return m_scalingExecutor;
+    }
+
     /**
      * @see org.opencms.loader.I_CmsResourceLoader#getLoaderId()
      */
@@ -283,6 +354,9 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
                 OpenCms.getSystemInfo().getWebApplicationRfsPath(),
                 m_imageRepositoryFolder);
         }
+        if (m_enabled && (m_scalingExecutor == null)) {
+            m_scalingExecutor = new CmsImageScalingExecutor(m_scalingThreads, m_scalingQueueSize);
+        }
         OpenCms.addCmsEventListener(this);
         // output setup information
         if (CmsLog.INIT.isInfoEnabled()) {
@@ -292,6 +366,37 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
             CmsLog.INIT.info(Messages.get().getBundle().key(
                 Messages.INIT_IMAGE_SCALING_ENABLED_1,
                 Boolean.valueOf(m_enabled)));
+            if (m_enabled) {
+                CmsLog.INIT.info(Messages.get().getBundle().key(
+                    Messages.INIT_IMAGE_SCALING_THREADS_2,
+                    new Integer(m_scalingThreads),
+                    new Integer(m_scalingQueueSize)));
+                if (!m_scalingVariants.isEmpty()) {
+                    CmsLog.INIT.info(Messages.get().getBundle().key(
+                        Messages.INIT_IMAGE_SCALING_VARIANTS_1,
+                        m_scalingVariants));
+                }
+            }
+        }
+    }
+
+    /**
+     * Initializes the runtime information of this loader.<p>
+     * 
+     * The given admin context is used to generate the configured image variants after publishing.
+     * Only intended to be called during startup.<p>
+     * 
+     * @param adminCms an OpenCms context with admin permissions
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    public void initialize(CmsObject adminCms) throws CmsException {
+
+        if (m_adminCms == null) {
+            CmsObject cms = OpenCms.initCmsObject(adminCms);
+            cms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+            cms.getRequestContext().setSiteRoot("");
+            m_adminCms = cms;
         }
     }
 
@@ -309,6 +414,17 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
             }
             // get the scale information from the request
             CmsImageScaler scaler = new CmsImageScaler(req, m_maxScaleSize, m_maxBlurSize);
+            String cacheName = m_vfsDiskCache.getCacheName(resource, scaler.isValid() ? scaler.toString() : null);
+            File cacheFile = m_vfsDiskCache.getCacheFile(cacheName);
+            if (cacheFile != null) {
+                try {
+                    // deliver the cached image directly from the disk cache
+                    load(resource, cacheFile, req, res);
+                    return;
+                } catch (FileNotFoundException e) {
+                    // the cache file has just been removed, continue with the standard operation
+                }
+            }
             // load the file from the cache
             CmsFile file = getScaledImage(cms, resource, scaler);
             // now perform standard load operation inherited from dump loader
@@ -353,6 +469,15 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
             }
             // save the content in the file
             file.setContents(content);
+        } else if (m_scalingExecutor != null) {
+            // concurrent requests for the same image version wait for the same scaling operation 
+            content = m_scalingExecutor.scale(cacheName, createScalingOperation(cms, resource, scaler, cacheName));
+            if (resource instanceof CmsFile) {
+                file = (CmsFile)resource;
+            } else {
+                file = new CmsFile(resource);
+            }
+            file.setContents(content);
         } else {
             // we must read the content from the VFS (if this has not been done yet)
             file = cms.readFile(resource);
@@ -368,4 +493,107 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         }
         return file;
     }
+
+    /**
+     * Creates the operation that reads the given image from the VFS, scales it and saves the result in the disk cache.<p>
+     * 
+     * @param cms the OpenCms context to read the image with
+     * @param resource the base VFS resource for the image
+     * @param scaler the configured image scaler
+     * @param cacheName the name of the cache file for the scaled image 
+     * 
+     * @return the scaling operation
+     */
+    private Callable<byte[]> createScalingOperation(
+        final CmsObject cms,
+        final CmsResource resource,
+        final CmsImageScaler scaler,
+        final String cacheName) {
+
+        return new Callable<byte[]>() {
+
+            public byte[] call() throws IOException, CmsException {
+
+                // the image may have been scaled by an operation that has just finished
+                byte[] content = m_vfsDiskCache.getCacheContent(cacheName);
+                if (content != null) {
+                    return content;
+                }
+                CmsFile file = cms.readFile(resource);
+                content = file.getContents();
+                if (scaler.isValid()) {
+                    // valid scaling parameters found, scale the content
+                    content = scaler.scaleImage(file);
+                }
+                // save the content in the cache
+                m_vfsDiskCache.saveCacheFile(cacheName, content);
+                return content;
+            }
+        };
+    }
+
+    /**
+     * Starts the generation of the configured image variants for the images published with the given publish job.<p>
+     * 
+     * The variants are generated in the background by the image scaling threads. Variants are
+     * skipped if the scaling queue is full.<p>
+     * 
+     * @param publishHistoryId the publish history id of the publish job
+     */
+    private void generateVariants(CmsUUID publishHistoryId) {
+
+        if ((m_scalingExecutor == null) || (m_vfsDiskCache == null)) {
+            return;
+        }
+        List<CmsPublishedResource> publishedResources;
+        try {
+            publishedResources = m_adminCms.readPublishedResources(publishHistoryId);
+        } catch (CmsException e) {
+            LOG.error(Messages.get().getBundle().key(Messages.LOG_IMAGE_VARIANTS_FAILED_1, publishHistoryId), e);
+            return;
+        }
+        Iterator<CmsPublishedResource> itPublished = publishedResources.iterator();
+        while (itPublished.hasNext()) {
+            CmsPublishedResource pubRes = itPublished.next();
+            if (pubRes.isFolder() || pubRes.getState().isDeleted()) {
+                continue;
+            }
+            try {
+                I_CmsResourceType type = OpenCms.getResourceManager().getResourceType(pubRes.getType());
+                if (type.getLoaderId() != RESOURCE_LOADER_ID_IMAGE_LOADER) {
+                    continue;
+                }
+            } catch (CmsLoaderException e) {
+                // unknown resource type
+                continue;
+            }
+            CmsResource resource = null;
+            Iterator<String> itVariants = m_scalingVariants.iterator();
+            while (itVariants.hasNext()) {
+                String variant = itVariants.next();
+                try {
+                    if (resource == null) {
+                        resource = m_adminCms.readResource(pubRes.getRootPath());
+                    }
+                    CmsImageScaler scaler = new CmsImageScaler(variant);
+                    scaler.setMaxBlurSize(m_maxBlurSize);
+                    if (!scaler.isValid()) {
+                        continue;
+                    }
+                    String cacheName = m_vfsDiskCache.getCacheName(resource, scaler.toString());
+                    if (!new File(cacheName).exists()) {
+                        // each operation needs its own context, since they run in parallel
+                        m_scalingExecutor.submit(
+                            cacheName,
+                            createScalingOperation(OpenCms.initCmsObject(m_adminCms), resource, scaler, cacheName));
+                    }
+                } catch (CmsException e) {
+                    LOG.warn(Messages.get().getBundle().key(
+                        Messages.LOG_IMAGE_VARIANT_FAILED_2,
+                        pubRes.getRootPath(),
+                        variant), e);
+                }
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,292 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.loader;
+
+import org.opencms.main.CmsException;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of worker threads for image scaling operations, used by the {@link CmsImageLoader}.<p>
+ * 
+ * Scaling operations are identified by a key, usually the name of the cache file for the scaled image.
+ * As long as an operation for a key is running or waiting, all further requests for the same key
+ * wait for the result of this operation instead of scaling the image again.<p>
+ * 
+ * If the queue of the pool is full, a blocking request scales the image in the requesting thread,
+ * while an asynchronous request is dropped. The number of such rejected requests is counted.<p>
+ * 
+ * @since 8.5.2
+ */
+public class CmsImageScalingExecutor {
+
+    /** The name prefix of the worker threads. */
+    private static final String WORKER_THREAD_NAME = "OpenCms: Image scaling worker ";
+
+    /** The number of requests which waited for an operation already started by another request. */
+    private AtomicLong m_deduplicatedCount;
+
+    /** The thread pool. */
+    private ThreadPoolExecutor m_executor;
+
+    /** The number of requests which could not be queued because the queue was full. */
+    private AtomicLong m_rejectedCount;
+
+    /** The number of finished scaling operations. */
+    private AtomicLong m_scaledCount;
+
+    /** The running or waiting operations, by key. */
+    private ConcurrentMap<String, FutureTask<byte[]>> m_tasks;
+
+    /** Counter for the worker thread names. */
+    private AtomicInteger m_workerCounter;
+
+    /**
+     * Creates a new image scaling pool.<p>
+     * 
+     * @param threads the number of worker threads
+     * @param queueSize the maximum number of operations waiting for a worker thread
+     */
+    public CmsImageScalingExecutor(int threads, int queueSize) {
+
+        m_deduplicatedCount = new AtomicLong();
+        m_rejectedCount = new AtomicLong();
+        m_scaledCount = new AtomicLong();
+        m_tasks = new ConcurrentHashMap<String, FutureTask<byte[]>>();
+        m_workerCounter = new AtomicInteger();
+        m_executor = new ThreadPoolExecutor(
+            threads,
+            threads,
+            60,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<Runnable>(queueSize),
+            new ThreadFactory() {
+
+                public Thread newThread(Runnable r) {
+
+                    Thread thread = new Thread(r, WORKER_THREAD_NAME + m_workerCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        m_executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Returns the number of worker threads currently scaling images.<p>
+     * 
+     * @return the number of active worker threads
+     */
+    public int getActiveCount() {
+
+        return m_executor.getActiveCount();
+    }
+
+    /**
+     * Returns the number of requests which waited for an operation already started by another request.<p>
+     * 
+     * @return the number of deduplicated requests
+     */
+    public long getDeduplicatedCount() {
+
+        return m_deduplicatedCount.get();
+    }
+
+    /**
+     * Returns the number of operations waiting for a worker thread.<p>
+     * 
+     * @return the number of queued operations
+     */
+    public int getQueueSize() {
+
+        return m_executor.getQueue().size();
+    }
+
+    /**
+     * Returns the number of requests which could not be queued because the queue was full.<p>
+     * 
+     * @return the number of rejected requests
+     */
+    public long getRejectedCount() {
+
+        return m_rejectedCount.get();
+    }
+
+    /**
+     * Returns the number of finished scaling operations.<p>
+     * 
+     * @return the number of finished scaling operations
+     */
+    public long getScaledCount() {
+
+        return m_scaledCount.get();
+    }
+
+    /**
+     * Returns the result of the operation for the given key, 
+     * starting the given operation if no operation for the key is running yet.<p>
+     * 
+     * The operation should store its result, so that it can be found by later requests 
+     * without calling this method.<p>
+     * 
+     * @param key the key of the operation
+     * @param operation the operation to start
+     * 
+     * @return the result of the operation
+     * 
+     * @throws IOException if the operation throws an IOException
+     * @throws CmsException if the operation throws a CmsException, or if the current thread is interrupted 
+     */
+    public byte[] scale(String key, Callable<byte[]> operation) throws IOException, CmsException {
+
+        FutureTask<byte[]> task = new FutureTask<byte[]>(createOperation(key, operation));
+        FutureTask<byte[]> runningTask = m_tasks.putIfAbsent(key, task);
+        if (runningTask != null) {
+            m_deduplicatedCount.incrementAndGet();
+            task = runningTask;
+        } else {
+            try {
+                m_executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                // the queue is full, scale the image in the current thread
+                m_rejectedCount.incrementAndGet();
+                task.run();
+            }
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CmsLoaderException(Messages.get().container(Messages.ERR_IMAGE_SCALING_INTERRUPTED_1, key), e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            } else if (cause instanceof CmsException) {
+                throw (CmsException)cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            } else if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new CmsLoaderException(Messages.get().container(Messages.ERR_IMAGE_SCALING_FAILED_1, key), cause);
+        }
+    }
+
+    /**
+     * Shuts down the worker threads.<p>
+     * 
+     * Operations which are already queued are still executed, later operations
+     * are executed by the requesting thread.<p>
+     */
+    public void shutdown() {
+
+        m_executor.shutdown();
+    }
+
+    /**
+     * Starts the given operation in the background, unless an operation for the given key is already running.<p>
+     * 
+     * @param key the key of the operation
+     * @param operation the operation to start
+     * 
+     * @return <code>true</code> if the operation was started, <code>false</code> if an operation
+     *      for the key is already running or the queue is full
+     */
+    public boolean submit(String key, Callable<byte[]> operation) {
+
+        FutureTask<byte[]> task = new FutureTask<byte[]>(createOperation(key, operation));
+        if (m_tasks.putIfAbsent(key, task) != null) {
+            return false;
+        }
+        try {
+            m_executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            m_rejectedCount.incrementAndGet();
+            m_tasks.remove(key, task);
+            return false;
+        }
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        return "[active: "
+            + getActiveCount()
+            + ", queued: "
+            + getQueueSize()
+            + ", scaled: "
+            + getScaledCount()
+            + ", deduplicated: "
+            + getDeduplicatedCount()
+            + ", rejected: "
+            + getRejectedCount()
+            + "]";
+    }
+
+    /**
+     * Wraps the given operation so that it is counted and removed from the running operations when finished.<p>
+     * 
+     * @param key the key of the operation
+     * @param operation the operation
+     * 
+     * @return the wrapped operation
+     */
+    private Callable<byte[]> createOperation(final String key, final Callable<byte[]> operation) {
+
+        return new Callable<byte[]>() {
+
+            public byte[] call() throws Exception {
+
+                try {
+                    byte[] result = operation.call();
+                    m_scaledCount.incrementAndGet();
+                    return result;
+                } finally {
+                    m_tasks.remove(key);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.loader;
+
+import org.opencms.file.CmsResource;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of the JSPs that have been written to the "real" file system.<p>
+ * 
+ * For every written JSP the index stores the date of last modification of the VFS resource 
+ * the JSP was written for, the date of the JSP file in the "real" file system, and the root paths 
+ * of the resources the JSP includes with the 'link.strong' macro. As long as the VFS resource 
+ * has not changed and the entry has not been removed, the JSP is up to date and neither 
+ * the "real" file system nor the VFS has to be checked.<p>
+ * 
+ * The index is not synchronized, but safe for concurrent use, so that looking up an entry 
+ * does not block. Removing an entry also removes the entries of all JSPs that include 
+ * the removed JSP with a strong link, these are looked up by the root path of the included JSP.<p>
+ * 
+ * @since 8.5.2
+ * 
+ * @see CmsJspLoader#updateJsp(CmsResource, org.opencms.flex.CmsFlexController, Set)
+ */
+public class CmsJspFreshnessIndex {
+
+    /**
+     * An entry of the JSP freshness index.<p>
+     */
+    public static final class Entry {
+
+        /** The date of last modification of the VFS resource. */
+        private final long m_dateLastModified;
+
+        /** The date of last modification of the JSP file in the "real" file system. */
+        private final long m_fileDate;
+
+        /** The root paths of the resources included with a strong link. */
+        private final Set<String> m_strongLinks;
+
+        /**
+         * Creates a new entry.<p>
+         * 
+         * @param dateLastModified the date of last modification of the VFS resource
+         * @param fileDate the date of last modification of the JSP file in the "real" file system
+         * @param strongLinks the root paths of the resources included with a strong link
+         */
+        Entry(long dateLastModified, long fileDate, Set<String> strongLinks) {
+
+            m_dateLastModified = dateLastModified;
+            m_fileDate = fileDate;
+            m_strongLinks = strongLinks;
+        }
+
+        /**
+         * Returns the date of last modification of the VFS resource the JSP has been written for.<p>
+         * 
+         * @return the date of last modification of the VFS resource
+         */
+        public long getDateLastModified() {
+
+            return m_dateLastModified;
+        }
+
+        /**
+         * Returns the date of last modification of the JSP file in the "real" file system.<p>
+         * 
+         * @return the date of last modification of the JSP file
+         */
+        public long getFileDate() {
+
+            return m_fileDate;
+        }
+
+        /**
+         * Returns the root paths of the resources the JSP includes with a strong link.<p>
+         * 
+         * @return the root paths of the resources included with a strong link
+         */
+        public Set<String> getStrongLinks() {
+
+            return m_strongLinks;
+        }
+    }
+
+    /** The entries of this index, by the root path of the JSP. */
+    private Map<String, Entry> m_entries;
+
+    /** The root paths of the JSPs that include a resource with a strong link, by the root path of the resource. */
+    private ConcurrentHashMap<String, Set<String>> m_includingJsps;
+
+    /** The maximum number of entries. */
+    private int m_maxSize;
+
+    /**
+     * Creates a new index.<p>
+     * 
+     * If the index is full, an arbitrary entry is removed to make room for a new one, 
+     * the JSP of the removed entry is checked again the next time it is requested.<p>
+     * 
+     * @param maxSize the maximum number of entries
+     */
+    public CmsJspFreshnessIndex(int maxSize) {
+
+        m_maxSize = maxSize;
+        m_entries = new ConcurrentHashMap<String, Entry>();
+        m_includingJsps = new ConcurrentHashMap<String, Set<String>>();
+    }
+
+    /**
+     * Removes all entries from this index.<p>
+     */
+    public void clear() {
+
+        m_entries.clear();
+        m_includingJsps.clear();
+    }
+
+    /**
+     * Returns the entry for the given resource, if the JSP is up to date.<p>
+     * 
+     * @param resource the JSP resource
+     * 
+     * @return the entry, or <code>null</code> if the JSP has not been written 
+     *      or the resource has been modified since
+     */
+    public Entry get(CmsResource resource) {
+
+        Entry entry = m_entries.get(resource.getRootPath());
+        if ((entry != null) && (entry.getDateLastModified() != resource.getDateLastModified())) {
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Adds an entry for the given resource.<p>
+     * 
+     * @param resource the resource the JSP has been written for
+     * @param fileDate the date of last modification of the JSP file in the "real" file system
+     * @param strongLinks the root paths of the resources included with a strong link
+     */
+    public void put(CmsResource resource, long fileDate, Set<String> strongLinks) {
+
+        String rootPath = resource.getRootPath();
+        if ((m_entries.size() >= m_maxSize) && !m_entries.containsKey(rootPath)) {
+            Iterator<Map.Entry<String, Entry>> itEvict = m_entries.entrySet().iterator();
+            if (itEvict.hasNext()) {
+                Map.Entry<String, Entry> evicted = itEvict.next();
+                itEvict.remove();
+                removeStrongLinks(evicted.getKey(), evicted.getValue());
+            }
+        }
+        Set<String> links = strongLinks.isEmpty()
+        ? Collections.<String> emptySet()
+        : Collections.unmodifiableSet(new HashSet<String>(strongLinks));
+        // register the strong links before the entry, so that a concurrent removal of a link target can not be missed
+        for (String link : links) {
+            Set<String> including = m_includingJsps.get(link);
+            if (including == null) {
+                including = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+                Set<String> existing = m_includingJsps.putIfAbsent(link, including);
+                if (existing != null) {
+                    including = existing;
+                }
+            }
+            including.add(rootPath);
+        }
+        Entry replaced = m_entries.put(rootPath, new Entry(resource.getDateLastModified(), fileDate, links));
+        if (replaced != null) {
+            for (String link : replaced.getStrongLinks()) {
+                if (!links.contains(link)) {
+                    removeStrongLink(link, rootPath);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the entries for the given root paths, together with the entries 
+     * of all JSPs that directly or indirectly include one of these with a strong link.<p>
+     * 
+     * @param rootPaths the root paths of the entries to remove
+     */
+    public void remove(Collection<String> rootPaths) {
+
+        Set<String> removed = new HashSet<String>(rootPaths);
+        LinkedList<String> pending = new LinkedList<String>(removed);
+        while (!pending.isEmpty()) {
+            String rootPath = pending.removeFirst();
+            Entry entry = m_entries.remove(rootPath);
+            if (entry != null) {
+                removeStrongLinks(rootPath, entry);
+            }
+            Set<String> including = m_includingJsps.get(rootPath);
+            if (including != null) {
+                for (String includingPath : including) {
+                    if (removed.add(includingPath)) {
+                        pending.add(includingPath);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of entries in this index.<p>
+     * 
+     * @return the number of entries
+     */
+    public int size() {
+
+        return m_entries.size();
+    }
+
+    /**
+     * Removes the given JSP from the JSPs that include the given resource with a strong link.<p>
+     * 
+     * The (possibly empty) set of including JSPs is kept, so that a concurrent registration is not lost.<p>
+     * 
+     * @param link the root path of the included resource
+     * @param rootPath the root path of the JSP
+     */
+    private void removeStrongLink(String link, String rootPath) {
+
+        Set<String> including = m_includingJsps.get(link);
+        if (including != null) {
+            including.remove(rootPath);
+        }
+    }
+
+    /**
+     * Removes the given JSP from the JSPs that include the strong link targets of the given entry.<p>
+     * 
+     * @param rootPath the root path of the JSP
+     * @param entry the entry of the JSP
+     */
+    private void removeStrongLinks(String rootPath, Entry entry) {
+
+        for (String link : entry.getStrongLinks()) {
+            removeStrongLink(link, rootPath);
+        }
+    }
+}
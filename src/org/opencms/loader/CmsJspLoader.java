@@ -30,12 +30,14 @@ package org.opencms.loader;
 import org.opencms.configuration.CmsParameterConfiguration;
 import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
 import org.opencms.file.CmsPropertyDefinition;
 import org.opencms.file.CmsRequestContext;
 import org.opencms.file.CmsResource;
 import org.opencms.file.CmsResourceFilter;
 import org.opencms.file.CmsVfsResourceNotFoundException;
 import org.opencms.file.history.CmsHistoryResourceHandler;
+import org.opencms.file.types.CmsResourceTypeJsp;
 import org.opencms.flex.CmsFlexCache;
 import org.opencms.flex.CmsFlexController;
 import org.opencms.flex.CmsFlexRequest;
@@ -52,7 +54,6 @@ import org.opencms.relations.CmsRelation;
 import org.opencms.relations.CmsRelationFilter;
 import org.opencms.relations.CmsRelationType;
 import org.opencms.staticexport.CmsLinkManager;
-import org.opencms.util.CmsCollectionsGenericWrapper;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsRequestUtil;
 import org.opencms.util.CmsStringUtil;
@@ -65,12 +66,17 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.net.SocketException;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
@@ -120,6 +126,11 @@ import com.google.common.collect.Maps;
  * in your servlet environment, you should try to change the value here. 
  * The default <code>true</code> has been tested with Tomcat 4.1 and 5.0. 
  * Older versions of Tomcat like 4.0 require a setting of <code>false</code>.</dd>
+ * 
+ * <dt>jsp.precompile.folder</dt><dd>
+ * (Optional) A VFS folder with JSPs that are written to the "real" file system at startup 
+ * and after each publish, so that the first request of these JSPs does not have to wait for it.
+ * This parameter can be used more than once.</dd>
  * </dl> 
  * 
  * @since 6.0.0 
@@ -158,6 +169,9 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
     /** Jsp folder parameter name. */
     public static final String PARAM_JSP_FOLDER = "jsp.folder";
 
+    /** Jsp precompile folder parameter name. */
+    public static final String PARAM_JSP_PRECOMPILE_FOLDER = "jsp.precompile.folder";
+
     /** Jsp repository parameter name. */
     public static final String PARAM_JSP_REPOSITORY = "jsp.repository";
 
@@ -180,6 +194,9 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
     @SuppressWarnings("unchecked")
     private static Map<String, ReentrantReadWriteLock> m_fileLocks = new LRUMap(10000);
 
+    /** The admin context used to precompile the JSPs. */
+    private CmsObject m_adminCms;
+
     /** The CmsFlexCache used to store generated cache entries in. */
     private CmsFlexCache m_cache;
 
@@ -191,10 +208,16 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
     private boolean m_errorPagesAreNotCommitted; // default false should work for Tomcat > 4.1
 
     /** The offline JSPs. */
-    private Map<String, Boolean> m_offlineJsps;
+    private CmsJspFreshnessIndex m_offlineJsps;
 
     /** The online JSPs. */
-    private Map<String, Boolean> m_onlineJsps;
+    private CmsJspFreshnessIndex m_onlineJsps;
+
+    /** The root paths of the folders with the JSPs to precompile. */
+    private List<String> m_precompileFolders = Collections.emptyList();
+
+    /** The thread that precompiles the JSPs. */
+    private Thread m_precompileThread;
 
     /** A map from taglib names to their URIs. */
     private Map<String, String> m_taglibs = Maps.newHashMap();
@@ -211,7 +234,9 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
         OpenCms.addCmsEventListener(this, new int[] {
             EVENT_CLEAR_CACHES,
             EVENT_CLEAR_OFFLINE_CACHES,
-            EVENT_CLEAR_ONLINE_CACHES});
+            EVENT_CLEAR_ONLINE_CACHES,
+            EVENT_FLEX_PURGE_JSP_REPOSITORY,
+            EVENT_PUBLISH_PROJECT});
 
         initCaches(1000);
     }
@@ -245,6 +270,7 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
 
         switch (event.getType()) {
             case EVENT_CLEAR_CACHES:
+            case EVENT_FLEX_PURGE_JSP_REPOSITORY:
                 m_offlineJsps.clear();
                 m_onlineJsps.clear();
                 return;
@@ -254,6 +280,12 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
             case EVENT_CLEAR_ONLINE_CACHES:
                 m_onlineJsps.clear();
                 return;
+            case EVENT_PUBLISH_PROJECT:
+                // write the published JSPs before they are requested
+                if (OpenCms.getRunLevel() == OpenCms.RUNLEVEL_4_SERVLET_ACCESS) {
+                    startPrecompilation();
+                }
+                return;
             default:
                 // do nothing
         }
@@ -427,6 +459,8 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
             initCaches(cacheSize);
         }
 
+        m_precompileFolders = m_configuration.getList(PARAM_JSP_PRECOMPILE_FOLDER, m_precompileFolders);
+
         // output setup information
         if (CmsLog.INIT.isInfoEnabled()) {
             CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_JSP_REPOSITORY_ABS_PATH_1, m_jspRepository));
@@ -442,12 +476,27 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
                     Messages.INIT_JSP_CACHE_SIZE_1,
                     String.valueOf(cacheSize)));
             }
+            if (!m_precompileFolders.isEmpty()) {
+                CmsLog.INIT.info(Messages.get().getBundle().key(
+                    Messages.INIT_JSP_PRECOMPILE_FOLDERS_1,
+                    m_precompileFolders));
+            }
             CmsLog.INIT.info(Messages.get().getBundle().key(
                 Messages.INIT_LOADER_INITIALIZED_1,
                 this.getClass().getName()));
         }
     }
 
+    /**
+     * Initializes this loader with the admin context, which is used to precompile the JSPs.<p>
+     * 
+     * @param adminCms an initialized context with admin permissions
+     */
+    public void initialize(CmsObject adminCms) {
+
+        m_adminCms = adminCms;
+    }
+
     /**
      * @see org.opencms.loader.I_CmsResourceLoader#isStaticExportEnabled()
      */
@@ -582,24 +631,77 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
         return substituted;
     }
 
+    /**
+     * Writes the JSPs below the given folders to the "real" file system, if they are not up to date.<p>
+     * 
+     * The JSPs are written for the project of the given context, so that the first request 
+     * of a JSP does not have to wait for it.<p>
+     * 
+     * @param cms the current OpenCms context
+     * @param folders the root paths of the folders with the JSPs to precompile
+     * 
+     * @return the number of checked JSPs
+     */
+    public int precompileJsps(CmsObject cms, Collection<String> folders) {
+
+        if (m_cache == null) {
+            // the flex requests can not be created without the flex cache
+            return 0;
+        }
+        int count = 0;
+        HttpServletRequest req = createPrecompileRequest();
+        for (String folder : folders) {
+            try {
+                CmsObject rootCms = OpenCms.initCmsObject(cms);
+                rootCms.getRequestContext().setSiteRoot("");
+                Iterator<CmsResource> itResources = rootCms.readResources(
+                    folder,
+                    CmsResourceFilter.DEFAULT_FILES,
+                    true).iterator();
+                while (itResources.hasNext()) {
+                    CmsResource resource = itResources.next();
+                    if (!CmsResourceTypeJsp.isJsp(resource)) {
+                        continue;
+                    }
+                    try {
+                        CmsFlexController controller = new CmsFlexController(
+                            rootCms,
+                            resource,
+                            m_cache,
+                            req,
+                            null,
+                            false,
+                            true);
+                        controller.push(new CmsFlexRequest(req, controller), null);
+                        updateJsp(resource, controller, new HashSet<String>(8));
+                        count++;
+                    } catch (Exception e) {
+                        LOG.warn(Messages.get().getBundle().key(
+                            Messages.LOG_JSP_PRECOMPILE_FAILED_1,
+                            resource.getRootPath()), e);
+                    }
+                }
+            } catch (CmsException e) {
+                LOG.warn(Messages.get().getBundle().key(Messages.LOG_JSP_PRECOMPILE_FAILED_1, folder), e);
+            }
+        }
+        return count;
+    }
+
     /**
      * Removes the given resources from the cache.<p>
      * 
+     * The JSPs that include one of the given resources with a strong link are also removed.<p>
+     * 
      * @param rootPaths the set of root paths to remove
      * @param online if online or offline
      */
     public void removeFromCache(Set<String> rootPaths, boolean online) {
 
-        Map<String, Boolean> cache;
         if (online) {
-            cache = m_onlineJsps;
+            m_onlineJsps.remove(rootPaths);
         } else {
-            cache = m_offlineJsps;
-        }
-        Iterator<String> itRemove = rootPaths.iterator();
-        while (itRemove.hasNext()) {
-            String rootPath = itRemove.next();
-            cache.remove(rootPath);
+            m_offlineJsps.remove(rootPaths);
         }
     }
 
@@ -615,9 +717,21 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
         // important: Indicate that all output must be buffered
         controller.getCurrentResponse().setOnlyBuffering(true);
         // dispatch to external file
-        controller.getCurrentRequest().getRequestDispatcherToExternal(cms.getSitePath(resource), target).include(
-            req,
-            res);
+        try {
+            controller.getCurrentRequest().getRequestDispatcherToExternal(cms.getSitePath(resource), target).include(
+                req,
+                res);
+        } catch (ServletException e) {
+            if (new File(m_jspRepository + target.substring(m_jspWebAppRepository.length())).exists()) {
+                throw e;
+            }
+            // the JSP file has been removed from the real FS, so the freshness index entry is not valid
+            removeFromCache(Collections.singleton(resource.getRootPath()), controller.getCurrentRequest().isOnline());
+            target = updateJsp(resource, controller, new HashSet<String>(8));
+            controller.getCurrentRequest().getRequestDispatcherToExternal(cms.getSitePath(resource), target).include(
+                req,
+                res);
+        }
     }
 
     /**
@@ -632,6 +746,54 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
         }
     }
 
+    /**
+     * Starts to precompile the JSPs below the configured folders in the online project.<p>
+     * 
+     * The JSPs are precompiled in a background thread. Nothing is done if no folders are configured, 
+     * or if the JSPs are already being precompiled.<p>
+     * 
+     * @see #PARAM_JSP_PRECOMPILE_FOLDER
+     * @see #precompileJsps(CmsObject, Collection)
+     */
+    public synchronized void startPrecompilation() {
+
+        if ((m_adminCms == null) || m_precompileFolders.isEmpty()) {
+            return;
+        }
+        if ((m_precompileThread != null) && m_precompileThread.isAlive()) {
+            // the running thread also checks the JSPs that have just been published
+            return;
+        }
+        final CmsObject cms;
+        try {
+            cms = OpenCms.initCmsObject(m_adminCms);
+            cms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        } catch (CmsException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+            return;
+        }
+        m_precompileThread = new Thread("OpenCms: JSP precompilation") {
+
+            /**
+             * @see java.lang.Thread#run()
+             */
+            @Override
+            public void run() {
+
+                long startTime = System.currentTimeMillis();
+                int count = precompileJsps(cms, m_precompileFolders);
+                if (LOG.isInfoEnabled()) {
+                    LOG.info(Messages.get().getBundle().key(
+                        Messages.LOG_JSP_PRECOMPILE_FINISHED_2,
+                        new Integer(count),
+                        new Long(System.currentTimeMillis() - startTime)));
+                }
+            }
+        };
+        m_precompileThread.setDaemon(true);
+        m_precompileThread.start();
+    }
+
     /**
      * Updates a JSP page in the "real" file system in case the VFS resource has changed.<p>
      * 
@@ -681,6 +843,19 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
             return jspTargetName;
         }
 
+        CmsJspFreshnessIndex freshnessIndex = controller.getCurrentRequest().isOnline()
+        ? m_onlineJsps
+        : m_offlineJsps;
+        if (!controller.getCurrentRequest().isDoRecompile()) {
+            CmsJspFreshnessIndex.Entry entry = freshnessIndex.get(resource);
+            if (entry != null) {
+                // the JSP has been written for the current version of the resource, 
+                // and none of the strong links has changed since, so the real FS needs not to be checked
+                controller.updateDates(entry.getFileDate(), CmsResource.DATE_EXPIRED_DEFAULT);
+                return jspTargetName;
+            }
+        }
+
         String jspPath = CmsFileUtil.getRepositoryName(
             m_jspRepository,
             jspVfsName + extension,
@@ -728,17 +903,8 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
                     // recompile is forced with parameter
                     mustUpdate = true;
                 } else {
-                    // check if update is needed
-                    if (controller.getCurrentRequest().isOnline()) {
-                        mustUpdate = !m_onlineJsps.containsKey(jspVfsName);
-                    } else {
-                        mustUpdate = !m_offlineJsps.containsKey(jspVfsName);
-                    }
-                    // check strong links only if update is needed
-                    if (mustUpdate) {
-                        // update strong link dependencies
-                        mustUpdate = updateStrongLinks(resource, controller, updatedFiles);
-                    }
+                    // the JSP is not in the freshness index, so update the strong link dependencies
+                    mustUpdate = updateStrongLinks(resource, controller, updatedFiles);
                 }
             }
             if (mustUpdate) {
@@ -794,11 +960,6 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
                                 fs.write(contents);
                                 fs.close();
                             }
-                            if (controller.getCurrentRequest().isOnline()) {
-                                m_onlineJsps.put(jspVfsName, Boolean.TRUE);
-                            } else {
-                                m_offlineJsps.put(jspVfsName, Boolean.TRUE);
-                            }
                             if (LOG.isInfoEnabled()) {
                                 LOG.info(Messages.get().getBundle().key(
                                     Messages.LOG_UPDATED_JSP_2,
@@ -817,8 +978,12 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
                 }
             }
 
+            // remember that the JSP is up to date
+            long fileDate = jspFile.lastModified();
+            freshnessIndex.put(resource, fileDate, readStrongLinkTargets(controller.getCmsObject(), resource));
+
             // update "last modified" and "expires" date on controller
-            controller.updateDates(jspFile.lastModified(), CmsResource.DATE_EXPIRED_DEFAULT);
+            controller.updateDates(fileDate, CmsResource.DATE_EXPIRED_DEFAULT);
         } finally {
             //m_processingFiles.remove(jspVfsName);
             readWriteLock.readLock().unlock();
@@ -1058,10 +1223,8 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
      */
     protected void initCaches(int cacheSize) {
 
-        Map<String, Boolean> map = CmsCollectionsGenericWrapper.createLRUMap(cacheSize);
-        m_offlineJsps = Collections.synchronizedMap(map);
-        map = CmsCollectionsGenericWrapper.createLRUMap(cacheSize);
-        m_onlineJsps = Collections.synchronizedMap(map);
+        m_offlineJsps = new CmsJspFreshnessIndex(cacheSize);
+        m_onlineJsps = new CmsJspFreshnessIndex(cacheSize);
     }
 
     /**
@@ -1616,6 +1779,47 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
         return numberOfUpdates < updatedFiles.size();
     }
 
+    /**
+     * Creates an empty request that is used to write JSPs outside of a request.<p>
+     * 
+     * @return an empty request
+     */
+    private HttpServletRequest createPrecompileRequest() {
+
+        return (HttpServletRequest)Proxy.newProxyInstance(
+            HttpServletRequest.class.getClassLoader(),
+            new Class<?>[] {HttpServletRequest.class},
+            new InvocationHandler() {
+
+                /**
+                 * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.Object[])
+                 */
+                public Object invoke(Object proxy, Method method, Object[] args) {
+
+                    String name = method.getName();
+                    Class<?> type = method.getReturnType();
+                    if ("equals".equals(name)) {
+                        return Boolean.valueOf(proxy == args[0]);
+                    } else if ("hashCode".equals(name)) {
+                        return new Integer(System.identityHashCode(proxy));
+                    } else if ("toString".equals(name)) {
+                        return CmsJspLoader.class.getName();
+                    } else if (type == Boolean.TYPE) {
+                        return Boolean.FALSE;
+                    } else if (type == Integer.TYPE) {
+                        return new Integer(0);
+                    } else if (type == Long.TYPE) {
+                        return new Long(0);
+                    } else if (type == Map.class) {
+                        return Collections.emptyMap();
+                    } else if (type == Enumeration.class) {
+                        return Collections.enumeration(Collections.emptyList());
+                    }
+                    return null;
+                }
+            });
+    }
+
     /**
      * Returns the read-write-lock for the given jsp vfs name.<p>
      * 
@@ -1632,4 +1836,30 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
             return m_fileLocks.get(jspVfsName);
         }
     }
+
+    /**
+     * Reads the root paths of the resources the given JSP includes with the 'link.strong' macro.<p>
+     * 
+     * @param cms the current OpenCms context
+     * @param resource the JSP resource
+     * 
+     * @return the root paths of the strong link targets
+     */
+    private Set<String> readStrongLinkTargets(CmsObject cms, CmsResource resource) {
+
+        Set<String> result = new HashSet<String>();
+        CmsRelationFilter filter = CmsRelationFilter.TARGETS.filterType(CmsRelationType.JSP_STRONG);
+        try {
+            Iterator<CmsRelation> it = cms.getRelationsForResource(resource, filter).iterator();
+            while (it.hasNext()) {
+                result.add(it.next().getTargetPath());
+            }
+        } catch (CmsException e) {
+            // should never happen
+            if (LOG.isErrorEnabled()) {
+                LOG.error(e.getLocalizedMessage(), e);
+            }
+        }
+        return result;
+    }
 }
@@ -1159,6 +1159,15 @@ public class CmsResourceManager {
             type.initialize(cms);
         }
 
+        // the JSP loader needs an admin context to precompile the JSPs
+        Iterator<I_CmsResourceLoader> itLoaders = m_loaderList.iterator();
+        while (itLoaders.hasNext()) {
+            I_CmsResourceLoader loader = itLoaders.next();
+            if (loader instanceof CmsJspLoader) {
+                ((CmsJspLoader)loader).initialize(cms);
+            }
+        }
+
         if (CmsLog.INIT.isInfoEnabled()) {
             CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_LOADER_CONFIG_FINISHED_0));
         }
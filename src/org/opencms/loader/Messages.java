@@ -46,6 +46,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_CONFLICTING_RESTYPES_IN_MODULE_5 = "ERR_CONFLICTING_RESTYPES_IN_MODULE_5";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_IMAGE_SCALING_FAILED_1 = "ERR_IMAGE_SCALING_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_IMAGE_SCALING_INTERRUPTED_1 = "ERR_IMAGE_SCALING_INTERRUPTED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_INVALID_COLLECTOR_NAME_1 = "ERR_INVALID_COLLECTOR_NAME_1";
 
@@ -157,9 +163,18 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_IMAGE_SCALING_ENABLED_1 = "INIT_IMAGE_SCALING_ENABLED_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_IMAGE_SCALING_THREADS_2 = "INIT_IMAGE_SCALING_THREADS_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_IMAGE_SCALING_VARIANTS_1 = "INIT_IMAGE_SCALING_VARIANTS_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_JSP_CACHE_SIZE_1 = "INIT_JSP_CACHE_SIZE_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_JSP_PRECOMPILE_FOLDERS_1 = "INIT_JSP_PRECOMPILE_FOLDERS_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_JSP_REPOSITORY_ABS_PATH_1 = "INIT_JSP_REPOSITORY_ABS_PATH_1";
 
@@ -187,6 +202,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_STARTING_LOADER_CONFIG_0 = "INIT_STARTING_LOADER_CONFIG_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_STREAMING_THRESHOLD_1 = "INIT_STREAMING_THRESHOLD_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_WEBAPP_PATH_1 = "INIT_WEBAPP_PATH_1";
 
@@ -217,9 +235,21 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_IGNORING_EXC_1 = "LOG_IGNORING_EXC_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_IMAGE_VARIANTS_FAILED_1 = "LOG_IMAGE_VARIANTS_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_IMAGE_VARIANT_FAILED_2 = "LOG_IMAGE_VARIANT_FAILED_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_JSP_PERMCHECK_4 = "LOG_JSP_PERMCHECK_4";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_JSP_PRECOMPILE_FAILED_1 = "LOG_JSP_PRECOMPILE_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_JSP_PRECOMPILE_FINISHED_2 = "LOG_JSP_PRECOMPILE_FINISHED_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_NAME_REAL_FS_1 = "LOG_NAME_REAL_FS_1";
 
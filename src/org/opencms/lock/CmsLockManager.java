@@ -126,11 +126,11 @@ public final class CmsLockManager {
         // handle collisions with exclusive locked sub-resources in case of a folder
         if (resource.isFolder() && newLock.getSystemLock().isUnlocked()) {
             String resourceName = resource.getRootPath();
-            Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+            Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocksBelow(resourceName).iterator();
             while (itLocks.hasNext()) {
                 CmsLock lock = itLocks.next();
                 String lockedPath = lock.getResourceName();
-                if (lockedPath.startsWith(resourceName) && !lockedPath.equals(resourceName)) {
+                if (!lockedPath.equals(resourceName)) {
                     unlockResource(lockedPath, false);
                 }
             }
@@ -147,7 +147,7 @@ public final class CmsLockManager {
     public int countExclusiveLocksInProject(CmsProject project) {
 
         int count = 0;
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocksInProject(project.getUuid()).iterator();
         while (itLocks.hasNext()) {
             CmsLock lock = itLocks.next();
             if (lock.getEditionLock().isInProject(project)) {
@@ -231,7 +231,7 @@ public final class CmsLockManager {
     throws CmsException {
 
         List<CmsResource> lockedResources = new ArrayList<CmsResource>();
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = getCandidateLocks(resource.getRootPath(), filter).iterator();
         while (itLocks.hasNext()) {
             CmsLock lock = itLocks.next();
             CmsResource lockedResource;
@@ -283,7 +283,7 @@ public final class CmsLockManager {
         Map<String, CmsResource> cache) throws CmsException {
 
         List<CmsResource> lockedResources = new ArrayList<CmsResource>();
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = getCandidateLocks(resource.getRootPath(), filter).iterator();
         while (itLocks.hasNext()) {
             CmsLock lock = itLocks.next();
             CmsResource lockedResource;
@@ -358,7 +358,7 @@ public final class CmsLockManager {
     public List<CmsLock> getLocks(CmsDbContext dbc, String resourceName, CmsLockFilter filter) throws CmsException {
 
         List<CmsLock> locks = new ArrayList<CmsLock>();
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = getCandidateLocks(resourceName, filter).iterator();
         while (itLocks.hasNext()) {
             CmsLock lock = itLocks.next();
             if (filter.isSharedExclusive()) {
@@ -404,40 +404,12 @@ public final class CmsLockManager {
         if (resource == null) {
             return false;
         }
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocksBelow(resource.getRootPath()).iterator();
         while (itLocks.hasNext()) {
             CmsLock lock = itLocks.next();
-            if (lock.getSystemLock().isUnlocked()) {
+            if (!lock.getSystemLock().isUnlocked()) {
                 // only system locks matter here
-                continue;
-            }
-            if (lock.getResourceName().startsWith(resource.getRootPath())) {
-                if (lock.getResourceName().startsWith(resource.getRootPath())) {
-                    return true;
-                }
-                try {
-                    resource = m_driverManager.readResource(dbc, lock.getResourceName(), CmsResourceFilter.ALL);
-                } catch (CmsVfsResourceNotFoundException e) {
-                    OpenCms.getMemoryMonitor().uncacheLock(lock.getResourceName());
-                    continue;
-                }
-                CmsResource lockedResource;
-                try {
-                    lockedResource = m_driverManager.readResource(dbc, lock.getResourceName(), CmsResourceFilter.ALL);
-                } catch (CmsVfsResourceNotFoundException e) {
-                    OpenCms.getMemoryMonitor().uncacheLock(lock.getResourceName());
-                    continue;
-                }
-                if (lockedResource.getSiblingCount() > 1) {
-                    Iterator<CmsResource> itSiblings = internalReadSiblings(dbc, lockedResource).iterator();
-                    while (itSiblings.hasNext()) {
-                        CmsResource sibling = itSiblings.next();
-                        CmsLock siblingLock = internalSiblingLock(lock, sibling.getRootPath());
-                        if (siblingLock.getResourceName().startsWith(resource.getRootPath())) {
-                            return true;
-                        }
-                    }
-                }
+                return true;
             }
         }
         return false;
@@ -518,7 +490,7 @@ public final class CmsLockManager {
      */
     public void removeLocks(CmsUUID userId) {
 
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocksOfUser(userId).iterator();
         while (itLocks.hasNext()) {
             CmsLock currentLock = itLocks.next();
             boolean editLock = currentLock.getEditionLock().getUserId().equals(userId);
@@ -577,10 +549,10 @@ public final class CmsLockManager {
             if (resource.isFolder()) {
                 // in case of a folder, remove any exclusive locks on sub-resources that probably have
                 // been upgraded from an inherited lock when the user edited a resource                
-                Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+                Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocksBelow(resourcename).iterator();
                 while (itLocks.hasNext()) {
                     String lockedPath = (itLocks.next()).getResourceName();
-                    if (lockedPath.startsWith(resourcename) && !lockedPath.equals(resourcename)) {
+                    if (!lockedPath.equals(resourcename)) {
                         // remove the exclusive locked sub-resource
                         unlockResource(lockedPath, false);
                     }
@@ -594,13 +566,12 @@ public final class CmsLockManager {
         }
 
         if (lock.getType().isSharedExclusive()) {
-            List<String> locks = OpenCms.getMemoryMonitor().getAllCachedLockPaths();
             // when a resource with a shared lock gets unlocked, fetch all siblings of the resource 
             // to the same content record to identify the exclusive locked sibling
             List<CmsResource> siblings = internalReadSiblings(dbc, resource);
             for (int i = 0; i < siblings.size(); i++) {
                 CmsResource sibling = siblings.get(i);
-                if (locks.contains(sibling.getRootPath())) {
+                if (getDirectLock(sibling.getRootPath()) != null) {
                     // remove the exclusive locked sibling
                     if (removeSystemLock) {
                         unlockResource(sibling.getRootPath(), true);
@@ -627,7 +598,7 @@ public final class CmsLockManager {
      */
     public void removeResourcesInProject(CmsUUID projectId, boolean removeSystemLocks) {
 
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocksInProject(projectId).iterator();
         while (itLocks.hasNext()) {
             CmsLock currentLock = itLocks.next();
             if (removeSystemLocks && currentLock.getSystemLock().getProjectId().equals(projectId)) {
@@ -648,7 +619,7 @@ public final class CmsLockManager {
      */
     public void removeTempLocks(CmsUUID userId) {
 
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocksOfUser(userId).iterator();
         while (itLocks.hasNext()) {
             CmsLock currentLock = itLocks.next();
             if (currentLock.isTemporary() && currentLock.getUserId().equals(userId)) {
@@ -746,6 +717,46 @@ public final class CmsLockManager {
         }
     }
 
+    /**
+     * Returns the cached locks which may match the given filter for the given resource.<p>
+     * 
+     * Unless siblings have to be considered, only the locks of the resource itself,
+     * of its parent folders and of the resources below it can match the filter.<p>
+     * 
+     * @param rootPath the root path of the resource
+     * @param filter the lock filter
+     * 
+     * @return the locks to check against the filter
+     */
+    private List<CmsLock> getCandidateLocks(String rootPath, CmsLockFilter filter) {
+
+        if (filter.isSharedExclusive()) {
+            // the locked siblings may be anywhere
+            return OpenCms.getMemoryMonitor().getAllCachedLocks();
+        }
+        List<CmsLock> locks = new ArrayList<CmsLock>();
+        if (filter.isIncludeChildren()) {
+            locks.addAll(OpenCms.getMemoryMonitor().getAllCachedLocksBelow(rootPath));
+        }
+        if (filter.isIncludeParent()) {
+            if (!filter.isIncludeChildren()) {
+                CmsLock lock = getDirectLock(rootPath);
+                if ((lock != null) && rootPath.endsWith("/")) {
+                    locks.add(lock);
+                }
+            }
+            String parent = CmsResource.getParentFolder(rootPath);
+            while (parent != null) {
+                CmsLock lock = getDirectLock(parent);
+                if (lock != null) {
+                    locks.add(lock);
+                }
+                parent = CmsResource.getParentFolder(parent);
+            }
+        }
+        return locks;
+    }
+
     /**
      * Returns the direct lock of a resource.<p>
      * 
@@ -767,21 +778,11 @@ public final class CmsLockManager {
      */
     private CmsLock getParentFolderLock(String resourceName) {
 
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
-        while (itLocks.hasNext()) {
-            CmsLock lock = itLocks.next();
-            if (lock.getResourceName().endsWith("/")
-                && resourceName.startsWith(lock.getResourceName())
-                && !resourceName.equals(lock.getResourceName())) {
-                // system locks does not get inherited
-                lock = lock.getEditionLock();
-                // check the lock
-                if (!lock.isUnlocked()) {
-                    return lock;
-                }
-            }
+        CmsLock lock = OpenCms.getMemoryMonitor().getCachedParentFolderLock(resourceName);
+        if (lock == null) {
+            return CmsLock.getNullLock();
         }
-        return CmsLock.getNullLock();
+        return lock;
     }
 
     /**
@@ -855,6 +856,10 @@ public final class CmsLockManager {
                 }
             } else if (currentLock.getSystemLock().isUnlocked() && !lock.getSystemLock().isUnlocked()) {
                 currentLock.setRelatedLock(lock);
+                if (locks == null) {
+                    // update the lock table indexes
+                    OpenCms.getMemoryMonitor().cacheLock(currentLock);
+                }
             } else {
                 throw new CmsLockException(Messages.get().container(
                     Messages.ERR_LOCK_ILLEGAL_STATE_2,
@@ -990,10 +995,8 @@ public final class CmsLockManager {
                     CmsLock tmp = lock.getEditionLock();
                     CmsLock sysLock = lock.getSystemLock();
                     sysLock.setRelatedLock(null);
-                    if (!sysLock.equals(lock)) {
-                        // replace the lock entry if needed
-                        OpenCms.getMemoryMonitor().cacheLock(sysLock);
-                    }
+                    // replace the lock entry, this also updates the lock table indexes
+                    OpenCms.getMemoryMonitor().cacheLock(sysLock);
                     return tmp;
                 } else {
                     // if there is no edition lock, only a system lock, do nothing
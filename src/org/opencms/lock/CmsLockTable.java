@@ -0,0 +1,367 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.lock;
+
+import org.opencms.file.CmsResource;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Concurrent store for the locks of the lock manager, indexed by resource root path.<p>
+ *
+ * The locks are kept in a sorted map, so that direct lookups, lookups of the parent folders
+ * (one lookup per path level) and lookups of all locks below a folder (a range of the sorted map)
+ * do not need to iterate over all locks. In addition, the root paths of the locks are indexed
+ * by the user and project ids of both the edition and the system lock.<p>
+ *
+ * Read operations do not block. Write operations are serialized so that the secondary
+ * indexes stay consistent with the primary map. Since the related lock of a stored lock
+ * may be changed without updating this table, lookups by user or project always check the 
+ * current state of the returned locks.<p>
+ *
+ * @since 8.5.2
+ *
+ * @see org.opencms.lock.CmsLockManager
+ */
+public final class CmsLockTable {
+
+    /** The user and project ids under which the root paths are currently indexed. */
+    private Map<String, CmsUUID[]> m_indexKeys;
+
+    /** The locks, by root path. */
+    private ConcurrentSkipListMap<String, CmsLock> m_locks;
+
+    /** The root paths of the locks, by project id. */
+    private ConcurrentMap<CmsUUID, Set<String>> m_pathsByProject;
+
+    /** The root paths of the locks, by user id. */
+    private ConcurrentMap<CmsUUID, Set<String>> m_pathsByUser;
+
+    /**
+     * Creates a new, empty lock table.<p>
+     */
+    public CmsLockTable() {
+
+        m_indexKeys = new HashMap<String, CmsUUID[]>();
+        m_locks = new ConcurrentSkipListMap<String, CmsLock>();
+        m_pathsByProject = new ConcurrentHashMap<CmsUUID, Set<String>>();
+        m_pathsByUser = new ConcurrentHashMap<CmsUUID, Set<String>>();
+    }
+
+    /**
+     * Creates a new lock table containing all locks of the given map.<p>
+     *
+     * @param locks the locks to add, by root path
+     */
+    public CmsLockTable(Map<String, CmsLock> locks) {
+
+        this();
+        Iterator<CmsLock> itLocks = locks.values().iterator();
+        while (itLocks.hasNext()) {
+            put(itLocks.next());
+        }
+    }
+
+    /**
+     * Returns a read only view of the locks, by root path.<p>
+     *
+     * This is used for memory monitoring.<p>
+     *
+     * @return a read only view of the locks
+     */
+    public Map<String, CmsLock> asMap() {
+
+        return Collections.unmodifiableMap(m_locks);
+    }
+
+    /**
+     * Removes all locks from this table.<p>
+     */
+    public synchronized void clear() {
+
+        m_locks.clear();
+        m_indexKeys.clear();
+        m_pathsByProject.clear();
+        m_pathsByUser.clear();
+    }
+
+    /**
+     * Returns the lock for the given root path.<p>
+     *
+     * @param rootPath the root path of the locked resource
+     *
+     * @return the lock, or <code>null</code> if the resource is not directly locked
+     */
+    public CmsLock get(String rootPath) {
+
+        return m_locks.get(rootPath);
+    }
+
+    /**
+     * Returns a list of all locks in this table.<p>
+     *
+     * @return a list of all locks, ordered by root path
+     */
+    public List<CmsLock> getAll() {
+
+        return new ArrayList<CmsLock>(m_locks.values());
+    }
+
+    /**
+     * Returns a list of the root paths of all locks in this table.<p>
+     *
+     * @return a list of root paths, in ascending order
+     */
+    public List<String> getAllPaths() {
+
+        return new ArrayList<String>(m_locks.keySet());
+    }
+
+    /**
+     * Returns the locks of the given resource and all resources below it.<p>
+     *
+     * The locks are selected by prefix, just like with <code>lockPath.startsWith(rootPath)</code>.<p>
+     *
+     * @param rootPath the root path of the resource
+     *
+     * @return the matching locks, ordered by root path
+     */
+    public List<CmsLock> getAllBelow(String rootPath) {
+
+        return new ArrayList<CmsLock>(m_locks.subMap(rootPath, true, rootPath + Character.MAX_VALUE, false).values());
+    }
+
+    /**
+     * Returns the locks whose edition or system lock is owned by the given project.<p>
+     *
+     * @param projectId the project id
+     *
+     * @return the matching locks
+     */
+    public List<CmsLock> getAllInProject(CmsUUID projectId) {
+
+        List<CmsLock> result = new ArrayList<CmsLock>();
+        Set<String> paths = m_pathsByProject.get(projectId);
+        if (paths == null) {
+            return result;
+        }
+        Iterator<String> itPaths = paths.iterator();
+        while (itPaths.hasNext()) {
+            CmsLock lock = m_locks.get(itPaths.next());
+            if ((lock != null)
+                && (lock.getEditionLock().getProjectId().equals(projectId) || lock.getSystemLock().getProjectId().equals(
+                    projectId))) {
+                result.add(lock);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the locks whose edition or system lock is owned by the given user.<p>
+     *
+     * @param userId the user id
+     *
+     * @return the matching locks
+     */
+    public List<CmsLock> getAllOfUser(CmsUUID userId) {
+
+        List<CmsLock> result = new ArrayList<CmsLock>();
+        Set<String> paths = m_pathsByUser.get(userId);
+        if (paths == null) {
+            return result;
+        }
+        Iterator<String> itPaths = paths.iterator();
+        while (itPaths.hasNext()) {
+            CmsLock lock = m_locks.get(itPaths.next());
+            if ((lock != null)
+                && (lock.getEditionLock().getUserId().equals(userId) || lock.getSystemLock().getUserId().equals(userId))) {
+                result.add(lock);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the nearest lock of a parent folder of the given resource whose edition lock is set.<p>
+     *
+     * System locks are not inherited, so parent folders with only a system lock are skipped.
+     * This needs one lookup per parent folder level of the given path.<p>
+     *
+     * @param rootPath the root path of the resource
+     *
+     * @return the edition lock of the parent folder, or <code>null</code> if no parent folder is locked
+     */
+    public CmsLock getParentFolderLock(String rootPath) {
+
+        String parent = CmsResource.getParentFolder(rootPath);
+        while (parent != null) {
+            CmsLock lock = m_locks.get(parent);
+            if (lock != null) {
+                // system locks does not get inherited
+                lock = lock.getEditionLock();
+                if (!lock.isUnlocked()) {
+                    return lock;
+                }
+            }
+            parent = CmsResource.getParentFolder(parent);
+        }
+        return null;
+    }
+
+    /**
+     * Adds the given lock to this table, replacing any previous lock for the same root path.<p>
+     *
+     * This also has to be called if the related lock of an already stored lock was changed,
+     * in order to update the user and project indexes.<p>
+     *
+     * @param lock the lock to add
+     */
+    public synchronized void put(CmsLock lock) {
+
+        m_locks.put(lock.getResourceName(), lock);
+        unindex(lock.getResourceName());
+        index(lock);
+    }
+
+    /**
+     * Removes the lock for the given root path.<p>
+     *
+     * @param rootPath the root path of the locked resource
+     *
+     * @return the removed lock, or <code>null</code> if there was no lock for the root path
+     */
+    public synchronized CmsLock remove(String rootPath) {
+
+        CmsLock oldLock = m_locks.remove(rootPath);
+        if (oldLock != null) {
+            unindex(rootPath);
+        }
+        return oldLock;
+    }
+
+    /**
+     * Returns the number of locks in this table.<p>
+     *
+     * @return the number of locks
+     */
+    public int size() {
+
+        return m_locks.size();
+    }
+
+    /**
+     * Adds the given root path to the index set for the given key.<p>
+     *
+     * @param index the index
+     * @param key the key
+     * @param rootPath the root path to add
+     */
+    private void addToIndex(ConcurrentMap<CmsUUID, Set<String>> index, CmsUUID key, String rootPath) {
+
+        if (key == null) {
+            return;
+        }
+        Set<String> paths = index.get(key);
+        if (paths == null) {
+            paths = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+            index.put(key, paths);
+        }
+        paths.add(rootPath);
+    }
+
+    /**
+     * Adds the given lock to the user and project indexes.<p>
+     *
+     * @param lock the lock
+     */
+    private void index(CmsLock lock) {
+
+        String rootPath = lock.getResourceName();
+        CmsLock editionLock = lock.getEditionLock();
+        CmsLock systemLock = lock.getSystemLock();
+        CmsUUID[] keys = new CmsUUID[] {
+            editionLock.getUserId(),
+            systemLock.getUserId(),
+            editionLock.getProjectId(),
+            systemLock.getProjectId()};
+        addToIndex(m_pathsByUser, keys[0], rootPath);
+        addToIndex(m_pathsByUser, keys[1], rootPath);
+        addToIndex(m_pathsByProject, keys[2], rootPath);
+        addToIndex(m_pathsByProject, keys[3], rootPath);
+        m_indexKeys.put(rootPath, keys);
+    }
+
+    /**
+     * Removes the given root path from the index set for the given key.<p>
+     *
+     * @param index the index
+     * @param key the key
+     * @param rootPath the root path to remove
+     */
+    private void removeFromIndex(ConcurrentMap<CmsUUID, Set<String>> index, CmsUUID key, String rootPath) {
+
+        if (key == null) {
+            return;
+        }
+        Set<String> paths = index.get(key);
+        if (paths != null) {
+            paths.remove(rootPath);
+            if (paths.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Removes the given root path from the user and project indexes.<p>
+     *
+     * @param rootPath the root path
+     */
+    private void unindex(String rootPath) {
+
+        CmsUUID[] keys = m_indexKeys.remove(rootPath);
+        if (keys == null) {
+            return;
+        }
+        removeFromIndex(m_pathsByUser, keys[0], rootPath);
+        removeFromIndex(m_pathsByUser, keys[1], rootPath);
+        removeFromIndex(m_pathsByProject, keys[2], rootPath);
+        removeFromIndex(m_pathsByProject, keys[3], rootPath);
+    }
+}
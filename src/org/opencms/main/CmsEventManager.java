@@ -27,11 +27,26 @@
 
 package org.opencms.main;
 
+import org.opencms.util.CmsUUID;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import org.apache.commons.logging.Log;
 
@@ -44,6 +59,15 @@ import org.apache.commons.logging.Log;
  * Events can be used in OpenCms to notify custom event listeners that certain system events have happened.
  * Event listeners have to implement the interface {@link org.opencms.main.I_CmsEventListener}.<p>
  * 
+ * Listeners that implement {@link org.opencms.main.I_CmsAsyncEventListener} receive their events 
+ * asynchronously in a separate thread, all other listeners are called in the thread that fires the event.<p>
+ * 
+ * If an {@link org.opencms.main.I_CmsEventChannel} is configured, the events of the types selected 
+ * by the channel are also sent to the other nodes of a cluster, and the events received from the other 
+ * nodes are fired locally. Received events contain the id of the sending node in the event data 
+ * with the key {@link I_CmsEventListener#KEY_REMOTE_NODE}, and only the serializable event data 
+ * is transported, so e.g. the database context and the report are not available.<p>
+ * 
  * @since 7.0.0
  * 
  * @see org.opencms.main.CmsEvent
@@ -54,12 +78,33 @@ public class CmsEventManager {
     /** Required as template for event list generation. */
     protected static final I_CmsEventListener[] EVENT_LIST = new I_CmsEventListener[0];
 
+    /** The keys of the event data that are never sent to other cluster nodes. */
+    private static final String[] LOCAL_DATA_KEYS = new String[] {
+        I_CmsEventListener.KEY_DBCONTEXT,
+        I_CmsEventListener.KEY_PUBLISHLIST,
+        I_CmsEventListener.KEY_REPORT};
+
     /** The static log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsEventManager.class);
 
+    /** The executor for delivering events to asynchronous event listeners. */
+    private ExecutorService m_asyncExecutor;
+
+    /** The types of the events that are sent to the other cluster nodes. */
+    private Set<Integer> m_distributedEventTypes;
+
+    /** The channel to the other cluster nodes, or <code>null</code> if not clustered. */
+    private I_CmsEventChannel m_eventChannel;
+
     /** Stores the active event listeners. */
     private Map<Integer, List<I_CmsEventListener>> m_eventListeners;
 
+    /** The id of this cluster node. */
+    private String m_nodeId;
+
+    /** The timer that checks the event channel for events of other cluster nodes. */
+    private Timer m_receiver;
+
     /**
      * Create a new instance of an OpenCms event manager.<p>
      */
@@ -116,6 +161,12 @@ public class CmsEventManager {
 
         fireEventHandler(m_eventListeners.get(event.getTypeInteger()), event);
         fireEventHandler(m_eventListeners.get(I_CmsEventListener.LISTENERS_FOR_ALL_EVENTS), event);
+        if ((m_eventChannel != null)
+            && m_distributedEventTypes.contains(event.getTypeInteger())
+            && ((event.getData() == null) || !event.getData().containsKey(I_CmsEventListener.KEY_REMOTE_NODE))) {
+            // this is a local event that must be sent to the other cluster nodes
+            sendEvent(event);
+        }
     }
 
     /**
@@ -139,6 +190,26 @@ public class CmsEventManager {
         fireEvent(new CmsEvent(type, data));
     }
 
+    /**
+     * Returns the channel to the other cluster nodes.<p>
+     * 
+     * @return the channel to the other cluster nodes, or <code>null</code> if no channel is configured
+     */
+    public I_CmsEventChannel getEventChannel() {
+
+        return m_eventChannel;
+    }
+
+    /**
+     * Returns the id of this cluster node.<p>
+     * 
+     * @return the id of this cluster node, or <code>null</code> if no event channel is configured
+     */
+    public String getNodeId() {
+
+        return m_nodeId;
+    }
+
     /**
      * Removes a cms event listener.<p>
      *
@@ -155,6 +226,119 @@ public class CmsEventManager {
         }
     }
 
+    /**
+     * Sets the channel to the other cluster nodes and starts checking it for events.<p>
+     * 
+     * @param eventChannel the channel to the other cluster nodes
+     */
+    public synchronized void setEventChannel(I_CmsEventChannel eventChannel) {
+
+        String nodeId = new CmsUUID().toString();
+        try {
+            eventChannel.initialize(nodeId);
+        } catch (IOException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+            return;
+        }
+        Set<Integer> eventTypes = new HashSet<Integer>();
+        int[] types = eventChannel.getEventTypes();
+        for (int i = 0; i < types.length; i++) {
+            eventTypes.add(new Integer(types[i]));
+        }
+        m_distributedEventTypes = eventTypes;
+        m_nodeId = nodeId;
+        m_eventChannel = eventChannel;
+        if (CmsLog.INIT.isInfoEnabled()) {
+            CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_EVENT_CHANNEL_2, eventChannel, nodeId));
+        }
+
+        m_receiver = new Timer("OpenCms: Event channel receiver", true);
+        m_receiver.schedule(new TimerTask() {
+
+            @Override
+            public void run() {
+
+                // wait until the system is fully initialized, the events are kept in the channel until then
+                if (OpenCms.getRunLevel() >= OpenCms.RUNLEVEL_3_SHELL_ACCESS) {
+                    receiveEvents();
+                }
+            }
+        }, eventChannel.getPollInterval(), eventChannel.getPollInterval());
+    }
+
+    /**
+     * Stops the delivery of asynchronous events and closes the channel to the other cluster nodes.<p>
+     */
+    public synchronized void shutDown() {
+
+        if (m_receiver != null) {
+            m_receiver.cancel();
+            m_receiver = null;
+        }
+        if (m_eventChannel != null) {
+            m_eventChannel.shutDown();
+            m_eventChannel = null;
+        }
+        if (m_asyncExecutor != null) {
+            m_asyncExecutor.shutdown();
+            m_asyncExecutor = null;
+        }
+    }
+
+    /**
+     * Creates an event from a message received from another cluster node.<p>
+     * 
+     * @param message the message
+     * 
+     * @return the event, with the id of the sending node stored in the event data 
+     * 
+     * @throws IOException if the message can not be read
+     * @throws ClassNotFoundException if the message contains data of an unknown class
+     */
+    @SuppressWarnings("unchecked")
+    protected CmsEvent deserializeEvent(byte[] message) throws IOException, ClassNotFoundException {
+
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(message));
+        try {
+            String nodeId = in.readUTF();
+            int type = in.readInt();
+            Map<String, Object> data = (Map<String, Object>)in.readObject();
+            data.put(I_CmsEventListener.KEY_REMOTE_NODE, nodeId);
+            return new CmsEvent(type, data);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Delivers an event to a single event listener.<p>
+     * 
+     * Asynchronous event listeners are called in a separate thread.<p>
+     * 
+     * @param listener the listener
+     * @param event the event
+     */
+    protected void fireEventListener(final I_CmsEventListener listener, final CmsEvent event) {
+
+        if (listener instanceof I_CmsAsyncEventListener) {
+            getAsyncExecutor().execute(new Runnable() {
+
+                public void run() {
+
+                    try {
+                        listener.cmsEvent(event);
+                    } catch (Throwable t) {
+                        LOG.error(
+                            Messages.get().getBundle().key(Messages.LOG_ASYNC_EVENT_LISTENER_FAILED_2, listener, event),
+                            t);
+                    }
+                }
+            });
+        } else {
+            listener.cmsEvent(event);
+        }
+    }
+
     /**
      * Returns the map of all configured event listeners.<p>
      * 
@@ -175,6 +359,92 @@ public class CmsEventManager {
         m_eventListeners = new HashMap<Integer, List<I_CmsEventListener>>(base.getEventListeners());
     }
 
+    /**
+     * Checks the channel to the other cluster nodes for new events, and fires the received events locally.<p>
+     */
+    protected void receiveEvents() {
+
+        I_CmsEventChannel channel = m_eventChannel;
+        if (channel == null) {
+            return;
+        }
+        List<byte[]> messages;
+        try {
+            messages = channel.receive();
+        } catch (IOException e) {
+            LOG.error(Messages.get().getBundle().key(Messages.LOG_EVENT_CHANNEL_RECEIVE_FAILED_0), e);
+            return;
+        }
+        Iterator<byte[]> itMessages = messages.iterator();
+        while (itMessages.hasNext()) {
+            CmsEvent event;
+            try {
+                event = deserializeEvent(itMessages.next());
+            } catch (Exception e) {
+                LOG.error(Messages.get().getBundle().key(Messages.LOG_EVENT_CHANNEL_READ_FAILED_0), e);
+                continue;
+            }
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(Messages.get().getBundle().key(
+                    Messages.LOG_DEBUG_EVENT_REMOTE_2,
+                    event.toString(),
+                    event.getData().get(I_CmsEventListener.KEY_REMOTE_NODE)));
+            }
+            try {
+                fireEvent(event);
+            } catch (Throwable t) {
+                // make sure the following events are still fired
+                LOG.error(t.getLocalizedMessage(), t);
+            }
+        }
+    }
+
+    /**
+     * Sends an event to the other cluster nodes.<p>
+     * 
+     * @param event the event to send
+     */
+    protected void sendEvent(CmsEvent event) {
+
+        try {
+            m_eventChannel.send(serializeEvent(event));
+        } catch (IOException e) {
+            LOG.error(Messages.get().getBundle().key(Messages.LOG_EVENT_CHANNEL_SEND_FAILED_1, event.toString()), e);
+        }
+    }
+
+    /**
+     * Creates the message for sending an event to the other cluster nodes.<p>
+     * 
+     * Only the serializable event data is included, without the data that is only valid on this node.<p>
+     * 
+     * @param event the event
+     * 
+     * @return the message
+     * 
+     * @throws IOException if the event can not be serialized
+     */
+    protected byte[] serializeEvent(CmsEvent event) throws IOException {
+
+        HashMap<String, Object> data = new HashMap<String, Object>();
+        if (event.getData() != null) {
+            Iterator<Map.Entry<String, Object>> itEntries = event.getData().entrySet().iterator();
+            while (itEntries.hasNext()) {
+                Map.Entry<String, Object> entry = itEntries.next();
+                if ((entry.getValue() instanceof Serializable) && !isLocalDataKey(entry.getKey())) {
+                    data.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeUTF(m_nodeId);
+        out.writeInt(event.getType());
+        out.writeObject(data);
+        out.close();
+        return bytes.toByteArray();
+    }
+
     /**
      * Fires the specified event to a list of event listeners.<p>
      * 
@@ -191,7 +461,7 @@ public class CmsEventManager {
                 // loop through all registered event listeners
                 for (int i = 0; i < list.length; i++) {
                     // fire the event
-                    list[i].cmsEvent(event);
+                    fireEventListener(list[i], event);
                 }
             }
         } else {
@@ -232,7 +502,7 @@ public class CmsEventManager {
                         new Integer(i),
                         event.toString()));
                     // fire the event
-                    list[i].cmsEvent(event);
+                    fireEventListener(list[i], event);
                     LOG.debug(Messages.get().getBundle().key(
                         Messages.LOG_DEBUG_EVENT_END_LISTENER_3,
                         list[i],
@@ -245,4 +515,44 @@ public class CmsEventManager {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_DEBUG_EVENT_COMPLETE_1, event.toString()));
         }
     }
+
+    /**
+     * Returns the executor for delivering events to asynchronous event listeners.<p>
+     * 
+     * A single thread is used, so that the events are delivered in the order they have been fired.<p>
+     * 
+     * @return the executor for delivering events to asynchronous event listeners
+     */
+    private synchronized ExecutorService getAsyncExecutor() {
+
+        if (m_asyncExecutor == null) {
+            m_asyncExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+                public Thread newThread(Runnable r) {
+
+                    Thread thread = new Thread(r, "OpenCms: Asynchronous event dispatcher");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return m_asyncExecutor;
+    }
+
+    /**
+     * Checks if the given event data key is only valid on this node.<p>
+     * 
+     * @param key the event data key
+     * 
+     * @return <code>true</code> if the data for the given key must not be sent to other nodes
+     */
+    private boolean isLocalDataKey(String key) {
+
+        for (int i = 0; i < LOCAL_DATA_KEYS.length; i++) {
+            if (LOCAL_DATA_KEYS[i].equals(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
\ No newline at end of file
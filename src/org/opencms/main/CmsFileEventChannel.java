@@ -0,0 +1,359 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.main;
+
+import org.opencms.configuration.CmsConfigurationException;
+import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.util.CmsFileUtil;
+import org.opencms.util.CmsStringUtil;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Event channel that exchanges the events of the cluster nodes using files in a shared directory.<p>
+ * 
+ * Each event is written to a separate file, which is read by the other nodes that check the directory.
+ * Event files that are older than the configured maximum age are deleted by any node, regardless of the node 
+ * that has written them, so that the files of removed or crashed nodes do not pile up.
+ * Events that already exist when a node starts are ignored by this node.
+ * The directory can be a network share, or a local directory if all OpenCms instances run on the same machine.<p>
+ * 
+ * The following parameters are supported:
+ * <ul>
+ * <li><code>{@link #PARAM_DIRECTORY}</code>: the directory, relative paths are resolved against the <code>WEB-INF</code> folder</li>
+ * <li><code>{@link #PARAM_EVENT_TYPES}</code>: a comma separated list of the event types to send</li>
+ * <li><code>{@link #PARAM_MAX_AGE}</code>: the time in milliseconds after which the event files are deleted</li>
+ * <li><code>{@link #PARAM_POLL_INTERVAL}</code>: the interval in milliseconds for checking for new events</li>
+ * </ul><p>
+ * 
+ * @since 8.5.2 
+ */
+public class CmsFileEventChannel implements I_CmsEventChannel {
+
+    /** The default directory for the event files. */
+    public static final String DEFAULT_DIRECTORY = "cluster-events";
+
+    /** The types of the events that are sent by default. */
+    public static final int[] DEFAULT_EVENT_TYPES = new int[] {
+        I_CmsEventListener.EVENT_PUBLISH_PROJECT,
+        I_CmsEventListener.EVENT_CLEAR_CACHES,
+        I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES,
+        I_CmsEventListener.EVENT_CLEAR_OFFLINE_CACHES,
+        I_CmsEventListener.EVENT_FLEX_CACHE_CLEAR,
+        I_CmsEventListener.EVENT_FLEX_PURGE_JSP_REPOSITORY,
+        I_CmsEventListener.EVENT_PROPERTY_MODIFIED,
+        I_CmsEventListener.EVENT_RESOURCE_MODIFIED};
+
+    /** The default maximum age of the event files in milliseconds. */
+    public static final long DEFAULT_MAX_AGE = 600000;
+
+    /** The default poll interval in milliseconds. */
+    public static final long DEFAULT_POLL_INTERVAL = 2000;
+
+    /** The file name suffix for event files. */
+    public static final String EVENT_FILE_SUFFIX = ".event";
+
+    /** Parameter name for the directory. */
+    public static final String PARAM_DIRECTORY = "directory";
+
+    /** Parameter name for the event types. */
+    public static final String PARAM_EVENT_TYPES = "eventtypes";
+
+    /** Parameter name for the maximum age of the event files. */
+    public static final String PARAM_MAX_AGE = "maxage";
+
+    /** Parameter name for the poll interval. */
+    public static final String PARAM_POLL_INTERVAL = "pollinterval";
+
+    /** The file name suffix for event files which are still written. */
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsFileEventChannel.class);
+
+    /** The configuration parameters. */
+    private CmsParameterConfiguration m_configuration;
+
+    /** The event directory. */
+    private File m_directory;
+
+    /** The types of the events to send. */
+    private int[] m_eventTypes;
+
+    /** The maximum age of the event files in milliseconds. */
+    private long m_maxAge;
+
+    /** The id of the local cluster node. */
+    private String m_nodeId;
+
+    /** The poll interval in milliseconds. */
+    private long m_pollInterval;
+
+    /** The names of the event files that have already been received. */
+    private Set<String> m_received;
+
+    /** Counter for the events sent by this node. */
+    private long m_sequence;
+
+    /**
+     * Creates a new file event channel.<p>
+     */
+    public CmsFileEventChannel() {
+
+        m_configuration = new CmsParameterConfiguration();
+        m_eventTypes = DEFAULT_EVENT_TYPES;
+        m_maxAge = DEFAULT_MAX_AGE;
+        m_pollInterval = DEFAULT_POLL_INTERVAL;
+        m_received = new HashSet<String>();
+    }
+
+    /**
+     * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#addConfigurationParameter(java.lang.String, java.lang.String)
+     */
+    public void addConfigurationParameter(String paramName, String paramValue) {
+
+        m_configuration.add(paramName, paramValue);
+    }
+
+    /**
+     * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#getConfiguration()
+     */
+    public CmsParameterConfiguration getConfiguration() {
+
+        return m_configuration;
+    }
+
+    /**
+     * Returns the event directory.<p>
+     * 
+     * @return the event directory, or <code>null</code> if the channel is not initialized
+     */
+    public File getDirectory() {
+
+        return m_directory;
+    }
+
+    /**
+     * @see org.opencms.main.I_CmsEventChannel#getEventTypes()
+     */
+    public int[] getEventTypes() {
+
+        return m_eventTypes;
+    }
+
+    /**
+     * @see org.opencms.main.I_CmsEventChannel#getPollInterval()
+     */
+    public long getPollInterval() {
+
+        return m_pollInterval;
+    }
+
+    /**
+     * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#initConfiguration()
+     */
+    public void initConfiguration() throws CmsConfigurationException {
+
+        m_pollInterval = Math.max(100, m_configuration.getInteger(PARAM_POLL_INTERVAL, (int)DEFAULT_POLL_INTERVAL));
+        m_maxAge = Math.max(m_pollInterval * 10, m_configuration.getInteger(PARAM_MAX_AGE, (int)DEFAULT_MAX_AGE));
+        String eventTypes = m_configuration.getString(PARAM_EVENT_TYPES, null);
+        if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(eventTypes)) {
+            List<String> types = CmsStringUtil.splitAsList(eventTypes, ',', true);
+            m_eventTypes = new int[types.size()];
+            for (int i = 0; i < m_eventTypes.length; i++) {
+                try {
+                    m_eventTypes[i] = Integer.parseInt(types.get(i));
+                } catch (NumberFormatException e) {
+                    throw new CmsConfigurationException(Messages.get().container(
+                        Messages.ERR_EVENT_CHANNEL_EVENT_TYPE_1,
+                        types.get(i)), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * @see org.opencms.main.I_CmsEventChannel#initialize(java.lang.String)
+     */
+    public void initialize(String nodeId) throws IOException {
+
+        String path = m_configuration.getString(PARAM_DIRECTORY, DEFAULT_DIRECTORY);
+        File directory = new File(path);
+        if (!directory.isAbsolute()) {
+            directory = new File(OpenCms.getSystemInfo().getAbsoluteRfsPathRelativeToWebInf(path));
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException(Messages.get().getBundle().key(
+                Messages.ERR_EVENT_CHANNEL_DIRECTORY_1,
+                directory.getAbsolutePath()));
+        }
+        m_directory = directory;
+        m_nodeId = nodeId;
+        // events sent before this node has been started are ignored
+        String[] names = directory.list();
+        if (names != null) {
+            synchronized (this) {
+                for (int i = 0; i < names.length; i++) {
+                    if (names[i].endsWith(EVENT_FILE_SUFFIX)) {
+                        m_received.add(names[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @see org.opencms.main.I_CmsEventChannel#receive()
+     */
+    public synchronized List<byte[]> receive() throws IOException {
+
+        List<byte[]> result = new ArrayList<byte[]>();
+        String[] names = m_directory.list();
+        if (names == null) {
+            return result;
+        }
+        // the file names start with the time stamp, so the events of a node are read in the order they have been sent
+        Arrays.sort(names);
+        long now = System.currentTimeMillis();
+        Set<String> existing = new HashSet<String>();
+        for (int i = 0; i < names.length; i++) {
+            String name = names[i];
+            File file = new File(m_directory, name);
+            if (name.endsWith(TEMP_FILE_SUFFIX)) {
+                // temporary files are only left over if a node failed while writing an event
+                if ((now - file.lastModified()) > m_maxAge) {
+                    file.delete();
+                }
+                continue;
+            }
+            if (!name.endsWith(EVENT_FILE_SUFFIX)) {
+                continue;
+            }
+            if ((now - getTime(name)) > m_maxAge) {
+                // the node that has sent the event may no longer exist, so every node removes outdated events
+                file.delete();
+                continue;
+            }
+            existing.add(name);
+            if (m_received.contains(name) || (name.indexOf("_" + m_nodeId + "_") > 0)) {
+                // the event has already been received or has been sent by this node
+                continue;
+            }
+            try {
+                result.add(CmsFileUtil.readFile(file));
+            } catch (IOException e) {
+                // the file may have been deleted in the meantime
+                LOG.warn(e.getLocalizedMessage(), e);
+            }
+            m_received.add(name);
+        }
+        // forget about the files that have been deleted
+        m_received.retainAll(existing);
+        return result;
+    }
+
+    /**
+     * @see org.opencms.main.I_CmsEventChannel#send(byte[])
+     */
+    public void send(byte[] message) throws IOException {
+
+        String name;
+        synchronized (this) {
+            m_sequence++;
+            name = System.currentTimeMillis()
+                + "_"
+                + m_nodeId
+                + "_"
+                + m_sequence
+                + EVENT_FILE_SUFFIX;
+        }
+        // write to a temporary file first, so that the other nodes never read an incomplete file 
+        File temp = new File(m_directory, name + TEMP_FILE_SUFFIX);
+        OutputStream out = new FileOutputStream(temp);
+        try {
+            out.write(message);
+        } finally {
+            out.close();
+        }
+        if (!temp.renameTo(new File(m_directory, name))) {
+            temp.delete();
+            throw new IOException(Messages.get().getBundle().key(
+                Messages.ERR_EVENT_CHANNEL_DIRECTORY_1,
+                m_directory.getAbsolutePath()));
+        }
+    }
+
+    /**
+     * @see org.opencms.main.I_CmsEventChannel#shutDown()
+     */
+    public void shutDown() {
+
+        synchronized (this) {
+            m_received.clear();
+        }
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        return getClass().getName() + " [" + (m_directory != null ? m_directory.getAbsolutePath() : "") + "]";
+    }
+
+    /**
+     * Returns the time stamp from the name of an event file.<p>
+     * 
+     * @param name the name of the event file
+     * 
+     * @return the time stamp, or 0 if the name is not valid
+     */
+    private long getTime(String name) {
+
+        int pos = name.indexOf('_');
+        if (pos > 0) {
+            try {
+                return Long.parseLong(name.substring(0, pos));
+            } catch (NumberFormatException e) {
+                // ignore invalid file names
+            }
+        }
+        return 0;
+    }
+}
@@ -32,6 +32,7 @@
 package org.opencms.main;
 
 import org.opencms.db.CmsDbException;
+import org.opencms.db.CmsDbPoolStatistics;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -55,6 +56,12 @@ public final class CmsReqStatistics {
     /** Time to init the cmsobject. */
     private long m_cmsInitTime;
 
+    /** Number of database connections taken during the request. */
+    private int m_connections;
+
+    /** Time spent waiting for database connections. */
+    private long m_connectionWait;
+
     /** The endtime of the statistics object. */
     private long m_endtime;
 
@@ -86,6 +93,22 @@ public final class CmsReqStatistics {
         m_initCmsObjectTime = new HashMap<String, Long>();
     }
 
+    /**
+     * Adds the time needed to get a database connection to the statistics of the current request.<p>
+     * 
+     * @param time the time needed to get the connection in milliseconds
+     */
+    public static void addConnectionWait(long time) {
+
+        if (LOG.isDebugEnabled()) {
+            CmsReqStatistics stats = PER_THREAD_STATISTICS.get();
+            if (stats != null) {
+                stats.m_connections++;
+                stats.m_connectionWait += time;
+            }
+        }
+    }
+
     /**
      * Sets the endtime of a CmsObject init step.<p>
      * @param name name of the handler
@@ -259,6 +282,15 @@ public final class CmsReqStatistics {
         tmp = "00000000" + OpenCms.getSqlManager().getIdleConnections(poolname);
         tmp = tmp.substring(tmp.length() - 5);
         buf.append(tmp);
+        CmsDbPoolStatistics statistics = OpenCms.getSqlManager().getConnectionStatistics(poolname);
+        buf.append("] WAIT[");
+        buf.append(Math.round(statistics.getAverageTime() * 100) / 100.0);
+        buf.append("/");
+        buf.append(statistics.getMaxTime());
+        buf.append("] TIMEOUTS[");
+        buf.append(statistics.getTimeouts());
+        buf.append("] LEAKS[");
+        buf.append(statistics.getLeaks());
         buf.append("] POOL[");
         buf.append(poolname);
         buf.append("]");
@@ -291,6 +323,14 @@ public final class CmsReqStatistics {
         tmp = "00000000" + m_loadResourceTime;
         tmp = tmp.substring(tmp.length() - 8);
         buf.append(tmp);
+        buf.append("] CONN[");
+        tmp = "0000" + m_connections;
+        tmp = tmp.substring(tmp.length() - 4);
+        buf.append(tmp);
+        buf.append("] CW[");
+        tmp = "00000000" + m_connectionWait;
+        tmp = tmp.substring(tmp.length() - 8);
+        buf.append(tmp);
         buf.append("] URI='");
         buf.append(m_uri);
         buf.append("'");
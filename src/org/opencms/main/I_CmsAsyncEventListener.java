@@ -0,0 +1,48 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.main;
+
+/**
+ * Marker interface for event listeners that want to receive their events asynchronously.<p>
+ * 
+ * The event manager delivers events to listeners implementing this interface 
+ * in a separate thread, so the thread that fires the event (e.g. the publish thread)
+ * does not have to wait until the listener is finished. The events are delivered 
+ * in the order they have been fired.<p>
+ * 
+ * Listeners implementing this interface can not rely on objects in the event data 
+ * that are only valid during the event firing, like the database context.<p>
+ * 
+ * @since 8.5.2 
+ * 
+ * @see org.opencms.main.CmsEventManager
+ */
+public interface I_CmsAsyncEventListener extends I_CmsEventListener {
+
+    // marker interface only
+}
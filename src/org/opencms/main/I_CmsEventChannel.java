@@ -0,0 +1,95 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.main;
+
+import org.opencms.configuration.I_CmsConfigurationParameterHandler;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Transports serialized events between the OpenCms instances of a cluster.<p>
+ * 
+ * If an event channel is configured, the event manager sends all events of the types 
+ * returned by {@link #getEventTypes()} to the channel, and periodically fires the events 
+ * received from the other cluster nodes locally.<p>
+ * 
+ * @since 8.5.2 
+ * 
+ * @see org.opencms.main.CmsEventManager
+ */
+public interface I_CmsEventChannel extends I_CmsConfigurationParameterHandler {
+
+    /**
+     * Returns the types of the events that are sent to the other cluster nodes.<p>
+     * 
+     * @return the types of the events that are sent to the other cluster nodes
+     */
+    int[] getEventTypes();
+
+    /**
+     * Returns the interval in milliseconds in which the channel is checked for new events.<p>
+     * 
+     * @return the interval in milliseconds in which the channel is checked for new events
+     */
+    long getPollInterval();
+
+    /**
+     * Initializes the channel for the given cluster node.<p>
+     * 
+     * @param nodeId the unique id of the local cluster node
+     * 
+     * @throws IOException if the channel can not be opened
+     */
+    void initialize(String nodeId) throws IOException;
+
+    /**
+     * Returns the messages sent by the other cluster nodes since the last call of this method.<p>
+     * 
+     * The messages sent by the local node are never returned.<p>
+     * 
+     * @return the received messages, in the order they have been sent
+     * 
+     * @throws IOException if reading from the channel fails
+     */
+    List<byte[]> receive() throws IOException;
+
+    /**
+     * Sends a message to all other cluster nodes.<p>
+     * 
+     * @param message the message to send
+     * 
+     * @throws IOException if writing to the channel fails
+     */
+    void send(byte[] message) throws IOException;
+
+    /**
+     * Closes the channel.<p>
+     */
+    void shutDown();
+}
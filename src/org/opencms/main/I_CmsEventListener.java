@@ -390,6 +390,9 @@ public interface I_CmsEventListener {
     /** Key name for passing a publish list in the data map. */
     String KEY_PUBLISHLIST = "publishList";
 
+    /** Key name for passing the id of the cluster node an event was received from in the data map. */
+    String KEY_REMOTE_NODE = "remoteNode";
+
     /** Key name for passing a report in the data map. */
     String KEY_REPORT = "report";
 
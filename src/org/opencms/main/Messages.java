@@ -99,6 +99,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_DEREGISTERING_JDBC_DRIVER_1 = "ERR_DEREGISTERING_JDBC_DRIVER_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_EVENT_CHANNEL_DIRECTORY_1 = "ERR_EVENT_CHANNEL_DIRECTORY_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_EVENT_CHANNEL_EVENT_TYPE_1 = "ERR_EVENT_CHANNEL_EVENT_TYPE_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_ILLEGAL_ARG_2 = "ERR_ILLEGAL_ARG_2";
 
@@ -270,6 +276,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_ETHERNET_ADDRESS_1 = "INIT_ETHERNET_ADDRESS_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_EVENT_CHANNEL_2 = "INIT_EVENT_CHANNEL_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_FILE_ENCODING_1 = "INIT_FILE_ENCODING_1";
 
@@ -339,6 +348,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_WEBINF_PATH_1 = "INIT_WEBINF_PATH_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_ASYNC_EVENT_LISTENER_FAILED_2 = "LOG_ASYNC_EVENT_LISTENER_FAILED_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_CONSOLE_TOTAL_RUNTIME_1 = "LOG_CONSOLE_TOTAL_RUNTIME_1";
 
@@ -357,6 +369,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_DEBUG_EVENT_NO_LISTENER_1 = "LOG_DEBUG_EVENT_NO_LISTENER_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_DEBUG_EVENT_REMOTE_2 = "LOG_DEBUG_EVENT_REMOTE_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_DEBUG_EVENT_START_LISTENER_3 = "LOG_DEBUG_EVENT_START_LISTENER_3";
 
@@ -375,6 +390,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_ERROR_DERIGISTERING_JDBC_DRIVER_1 = "LOG_ERROR_DERIGISTERING_JDBC_DRIVER_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_ERROR_EVENT_MANAGER_SHUTDOWN_1 = "LOG_ERROR_EVENT_MANAGER_SHUTDOWN_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_ERROR_EXPORT_1 = "LOG_ERROR_EXPORT_1";
 
@@ -423,6 +441,15 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_ERROR_WRITING_CONFIG_1 = "LOG_ERROR_WRITING_CONFIG_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_EVENT_CHANNEL_READ_FAILED_0 = "LOG_EVENT_CHANNEL_READ_FAILED_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_EVENT_CHANNEL_RECEIVE_FAILED_0 = "LOG_EVENT_CHANNEL_RECEIVE_FAILED_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_EVENT_CHANNEL_SEND_FAILED_1 = "LOG_EVENT_CHANNEL_SEND_FAILED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_INIT_CMSOBJECT_IN_HANDLER_2 = "LOG_INIT_CMSOBJECT_IN_HANDLER_2";
 
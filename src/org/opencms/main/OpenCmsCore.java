@@ -65,6 +65,7 @@ import org.opencms.i18n.CmsLocaleManager;
 import org.opencms.i18n.CmsMessageContainer;
 import org.opencms.importexport.CmsImportExportManager;
 import org.opencms.jsp.util.CmsErrorBean;
+import org.opencms.loader.CmsJspLoader;
 import org.opencms.loader.CmsResourceManager;
 import org.opencms.loader.CmsTemplateContextManager;
 import org.opencms.loader.I_CmsFlexCacheEnabledLoader;
@@ -1071,6 +1072,10 @@ public final class OpenCmsCore {
         CmsEventManager configuredEventManager = systemConfiguration.getEventManager();
         configuredEventManager.initialize(m_eventManager);
         m_eventManager = configuredEventManager;
+        if (systemConfiguration.getEventChannel() != null) {
+            // connect the event manager to the other cluster nodes
+            m_eventManager.setEventChannel(systemConfiguration.getEventChannel());
+        }
 
         // check if the encoding setting is valid
         String setEncoding = systemConfiguration.getDefaultContentEncoding();
@@ -1793,6 +1798,15 @@ public final class OpenCmsCore {
                         Messages.get().getBundle().key(Messages.LOG_ERROR_SESSION_MANAGER_SHUTDOWN_1, e.getMessage()),
                         e);
                 }
+                try {
+                    if (m_eventManager != null) {
+                        m_eventManager.shutDown();
+                    }
+                } catch (Throwable e) {
+                    CmsLog.INIT.error(
+                        Messages.get().getBundle().key(Messages.LOG_ERROR_EVENT_MANAGER_SHUTDOWN_1, e.getMessage()),
+                        e);
+                }
                 try {
                     if (m_memoryMonitor != null) {
                         m_memoryMonitor.shutdown();
@@ -1996,6 +2010,12 @@ public final class OpenCmsCore {
 
         // everything is initialized, now start publishing
         m_publishManager.startPublishing();
+
+        // write the JSPs of the configured folders before they are requested
+        I_CmsResourceLoader jspLoader = m_resourceManager.getLoader(CmsJspLoader.RESOURCE_LOADER_ID);
+        if (jspLoader instanceof CmsJspLoader) {
+            ((CmsJspLoader)jspLoader).startPrecompilation();
+        }
     }
 
     /**
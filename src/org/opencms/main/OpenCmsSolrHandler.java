@@ -57,6 +57,11 @@ import org.apache.solr.common.params.CommonParams;
  * Usage example:<p>
  * <code>http://localhost:8080/opencms/opencms/handleSolrSelect?fq=parent-folders:/sites/+type=v8article&fl=path&rows=10&sort=path%20asc</code>
  * 
+ * To export large results, e.g. for sitemaps or feeds, page with the 'cursorMark' parameter instead of 'start'. 
+ * Begin with <code>cursorMark=*</code> and pass the 'nextCursorMark' of the response to get the next page, 
+ * until the 'nextCursorMark' does not change anymore:<p>
+ * <code>http://localhost:8080/opencms/opencms/handleSolrSelect?fq=parent-folders:/sites/&fl=path,lastmodified&rows=500&sort=lastmodified%20desc&cursorMark=*</code>
+ * 
  * @since 8.5.0
  */
 public class OpenCmsSolrHandler extends HttpServlet implements I_CmsRequestHandler {
@@ -0,0 +1,210 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Index of the keys of a cache by the root path of the resource the cached data depends on.<p>
+ * 
+ * The paths in the index are prefixed with the project flag (<code>+</code> for the online project, 
+ * <code>-</code> for offline projects), so that changes in an offline project do not affect the online entries.
+ * The index is kept sorted, so that the keys for all resources below a folder can be found without iterating 
+ * over the complete index.<p>
+ * 
+ * @since 8.5.2 
+ */
+public class CmsCacheKeyIndex {
+
+    /** The cache keys, by index path. */
+    private TreeMap<String, Set<String>> m_keysByPath;
+
+    /** The index path, by cache key. */
+    private Map<String, String> m_pathByKey;
+
+    /** Flag indicating that keys have been added to the cache without adding them to this index. */
+    private boolean m_unindexedKeys;
+
+    /**
+     * Creates a new, empty index.<p>
+     */
+    public CmsCacheKeyIndex() {
+
+        m_keysByPath = new TreeMap<String, Set<String>>();
+        m_pathByKey = new HashMap<String, String>();
+    }
+
+    /**
+     * Returns the index path for the given root path and project.<p>
+     * 
+     * @param online <code>true</code> for the online project
+     * @param rootPath the root path
+     * 
+     * @return the index path
+     */
+    public static String getIndexPath(boolean online, String rootPath) {
+
+        return (online ? "+" : "-") + rootPath;
+    }
+
+    /**
+     * Adds a cache key for the given index path.<p>
+     * 
+     * @param indexPath the index path, see {@link #getIndexPath(boolean, String)}
+     * @param key the cache key
+     */
+    public synchronized void add(String indexPath, String key) {
+
+        String oldPath = m_pathByKey.put(key, indexPath);
+        if ((oldPath != null) && !oldPath.equals(indexPath)) {
+            removeKey(oldPath, key);
+        }
+        Set<String> keys = m_keysByPath.get(indexPath);
+        if (keys == null) {
+            keys = new HashSet<String>();
+            m_keysByPath.put(indexPath, keys);
+        }
+        keys.add(key);
+    }
+
+    /**
+     * Removes all keys from this index.<p>
+     */
+    public synchronized void clear() {
+
+        m_keysByPath.clear();
+        m_pathByKey.clear();
+        m_unindexedKeys = false;
+    }
+
+    /**
+     * Returns if keys have been added to the cache without adding them to this index.<p>
+     * 
+     * In this case, the cache must be flushed completely instead of removing only the indexed keys.<p>
+     * 
+     * @return <code>true</code> if keys have been added to the cache without adding them to this index
+     */
+    public synchronized boolean hasUnindexedKeys() {
+
+        return m_unindexedKeys;
+    }
+
+    /**
+     * Removes a cache key from this index, e.g. because it was removed from the cache.<p>
+     * 
+     * @param key the cache key
+     */
+    public synchronized void remove(String key) {
+
+        String path = m_pathByKey.remove(key);
+        if (path != null) {
+            removeKey(path, key);
+        }
+    }
+
+    /**
+     * Removes the keys for the given index path from this index.<p>
+     * 
+     * @param indexPath the index path
+     * 
+     * @return the removed keys
+     */
+    public synchronized Set<String> removePath(String indexPath) {
+
+        Set<String> keys = m_keysByPath.remove(indexPath);
+        if (keys == null) {
+            return Collections.emptySet();
+        }
+        m_pathByKey.keySet().removeAll(keys);
+        return keys;
+    }
+
+    /**
+     * Removes the keys for the given index path and all index paths starting with it from this index.<p>
+     * 
+     * @param indexPath the index path
+     * 
+     * @return the removed keys
+     */
+    public synchronized Set<String> removePathsBelow(String indexPath) {
+
+        Map<String, Set<String>> below = m_keysByPath.subMap(indexPath, indexPath + Character.MAX_VALUE);
+        if (below.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> result = new HashSet<String>();
+        Iterator<Set<String>> itKeys = below.values().iterator();
+        while (itKeys.hasNext()) {
+            result.addAll(itKeys.next());
+        }
+        below.clear();
+        m_pathByKey.keySet().removeAll(result);
+        return result;
+    }
+
+    /**
+     * Marks that keys have been added to the cache without adding them to this index.<p>
+     */
+    public synchronized void setUnindexedKeys() {
+
+        m_unindexedKeys = true;
+    }
+
+    /**
+     * Returns the number of keys in this index.<p>
+     * 
+     * @return the number of keys
+     */
+    public synchronized int size() {
+
+        return m_pathByKey.size();
+    }
+
+    /**
+     * Removes a key from the set of keys for an index path.<p>
+     * 
+     * @param indexPath the index path
+     * @param key the key
+     */
+    private void removeKey(String indexPath, String key) {
+
+        Set<String> keys = m_keysByPath.get(indexPath);
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                m_keysByPath.remove(indexPath);
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Access counters for one of the caches of the memory monitor.<p>
+ * 
+ * @since 8.5.2 
+ * 
+ * @see CmsMemoryMonitor#getCacheStatistics(CmsMemoryMonitor.CacheType)
+ */
+public class CmsCacheStatistics {
+
+    /** The number of entries removed because the cache size limit was reached. */
+    private AtomicLong m_evictions;
+
+    /** The number of successful lookups. */
+    private AtomicLong m_hits;
+
+    /** The number of entries removed because the cached data was changed. */
+    private AtomicLong m_invalidations;
+
+    /** The number of failed lookups. */
+    private AtomicLong m_misses;
+
+    /**
+     * Creates a new set of cache counters.<p>
+     */
+    public CmsCacheStatistics() {
+
+        m_evictions = new AtomicLong();
+        m_hits = new AtomicLong();
+        m_invalidations = new AtomicLong();
+        m_misses = new AtomicLong();
+    }
+
+    /**
+     * Returns the number of entries removed because the cache size limit was reached.<p>
+     * 
+     * @return the number of evictions
+     */
+    public long getEvictions() {
+
+        return m_evictions.get();
+    }
+
+    /**
+     * Returns the ratio of successful lookups, between 0 and 1.<p>
+     * 
+     * @return the ratio of successful lookups
+     */
+    public double getHitRatio() {
+
+        long hits = m_hits.get();
+        long total = hits + m_misses.get();
+        return total == 0 ? 0 : (double)hits / total;
+    }
+
+    /**
+     * Returns the number of successful lookups.<p>
+     * 
+     * @return the number of hits
+     */
+    public long getHits() {
+
+        return m_hits.get();
+    }
+
+    /**
+     * Returns the number of entries removed because the cached data was changed.<p>
+     * 
+     * This does not include the entries removed by flushing the complete cache.<p>
+     * 
+     * @return the number of invalidations
+     */
+    public long getInvalidations() {
+
+        return m_invalidations.get();
+    }
+
+    /**
+     * Returns the number of failed lookups.<p>
+     * 
+     * @return the number of misses
+     */
+    public long getMisses() {
+
+        return m_misses.get();
+    }
+
+    /**
+     * Resets all counters to 0.<p>
+     */
+    public void reset() {
+
+        m_evictions.set(0);
+        m_hits.set(0);
+        m_invalidations.set(0);
+        m_misses.set(0);
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        return "hits="
+            + getHits()
+            + ", misses="
+            + getMisses()
+            + ", evictions="
+            + getEvictions()
+            + ", invalidations="
+            + getInvalidations();
+    }
+
+    /**
+     * Increments the number of evictions.<p>
+     */
+    public void addEviction() {
+
+        m_evictions.incrementAndGet();
+    }
+
+    /**
+     * Increments the number of hits.<p>
+     */
+    public void addHit() {
+
+        m_hits.incrementAndGet();
+    }
+
+    /**
+     * Increases the number of invalidations.<p>
+     * 
+     * @param count the number of invalidated entries
+     */
+    public void addInvalidations(int count) {
+
+        m_invalidations.addAndGet(count);
+    }
+
+    /**
+     * Increments the number of misses.<p>
+     */
+    public void addMiss() {
+
+        m_misses.incrementAndGet();
+    }
+}
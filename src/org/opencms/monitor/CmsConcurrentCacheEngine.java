@@ -0,0 +1,185 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import org.opencms.configuration.CmsConfigurationException;
+import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.main.CmsLog;
+import org.opencms.monitor.CmsMemoryMonitor.CacheType;
+
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Cache engine that creates {@link CmsConcurrentCacheMap} instances with non-blocking reads.<p>
+ * 
+ * By default, the caches are bounded by the estimated memory size of their entries. The memory limit of a cache 
+ * is the configured number of entries multiplied with the average entry weight, unless a limit is configured 
+ * explicitly for the cache type.<p>
+ * 
+ * The following parameters are supported:
+ * <ul>
+ * <li><code>{@link #PARAM_CONCURRENCY_LEVEL}</code>: the estimated number of concurrently writing threads</li>
+ * <li><code>{@link #PARAM_ENTRY_WEIGHT}</code>: the average entry weight in bytes</li>
+ * <li><code>{@link #PARAM_MAX_WEIGHT_PREFIX}</code> followed by the name of a cache type, e.g. <code>maxweight.RESOURCE</code>: 
+ *      the memory limit of that cache in bytes</li>
+ * <li><code>{@link #PARAM_SAMPLE_SIZE}</code>: the number of entries compared for each eviction</li>
+ * <li><code>{@link #PARAM_WEIGHTED}</code>: if <code>false</code>, the caches are bounded by the configured number of entries</li>
+ * </ul><p>
+ * 
+ * @since 8.5.2 
+ */
+public class CmsConcurrentCacheEngine implements I_CmsCacheEngine {
+
+    /** The default concurrency level. */
+    public static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    /** The default average entry weight in bytes. */
+    public static final int DEFAULT_ENTRY_WEIGHT = 1024;
+
+    /** The default sample size. */
+    public static final int DEFAULT_SAMPLE_SIZE = 8;
+
+    /** The name of the concurrency level parameter. */
+    public static final String PARAM_CONCURRENCY_LEVEL = "concurrencylevel";
+
+    /** The name of the average entry weight parameter. */
+    public static final String PARAM_ENTRY_WEIGHT = "entryweight";
+
+    /** The prefix of the memory limit parameters for the single cache types. */
+    public static final String PARAM_MAX_WEIGHT_PREFIX = "maxweight.";
+
+    /** The name of the sample size parameter. */
+    public static final String PARAM_SAMPLE_SIZE = "samplesize";
+
+    /** The name of the parameter that controls if the caches are bounded by memory size. */
+    public static final String PARAM_WEIGHTED = "weighted";
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsConcurrentCacheEngine.class);
+
+    /** The estimated number of concurrently writing threads. */
+    private int m_concurrencyLevel;
+
+    /** The configuration parameters. */
+    private CmsParameterConfiguration m_configuration;
+
+    /** The average entry weight in bytes. */
+    private int m_entryWeight;
+
+    /** The number of entries compared for each eviction. */
+    private int m_sampleSize;
+
+    /** Flag indicating if the caches are bounded by memory size. */
+    private boolean m_weighted;
+
+    /**
+     * Creates a new concurrent cache engine.<p>
+     */
+    public CmsConcurrentCacheEngine() {
+
+        m_configuration = new CmsParameterConfiguration();
+        m_concurrencyLevel = DEFAULT_CONCURRENCY_LEVEL;
+        m_entryWeight = DEFAULT_ENTRY_WEIGHT;
+        m_sampleSize = DEFAULT_SAMPLE_SIZE;
+        m_weighted = true;
+    }
+
+    /**
+     * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#addConfigurationParameter(java.lang.String, java.lang.String)
+     */
+    public void addConfigurationParameter(String paramName, String paramValue) {
+
+        m_configuration.add(paramName, paramValue);
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsCacheEngine#createCache(org.opencms.monitor.CmsMemoryMonitor.CacheType, int, org.opencms.monitor.CmsCacheStatistics, org.opencms.monitor.CmsCacheKeyIndex)
+     */
+    public <K, V> Map<K, V> createCache(
+        CacheType type,
+        int maxSize,
+        CmsCacheStatistics statistics,
+        CmsCacheKeyIndex index) {
+
+        return new CmsConcurrentCacheMap<K, V>(
+            getMaxWeight(type, maxSize),
+            m_weighted,
+            m_sampleSize,
+            m_concurrencyLevel,
+            statistics,
+            index);
+    }
+
+    /**
+     * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#getConfiguration()
+     */
+    public CmsParameterConfiguration getConfiguration() {
+
+        return m_configuration;
+    }
+
+    /**
+     * Returns the maximum weight of the cache with the given type.<p>
+     * 
+     * @param type the cache type
+     * @param maxSize the configured maximum number of entries
+     * 
+     * @return the maximum weight
+     */
+    public long getMaxWeight(CacheType type, int maxSize) {
+
+        if (!m_weighted) {
+            return maxSize;
+        }
+        String maxWeight = m_configuration.getString(PARAM_MAX_WEIGHT_PREFIX + type.name(), null);
+        if (maxWeight != null) {
+            try {
+                return Long.parseLong(maxWeight.trim());
+            } catch (NumberFormatException e) {
+                LOG.error(Messages.get().getBundle().key(
+                    Messages.LOG_INVALID_CACHE_MAX_WEIGHT_2,
+                    type.name(),
+                    maxWeight), e);
+            }
+        }
+        return (long)maxSize * m_entryWeight;
+    }
+
+    /**
+     * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#initConfiguration()
+     */
+    public void initConfiguration() throws CmsConfigurationException {
+
+        m_concurrencyLevel = m_configuration.getInteger(PARAM_CONCURRENCY_LEVEL, DEFAULT_CONCURRENCY_LEVEL);
+        m_entryWeight = Math.max(1, m_configuration.getInteger(PARAM_ENTRY_WEIGHT, DEFAULT_ENTRY_WEIGHT));
+        m_sampleSize = m_configuration.getInteger(PARAM_SAMPLE_SIZE, DEFAULT_SAMPLE_SIZE);
+        m_weighted = m_configuration.getBoolean(PARAM_WEIGHTED, true);
+    }
+}
@@ -0,0 +1,507 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrent cache map with non-blocking reads, bounded by the total weight of its entries.<p>
+ * 
+ * The weight of an entry is its estimated memory size as calculated by the memory monitor, 
+ * or 1 if the map is not weighted, so that the map is bounded by the number of entries.<p>
+ * 
+ * Reads do not reorder any list. Instead, each entry remembers the value of a clock that is 
+ * advanced by every write, so all entries read between two writes share the same access time.
+ * If the total weight exceeds the limit after a write, the writing thread evicts entries until 
+ * the limit is reached again. For each eviction, a small sample of entries is taken from a cursor 
+ * which cycles through the map, and the least recently used entry of the sample is removed.
+ * Only one thread evicts at a time, other writers continue without waiting, so the limit 
+ * may be exceeded for a short time.<p>
+ * 
+ * <code>null</code> keys are not supported. Putting a <code>null</code> value removes the key.<p>
+ * 
+ * @param <K> the key type
+ * @param <V> the value type
+ * 
+ * @since 8.5.2 
+ * 
+ * @see org.opencms.monitor.CmsConcurrentCacheEngine
+ */
+public class CmsConcurrentCacheMap<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+
+    /**
+     * A cache entry.<p>
+     * 
+     * @param <V> the value type
+     */
+    private static final class CacheEntry<V> {
+
+        /** The logical time of the last access. */
+        volatile long m_lastAccess;
+
+        /** The cached value. */
+        final V m_value;
+
+        /** The weight of the entry. */
+        final long m_weight;
+
+        /**
+         * Creates a new cache entry.<p>
+         * 
+         * @param value the value
+         * @param weight the weight
+         * @param time the logical time of the creation
+         */
+        CacheEntry(V value, long weight, long time) {
+
+            m_value = value;
+            m_weight = weight;
+            m_lastAccess = time;
+        }
+    }
+
+    /** The maximum number of failed removal attempts in one eviction run. */
+    private static final int MAX_EVICTION_FAILURES = 100;
+
+    /** The logical clock, advanced by every write. */
+    private AtomicLong m_clock;
+
+    /** Lock to allow only one evicting thread. */
+    private ReentrantLock m_evictionLock;
+
+    /** The key index, may be <code>null</code>. */
+    private CmsCacheKeyIndex m_index;
+
+    /** The cache entries. */
+    private ConcurrentHashMap<K, CacheEntry<V>> m_map;
+
+    /** The maximum total weight. */
+    private long m_maxWeight;
+
+    /** The cursor for sampling eviction candidates, guarded by the eviction lock. */
+    private Iterator<Map.Entry<K, CacheEntry<V>>> m_sampleCursor;
+
+    /** The number of entries compared for each eviction. */
+    private int m_sampleSize;
+
+    /** The cache counters. */
+    private CmsCacheStatistics m_statistics;
+
+    /** Flag indicating if the weight of the entries is their memory size. */
+    private boolean m_weighted;
+
+    /** The current total weight. */
+    private AtomicLong m_weight;
+
+    /**
+     * Creates a new concurrent cache map.<p>
+     * 
+     * @param maxWeight the maximum total weight
+     * @param weighted if <code>true</code> the weight of an entry is its memory size, otherwise it is 1
+     * @param sampleSize the number of entries compared for each eviction
+     * @param concurrencyLevel the estimated number of concurrently writing threads
+     * @param statistics the cache counters
+     * @param index the key index, or <code>null</code>
+     */
+    public CmsConcurrentCacheMap(
+        long maxWeight,
+        boolean weighted,
+        int sampleSize,
+        int concurrencyLevel,
+        CmsCacheStatistics statistics,
+        CmsCacheKeyIndex index) {
+
+        m_maxWeight = maxWeight;
+        m_weighted = weighted;
+        m_sampleSize = Math.max(1, sampleSize);
+        m_statistics = statistics;
+        m_index = index;
+        m_map = new ConcurrentHashMap<K, CacheEntry<V>>(16, 0.75f, Math.max(1, concurrencyLevel));
+        m_clock = new AtomicLong();
+        m_weight = new AtomicLong();
+        m_evictionLock = new ReentrantLock();
+    }
+
+    /**
+     * @see java.util.AbstractMap#clear()
+     */
+    @Override
+    public void clear() {
+
+        Iterator<K> itKeys = m_map.keySet().iterator();
+        while (itKeys.hasNext()) {
+            remove(itKeys.next());
+        }
+    }
+
+    /**
+     * @see java.util.AbstractMap#containsKey(java.lang.Object)
+     */
+    @Override
+    public boolean containsKey(Object key) {
+
+        return m_map.containsKey(key);
+    }
+
+    /**
+     * @see java.util.AbstractMap#entrySet()
+     */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+
+        return new AbstractSet<Map.Entry<K, V>>() {
+
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+
+                final Iterator<Map.Entry<K, CacheEntry<V>>> itEntries = m_map.entrySet().iterator();
+                return new Iterator<Map.Entry<K, V>>() {
+
+                    private K m_lastKey;
+
+                    public boolean hasNext() {
+
+                        return itEntries.hasNext();
+                    }
+
+                    public Map.Entry<K, V> next() {
+
+                        Map.Entry<K, CacheEntry<V>> entry = itEntries.next();
+                        m_lastKey = entry.getKey();
+                        return new AbstractMap.SimpleImmutableEntry<K, V>(m_lastKey, entry.getValue().m_value);
+                    }
+
+                    public void remove() {
+
+                        if (m_lastKey == null) {
+                            throw new IllegalStateException();
+                        }
+                        CmsConcurrentCacheMap.this.remove(m_lastKey);
+                        m_lastKey = null;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+
+                return m_map.size();
+            }
+        };
+    }
+
+    /**
+     * @see java.util.AbstractMap#get(java.lang.Object)
+     */
+    @Override
+    public V get(Object key) {
+
+        CacheEntry<V> entry = m_map.get(key);
+        if (entry == null) {
+            return null;
+        }
+        long time = m_clock.get();
+        if (entry.m_lastAccess != time) {
+            // avoid writing to the shared entry if it was already read since the last write
+            entry.m_lastAccess = time;
+        }
+        return entry.m_value;
+    }
+
+    /**
+     * Returns the maximum total weight of this map.<p>
+     * 
+     * @return the maximum total weight
+     */
+    public long getMaxWeight() {
+
+        return m_maxWeight;
+    }
+
+    /**
+     * Returns the current total weight of this map.<p>
+     * 
+     * @return the current total weight
+     */
+    public long getWeight() {
+
+        return m_weight.get();
+    }
+
+    /**
+     * Returns if the weight of the entries is their memory size.<p>
+     * 
+     * @return <code>true</code> if the weight of the entries is their memory size, 
+     *      <code>false</code> if the map is bounded by the number of entries
+     */
+    public boolean isWeighted() {
+
+        return m_weighted;
+    }
+
+    /**
+     * @see java.util.AbstractMap#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public V put(K key, V value) {
+
+        if (value == null) {
+            return remove(key);
+        }
+        CacheEntry<V> entry = createEntry(key, value);
+        if (entry == null) {
+            return remove(key);
+        }
+        CacheEntry<V> oldEntry = m_map.put(key, entry);
+        m_weight.addAndGet(entry.m_weight - ((oldEntry == null) ? 0 : oldEntry.m_weight));
+        evict();
+        return (oldEntry == null) ? null : oldEntry.m_value;
+    }
+
+    /**
+     * @see java.util.concurrent.ConcurrentMap#putIfAbsent(java.lang.Object, java.lang.Object)
+     */
+    public V putIfAbsent(K key, V value) {
+
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        CacheEntry<V> entry = createEntry(key, value);
+        if (entry == null) {
+            return get(key);
+        }
+        CacheEntry<V> oldEntry = m_map.putIfAbsent(key, entry);
+        if (oldEntry != null) {
+            oldEntry.m_lastAccess = m_clock.get();
+            return oldEntry.m_value;
+        }
+        m_weight.addAndGet(entry.m_weight);
+        evict();
+        return null;
+    }
+
+    /**
+     * @see java.util.AbstractMap#remove(java.lang.Object)
+     */
+    @Override
+    public V remove(Object key) {
+
+        CacheEntry<V> oldEntry = m_map.remove(key);
+        if (oldEntry == null) {
+            return null;
+        }
+        m_weight.addAndGet(-oldEntry.m_weight);
+        return oldEntry.m_value;
+    }
+
+    /**
+     * @see java.util.concurrent.ConcurrentMap#remove(java.lang.Object, java.lang.Object)
+     */
+    public boolean remove(Object key, Object value) {
+
+        CacheEntry<V> entry = m_map.get(key);
+        if ((entry == null) || !entry.m_value.equals(value) || !m_map.remove(key, entry)) {
+            return false;
+        }
+        m_weight.addAndGet(-entry.m_weight);
+        return true;
+    }
+
+    /**
+     * @see java.util.concurrent.ConcurrentMap#replace(java.lang.Object, java.lang.Object)
+     */
+    public V replace(K key, V value) {
+
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        if (!m_map.containsKey(key)) {
+            return null;
+        }
+        CacheEntry<V> entry = createEntry(key, value);
+        if (entry == null) {
+            return remove(key);
+        }
+        CacheEntry<V> oldEntry = m_map.replace(key, entry);
+        if (oldEntry == null) {
+            return null;
+        }
+        m_weight.addAndGet(entry.m_weight - oldEntry.m_weight);
+        evict();
+        return oldEntry.m_value;
+    }
+
+    /**
+     * @see java.util.concurrent.ConcurrentMap#replace(java.lang.Object, java.lang.Object, java.lang.Object)
+     */
+    public boolean replace(K key, V oldValue, V newValue) {
+
+        if (newValue == null) {
+            throw new NullPointerException();
+        }
+        CacheEntry<V> oldEntry = m_map.get(key);
+        if ((oldEntry == null) || !oldEntry.m_value.equals(oldValue)) {
+            return false;
+        }
+        CacheEntry<V> entry = createEntry(key, newValue);
+        if (entry == null) {
+            return remove(key, oldValue);
+        }
+        if (!m_map.replace(key, oldEntry, entry)) {
+            return false;
+        }
+        m_weight.addAndGet(entry.m_weight - oldEntry.m_weight);
+        evict();
+        return true;
+    }
+
+    /**
+     * @see java.util.AbstractMap#size()
+     */
+    @Override
+    public int size() {
+
+        return m_map.size();
+    }
+
+    /**
+     * Returns the weight of the given entry.<p>
+     * 
+     * @param key the key
+     * @param value the value
+     * 
+     * @return the weight of the entry
+     */
+    protected long getWeight(Object key, Object value) {
+
+        if (!m_weighted) {
+            return 1;
+        }
+        return CmsMemoryMonitor.getMemorySize(key) + CmsMemoryMonitor.getValueSize(value);
+    }
+
+    /**
+     * Called after an entry was evicted from this map because the maximum total weight was exceeded.<p>
+     * 
+     * This is not called for entries that are removed explicitly. The default implementation does nothing.<p>
+     * 
+     * @param key the key of the evicted entry
+     * @param value the value of the evicted entry
+     */
+    protected void onEviction(K key, V value) {
+
+        // noop
+    }
+
+    /**
+     * Creates a new cache entry and advances the clock.<p>
+     * 
+     * @param key the key
+     * @param value the value
+     * 
+     * @return the new entry, or <code>null</code> if the entry is heavier than this map may get
+     */
+    private CacheEntry<V> createEntry(K key, V value) {
+
+        long weight = getWeight(key, value);
+        if (weight > m_maxWeight) {
+            // caching the entry would remove all other entries
+            m_statistics.addEviction();
+            return null;
+        }
+        return new CacheEntry<V>(value, weight, m_clock.incrementAndGet());
+    }
+
+    /**
+     * Removes the least recently used entries of samples until the total weight is within the limit.<p>
+     * 
+     * If another thread is already evicting entries, this method returns immediately.<p>
+     */
+    private void evict() {
+
+        if ((m_weight.get() <= m_maxWeight) || !m_evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            int failures = 0;
+            while ((m_weight.get() > m_maxWeight) && (failures < MAX_EVICTION_FAILURES)) {
+                Map.Entry<K, CacheEntry<V>> victim = null;
+                for (int i = 0; i < m_sampleSize; i++) {
+                    Map.Entry<K, CacheEntry<V>> candidate = nextSample();
+                    if (candidate == null) {
+                        break;
+                    }
+                    if ((victim == null) || (candidate.getValue().m_lastAccess < victim.getValue().m_lastAccess)) {
+                        victim = candidate;
+                    }
+                }
+                if (victim == null) {
+                    // the map is empty
+                    break;
+                }
+                if (m_map.remove(victim.getKey(), victim.getValue())) {
+                    m_weight.addAndGet(-victim.getValue().m_weight);
+                    m_statistics.addEviction();
+                    if (m_index != null) {
+                        m_index.remove(victim.getKey().toString());
+                    }
+                    onEviction(victim.getKey(), victim.getValue().m_value);
+                } else {
+                    // the entry was changed concurrently
+                    failures++;
+                }
+            }
+        } finally {
+            m_evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the next entry of the sample cursor, starting a new cycle through the map if required.<p>
+     * 
+     * @return the next entry, or <code>null</code> if the map is empty
+     */
+    private Map.Entry<K, CacheEntry<V>> nextSample() {
+
+        if ((m_sampleCursor == null) || !m_sampleCursor.hasNext()) {
+            m_sampleCursor = m_map.entrySet().iterator();
+            if (!m_sampleCursor.hasNext()) {
+                return null;
+            }
+        }
+        return m_sampleCursor.next();
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import org.opencms.configuration.CmsConfigurationException;
+import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.monitor.CmsMemoryMonitor.CacheType;
+
+import java.util.Map;
+
+/**
+ * Cache engine that creates LRU maps bounded by the configured number of entries.<p>
+ * 
+ * The maps are not thread safe, so all accesses are synchronized by the memory monitor.
+ * This is the default cache engine.<p>
+ * 
+ * @since 8.5.2 
+ */
+public class CmsLruCacheEngine implements I_CmsCacheEngine {
+
+    /** The configuration parameters. */
+    private CmsParameterConfiguration m_configuration;
+
+    /**
+     * Creates a new LRU cache engine.<p>
+     */
+    public CmsLruCacheEngine() {
+
+        m_configuration = new CmsParameterConfiguration();
+    }
+
+    /**
+     * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#addConfigurationParameter(java.lang.String, java.lang.String)
+     */
+    public void addConfigurationParameter(String paramName, String paramValue) {
+
+        m_configuration.add(paramName, paramValue);
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsCacheEngine#createCache(org.opencms.monitor.CmsMemoryMonitor.CacheType, int, org.opencms.monitor.CmsCacheStatistics, org.opencms.monitor.CmsCacheKeyIndex)
+     */
+    @SuppressWarnings("unchecked")
+    public <K, V> Map<K, V> createCache(
+        CacheType type,
+        int maxSize,
+        CmsCacheStatistics statistics,
+        CmsCacheKeyIndex index) {
+
+        return new CmsMonitoredLruMap(maxSize, statistics, index);
+    }
+
+    /**
+     * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#getConfiguration()
+     */
+    public CmsParameterConfiguration getConfiguration() {
+
+        return m_configuration;
+    }
+
+    /**
+     * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#initConfiguration()
+     */
+    public void initConfiguration() throws CmsConfigurationException {
+
+        // nothing to do
+    }
+}
@@ -35,6 +35,7 @@ import org.opencms.db.CmsCacheSettings;
 import org.opencms.db.CmsDriverManager;
 import org.opencms.db.CmsPublishedResource;
 import org.opencms.db.CmsSecurityManager;
+import org.opencms.db.CmsSqlStatistics;
 import org.opencms.file.CmsFile;
 import org.opencms.file.CmsGroup;
 import org.opencms.file.CmsObject;
@@ -44,9 +45,11 @@ import org.opencms.file.CmsPropertyDefinition;
 import org.opencms.file.CmsResource;
 import org.opencms.file.CmsUser;
 import org.opencms.flex.CmsFlexCache.CmsFlexCacheVariation;
+import org.opencms.flex.CmsFlexCacheArena;
 import org.opencms.i18n.CmsLocaleManager;
 import org.opencms.lock.CmsLock;
 import org.opencms.lock.CmsLockManager;
+import org.opencms.lock.CmsLockTable;
 import org.opencms.mail.CmsMailTransport;
 import org.opencms.mail.CmsSimpleMail;
 import org.opencms.main.CmsEvent;
@@ -63,7 +66,6 @@ import org.opencms.security.CmsOrganizationalUnit;
 import org.opencms.security.CmsPermissionSet;
 import org.opencms.security.CmsRole;
 import org.opencms.security.I_CmsPermissionHandler;
-import org.opencms.util.CmsCollectionsGenericWrapper;
 import org.opencms.util.CmsDateUtil;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
@@ -75,11 +77,14 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.ConcurrentModificationException;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.mail.internet.InternetAddress;
 
@@ -164,7 +169,13 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     private static final int MAX_DEPTH = 5;
 
     /** Cache for access control lists. */
-    private Map<String, CmsAccessControlList> m_cacheAccessControlList;
+    private Map<Object, CmsAccessControlList> m_cacheAccessControlList;
+
+    /** The engine creating the bounded caches. */
+    private I_CmsCacheEngine m_cacheEngine;
+
+    /** The access counters of the caches. */
+    private Map<CacheType, CmsCacheStatistics> m_cacheStatistics;
 
     /** A temporary cache for XML content definitions. */
     private Map<String, CmsXmlContentDefinition> m_cacheContentDefinitions;
@@ -179,7 +190,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     private Map<String, Locale> m_cacheLocale;
 
     /** Cache for the resource locks. */
-    private Map<String, CmsLock> m_cacheLock;
+    private CmsLockTable m_cacheLock;
 
     /** The memory object cache map. */
     private Map<String, Object> m_cacheMemObject;
@@ -188,7 +199,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     private Map<String, CmsOrganizationalUnit> m_cacheOrgUnit;
 
     /** Cache for permission checks. */
-    private Map<String, I_CmsPermissionHandler.CmsPermissionCheckResult> m_cachePermission;
+    private Map<Object, I_CmsPermissionHandler.CmsPermissionCheckResult> m_cachePermission;
 
     /** Cache for offline projects. */
     private Map<String, CmsProject> m_cacheProject;
@@ -238,6 +249,15 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** Map to keep track of disabled caches. */
     private Map<CacheType, Boolean> m_disabled = new HashMap<CacheType, Boolean>();
 
+    /** Index of the property list cache keys by resource path. */
+    private CmsCacheKeyIndex m_indexPropertyList;
+
+    /** Index of the resource cache keys by resource path. */
+    private CmsCacheKeyIndex m_indexResource;
+
+    /** Index of the resource list cache keys by resource path. */
+    private CmsCacheKeyIndex m_indexResourceList;
+
     /** Interval in which emails are send. */
     private int m_intervalEmail;
 
@@ -295,6 +315,13 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     public CmsMemoryMonitor() {
 
         m_monitoredObjects = new HashMap<String, Object>();
+        m_cacheStatistics = new EnumMap<CacheType, CmsCacheStatistics>(CacheType.class);
+        for (CacheType type : CacheType.values()) {
+            m_cacheStatistics.put(type, new CmsCacheStatistics());
+        }
+        m_indexPropertyList = new CmsCacheKeyIndex();
+        m_indexResource = new CmsCacheKeyIndex();
+        m_indexResourceList = new CmsCacheKeyIndex();
     }
 
     /**
@@ -528,7 +555,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      * @param key the cache key
      * @param acl the acl to cache
      */
-    public void cacheACL(String key, CmsAccessControlList acl) {
+    public void cacheACL(Object key, CmsAccessControlList acl) {
 
         if (m_disabled.get(CacheType.ACL) != null) {
             return;
@@ -593,7 +620,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         if (m_disabled.get(CacheType.LOCK) != null) {
             return;
         }
-        m_cacheLock.put(lock.getResourceName(), lock);
+        m_cacheLock.put(lock);
     }
 
     /**
@@ -630,7 +657,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      * @param key the cache key
      * @param permission the permission check result to cache
      */
-    public void cachePermission(String key, I_CmsPermissionHandler.CmsPermissionCheckResult permission) {
+    public void cachePermission(Object key, I_CmsPermissionHandler.CmsPermissionCheckResult permission) {
 
         if (m_disabled.get(CacheType.PERMISSION) != null) {
             return;
@@ -683,17 +710,45 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /**
      * Caches the given property list under the given cache key.<p>
      * 
+     * Since the resource the property list belongs to is unknown, 
+     * a change of any resource will flush the complete property list cache.<p>
+     * 
      * @param key the cache key
      * @param propertyList the property list to cache
+     * 
+     * @see #cachePropertyList(String, boolean, String, List)
      */
     public void cachePropertyList(String key, List<CmsProperty> propertyList) {
 
         if (m_disabled.get(CacheType.PROPERTY_LIST) != null) {
             return;
         }
+        m_indexPropertyList.setUnindexedKeys();
         m_cachePropertyList.put(key, propertyList);
     }
 
+    /**
+     * Caches the given property list of the given resource under the given cache key.<p>
+     * 
+     * The entry is removed from the cache by {@link #clearResourceCache(boolean, String, boolean)} 
+     * for the given resource or any of its parent folders.<p>
+     * 
+     * @param key the cache key
+     * @param online <code>true</code> if the property list was read in the online project
+     * @param rootPath the root path of the resource the properties were read for
+     * @param propertyList the property list to cache
+     */
+    public void cachePropertyList(String key, boolean online, String rootPath, List<CmsProperty> propertyList) {
+
+        if (m_disabled.get(CacheType.PROPERTY_LIST) != null) {
+            return;
+        }
+        synchronized (m_cachePropertyList) {
+            m_cachePropertyList.put(key, propertyList);
+            m_indexPropertyList.add(CmsCacheKeyIndex.getIndexPath(online, rootPath), key);
+        }
+    }
+
     /**
      * Caches the given published resources list under the given cache key.<p>
      * 
@@ -739,31 +794,87 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /**
      * Caches the given resource under the given cache key.<p>
      * 
+     * Since the project the resource was read in is unknown, 
+     * a change of any resource will flush the complete resource cache.<p>
+     * 
      * @param key the cache key
      * @param resource the resource to cache
+     * 
+     * @see #cacheResource(String, boolean, CmsResource)
      */
     public void cacheResource(String key, CmsResource resource) {
 
         if (m_disabled.get(CacheType.RESOURCE) != null) {
             return;
         }
+        m_indexResource.setUnindexedKeys();
         m_cacheResource.put(key, resource);
     }
 
+    /**
+     * Caches the given resource under the given cache key.<p>
+     * 
+     * The entry is removed from the cache by {@link #clearResourceCache(boolean, String, boolean)} 
+     * for the root path of the resource.<p>
+     * 
+     * @param key the cache key
+     * @param online <code>true</code> if the resource was read in the online project
+     * @param resource the resource to cache
+     */
+    public void cacheResource(String key, boolean online, CmsResource resource) {
+
+        if (m_disabled.get(CacheType.RESOURCE) != null) {
+            return;
+        }
+        synchronized (m_cacheResource) {
+            m_cacheResource.put(key, resource);
+            m_indexResource.add(CmsCacheKeyIndex.getIndexPath(online, resource.getRootPath()), key);
+        }
+    }
+
     /**
      * Caches the given resource list under the given cache key.<p>
      * 
+     * Since the resources the list depends on are unknown, 
+     * a change of any resource will flush the complete resource list cache.<p>
+     * 
      * @param key the cache key
      * @param resourceList the resource list to cache
+     * 
+     * @see #cacheResourceList(String, boolean, String, List)
      */
     public void cacheResourceList(String key, List<CmsResource> resourceList) {
 
         if (m_disabled.get(CacheType.RESOURCE_LIST) != null) {
             return;
         }
+        m_indexResourceList.setUnindexedKeys();
         m_cacheResourceList.put(key, resourceList);
     }
 
+    /**
+     * Caches the given resource list under the given cache key.<p>
+     * 
+     * The given root path is the folder the resources were read from. The entry is removed 
+     * from the cache by {@link #clearResourceCache(boolean, String, boolean)} for this folder, 
+     * any of its parent folders and any resource below it.<p>
+     * 
+     * @param key the cache key
+     * @param online <code>true</code> if the resource list was read in the online project
+     * @param rootPath the root path of the folder the resources were read from
+     * @param resourceList the resource list to cache
+     */
+    public void cacheResourceList(String key, boolean online, String rootPath, List<CmsResource> resourceList) {
+
+        if (m_disabled.get(CacheType.RESOURCE_LIST) != null) {
+            return;
+        }
+        synchronized (m_cacheResourceList) {
+            m_cacheResourceList.put(key, resourceList);
+            m_indexResourceList.add(CmsCacheKeyIndex.getIndexPath(online, rootPath), key);
+        }
+    }
+
     /**
      * Caches the given value under the given cache key.<p>
      * 
@@ -929,6 +1040,74 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         flushCache(CacheType.ROLE_LIST);
     }
 
+    /**
+     * Clears the depending cache entries when the given resource was changed.<p>
+     * 
+     * The resource cache entries for the resource, the property lists of the resource and 
+     * the resource lists read from the resource or one of its parent folders are removed.
+     * If the <code>subtree</code> flag is set, the entries for all resources below the 
+     * given resource are removed as well, e.g. if a folder is moved.<p>
+     * 
+     * Caches containing entries which were not cached for a resource path are flushed completely.<p>
+     * 
+     * @param online <code>true</code> if the resource was changed in the online project
+     * @param rootPath the root path of the changed resource
+     * @param subtree if the entries for all resources below the given resource should be removed as well
+     */
+    public void clearResourceCache(boolean online, String rootPath, boolean subtree) {
+
+        String indexPath = CmsCacheKeyIndex.getIndexPath(online, rootPath);
+
+        synchronized (m_cacheResource) {
+            if (m_indexResource.hasUnindexedKeys()) {
+                flushCache(CacheType.RESOURCE);
+            } else {
+                removeKeys(
+                    CacheType.RESOURCE,
+                    m_cacheResource,
+                    subtree ? m_indexResource.removePathsBelow(indexPath) : m_indexResource.removePath(indexPath));
+            }
+        }
+
+        synchronized (m_cachePropertyList) {
+            if (m_indexPropertyList.hasUnindexedKeys()) {
+                flushCache(CacheType.PROPERTY_LIST);
+            } else if (subtree || CmsResource.isFolder(rootPath)) {
+                // the properties of a folder are inherited by all resources below it
+                removeKeys(CacheType.PROPERTY_LIST, m_cachePropertyList, m_indexPropertyList.removePathsBelow(indexPath));
+            } else {
+                removeKeys(CacheType.PROPERTY_LIST, m_cachePropertyList, m_indexPropertyList.removePath(indexPath));
+            }
+        }
+
+        synchronized (m_cacheResourceList) {
+            if (m_indexResourceList.hasUnindexedKeys()) {
+                flushCache(CacheType.RESOURCE_LIST);
+            } else {
+                if (subtree) {
+                    removeKeys(
+                        CacheType.RESOURCE_LIST,
+                        m_cacheResourceList,
+                        m_indexResourceList.removePathsBelow(indexPath));
+                } else {
+                    removeKeys(CacheType.RESOURCE_LIST, m_cacheResourceList, m_indexResourceList.removePath(indexPath));
+                }
+                // resource lists read from a parent folder may contain the changed resource
+                String parent = CmsResource.getParentFolder(rootPath);
+                while (parent != null) {
+                    removeKeys(
+                        CacheType.RESOURCE_LIST,
+                        m_cacheResourceList,
+                        m_indexResourceList.removePath(CmsCacheKeyIndex.getIndexPath(online, parent)));
+                    parent = CmsResource.getParentFolder(parent);
+                }
+            }
+        }
+
+        // the property cache is not indexed
+        flushCache(CacheType.PROPERTY);
+    }
+
     /**
      * Clears the user cache for the given user.<p>
      * 
@@ -1032,7 +1211,10 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                     m_cacheProperty.clear();
                     break;
                 case PROPERTY_LIST:
-                    m_cachePropertyList.clear();
+                    synchronized (m_cachePropertyList) {
+                        m_cachePropertyList.clear();
+                        m_indexPropertyList.clear();
+                    }
                     break;
                 case PUBLISHED_RESOURCES:
                     m_cachePublishedResources.clear();
@@ -1044,10 +1226,16 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                     m_publishQueue.clear();
                     break;
                 case RESOURCE:
-                    m_cacheResource.clear();
+                    synchronized (m_cacheResource) {
+                        m_cacheResource.clear();
+                        m_indexResource.clear();
+                    }
                     break;
                 case RESOURCE_LIST:
-                    m_cacheResourceList.clear();
+                    synchronized (m_cacheResourceList) {
+                        m_cacheResourceList.clear();
+                        m_indexResourceList.clear();
+                    }
                     break;
                 case ROLE_LIST:
                     m_cacheRoleLists.clear();
@@ -1121,11 +1309,11 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             return;
         }
         // initialize new lock cache
-        Map<String, CmsLock> newLockCache = Collections.synchronizedMap(newLocks);
+        CmsLockTable newLockCache = new CmsLockTable(newLocks);
         // register it
-        register(CmsLockManager.class.getName(), newLockCache);
+        register(CmsLockManager.class.getName(), newLockCache.asMap());
         // save the old cache
-        Map<String, CmsLock> oldCache = m_cacheLock;
+        CmsLockTable oldCache = m_cacheLock;
         // replace the old by the new cache
         m_cacheLock = newLockCache;
         // clean up the old cache
@@ -1349,7 +1537,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public List<String> getAllCachedLockPaths() {
 
-        return new ArrayList<String>(m_cacheLock.keySet());
+        return m_cacheLock.getAllPaths();
     }
 
     /**
@@ -1359,7 +1547,43 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public List<CmsLock> getAllCachedLocks() {
 
-        return new ArrayList<CmsLock>(m_cacheLock.values());
+        return m_cacheLock.getAll();
+    }
+
+    /**
+     * Returns all cached locks of the resource with the given root path and of all resources below it.<p>
+     * 
+     * @param rootPath the root path of the resource
+     * 
+     * @return a list of {@link CmsLock} objects
+     */
+    public List<CmsLock> getAllCachedLocksBelow(String rootPath) {
+
+        return m_cacheLock.getAllBelow(rootPath);
+    }
+
+    /**
+     * Returns all cached locks where the edition or system lock belongs to the given project.<p>
+     * 
+     * @param projectId the id of the project
+     * 
+     * @return a list of {@link CmsLock} objects
+     */
+    public List<CmsLock> getAllCachedLocksInProject(CmsUUID projectId) {
+
+        return m_cacheLock.getAllInProject(projectId);
+    }
+
+    /**
+     * Returns all cached locks where the edition or system lock is owned by the given user.<p>
+     * 
+     * @param userId the id of the user
+     * 
+     * @return a list of {@link CmsLock} objects
+     */
+    public List<CmsLock> getAllCachedLocksOfUser(CmsUUID userId) {
+
+        return m_cacheLock.getAllOfUser(userId);
     }
 
     /**
@@ -1384,6 +1608,18 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return new ArrayList<CmsPublishJobInfoBean>(m_publishHistory);
     }
 
+    /**
+     * Returns the access counters of the given cache.<p>
+     * 
+     * @param type the cache type
+     * 
+     * @return the access counters of the given cache
+     */
+    public CmsCacheStatistics getCacheStatistics(CacheType type) {
+
+        return m_cacheStatistics.get(type);
+    }
+
     /**
      * Returns the ACL cached with the given cache key or <code>null</code> if not found.<p>
      * 
@@ -1391,9 +1627,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      * 
      * @return the ACL cached with the given cache key
      */
-    public CmsAccessControlList getCachedACL(String key) {
+    public CmsAccessControlList getCachedACL(Object key) {
 
-        return m_cacheAccessControlList.get(key);
+        return countAccess(CacheType.ACL, m_cacheAccessControlList.get(key));
     }
 
     /**
@@ -1405,7 +1641,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public CmsXmlContentDefinition getCachedContentDefinition(String key) {
 
-        return m_cacheContentDefinitions.get(key);
+        return countAccess(CacheType.CONTENT_DEFINITION, m_cacheContentDefinitions.get(key));
     }
 
     /**
@@ -1417,7 +1653,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public CmsGroup getCachedGroup(String key) {
 
-        return m_cacheGroup.get(key);
+        return countAccess(CacheType.GROUP, m_cacheGroup.get(key));
     }
 
     /**
@@ -1433,7 +1669,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             // this may be accessed before initialization
             return null;
         }
-        return m_cacheLocale.get(key);
+        return countAccess(CacheType.LOCALE, m_cacheLocale.get(key));
     }
 
     /**
@@ -1448,6 +1684,19 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return m_cacheLock.get(rootPath);
     }
 
+    /**
+     * Returns the nearest cached lock of a parent folder of the given resource, 
+     * ignoring parent folders which only have a system lock.<p>
+     * 
+     * @param rootPath the root path of the resource
+     * 
+     * @return the edition lock of the parent folder, or <code>null</code> if no parent folder is locked
+     */
+    public CmsLock getCachedParentFolderLock(String rootPath) {
+
+        return m_cacheLock.getParentFolderLock(rootPath);
+    }
+
     /**
      * Returns the memory object cached with the given cache key or <code>null</code> if not found.<p>
      * 
@@ -1457,7 +1706,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public Object getCachedMemObject(String key) {
 
-        return m_cacheMemObject.get(key);
+        return countAccess(CacheType.MEMORY_OBJECT, m_cacheMemObject.get(key));
     }
 
     /**
@@ -1469,7 +1718,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public CmsOrganizationalUnit getCachedOrgUnit(String key) {
 
-        return m_cacheOrgUnit.get(key);
+        return countAccess(CacheType.ORG_UNIT, m_cacheOrgUnit.get(key));
     }
 
     /**
@@ -1479,9 +1728,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      * 
      * @return the permission check result cached with the given cache key
      */
-    public I_CmsPermissionHandler.CmsPermissionCheckResult getCachedPermission(String key) {
+    public I_CmsPermissionHandler.CmsPermissionCheckResult getCachedPermission(Object key) {
 
-        return m_cachePermission.get(key);
+        return countAccess(CacheType.PERMISSION, m_cachePermission.get(key));
     }
 
     /**
@@ -1493,7 +1742,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public CmsProject getCachedProject(String key) {
 
-        return m_cacheProject.get(key);
+        return countAccess(CacheType.PROJECT, m_cacheProject.get(key));
     }
 
     /**
@@ -1505,7 +1754,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public List<CmsResource> getCachedProjectResources(String key) {
 
-        return m_cacheProjectResources.get(key);
+        return countAccess(CacheType.PROJECT_RESOURCES, m_cacheProjectResources.get(key));
     }
 
     /**
@@ -1517,7 +1766,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public CmsProperty getCachedProperty(String key) {
 
-        return m_cacheProperty.get(key);
+        return countAccess(CacheType.PROPERTY, m_cacheProperty.get(key));
     }
 
     /**
@@ -1529,7 +1778,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public List<CmsProperty> getCachedPropertyList(String key) {
 
-        return m_cachePropertyList.get(key);
+        return countAccess(CacheType.PROPERTY_LIST, m_cachePropertyList.get(key));
     }
 
     /**
@@ -1541,7 +1790,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public List<CmsPublishedResource> getCachedPublishedResources(String cacheKey) {
 
-        return m_cachePublishedResources.get(cacheKey);
+        return countAccess(CacheType.PUBLISHED_RESOURCES, m_cachePublishedResources.get(cacheKey));
     }
 
     /**
@@ -1594,7 +1843,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public CmsResource getCachedResource(String key) {
 
-        return m_cacheResource.get(key);
+        return countAccess(CacheType.RESOURCE, m_cacheResource.get(key));
     }
 
     /**
@@ -1606,7 +1855,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public List<CmsResource> getCachedResourceList(String key) {
 
-        return m_cacheResourceList.get(key);
+        return countAccess(CacheType.RESOURCE_LIST, m_cacheResourceList.get(key));
     }
 
     /**
@@ -1618,7 +1867,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public Boolean getCachedRole(String key) {
 
-        return m_cacheHasRoles.get(key);
+        return countAccess(CacheType.HAS_ROLE, m_cacheHasRoles.get(key));
     }
 
     /**
@@ -1630,7 +1879,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public List<CmsRole> getCachedRoleList(String key) {
 
-        return m_cacheRoleLists.get(key);
+        return countAccess(CacheType.ROLE_LIST, m_cacheRoleLists.get(key));
     }
 
     /**
@@ -1642,7 +1891,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public CmsUser getCachedUser(String key) {
 
-        return m_cacheUser.get(key);
+        return countAccess(CacheType.USER, m_cacheUser.get(key));
     }
 
     /**
@@ -1654,7 +1903,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public List<CmsGroup> getCachedUserGroups(String key) {
 
-        return m_cacheUserGroups.get(key);
+        return countAccess(CacheType.USERGROUPS, m_cacheUserGroups.get(key));
     }
 
     /**
@@ -1666,7 +1915,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public List<CmsUser> getCachedUserList(String key) {
 
-        return m_cacheUserList.get(key);
+        return countAccess(CacheType.USER_LIST, m_cacheUserList.get(key));
     }
 
     /**
@@ -1678,7 +1927,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public Object getCachedVfsObject(String key) {
 
-        return m_cacheVfsObject.get(key);
+        return countAccess(CacheType.VFS_OBJECT, m_cacheVfsObject.get(key));
     }
 
     /**
@@ -1690,7 +1939,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public byte[] getCachedXmlPermanentEntity(String systemId) {
 
-        return m_cacheXmlPermanentEntity.get(systemId);
+        return countAccess(CacheType.XML_ENTITY_PERM, m_cacheXmlPermanentEntity.get(systemId));
     }
 
     /**
@@ -1702,7 +1951,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public byte[] getCachedXmlTemporaryEntity(String key) {
 
-        return m_cacheXmlTemporaryEntity.get(key);
+        return countAccess(CacheType.XML_ENTITY_TEMP, m_cacheXmlTemporaryEntity.get(key));
     }
 
     /**
@@ -1788,7 +2037,15 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             m_maxUsagePercent = m_configuration.getMaxUsagePercent();
         }
 
+        m_cacheEngine = cacheSettings.getCacheEngine();
+        if (m_cacheEngine == null) {
+            m_cacheEngine = new CmsLruCacheEngine();
+        }
+
         if (CmsLog.INIT.isInfoEnabled()) {
+            CmsLog.INIT.info(Messages.get().getBundle().key(
+                Messages.LOG_MM_CACHE_ENGINE_1,
+                m_cacheEngine.getClass().getName()));
             CmsLog.INIT.info(Messages.get().getBundle().key(
                 Messages.LOG_MM_INTERVAL_LOG_1,
                 new Integer(m_intervalLog / 1000)));
@@ -1823,8 +2080,8 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         // create and register all system caches
 
         // temporary xml entities cache
-        Map<String, byte[]> xmlTemporaryCache = CmsCollectionsGenericWrapper.createLRUMap(128);
-        m_cacheXmlTemporaryEntity = Collections.synchronizedMap(xmlTemporaryCache);
+        Map<String, byte[]> xmlTemporaryCache = createCache(CacheType.XML_ENTITY_TEMP, 128, null);
+        m_cacheXmlTemporaryEntity = synchronizeCache(xmlTemporaryCache);
         register(CmsXmlEntityResolver.class.getName() + ".xmlEntityTemporaryCache", m_cacheXmlTemporaryEntity);
 
         // permanent xml entities cache
@@ -1833,14 +2090,13 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         register(CmsXmlEntityResolver.class.getName() + ".xmlEntityPermanentCache", m_cacheXmlPermanentEntity);
 
         // xml content definitions cache
-        Map<String, CmsXmlContentDefinition> contentDefinitionsCache = CmsCollectionsGenericWrapper.createLRUMap(64);
-        m_cacheContentDefinitions = Collections.synchronizedMap(contentDefinitionsCache);
+        Map<String, CmsXmlContentDefinition> contentDefinitionsCache = createCache(CacheType.CONTENT_DEFINITION, 64, null);
+        m_cacheContentDefinitions = synchronizeCache(contentDefinitionsCache);
         register(CmsXmlEntityResolver.class.getName() + ".contentDefinitionsCache", m_cacheContentDefinitions);
 
         // lock cache
-        Map<String, CmsLock> lockCache = new HashMap<String, CmsLock>();
-        m_cacheLock = Collections.synchronizedMap(lockCache);
-        register(CmsLockManager.class.getName(), lockCache);
+        m_cacheLock = new CmsLockTable();
+        register(CmsLockManager.class.getName(), m_cacheLock.asMap());
 
         // locale cache
         Map<String, Locale> map = new HashMap<String, Locale>();
@@ -1848,43 +2104,43 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         register(CmsLocaleManager.class.getName(), map);
 
         // permissions cache
-        Map<String, I_CmsPermissionHandler.CmsPermissionCheckResult> lruPermissions = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getPermissionCacheSize());
-        m_cachePermission = Collections.synchronizedMap(lruPermissions);
+        Map<Object, I_CmsPermissionHandler.CmsPermissionCheckResult> lruPermissions = createCache(CacheType.PERMISSION, cacheSettings.getPermissionCacheSize(), null);
+        m_cachePermission = synchronizeCache(lruPermissions);
         register(CmsSecurityManager.class.getName(), lruPermissions);
 
         // user cache
-        Map<String, CmsUser> lruUsers = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getUserCacheSize());
-        m_cacheUser = Collections.synchronizedMap(lruUsers);
+        Map<String, CmsUser> lruUsers = createCache(CacheType.USER, cacheSettings.getUserCacheSize(), null);
+        m_cacheUser = synchronizeCache(lruUsers);
         register(CmsDriverManager.class.getName() + ".userCache", lruUsers);
 
         // user list cache
-        Map<String, List<CmsUser>> lruUserList = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getUserCacheSize());
-        m_cacheUserList = Collections.synchronizedMap(lruUserList);
+        Map<String, List<CmsUser>> lruUserList = createCache(CacheType.USER_LIST, cacheSettings.getUserCacheSize(), null);
+        m_cacheUserList = synchronizeCache(lruUserList);
         register(CmsDriverManager.class.getName() + ".userListCache", lruUserList);
 
         // group cache
-        Map<String, CmsGroup> lruGroup = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getGroupCacheSize());
-        m_cacheGroup = Collections.synchronizedMap(lruGroup);
+        Map<String, CmsGroup> lruGroup = createCache(CacheType.GROUP, cacheSettings.getGroupCacheSize(), null);
+        m_cacheGroup = synchronizeCache(lruGroup);
         register(CmsDriverManager.class.getName() + ".groupCache", lruGroup);
 
         // organizational unit cache
-        Map<String, CmsOrganizationalUnit> lruOrgUnit = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getOrgUnitCacheSize());
-        m_cacheOrgUnit = Collections.synchronizedMap(lruOrgUnit);
+        Map<String, CmsOrganizationalUnit> lruOrgUnit = createCache(CacheType.ORG_UNIT, cacheSettings.getOrgUnitCacheSize(), null);
+        m_cacheOrgUnit = synchronizeCache(lruOrgUnit);
         register(CmsDriverManager.class.getName() + ".orgUnitCache", lruOrgUnit);
 
         // user groups list cache
-        Map<String, List<CmsGroup>> lruUserGroups = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getUserGroupsCacheSize());
-        m_cacheUserGroups = Collections.synchronizedMap(lruUserGroups);
+        Map<String, List<CmsGroup>> lruUserGroups = createCache(CacheType.USERGROUPS, cacheSettings.getUserGroupsCacheSize(), null);
+        m_cacheUserGroups = synchronizeCache(lruUserGroups);
         register(CmsDriverManager.class.getName() + ".userGroupsCache", lruUserGroups);
 
         // project cache
-        Map<String, CmsProject> lruProjects = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getProjectCacheSize());
-        m_cacheProject = Collections.synchronizedMap(lruProjects);
+        Map<String, CmsProject> lruProjects = createCache(CacheType.PROJECT, cacheSettings.getProjectCacheSize(), null);
+        m_cacheProject = synchronizeCache(lruProjects);
         register(CmsDriverManager.class.getName() + ".projectCache", lruProjects);
 
         // project resources cache cache
-        Map<String, List<CmsResource>> lruProjectResources = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getProjectResourcesCacheSize());
-        m_cacheProjectResources = Collections.synchronizedMap(lruProjectResources);
+        Map<String, List<CmsResource>> lruProjectResources = createCache(CacheType.PROJECT_RESOURCES, cacheSettings.getProjectResourcesCacheSize(), null);
+        m_cacheProjectResources = synchronizeCache(lruProjectResources);
         register(CmsDriverManager.class.getName() + ".projectResourcesCache", lruProjectResources);
 
         // publish history
@@ -1899,43 +2155,43 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         register(CmsPublishQueue.class.getName() + ".publishQueue", buffer);
 
         // resource cache
-        Map<String, CmsResource> lruResources = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getResourceCacheSize());
-        m_cacheResource = Collections.synchronizedMap(lruResources);
+        Map<String, CmsResource> lruResources = createCache(CacheType.RESOURCE, cacheSettings.getResourceCacheSize(), m_indexResource);
+        m_cacheResource = synchronizeCache(lruResources);
         register(CmsDriverManager.class.getName() + ".resourceCache", lruResources);
 
         // roles cache
-        Map<String, Boolean> lruHasRoles = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getRolesCacheSize());
-        m_cacheHasRoles = Collections.synchronizedMap(lruHasRoles);
+        Map<String, Boolean> lruHasRoles = createCache(CacheType.HAS_ROLE, cacheSettings.getRolesCacheSize(), null);
+        m_cacheHasRoles = synchronizeCache(lruHasRoles);
         register(CmsDriverManager.class.getName() + ".rolesCache", lruHasRoles);
 
         // role lists cache
-        Map<String, List<CmsRole>> lruRoleLists = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getRolesCacheSize());
-        m_cacheRoleLists = Collections.synchronizedMap(lruRoleLists);
+        Map<String, List<CmsRole>> lruRoleLists = createCache(CacheType.ROLE_LIST, cacheSettings.getRolesCacheSize(), null);
+        m_cacheRoleLists = synchronizeCache(lruRoleLists);
         register(CmsDriverManager.class.getName() + ".roleListsCache", lruRoleLists);
 
         // resource list cache
-        Map<String, List<CmsResource>> lruResourceList = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getResourcelistCacheSize());
-        m_cacheResourceList = Collections.synchronizedMap(lruResourceList);
+        Map<String, List<CmsResource>> lruResourceList = createCache(CacheType.RESOURCE_LIST, cacheSettings.getResourcelistCacheSize(), m_indexResourceList);
+        m_cacheResourceList = synchronizeCache(lruResourceList);
         register(CmsDriverManager.class.getName() + ".resourceListCache", lruResourceList);
 
         // property cache
-        Map<String, CmsProperty> lruProperty = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getPropertyCacheSize());
-        m_cacheProperty = Collections.synchronizedMap(lruProperty);
+        Map<String, CmsProperty> lruProperty = createCache(CacheType.PROPERTY, cacheSettings.getPropertyCacheSize(), null);
+        m_cacheProperty = synchronizeCache(lruProperty);
         register(CmsDriverManager.class.getName() + ".propertyCache", lruProperty);
 
         // property list cache
-        Map<String, List<CmsProperty>> lruPropertyList = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getPropertyListsCacheSize());
-        m_cachePropertyList = Collections.synchronizedMap(lruPropertyList);
+        Map<String, List<CmsProperty>> lruPropertyList = createCache(CacheType.PROPERTY_LIST, cacheSettings.getPropertyListsCacheSize(), m_indexPropertyList);
+        m_cachePropertyList = synchronizeCache(lruPropertyList);
         register(CmsDriverManager.class.getName() + ".propertyListCache", lruPropertyList);
 
         // published resources list cache
-        Map<String, List<CmsPublishedResource>> lruPublishedResources = CmsCollectionsGenericWrapper.createLRUMap(5);
-        m_cachePublishedResources = Collections.synchronizedMap(lruPublishedResources);
+        Map<String, List<CmsPublishedResource>> lruPublishedResources = createCache(CacheType.PUBLISHED_RESOURCES, 5, null);
+        m_cachePublishedResources = synchronizeCache(lruPublishedResources);
         register(CmsDriverManager.class.getName() + ".publishedResourcesCache", lruPublishedResources);
 
         // acl cache
-        Map<String, CmsAccessControlList> lruAcl = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getAclCacheSize());
-        m_cacheAccessControlList = Collections.synchronizedMap(lruAcl);
+        Map<Object, CmsAccessControlList> lruAcl = createCache(CacheType.ACL, cacheSettings.getAclCacheSize(), null);
+        m_cacheAccessControlList = synchronizeCache(lruAcl);
         register(CmsDriverManager.class.getName() + ".accessControlListCache", lruAcl);
 
         // vfs object cache
@@ -2435,7 +2691,8 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /**
      * Returns the max costs for all items within a monitored object.<p>
      * 
-     * <code>obj</code> must be of type {@link CmsLruCache} or {@link LRUMap}.<p>
+     * <code>obj</code> must be of type {@link CmsLruCache}, {@link LRUMap}, {@link CmsConcurrentCacheMap} 
+     * or {@link CmsFlexCacheArena}.<p>
      * 
      * @param obj the object
      * 
@@ -2449,6 +2706,12 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         if (obj instanceof LRUMap) {
             return Integer.toString(((LRUMap)obj).maxSize());
         }
+        if (obj instanceof CmsConcurrentCacheMap) {
+            return Long.toString(((CmsConcurrentCacheMap<?, ?>)obj).getMaxWeight());
+        }
+        if (obj instanceof CmsFlexCacheArena) {
+            return Long.toString(((CmsFlexCacheArena)obj).getCapacity());
+        }
 
         return "-";
     }
@@ -2560,6 +2823,24 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                 + form.sprintf(Long.toString(size))
                 + "\n";
         }
+        for (Iterator<String> keys = keyList.iterator(); keys.hasNext();) {
+            String key = keys.next();
+            Object obj = m_monitoredObjects.get(key);
+            if (obj instanceof CmsFlexCacheArena) {
+                CmsFlexCacheArena arena = (CmsFlexCacheArena)obj;
+                content += "\nOff-heap storage "
+                    + key
+                    + ": "
+                    + arena.getUsedBytes()
+                    + " of "
+                    + arena.getCapacity()
+                    + " bytes used, occupancy "
+                    + arena.getOccupancy()
+                    + "%, fragmentation "
+                    + arena.getFragmentation()
+                    + "%\n";
+            }
+        }
         content += "\nTotal size of cache memory monitored: " + totalSize + " (" + (totalSize / 1048576) + ")\n\n";
 
         String from = m_configuration.getEmailSender();
@@ -2663,6 +2944,31 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                         form.sprintf(getItems(obj)),
                         form.sprintf(getLimit(obj)),
                         form.sprintf(Long.toString(size))}));
+                if (obj instanceof CmsFlexCacheArena) {
+                    CmsFlexCacheArena arena = (CmsFlexCacheArena)obj;
+                    LOG.info(Messages.get().getBundle().key(
+                        Messages.LOG_MM_OFFHEAP_STATUS_5,
+                        new Object[] {
+                            key,
+                            new Long(arena.getUsedBytes()),
+                            new Long(arena.getCapacity()),
+                            new Integer(arena.getOccupancy()),
+                            new Integer(arena.getFragmentation())}));
+                }
+            }
+
+            for (CacheType type : CacheType.values()) {
+                CmsCacheStatistics statistics = m_cacheStatistics.get(type);
+                if ((statistics.getHits() + statistics.getMisses()) > 0) {
+                    LOG.info(Messages.get().getBundle().key(
+                        Messages.LOG_MM_CACHE_STATISTICS_5,
+                        new Object[] {
+                            type.name(),
+                            new Long(statistics.getHits()),
+                            new Long(statistics.getMisses()),
+                            new Long(statistics.getEvictions()),
+                            new Long(statistics.getInvalidations())}));
+                }
             }
 
             LOG.info(Messages.get().getBundle().key(
@@ -2707,6 +3013,10 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                         poolname,
                         Integer.toString(OpenCms.getSqlManager().getActiveConnections(poolname)),
                         Integer.toString(OpenCms.getSqlManager().getIdleConnections(poolname))));
+                    LOG.info(Messages.get().getBundle().key(
+                        Messages.LOG_MM_CONNECTION_STATISTICS_2,
+                        poolname,
+                        OpenCms.getSqlManager().getConnectionStatistics(poolname)));
                 } catch (Exception exc) {
                     LOG.info(Messages.get().getBundle().key(
                         Messages.LOG_MM_CONNECTIONS_3,
@@ -2716,6 +3026,15 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                 }
             }
 
+            CmsSqlStatistics sqlStatistics = CmsSqlStatistics.getInstance();
+            LOG.info(Messages.get().getBundle().key(
+                Messages.LOG_MM_SQL_STATISTICS_4,
+                new Object[] {
+                    new Long(sqlStatistics.getStatementRequests()),
+                    new Long(sqlStatistics.getStatementsPrepared()),
+                    new Long(sqlStatistics.getBatches()),
+                    new Long(sqlStatistics.getBatchedRows())}));
+
             LOG.info(Messages.get().getBundle().key(
                 Messages.LOG_MM_STARTUP_TIME_2,
                 CmsDateUtil.getDateTimeShort(OpenCms.getSystemInfo().getStartupTime()),
@@ -2731,4 +3050,76 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_memoryCurrent.update();
         m_memoryAverage.calculateAverage(m_memoryCurrent);
     }
+
+    /**
+     * Counts a lookup in the given cache as hit or miss.<p>
+     * 
+     * @param <T> the type of the cached value
+     * @param type the cache type
+     * @param value the value found in the cache, or <code>null</code>
+     * 
+     * @return the given value
+     */
+    private <T> T countAccess(CacheType type, T value) {
+
+        if (value != null) {
+            m_cacheStatistics.get(type).addHit();
+        } else {
+            m_cacheStatistics.get(type).addMiss();
+        }
+        return value;
+    }
+
+    /**
+     * Creates a new bounded cache with the configured cache engine.<p>
+     * 
+     * @param <K> the key type
+     * @param <V> the value type
+     * @param type the cache type
+     * @param maxSize the configured maximum number of entries
+     * @param index the key index of the cache, or <code>null</code>
+     * 
+     * @return the new cache
+     */
+    private <K, V> Map<K, V> createCache(CacheType type, int maxSize, CmsCacheKeyIndex index) {
+
+        return m_cacheEngine.createCache(type, maxSize, m_cacheStatistics.get(type), index);
+    }
+
+    /**
+     * Removes the given keys from a cache and counts them as invalidations.<p>
+     * 
+     * @param type the cache type
+     * @param cache the cache
+     * @param keys the keys to remove
+     */
+    private void removeKeys(CacheType type, Map<String, ?> cache, Set<String> keys) {
+
+        if (keys.isEmpty()) {
+            return;
+        }
+        for (String key : keys) {
+            cache.remove(key);
+        }
+        m_cacheStatistics.get(type).addInvalidations(keys.size());
+    }
+
+    /**
+     * Returns a thread safe view of the given cache.<p>
+     * 
+     * Concurrent maps are returned unchanged, all other maps are synchronized.<p>
+     * 
+     * @param <K> the key type
+     * @param <V> the value type
+     * @param cache the cache
+     * 
+     * @return the thread safe cache
+     */
+    private <K, V> Map<K, V> synchronizeCache(Map<K, V> cache) {
+
+        if (cache instanceof ConcurrentMap) {
+            return cache;
+        }
+        return Collections.synchronizedMap(cache);
+    }
 }
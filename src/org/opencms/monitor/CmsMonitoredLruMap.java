@@ -0,0 +1,76 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import org.apache.commons.collections.map.LRUMap;
+
+/**
+ * LRU map that counts the entries removed because the size limit was reached.<p>
+ * 
+ * If a key index is given, the removed keys are also removed from the index.<p>
+ * 
+ * @since 8.5.2 
+ */
+class CmsMonitoredLruMap extends LRUMap {
+
+    /** The serial version id. */
+    private static final long serialVersionUID = -2539853040931446314L;
+
+    /** The key index, may be <code>null</code>. */
+    private transient CmsCacheKeyIndex m_index;
+
+    /** The cache counters. */
+    private transient CmsCacheStatistics m_statistics;
+
+    /**
+     * Creates a new LRU map.<p>
+     * 
+     * @param maxSize the maximum number of entries
+     * @param statistics the cache counters 
+     * @param index the key index, may be <code>null</code>
+     */
+    CmsMonitoredLruMap(int maxSize, CmsCacheStatistics statistics, CmsCacheKeyIndex index) {
+
+        super(maxSize);
+        m_statistics = statistics;
+        m_index = index;
+    }
+
+    /**
+     * @see org.apache.commons.collections.map.LRUMap#removeLRU(org.apache.commons.collections.map.AbstractLinkedMap.LinkEntry)
+     */
+    @Override
+    protected boolean removeLRU(LinkEntry entry) {
+
+        m_statistics.addEviction();
+        if (m_index != null) {
+            m_index.remove((String)entry.getKey());
+        }
+        return true;
+    }
+}
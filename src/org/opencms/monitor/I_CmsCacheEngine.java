@@ -0,0 +1,67 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import org.opencms.configuration.I_CmsConfigurationParameterHandler;
+import org.opencms.monitor.CmsMemoryMonitor.CacheType;
+
+import java.util.Map;
+
+/**
+ * Creates the maps used by the memory monitor for the bounded caches.<p>
+ * 
+ * The cache engine is configured in the <code>resultcache</code> node of <code>opencms-system.xml</code>.
+ * If no cache engine is configured, the {@link CmsLruCacheEngine} is used.<p>
+ * 
+ * @since 8.5.2 
+ * 
+ * @see org.opencms.monitor.CmsMemoryMonitor
+ */
+public interface I_CmsCacheEngine extends I_CmsConfigurationParameterHandler {
+
+    /**
+     * Creates a new cache.<p>
+     * 
+     * If the returned map does not implement {@link java.util.concurrent.ConcurrentMap}, 
+     * the memory monitor synchronizes all accesses to it.<p>
+     * 
+     * An implementation must count the entries removed by the cache itself with 
+     * {@link CmsCacheStatistics#addEviction()}, and must remove these entries from the 
+     * key index if an index is given. Hits and misses are counted by the memory monitor.<p>
+     * 
+     * @param <K> the key type
+     * @param <V> the value type
+     * @param type the cache type
+     * @param maxSize the configured maximum number of entries
+     * @param statistics the access counters of the cache
+     * @param index the key index of the cache, or <code>null</code>
+     * 
+     * @return the new cache
+     */
+    <K, V> Map<K, V> createCache(CacheType type, int maxSize, CmsCacheStatistics statistics, CmsCacheKeyIndex index);
+}
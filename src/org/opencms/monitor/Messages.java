@@ -43,9 +43,21 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_CLEAR_CACHE_MEM_CONS_0 = "LOG_CLEAR_CACHE_MEM_CONS_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_INVALID_CACHE_MAX_WEIGHT_2 = "LOG_INVALID_CACHE_MAX_WEIGHT_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_CACHE_ENGINE_1 = "LOG_MM_CACHE_ENGINE_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_CACHE_STATISTICS_5 = "LOG_MM_CACHE_STATISTICS_5";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_MM_CONNECTIONS_3 = "LOG_MM_CONNECTIONS_3";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_CONNECTION_STATISTICS_2 = "LOG_MM_CONNECTION_STATISTICS_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_MM_CREATED_1 = "LOG_MM_CREATED_1";
 
@@ -76,9 +88,15 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_MM_NOWARN_STATUS_5 = "LOG_MM_NOWARN_STATUS_5";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_OFFHEAP_STATUS_5 = "LOG_MM_OFFHEAP_STATUS_5";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_MM_SESSION_STAT_3 = "LOG_MM_SESSION_STAT_3";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_SQL_STATISTICS_4 = "LOG_MM_SQL_STATISTICS_4";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_MM_STARTUP_TIME_2 = "LOG_MM_STARTUP_TIME_2";
 
@@ -50,16 +50,34 @@ import org.opencms.security.CmsAuthentificationException;
 import org.opencms.security.CmsRole;
 import org.opencms.util.CmsUUID;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.commons.logging.Log;
 
 /**
  * This class is responsible for the publish process.<p>
  * 
+ * Up to the configured number of publish jobs are published at the same time, as long as
+ * they do not share any resources. Jobs that touch the same resources, the same contents or
+ * resources below each other are always published in the order they were enqueued.
+ * The publish events are fired one job after the other, so that the listeners do not 
+ * have to deal with concurrent notifications.<p>
+ * 
+ * Among the waiting jobs that may be started, interactive jobs are started before bulk jobs
+ * and the jobs of different users are started in turns, see {@link CmsPublishQueue#schedule(List, List)}.
+ * If configured, new jobs are coalesced with a waiting job of the same user that touches 
+ * the same resources. The queue wait and execution times of the finished jobs are collected 
+ * in {@link CmsPublishStatistics}.<p>
+ * 
  * @since 6.5.5
  */
 public final class CmsPublishEngine {
@@ -70,8 +88,8 @@ public final class CmsPublishEngine {
     /** The id of the admin user. */
     private CmsUUID m_adminUserId;
 
-    /** The current running publish job. */
-    private CmsPublishThread m_currentPublishThread;
+    /** The statistics of the finished bulk publish jobs. */
+    private final CmsPublishStatistics m_bulkPublishStatistics;
 
     /** The runtime info factory used during publishing. */
     private final I_CmsDbContextFactory m_dbContextFactory;
@@ -82,9 +100,18 @@ public final class CmsPublishEngine {
     /** The engine state. */
     private CmsPublishEngineState m_engineState;
 
+    /** The statistics of the finished interactive publish jobs. */
+    private final CmsPublishStatistics m_interactivePublishStatistics;
+
     /** The publish listeners. */
     private final CmsPublishListenerCollection m_listeners;
 
+    /** The maximum number of publish jobs running in parallel. */
+    private int m_parallelPublishJobs;
+
+    /** Lock used to fire the publish events of parallel publish jobs one after the other. */
+    private final Object m_publishEventLock = new Object();
+
     /** The publish history list with already published jobs. */
     private final CmsPublishHistory m_publishHistory;
 
@@ -94,6 +121,12 @@ public final class CmsPublishEngine {
     /** The amount of time the system will wait for a running publish job during shutdown. */
     private int m_publishQueueShutdowntime;
 
+    /** The statistics of all finished publish jobs. */
+    private final CmsPublishStatistics m_publishStatistics;
+
+    /** The running publish threads, in the order they were started. */
+    private final List<CmsPublishThread> m_runningPublishThreads;
+
     /** Is set during shutdown. */
     private boolean m_shuttingDown;
 
@@ -122,8 +155,15 @@ public final class CmsPublishEngine {
         m_publishQueue = new CmsPublishQueue(this);
         // initialize publish history
         m_publishHistory = new CmsPublishHistory(this);
+        // initialize publish statistics
+        m_publishStatistics = new CmsPublishStatistics();
+        m_interactivePublishStatistics = new CmsPublishStatistics();
+        m_bulkPublishStatistics = new CmsPublishStatistics();
         // initialize event handling
         m_listeners = new CmsPublishListenerCollection(this);
+        // initialize the running publish jobs
+        m_runningPublishThreads = new CopyOnWriteArrayList<CmsPublishThread>();
+        m_parallelPublishJobs = CmsPublishManager.DEFAULT_PARALLEL_JOBS;
         // set engine state to normal processing
         m_engineState = CmsPublishEngineState.ENGINE_STARTED;
         if (CmsLog.INIT.isInfoEnabled()) {
@@ -132,29 +172,17 @@ public final class CmsPublishEngine {
     }
 
     /**
-     * Abandons the given publish thread.<p>
+     * Abandons the oldest running publish thread.<p>
      */
     public void abandonThread() {
 
-        if (!m_currentPublishThread.isAlive()) {
-            // thread is dead
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_DEAD_JOB_0));
-            }
-        } else {
-            // thread is not dead, and we suppose it hangs :(
-            if (LOG.isWarnEnabled()) {
-                LOG.warn(Messages.get().getBundle().key(
-                    Messages.LOG_THREADSTORE_PUBLISH_THREAD_INTERRUPT_2,
-                    m_currentPublishThread.getName(),
-                    m_currentPublishThread.getUUID()));
-            }
-            m_currentPublishThread.interrupt();
+        CmsPublishThread publishThread = getCurrentPublishJob();
+        if (publishThread == null) {
+            // nothing to abandon, just try again
+            checkCurrentPublishJobThread();
+            return;
         }
-        // just throw it away
-        m_currentPublishThread = null;
-        // and try again
-        checkCurrentPublishJobThread();
+        abandonThread(publishThread);
     }
 
     /**
@@ -185,32 +213,125 @@ public final class CmsPublishEngine {
             return;
         }
 
-        // there is no running publish job
-        if (m_currentPublishThread == null) {
-            // but something is waiting in the queue
-            if (!m_publishQueue.isEmpty()) {
-                // start the next waiting publish job
-                CmsPublishJobInfoBean publishJob = m_publishQueue.next();
-                m_currentPublishThread = new CmsPublishThread(this, publishJob);
-                m_currentPublishThread.start();
-            } else {
-                // nothing to do
+        // clean up the threads that died without finishing their publish job
+        Iterator<CmsPublishThread> itThreads = m_runningPublishThreads.iterator();
+        while (itThreads.hasNext()) {
+            CmsPublishThread publishThread = itThreads.next();
+            if (!publishThread.isAlive()) {
                 if (LOG.isDebugEnabled()) {
-                    LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_NO_RUNNING_JOB_0));
+                    LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_DEAD_JOB_0));
                 }
+                m_runningPublishThreads.remove(publishThread);
+            }
+        }
+
+        if (m_publishQueue.isEmpty()) {
+            // nothing to do
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(Messages.get().getBundle().key(
+                    m_runningPublishThreads.isEmpty()
+                    ? Messages.LOG_PUBLISH_ENGINE_NO_RUNNING_JOB_0
+                    : Messages.LOG_PUBLISH_ENGINE_WAITING_0));
             }
             return;
         }
-        if (m_currentPublishThread.isAlive()) {
-            // normal running
-            // wait until it is finished
+
+        // the waiting jobs may not overlap with the running jobs or with the jobs enqueued before them
+        SortedSet<String> blockedPaths = new TreeSet<String>();
+        Set<CmsUUID> blockedResourceIds = new HashSet<CmsUUID>();
+        List<CmsPublishJobInfoBean> runningJobs = new ArrayList<CmsPublishJobInfoBean>();
+        itThreads = m_runningPublishThreads.iterator();
+        while (itThreads.hasNext()) {
+            CmsPublishJobInfoBean runningJob = itThreads.next().getPublishJob();
+            runningJobs.add(runningJob);
+            addPublishedResources(runningJob, blockedPaths, blockedResourceIds);
+        }
+        List<CmsPublishJobInfoBean> startableJobs = new ArrayList<CmsPublishJobInfoBean>();
+        Iterator<CmsPublishJobInfoBean> itJobs = m_publishQueue.getPublishJobs().iterator();
+        while (itJobs.hasNext()) {
+            CmsPublishJobInfoBean publishJob = itJobs.next();
+            if (!isOverlapping(publishJob, blockedPaths, blockedResourceIds)) {
+                startableJobs.add(publishJob);
+            }
+            addPublishedResources(publishJob, blockedPaths, blockedResourceIds);
+        }
+        // the startable jobs are disjoint, so they can be started in any order
+        boolean started = false;
+        itJobs = m_publishQueue.schedule(startableJobs, runningJobs).iterator();
+        while (itJobs.hasNext() && (m_runningPublishThreads.size() < m_parallelPublishJobs)) {
+            CmsPublishJobInfoBean publishJob = itJobs.next();
+            if (m_publishQueue.take(publishJob)) {
+                // start the waiting publish job
+                CmsPublishThread publishThread = new CmsPublishThread(this, publishJob);
+                m_runningPublishThreads.add(publishThread);
+                publishThread.start();
+                started = true;
+            }
+        }
+        if (!started && LOG.isDebugEnabled()) {
+            // wait until a running job is finished
+            LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_WAITING_0));
+        }
+    }
+
+    /**
+     * Adds the resources of the given publish list to a waiting publish job of the same user,
+     * instead of enqueuing a new publish job.<p>
+     * 
+     * This is only done if coalescing is enabled and the latest waiting publish job that touches
+     * the same resources belongs to the same user and project, since the resources would have to wait
+     * for this publish job anyway. After coalescing, the given publish list has the publish history id 
+     * of the waiting publish job.<p>
+     * 
+     * All resources should already be locked.<p>
+     * 
+     * @param cms the cms context to publish for
+     * @param publishList the resources to publish
+     * @param report the report to write to
+     * 
+     * @return <code>true</code> if the resources have been added to a waiting publish job, 
+     *      <code>false</code> if a new publish job has to be enqueued
+     */
+    public synchronized boolean coalescePublishJob(CmsObject cms, CmsPublishList publishList, I_CmsReport report) {
+
+        if (!OpenCms.getPublishManager().isCoalescePublishJobs()
+            || m_shuttingDown
+            || (m_driverManager == null)
+            || (publishList.size() == 0)) {
+            return false;
+        }
+        SortedSet<String> paths = new TreeSet<String>();
+        Set<CmsUUID> resourceIds = new HashSet<CmsUUID>();
+        addPublishedResources(publishList, paths, resourceIds);
+        CmsUUID userId = cms.getRequestContext().getCurrentUser().getId();
+        CmsUUID projectId = cms.getRequestContext().getCurrentProject().getUuid();
+        // the resources may not be published before a later waiting job that touches them
+        List<CmsPublishJobInfoBean> waitingJobs = m_publishQueue.getPublishJobs();
+        for (int i = waitingJobs.size() - 1; i >= 0; i--) {
+            CmsPublishJobInfoBean publishJob = waitingJobs.get(i);
+            if (!isOverlapping(publishJob, paths, resourceIds)) {
+                continue;
+            }
+            if ((publishJob.getPublishList() == null)
+                || !publishJob.getUserId().equals(userId)
+                || !publishJob.getProjectId().equals(projectId)
+                || !m_driverManager.mergePublishList(publishJob.getPublishList(), publishList)) {
+                return false;
+            }
+            m_publishQueue.updatePublishList(publishJob);
+            if (report != null) {
+                report.println(
+                    Messages.get().container(Messages.RPT_PUBLISH_JOB_COALESCED_1, publishJob.getPublishHistoryId()),
+                    I_CmsReport.FORMAT_NOTE);
+            }
             if (LOG.isDebugEnabled()) {
-                LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_WAITING_0));
+                LOG.debug(Messages.get().getBundle().key(
+                    Messages.RPT_PUBLISH_JOB_COALESCED_1,
+                    publishJob.getPublishHistoryId()));
             }
-        } else {
-            // clean up the dead thread
-            abandonThread();
+            return true;
         }
+        return false;
     }
 
     /**
@@ -271,10 +392,13 @@ public final class CmsPublishEngine {
      */
     public CmsPublishJobBase getJobByPublishHistoryId(CmsUUID publishHistoryId) {
 
-        // try current running job
-        if ((m_currentPublishThread != null)
-            && m_currentPublishThread.getPublishJob().getPublishHistoryId().equals(publishHistoryId)) {
-            return new CmsPublishJobRunning(m_currentPublishThread.getPublishJob());
+        // try current running jobs
+        Iterator<CmsPublishThread> itThreads = m_runningPublishThreads.iterator();
+        while (itThreads.hasNext()) {
+            CmsPublishJobInfoBean runningJob = itThreads.next().getPublishJob();
+            if (runningJob.getPublishHistoryId().equals(publishHistoryId)) {
+                return new CmsPublishJobRunning(runningJob);
+            }
         }
         // try enqueued jobs
         Iterator<CmsPublishJobEnqueued> itEnqueuedJobs = getPublishQueue().asList().iterator();
@@ -332,10 +456,10 @@ public final class CmsPublishEngine {
         // prevent new publish jobs are accepted
         m_shuttingDown = true;
 
-        // if a job is currently running, 
+        // if jobs are currently running, 
         // wait the specified amount of time,
-        // then write an abort message to the report
-        if (m_currentPublishThread != null) {
+        // then write an abort message to their reports
+        if (!m_runningPublishThreads.isEmpty()) {
 
             // if a shutdown time is defined, wait  if a publish process is running
             if (m_publishQueueShutdowntime > 0) {
@@ -348,8 +472,9 @@ public final class CmsPublishEngine {
                 }
             }
 
-            if (m_currentPublishThread != null) {
-                CmsPublishJobInfoBean publishJob = m_currentPublishThread.getPublishJob();
+            Iterator<CmsPublishThread> itThreads = m_runningPublishThreads.iterator();
+            while (itThreads.hasNext()) {
+                CmsPublishJobInfoBean publishJob = itThreads.next().getPublishJob();
                 try {
                     abortPublishJob(m_adminUserId, new CmsPublishJobEnqueued(publishJob), false);
                 } catch (CmsException e) {
@@ -395,8 +520,9 @@ public final class CmsPublishEngine {
         // abort event should be raised before the job is removed implicitly
         m_listeners.fireAbort(userId, publishJob);
 
-        if ((m_currentPublishThread == null) || !publishJob.m_publishJob.equals(m_currentPublishThread.getPublishJob())) {
-            // engine is currently publishing another job or is not publishing
+        CmsPublishThread publishThread = getPublishThread(publishJob.m_publishJob);
+        if (publishThread == null) {
+            // engine is currently publishing other jobs or is not publishing
             if (!m_publishQueue.abortPublishJob(publishJob.m_publishJob)) {
                 // job not found
                 throw new CmsPublishException(Messages.get().container(
@@ -404,10 +530,10 @@ public final class CmsPublishEngine {
             }
         } else if (!m_shuttingDown) {
             // engine is currently publishing the job to abort
-            m_currentPublishThread.abort();
-        } else if (m_shuttingDown && (m_currentPublishThread != null)) {
-            // aborting the current job during shut down
-            I_CmsReport report = m_currentPublishThread.getReport();
+            publishThread.abort();
+        } else {
+            // aborting a running job during shut down
+            I_CmsReport report = publishThread.getReport();
             report.println();
             report.println();
             report.println(
@@ -430,6 +556,19 @@ public final class CmsPublishEngine {
         }
     }
 
+    /**
+     * Abandons the thread of the given running publish job.<p>
+     * 
+     * @param publishJob the running publish job
+     */
+    protected void abandonThread(CmsPublishJobInfoBean publishJob) {
+
+        CmsPublishThread publishThread = getPublishThread(publishJob);
+        if (publishThread != null) {
+            abandonThread(publishThread);
+        }
+    }
+
     /**
      * Adds a publish listener to listen on publish events.<p>
      * 
@@ -455,7 +594,7 @@ public final class CmsPublishEngine {
 
         m_engineState = CmsPublishEngineState.ENGINE_STARTED;
         // start publish job if jobs waiting
-        if ((m_currentPublishThread == null) && !m_publishQueue.isEmpty()) {
+        if ((m_runningPublishThreads.size() < m_parallelPublishJobs) && !m_publishQueue.isEmpty()) {
             checkCurrentPublishJobThread();
         }
     }
@@ -463,11 +602,14 @@ public final class CmsPublishEngine {
     /**
      * Returns the current running publish job.<p>
      * 
+     * If several publish jobs are running, the one that was started first is returned.<p>
+     * 
      * @return the current running publish job
      */
     protected CmsPublishThread getCurrentPublishJob() {
 
-        return m_currentPublishThread;
+        Iterator<CmsPublishThread> itThreads = m_runningPublishThreads.iterator();
+        return itThreads.hasNext() ? itThreads.next() : null;
     }
 
     /**
@@ -512,6 +654,22 @@ public final class CmsPublishEngine {
         return m_publishQueue;
     }
 
+    /**
+     * Returns the statistics of the finished publish jobs.<p>
+     * 
+     * @param interactive <code>null</code> for the statistics of all publish jobs, otherwise 
+     *      the statistics of the interactive or bulk publish jobs only
+     * 
+     * @return the publish statistics
+     */
+    protected CmsPublishStatistics getPublishStatistics(Boolean interactive) {
+
+        if (interactive == null) {
+            return m_publishStatistics;
+        }
+        return interactive.booleanValue() ? m_interactivePublishStatistics : m_bulkPublishStatistics;
+    }
+
     /**
      * Returns the content of the publish report assigned to the given publish job.<p>
      * 
@@ -536,6 +694,16 @@ public final class CmsPublishEngine {
         return result;
     }
 
+    /**
+     * Returns the running publish threads, in the order they were started.<p>
+     * 
+     * @return the running publish threads
+     */
+    protected List<CmsPublishThread> getRunningPublishThreads() {
+
+        return new ArrayList<CmsPublishThread>(m_runningPublishThreads);
+    }
+
     /**
      * Returns the user identified by the given id.<p>
      * 
@@ -563,11 +731,15 @@ public final class CmsPublishEngine {
      * @param adminCms the admin cms
      * @param publishQueuePersistance flag if the queue is persisted
      * @param publishQueueShutdowntime amount of time to wait for a publish job during shutdown
+     * @param parallelPublishJobs the maximum number of publish jobs running in parallel
      * 
      * @throws CmsException if something goes wrong
      */
-    protected void initialize(CmsObject adminCms, boolean publishQueuePersistance, int publishQueueShutdowntime)
-    throws CmsException {
+    protected void initialize(
+        CmsObject adminCms,
+        boolean publishQueuePersistance,
+        int publishQueueShutdowntime,
+        int parallelPublishJobs) throws CmsException {
 
         // check the driver manager
         if ((m_driverManager == null) || (m_dbContextFactory == null)) {
@@ -575,6 +747,7 @@ public final class CmsPublishEngine {
         }
 
         m_publishQueueShutdowntime = publishQueueShutdowntime;
+        m_parallelPublishJobs = Math.max(1, parallelPublishJobs);
 
         // initially the engine is stopped, must be restartet after full system initialization
         m_engineState = CmsPublishEngineState.ENGINE_STOPPED;
@@ -593,7 +766,7 @@ public final class CmsPublishEngine {
      */
     protected boolean isRunning() {
 
-        return (((m_engineState == CmsPublishEngineState.ENGINE_STARTED) && !m_publishQueue.isEmpty()) || (m_currentPublishThread != null));
+        return (((m_engineState == CmsPublishEngineState.ENGINE_STARTED) && !m_publishQueue.isEmpty()) || !m_runningPublishThreads.isEmpty());
     }
 
     /**
@@ -637,57 +810,11 @@ public final class CmsPublishEngine {
             LOG.error(t.getLocalizedMessage(), t);
         }
 
-        // trigger the old event mechanism
-        CmsDbContext dbc = m_dbContextFactory.getDbContext(publishJob.getCmsObject().getRequestContext());
-        try {
-            // fire an event that a project has been published
-            Map<String, Object> eventData = new HashMap<String, Object>();
-            eventData.put(I_CmsEventListener.KEY_REPORT, publishJob.getPublishReport());
-            eventData.put(
-                I_CmsEventListener.KEY_PUBLISHID,
-                publishJob.getPublishList().getPublishHistoryId().toString());
-            eventData.put(I_CmsEventListener.KEY_PROJECTID, dbc.currentProject().getUuid());
-            eventData.put(I_CmsEventListener.KEY_DBCONTEXT, dbc);
-            CmsEvent afterPublishEvent = new CmsEvent(I_CmsEventListener.EVENT_PUBLISH_PROJECT, eventData);
-            OpenCms.fireCmsEvent(afterPublishEvent);
-        } catch (Throwable t) {
-            dbc.rollback();
-            LOG.error(t);
-            // catch every thing including runtime exceptions
-            publishJob.getPublishReport().println(t);
-        } finally {
-            try {
-                dbc.clear();
-            } catch (Throwable t) {
-                // ignore
-            }
-            dbc = null;
-        }
-        try {
-            // fire the publish finish event
-            m_listeners.fireFinish(new CmsPublishJobRunning(publishJob));
-        } catch (Throwable t) {
-            // log failure, most likely a database problem
-            LOG.error(t.getLocalizedMessage(), t);
-        }
-        try {
-            // finish the job
-            publishJob.finish();
-        } catch (Throwable t) {
-            // log failure, most likely a database problem
-            LOG.error(t.getLocalizedMessage(), t);
-        }
-        try {
-            // put the publish job into the history list
-            m_publishHistory.add(publishJob);
-        } catch (Throwable t) {
-            // log failure, most likely a database problem
-            LOG.error(t.getLocalizedMessage(), t);
-        }
-        if (Thread.currentThread() == m_currentPublishThread) {
-            // wipe the dead thread, only if this thread has not been abandoned
-            m_currentPublishThread = null;
+        synchronized (m_publishEventLock) {
+            fireFinishEvents(publishJob);
         }
+        // wipe the finished thread, only if this thread has not been abandoned
+        m_runningPublishThreads.remove(Thread.currentThread());
         // clear the published resources cache
         OpenCms.getMemoryMonitor().flushCache(CmsMemoryMonitor.CacheType.PUBLISHED_RESOURCES);
         // try to start a new publish job
@@ -712,13 +839,14 @@ public final class CmsPublishEngine {
      */
     protected void publishJobStarted(CmsPublishJobInfoBean publishJob) {
 
-        // update the job
-        m_publishQueue.update(publishJob);
+        synchronized (m_publishEventLock) {
+            // update the job
+            m_publishQueue.update(publishJob);
 
-        // fire the publish start event
-        m_listeners.fireStart(new CmsPublishJobEnqueued(publishJob));
+            // fire the publish start event
+            m_listeners.fireStart(new CmsPublishJobEnqueued(publishJob));
+        }
     }
-
     /**
      * Removes the given publish listener.<p>
      * 
@@ -762,7 +890,7 @@ public final class CmsPublishEngine {
         if (m_engineState != CmsPublishEngineState.ENGINE_STARTED) {
             m_engineState = CmsPublishEngineState.ENGINE_STARTED;
             // start publish job if jobs waiting
-            if ((m_currentPublishThread == null) && !m_publishQueue.isEmpty()) {
+            if ((m_runningPublishThreads.size() < m_parallelPublishJobs) && !m_publishQueue.isEmpty()) {
                 checkCurrentPublishJobThread();
             }
         }
@@ -803,6 +931,146 @@ public final class CmsPublishEngine {
         }
     }
 
+    /**
+     * Abandons the given publish thread.<p>
+     * 
+     * @param publishThread the publish thread to abandon
+     */
+    private void abandonThread(CmsPublishThread publishThread) {
+
+        if (!publishThread.isAlive()) {
+            // thread is dead
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_DEAD_JOB_0));
+            }
+        } else {
+            // thread is not dead, and we suppose it hangs :(
+            if (LOG.isWarnEnabled()) {
+                LOG.warn(Messages.get().getBundle().key(
+                    Messages.LOG_THREADSTORE_PUBLISH_THREAD_INTERRUPT_2,
+                    publishThread.getName(),
+                    publishThread.getUUID()));
+            }
+            publishThread.interrupt();
+        }
+        // just throw it away
+        m_runningPublishThreads.remove(publishThread);
+        // and try again
+        checkCurrentPublishJobThread();
+    }
+
+    /**
+     * Adds the root paths and resource ids of the resources of the given publish job to the given sets.<p>
+     * 
+     * @param publishJob the publish job
+     * @param paths the root paths to add to
+     * @param resourceIds the resource ids to add to
+     */
+    private void addPublishedResources(CmsPublishJobInfoBean publishJob, Set<String> paths, Set<CmsUUID> resourceIds) {
+
+        addPublishedResources(publishJob.getPublishList(), paths, resourceIds);
+    }
+
+    /**
+     * Adds the root paths and resource ids of the resources of the given publish list to the given sets.<p>
+     * 
+     * @param publishList the publish list, or <code>null</code> if the resources are unknown
+     * @param paths the root paths to add to
+     * @param resourceIds the resource ids to add to
+     */
+    private void addPublishedResources(CmsPublishList publishList, Set<String> paths, Set<CmsUUID> resourceIds) {
+
+        if (publishList == null) {
+            // unknown resources, block everything
+            paths.add("/");
+            return;
+        }
+        Iterator<CmsResource> itResources = publishList.getAllResources().iterator();
+        while (itResources.hasNext()) {
+            CmsResource resource = itResources.next();
+            paths.add(resource.getRootPath());
+            resourceIds.add(resource.getResourceId());
+        }
+    }
+
+    /**
+     * Fires the events for a finished publish job and moves the job to the publish history.<p>
+     * 
+     * @param publishJob the finished publish job
+     */
+    private void fireFinishEvents(CmsPublishJobInfoBean publishJob) {
+
+        // trigger the old event mechanism
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(publishJob.getCmsObject().getRequestContext());
+        try {
+            // fire an event that a project has been published
+            Map<String, Object> eventData = new HashMap<String, Object>();
+            eventData.put(I_CmsEventListener.KEY_REPORT, publishJob.getPublishReport());
+            eventData.put(
+                I_CmsEventListener.KEY_PUBLISHID,
+                publishJob.getPublishList().getPublishHistoryId().toString());
+            eventData.put(I_CmsEventListener.KEY_PROJECTID, dbc.currentProject().getUuid());
+            eventData.put(I_CmsEventListener.KEY_DBCONTEXT, dbc);
+            CmsEvent afterPublishEvent = new CmsEvent(I_CmsEventListener.EVENT_PUBLISH_PROJECT, eventData);
+            OpenCms.fireCmsEvent(afterPublishEvent);
+        } catch (Throwable t) {
+            dbc.rollback();
+            LOG.error(t);
+            // catch every thing including runtime exceptions
+            publishJob.getPublishReport().println(t);
+        } finally {
+            try {
+                dbc.clear();
+            } catch (Throwable t) {
+                // ignore
+            }
+            dbc = null;
+        }
+        try {
+            // fire the publish finish event
+            m_listeners.fireFinish(new CmsPublishJobRunning(publishJob));
+        } catch (Throwable t) {
+            // log failure, most likely a database problem
+            LOG.error(t.getLocalizedMessage(), t);
+        }
+        try {
+            // finish the job
+            publishJob.finish();
+            // update the statistics
+            m_publishStatistics.add(publishJob);
+            getPublishStatistics(Boolean.valueOf(publishJob.isInteractive())).add(publishJob);
+        } catch (Throwable t) {
+            // log failure, most likely a database problem
+            LOG.error(t.getLocalizedMessage(), t);
+        }
+        try {
+            // put the publish job into the history list
+            m_publishHistory.add(publishJob);
+        } catch (Throwable t) {
+            // log failure, most likely a database problem
+            LOG.error(t.getLocalizedMessage(), t);
+        }
+    }
+
+    /**
+     * Returns the running publish thread for the given publish job.<p>
+     * 
+     * @param publishJob the publish job
+     * 
+     * @return the publish thread, or <code>null</code> if the publish job is not running
+     */
+    private CmsPublishThread getPublishThread(CmsPublishJobInfoBean publishJob) {
+
+        Iterator<CmsPublishThread> itThreads = m_runningPublishThreads.iterator();
+        while (itThreads.hasNext()) {
+            CmsPublishThread publishThread = itThreads.next();
+            if (publishThread.getPublishJob().equals(publishJob)) {
+                return publishThread;
+            }
+        }
+        return null;
+    }
+
     /**
      * Returns <code>true</code> if the login manager allows login.<p>
      * 
@@ -822,4 +1090,46 @@ public final class CmsPublishEngine {
             return false;
         }
     }
+
+    /**
+     * Checks if the given publish job touches any of the given resources.<p>
+     * 
+     * A publish job overlaps if it contains a resource with one of the given root paths or resource ids,
+     * a resource below one of the given root paths or a folder that contains one of the given root paths.<p>
+     * 
+     * @param publishJob the publish job to check
+     * @param paths the root paths of the blocked resources
+     * @param resourceIds the resource ids of the blocked resources
+     * 
+     * @return <code>true</code> if the publish job overlaps with the given resources
+     */
+    private boolean isOverlapping(CmsPublishJobInfoBean publishJob, SortedSet<String> paths, Set<CmsUUID> resourceIds) {
+
+        CmsPublishList publishList = publishJob.getPublishList();
+        if (publishList == null) {
+            return true;
+        }
+        if (paths.isEmpty() && resourceIds.isEmpty()) {
+            return false;
+        }
+        Iterator<CmsResource> itResources = publishList.getAllResources().iterator();
+        while (itResources.hasNext()) {
+            CmsResource resource = itResources.next();
+            if (resourceIds.contains(resource.getResourceId())) {
+                return true;
+            }
+            String rootPath = resource.getRootPath();
+            String path = rootPath;
+            while (path != null) {
+                if (paths.contains(path)) {
+                    return true;
+                }
+                path = CmsResource.getParentFolder(path);
+            }
+            if (resource.isFolder() && !paths.subSet(rootPath, rootPath + Character.MAX_VALUE).isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
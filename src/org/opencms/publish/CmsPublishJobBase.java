@@ -141,4 +141,14 @@ public class CmsPublishJobBase {
 
         return m_publishJob.isDirectPublish();
     }
-}
+
+    /**
+     * Returns if this is an interactive publish job, which is published before the waiting bulk publish jobs.<p>
+     * 
+     * @return <code>true</code> if this is an interactive publish job
+     */
+    public boolean isInteractive() {
+
+        return m_publishJob.isInteractive();
+    }
+}
\ No newline at end of file
@@ -54,6 +54,19 @@ public class CmsPublishJobFinished extends CmsPublishJobBase {
         return m_publishJob.getEnqueueTime();
     }
 
+    /**
+     * Returns the time in milliseconds the publish job was running.<p>
+     *
+     * @return the execution time of the publish job, or <code>0</code> if the publish job was never started
+     */
+    public long getExecutionTime() {
+
+        if (m_publishJob.getStartTime() == 0L) {
+            return 0L;
+        }
+        return Math.max(0L, m_publishJob.getFinishTime() - m_publishJob.getStartTime());
+    }
+
     /**
      * Returns the time the publish job ends.<p>
      *
@@ -64,6 +77,21 @@ public class CmsPublishJobFinished extends CmsPublishJobBase {
         return m_publishJob.getFinishTime();
     }
 
+    /**
+     * Returns the time in milliseconds the publish job was waiting in the publish queue.<p>
+     *
+     * @return the queue wait time of the publish job
+     */
+    public long getQueueWaitTime() {
+
+        long startTime = m_publishJob.getStartTime();
+        if (startTime == 0L) {
+            // the publish job was aborted while waiting
+            startTime = m_publishJob.getFinishTime();
+        }
+        return Math.max(0L, startTime - m_publishJob.getEnqueueTime());
+    }
+
     /**
      * Returns the time the publish job did actually start.<p>
      *
@@ -62,6 +62,9 @@ public final class CmsPublishJobInfoBean {
     /** Time the publish job did end. */
     private long m_finishTime;
 
+    /** Indicates if this is an interactive publish job. */
+    private boolean m_interactive;
+
     /** The locale to use for publishing. */
     private Locale m_locale;
 
@@ -437,6 +440,18 @@ public final class CmsPublishJobInfoBean {
         return m_directPublish;
     }
 
+    /**
+     * Returns if this is an interactive publish job.<p>
+     * 
+     * Interactive publish jobs are published before the bulk publish jobs waiting in the queue.<p>
+     *
+     * @return <code>true</code> if this is an interactive publish job
+     */
+    protected boolean isInteractive() {
+
+        return m_interactive;
+    }
+
     /**
      * Returns if the publish job is already finished.<p>
      * 
@@ -457,6 +472,16 @@ public final class CmsPublishJobInfoBean {
         return (m_startTime != 0L);
     }
 
+    /**
+     * Sets if this is an interactive publish job.<p>
+     * 
+     * @param interactive <code>true</code> if this is an interactive publish job
+     */
+    protected void setInteractive(boolean interactive) {
+
+        m_interactive = interactive;
+    }
+
     /**
      * Signalizes the start of the publish job.<p> 
      * Actually sets the starting time, writes the report header and sets the running thread uuid.<p>
@@ -474,4 +499,14 @@ public final class CmsPublishJobInfoBean {
             ((CmsPublishReport)m_publishReport).start();
         }
     }
+
+    /**
+     * Updates the number of resources to publish after resources have been added to the publish list.<p>
+     */
+    protected void updateSize() {
+
+        if (m_publishList != null) {
+            m_size = m_publishList.size();
+        }
+    }
 }
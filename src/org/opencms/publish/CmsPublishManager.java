@@ -42,6 +42,7 @@ import org.opencms.report.CmsShellReport;
 import org.opencms.report.I_CmsReport;
 import org.opencms.security.CmsRole;
 import org.opencms.security.CmsSecurityException;
+import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
 import java.util.ArrayList;
@@ -57,9 +58,21 @@ import java.util.Map;
  */
 public class CmsPublishManager {
 
+    /** The default setting for coalescing waiting publish jobs. */
+    public static final boolean DEFAULT_COALESCE_JOBS = false;
+
     /** The default history size. */
     public static final int DEFAULT_HISTORY_SIZE = 100;
 
+    /** The default maximum size of interactive publish jobs, 0 means publish jobs are not classified by size. */
+    public static final int DEFAULT_INTERACTIVE_JOB_SIZE = 0;
+
+    /** The default number of publish jobs running in parallel. */
+    public static final int DEFAULT_PARALLEL_JOBS = 1;
+
+    /** The default number of threads used to publish the files of a publish job. */
+    public static final int DEFAULT_PUBLISH_THREADS = 1;
+
     /** The default persistence setting for the publish queue. */
     public static final boolean DEFAULT_QUEUE_PERSISTANCE = false;
 
@@ -69,9 +82,21 @@ public class CmsPublishManager {
     /** Milliseconds in a second. */
     private static final int MS_ONE_SECOND = 1000;
 
+    /** Indicates if waiting publish jobs of the same user are coalesced with new publish jobs. */
+    private boolean m_coalescePublishJobs;
+
     /** Indicates if the configuration can be modified. */
     private boolean m_frozen;
 
+    /** The maximum number of resources of an interactive publish job. */
+    private int m_interactiveJobSize;
+
+    /** The name of the role whose publish jobs are always interactive. */
+    private String m_interactiveRole;
+
+    /** The maximum number of publish jobs running in parallel. */
+    private int m_parallelPublishJobs;
+
     /** The underlying publish engine. */
     private CmsPublishEngine m_publishEngine;
 
@@ -84,6 +109,9 @@ public class CmsPublishManager {
     /** The amount of time to wait for a publish job during shutdown. */
     private int m_publishQueueShutdowntime;
 
+    /** The number of threads used to publish the files of a publish job. */
+    private int m_publishThreads;
+
     /** The security manager. */
     private CmsSecurityManager m_securityManager;
 
@@ -93,6 +121,10 @@ public class CmsPublishManager {
     public CmsPublishManager() {
 
         m_publishEngine = null;
+        m_parallelPublishJobs = DEFAULT_PARALLEL_JOBS;
+        m_publishThreads = DEFAULT_PUBLISH_THREADS;
+        m_interactiveJobSize = DEFAULT_INTERACTIVE_JOB_SIZE;
+        m_coalescePublishJobs = DEFAULT_COALESCE_JOBS;
         m_frozen = false;
     }
 
@@ -109,6 +141,10 @@ public class CmsPublishManager {
         m_publishHistorySize = historySize;
         m_publishQueuePersistance = queuePersistance;
         m_publishQueueShutdowntime = queueShutdowntime;
+        m_parallelPublishJobs = DEFAULT_PARALLEL_JOBS;
+        m_publishThreads = DEFAULT_PUBLISH_THREADS;
+        m_interactiveJobSize = DEFAULT_INTERACTIVE_JOB_SIZE;
+        m_coalescePublishJobs = DEFAULT_COALESCE_JOBS;
         m_frozen = false;
     }
 
@@ -120,6 +156,16 @@ public class CmsPublishManager {
         m_publishEngine.abandonThread();
     }
 
+    /**
+     * Abandons the thread of the given running publish job.<p>
+     * 
+     * @param publishJob the running publish job
+     */
+    public void abandonThread(CmsPublishJobRunning publishJob) {
+
+        m_publishEngine.abandonThread(publishJob.m_publishJob);
+    }
+
     /**
      * Aborts the given publish job.<p>
      * 
@@ -186,10 +232,11 @@ public class CmsPublishManager {
      */
     public CmsPublishJobRunning getCurrentPublishJob() {
 
-        if (m_publishEngine.getCurrentPublishJob() == null) {
+        CmsPublishThread publishThread = m_publishEngine.getCurrentPublishJob();
+        if (publishThread == null) {
             return null;
         }
-        return new CmsPublishJobRunning(m_publishEngine.getCurrentPublishJob().getPublishJob());
+        return new CmsPublishJobRunning(publishThread.getPublishJob());
     }
 
     /**
@@ -206,6 +253,39 @@ public class CmsPublishManager {
         return m_publishEngine.getJobByPublishHistoryId(publishHistoryId);
     }
 
+    /**
+     * Returns the maximum number of resources of an interactive publish job.<p>
+     * 
+     * Interactive publish jobs are published before the bulk publish jobs waiting in the queue.
+     * A value of <code>0</code> means that publish jobs are not classified by their size.<p>
+     * 
+     * @return the maximum number of resources of an interactive publish job
+     */
+    public int getInteractiveJobSize() {
+
+        return m_interactiveJobSize;
+    }
+
+    /**
+     * Returns the name of the role whose publish jobs are always interactive.<p>
+     * 
+     * @return the role name, or <code>null</code> if publish jobs are not classified by role
+     */
+    public String getInteractiveRole() {
+
+        return m_interactiveRole;
+    }
+
+    /**
+     * Returns the maximum number of publish jobs that are published at the same time.<p>
+     * 
+     * @return the maximum number of parallel publish jobs
+     */
+    public int getParallelPublishJobs() {
+
+        return m_parallelPublishJobs;
+    }
+
     /**
      * Returns the publish history list with already publish jobs.<p>
      * 
@@ -375,6 +455,40 @@ public class CmsPublishManager {
         return m_publishQueueShutdowntime;
     }
 
+    /**
+     * Returns the queue wait and execution time statistics of all publish jobs finished since startup.<p>
+     * 
+     * @return the publish statistics
+     */
+    public CmsPublishStatistics getPublishStatistics() {
+
+        return m_publishEngine.getPublishStatistics(null);
+    }
+
+    /**
+     * Returns the queue wait and execution time statistics of the interactive or the bulk publish jobs
+     * finished since startup.<p>
+     * 
+     * @param interactive <code>true</code> for the statistics of the interactive publish jobs, 
+     *      <code>false</code> for the statistics of the bulk publish jobs
+     * 
+     * @return the publish statistics
+     */
+    public CmsPublishStatistics getPublishStatistics(boolean interactive) {
+
+        return m_publishEngine.getPublishStatistics(Boolean.valueOf(interactive));
+    }
+
+    /**
+     * Returns the number of threads used to publish the files of a single publish job.<p>
+     * 
+     * @return the number of publish threads
+     */
+    public int getPublishThreads() {
+
+        return m_publishThreads;
+    }
+
     /**
      * Returns a new publish list that contains the unpublished resources related 
      * to all resources in the given publish list, the related resources exclude 
@@ -408,6 +522,21 @@ public class CmsPublishManager {
         return m_publishEngine.getReportContents(publishJob);
     }
 
+    /**
+     * Returns the currently running publish jobs, in the order they were started.<p>
+     * 
+     * @return a list of {@link CmsPublishJobRunning} objects
+     */
+    public List<CmsPublishJobRunning> getRunningPublishJobs() {
+
+        List<CmsPublishJobRunning> result = new ArrayList<CmsPublishJobRunning>();
+        Iterator<CmsPublishThread> itThreads = m_publishEngine.getRunningPublishThreads().iterator();
+        while (itThreads.hasNext()) {
+            result.add(new CmsPublishJobRunning(itThreads.next().getPublishJob()));
+        }
+        return result;
+    }
+
     /**
      * Returns the current user's publish list.<p>
      * 
@@ -431,10 +560,21 @@ public class CmsPublishManager {
      */
     public void initialize(CmsObject cms) throws CmsException {
 
-        m_publishEngine.initialize(cms, m_publishQueuePersistance, m_publishQueueShutdowntime);
+        m_publishEngine.initialize(cms, m_publishQueuePersistance, m_publishQueueShutdowntime, m_parallelPublishJobs);
         m_frozen = true;
     }
 
+    /**
+     * Returns if new publish jobs are coalesced with the waiting publish jobs of the same user 
+     * that touch the same resources.<p>
+     * 
+     * @return <code>true</code> if publish jobs are coalesced
+     */
+    public boolean isCoalescePublishJobs() {
+
+        return m_coalescePublishJobs;
+    }
+
     /**
      * Returns if the publish queue is persisted an will be re-initialized on startup.<p>
      * 
@@ -609,6 +749,61 @@ public class CmsPublishManager {
         m_securityManager.removeResourceFromUsersPubList(cms.getRequestContext(), structureIds);
     }
 
+    /**
+     * Sets if new publish jobs are coalesced with the waiting publish jobs of the same user 
+     * that touch the same resources.<p>
+     * 
+     * @param coalescePublishJobs the coalescing flag, parsed as <code>boolean</code>
+     */
+    public void setCoalescePublishJobs(String coalescePublishJobs) {
+
+        if (m_frozen) {
+            throw new CmsRuntimeException(Messages.get().container(Messages.ERR_CONFIG_FROZEN_0));
+        }
+        m_coalescePublishJobs = Boolean.valueOf(coalescePublishJobs).booleanValue();
+    }
+
+    /**
+     * Sets the maximum number of resources of an interactive publish job.<p>
+     * 
+     * @param interactiveJobSize the maximum number of resources, parsed as <code>int</code>
+     */
+    public void setInteractiveJobSize(String interactiveJobSize) {
+
+        if (m_frozen) {
+            throw new CmsRuntimeException(Messages.get().container(Messages.ERR_CONFIG_FROZEN_0));
+        }
+        m_interactiveJobSize = Math.max(0, Integer.parseInt(interactiveJobSize));
+    }
+
+    /**
+     * Sets the name of the role whose publish jobs are always interactive.<p>
+     * 
+     * @param interactiveRole the role name, for example <code>WORKPLACE_USER</code>
+     */
+    public void setInteractiveRole(String interactiveRole) {
+
+        if (m_frozen) {
+            throw new CmsRuntimeException(Messages.get().container(Messages.ERR_CONFIG_FROZEN_0));
+        }
+        m_interactiveRole = CmsStringUtil.isEmptyOrWhitespaceOnly(interactiveRole) ? null : interactiveRole.trim();
+    }
+
+    /**
+     * Sets the maximum number of publish jobs that are published at the same time.<p>
+     * 
+     * Only publish jobs with disjoint resources are published in parallel.<p>
+     * 
+     * @param parallelPublishJobs the maximum number of parallel publish jobs, parsed as <code>int</code>
+     */
+    public void setParallelPublishJobs(String parallelPublishJobs) {
+
+        if (m_frozen) {
+            throw new CmsRuntimeException(Messages.get().container(Messages.ERR_CONFIG_FROZEN_0));
+        }
+        m_parallelPublishJobs = Math.max(1, Integer.parseInt(parallelPublishJobs));
+    }
+
     /**
      * Sets the publish engine during initialization.<p>
      * 
@@ -661,6 +856,19 @@ public class CmsPublishManager {
         m_publishQueueShutdowntime = Integer.parseInt(publishQueueShutdowntime);
     }
 
+    /**
+     * Sets the number of threads used to publish the files of a single publish job.<p>
+     * 
+     * @param publishThreads the number of publish threads, parsed as <code>int</code>
+     */
+    public void setPublishThreads(String publishThreads) {
+
+        if (m_frozen) {
+            throw new CmsRuntimeException(Messages.get().container(Messages.ERR_CONFIG_FROZEN_0));
+        }
+        m_publishThreads = Math.max(1, Integer.parseInt(publishThreads));
+    }
+
     /**
      * Sets the security manager during initialization.<p>
      * 
@@ -30,15 +30,22 @@ package org.opencms.publish;
 import org.opencms.db.CmsDbContext;
 import org.opencms.db.CmsDriverManager;
 import org.opencms.file.CmsObject;
+import org.opencms.file.CmsUser;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
 import org.opencms.monitor.CmsMemoryMonitor;
+import org.opencms.security.CmsRole;
+import org.opencms.util.CmsUUID;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.collections.Buffer;
 import org.apache.commons.collections.BufferUtils;
@@ -49,6 +56,11 @@ import org.apache.commons.logging.Log;
 /**
  * This queue contains all not jet started publish jobs.<p>
  * 
+ * The publish jobs are kept in the order they were enqueued. The publish engine
+ * uses {@link #schedule(List, List)} to decide which of the publish jobs that may be started
+ * is published first: interactive publish jobs are published before bulk publish jobs, 
+ * and within each class the publish jobs of the different users are published in turns.<p>
+ * 
  * @since 6.5.5
  */
 public class CmsPublishQueue {
@@ -126,6 +138,7 @@ public class CmsPublishQueue {
 
         // set the queue status in the publish job
         publishJob.enqueue();
+        publishJob.setInteractive(isInteractive(publishJob));
 
         // add job to database if necessary
         if (OpenCms.getMemoryMonitor().requiresPersistency()) {
@@ -185,6 +198,19 @@ public class CmsPublishQueue {
         return false;
     }
 
+    /**
+     * Returns the publish jobs waiting in this queue, in the order they were enqueued.<p>
+     * 
+     * @return a list of {@link CmsPublishJobInfoBean} objects
+     */
+    protected List<CmsPublishJobInfoBean> getPublishJobs() {
+
+        if (OpenCms.getMemoryMonitor() == null) {
+            return Collections.emptyList();
+        }
+        return OpenCms.getMemoryMonitor().getAllCachedPublishJobs();
+    }
+
     /**
      * Initializes the internal FIFO queue with publish jobs from the database.<p>
      * 
@@ -217,6 +243,7 @@ public class CmsPublishQueue {
                             // add jobs not already started to queue again
                             try {
                                 job.revive(adminCms, driverManager.readPublishList(dbc, job.getPublishHistoryId()));
+                                job.setInteractive(isInteractive(job));
                                 m_publishEngine.lockPublishList(job);
                                 OpenCms.getMemoryMonitor().cachePublishJob(job);
                             } catch (CmsException exc) {
@@ -267,6 +294,45 @@ public class CmsPublishQueue {
         return ((OpenCms.getMemoryMonitor() == null) || (OpenCms.getMemoryMonitor().getFirstCachedPublishJob() == null));
     }
 
+    /**
+     * Checks if the given publish job is an interactive publish job.<p>
+     * 
+     * A publish job is interactive if it has not more resources than the configured
+     * interactive job size, or if its user has the configured interactive role.<p>
+     * 
+     * @param publishJob the publish job to check
+     * 
+     * @return <code>true</code> if the given publish job is an interactive publish job
+     * 
+     * @see CmsPublishManager#getInteractiveJobSize()
+     * @see CmsPublishManager#getInteractiveRole()
+     */
+    protected boolean isInteractive(CmsPublishJobInfoBean publishJob) {
+
+        CmsPublishManager publishManager = OpenCms.getPublishManager();
+        int interactiveJobSize = publishManager.getInteractiveJobSize();
+        if ((interactiveJobSize > 0) && (publishJob.getSize() <= interactiveJobSize)) {
+            return true;
+        }
+        String roleName = publishManager.getInteractiveRole();
+        if ((roleName == null) || (publishJob.getCmsObject() == null)) {
+            return false;
+        }
+        CmsRole role = CmsRole.valueOfRoleName(roleName);
+        if (role == null) {
+            return false;
+        }
+        CmsObject cms = publishJob.getCmsObject();
+        try {
+            // the cms object may be an admin cms object for revived publish jobs, so check the publish job user
+            CmsUser user = cms.readUser(publishJob.getUserId());
+            return OpenCms.getRoleManager().hasRole(cms, user.getName(), role);
+        } catch (CmsException e) {
+            LOG.warn(e.getLocalizedMessage(), e);
+            return false;
+        }
+    }
+
     /**
      * Returns the next publish job to be published, removing it 
      * from the queue, or <code>null</code> if the queue is empty.<p> 
@@ -314,6 +380,100 @@ public class CmsPublishQueue {
         }
     }
 
+    /**
+     * Returns the given publish jobs in the order they should be started.<p>
+     * 
+     * Interactive publish jobs come before bulk publish jobs. Within each class, the publish jobs
+     * are ordered by the number of running and earlier waiting publish jobs of their user, so that
+     * no user can starve the others by enqueuing many publish jobs. Publish jobs with the same 
+     * rank keep the order in which they were enqueued.<p>
+     * 
+     * @param publishJobs the waiting publish jobs that may be started, in the order they were enqueued
+     * @param runningJobs the running publish jobs
+     * 
+     * @return the publish jobs, in the order they should be started
+     */
+    protected List<CmsPublishJobInfoBean> schedule(
+        List<CmsPublishJobInfoBean> publishJobs,
+        List<CmsPublishJobInfoBean> runningJobs) {
+
+        // the number of running publish jobs of each user count for both classes
+        Map<CmsUUID, Integer> runningCounts = new HashMap<CmsUUID, Integer>();
+        Iterator<CmsPublishJobInfoBean> itJobs = runningJobs.iterator();
+        while (itJobs.hasNext()) {
+            incrementCount(runningCounts, itJobs.next().getUserId());
+        }
+        Map<CmsUUID, Integer> interactiveCounts = new HashMap<CmsUUID, Integer>(runningCounts);
+        Map<CmsUUID, Integer> bulkCounts = new HashMap<CmsUUID, Integer>(runningCounts);
+        final Map<CmsPublishJobInfoBean, Integer> ranks = new IdentityHashMap<CmsPublishJobInfoBean, Integer>();
+        itJobs = publishJobs.iterator();
+        while (itJobs.hasNext()) {
+            CmsPublishJobInfoBean publishJob = itJobs.next();
+            ranks.put(
+                publishJob,
+                incrementCount(publishJob.isInteractive() ? interactiveCounts : bulkCounts, publishJob.getUserId()));
+        }
+        List<CmsPublishJobInfoBean> result = new ArrayList<CmsPublishJobInfoBean>(publishJobs);
+        // the sort is stable, so publish jobs with the same rank keep their order
+        Collections.sort(result, new Comparator<CmsPublishJobInfoBean>() {
+
+            public int compare(CmsPublishJobInfoBean job1, CmsPublishJobInfoBean job2) {
+
+                if (job1.isInteractive() != job2.isInteractive()) {
+                    return job1.isInteractive() ? -1 : 1;
+                }
+                return ranks.get(job1).compareTo(ranks.get(job2));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Removes the given publish job from the queue in order to publish it.<p>
+     * 
+     * This is used to publish a job before the jobs enqueued earlier, 
+     * if they can not be published in parallel with the running publish jobs.<p>
+     * 
+     * @param publishJob the publish job to take
+     * 
+     * @return <code>true</code> if the publish job was still waiting in the queue
+     */
+    protected boolean take(CmsPublishJobInfoBean publishJob) {
+
+        if (OpenCms.getMemoryMonitor().getCachedPublishJob(publishJob.getPublishHistoryId().toString()) == null) {
+            // the publish job has been aborted in the meantime
+            return false;
+        }
+        OpenCms.getMemoryMonitor().uncachePublishJob(publishJob);
+        return true;
+    }
+
+    /**
+     * Updates the given waiting job after resources have been added to its publish list.<p>
+     * 
+     * @param publishJob the publish job to update
+     */
+    protected void updatePublishList(CmsPublishJobInfoBean publishJob) {
+
+        publishJob.updateSize();
+        publishJob.setInteractive(isInteractive(publishJob));
+
+        // rewrite the job in the database if necessary, since the publish list is only written on creation
+        if (OpenCms.getMemoryMonitor().requiresPersistency()) {
+            CmsDbContext dbc = m_publishEngine.getDbContext(null);
+            try {
+                m_publishEngine.getDriverManager().deletePublishJob(dbc, publishJob.getPublishHistoryId());
+                m_publishEngine.getDriverManager().createPublishJob(dbc, publishJob);
+            } catch (CmsException e) {
+                // the publish job is still published, it is only not revived with all resources after a restart
+                dbc.rollback();
+                LOG.error(e.getLocalizedMessage(), e);
+            } finally {
+                dbc.clear();
+            }
+        }
+    }
+
     /**
      * Updates the given job in the list.<p>
      * 
@@ -335,4 +495,22 @@ public class CmsPublishQueue {
             }
         }
     }
+
+    /**
+     * Increments the count for the given user.<p>
+     * 
+     * @param counts the counts, by user id
+     * @param userId the user id
+     * 
+     * @return the count before incrementing it
+     */
+    private Integer incrementCount(Map<CmsUUID, Integer> counts, CmsUUID userId) {
+
+        Integer count = counts.get(userId);
+        if (count == null) {
+            count = new Integer(0);
+        }
+        counts.put(userId, new Integer(count.intValue() + 1));
+        return count;
+    }
 }
@@ -0,0 +1,188 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.publish;
+
+/**
+ * Queue wait time and execution time statistics of finished publish jobs.<p>
+ * 
+ * The queue wait time of a publish job is the time between enqueuing and starting it,
+ * the execution time is the time between starting and finishing it. The values of the 
+ * single publish jobs are available from {@link CmsPublishJobFinished}.<p>
+ * 
+ * @since 8.5.2
+ * 
+ * @see CmsPublishHistory
+ */
+public class CmsPublishStatistics {
+
+    /** The sum of the execution times. */
+    private long m_executionTime;
+
+    /** The number of finished publish jobs. */
+    private long m_jobCount;
+
+    /** The maximum execution time. */
+    private long m_maxExecutionTime;
+
+    /** The maximum queue wait time. */
+    private long m_maxWaitTime;
+
+    /** The number of published resources. */
+    private long m_resourceCount;
+
+    /** The sum of the queue wait times. */
+    private long m_waitTime;
+
+    /**
+     * Creates new, empty publish statistics.<p>
+     */
+    public CmsPublishStatistics() {
+
+        // empty
+    }
+
+    /**
+     * Returns the average execution time of the publish jobs in milliseconds.<p>
+     * 
+     * @return the average execution time
+     */
+    public synchronized long getAverageExecutionTime() {
+
+        return (m_jobCount > 0) ? m_executionTime / m_jobCount : 0L;
+    }
+
+    /**
+     * Returns the average queue wait time of the publish jobs in milliseconds.<p>
+     * 
+     * @return the average queue wait time
+     */
+    public synchronized long getAverageWaitTime() {
+
+        return (m_jobCount > 0) ? m_waitTime / m_jobCount : 0L;
+    }
+
+    /**
+     * Returns the number of finished publish jobs.<p>
+     * 
+     * @return the number of finished publish jobs
+     */
+    public synchronized long getJobCount() {
+
+        return m_jobCount;
+    }
+
+    /**
+     * Returns the maximum execution time of the publish jobs in milliseconds.<p>
+     * 
+     * @return the maximum execution time
+     */
+    public synchronized long getMaxExecutionTime() {
+
+        return m_maxExecutionTime;
+    }
+
+    /**
+     * Returns the maximum queue wait time of the publish jobs in milliseconds.<p>
+     * 
+     * @return the maximum queue wait time
+     */
+    public synchronized long getMaxWaitTime() {
+
+        return m_maxWaitTime;
+    }
+
+    /**
+     * Returns the number of resources published by the publish jobs.<p>
+     * 
+     * @return the number of published resources
+     */
+    public synchronized long getResourceCount() {
+
+        return m_resourceCount;
+    }
+
+    /**
+     * Returns the sum of the execution times of the publish jobs in milliseconds.<p>
+     * 
+     * @return the sum of the execution times
+     */
+    public synchronized long getTotalExecutionTime() {
+
+        return m_executionTime;
+    }
+
+    /**
+     * Returns the sum of the queue wait times of the publish jobs in milliseconds.<p>
+     * 
+     * @return the sum of the queue wait times
+     */
+    public synchronized long getTotalWaitTime() {
+
+        return m_waitTime;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public synchronized String toString() {
+
+        StringBuffer result = new StringBuffer();
+        result.append("[jobs: ").append(m_jobCount);
+        result.append(", resources: ").append(m_resourceCount);
+        result.append(", average wait time: ").append(getAverageWaitTime());
+        result.append("ms, max wait time: ").append(m_maxWaitTime);
+        result.append("ms, average execution time: ").append(getAverageExecutionTime());
+        result.append("ms, max execution time: ").append(m_maxExecutionTime);
+        result.append("ms]");
+        return result.toString();
+    }
+
+    /**
+     * Adds the times of the given finished publish job to these statistics.<p>
+     * 
+     * Publish jobs that were never started, for example because they were aborted
+     * while waiting in the queue, are ignored.<p>
+     * 
+     * @param publishJob the finished publish job
+     */
+    protected synchronized void add(CmsPublishJobInfoBean publishJob) {
+
+        if ((publishJob.getStartTime() == 0L) || (publishJob.getFinishTime() == 0L)) {
+            return;
+        }
+        long waitTime = Math.max(0L, publishJob.getStartTime() - publishJob.getEnqueueTime());
+        long executionTime = Math.max(0L, publishJob.getFinishTime() - publishJob.getStartTime());
+        m_jobCount++;
+        m_resourceCount += publishJob.getSize();
+        m_waitTime += waitTime;
+        m_executionTime += executionTime;
+        m_maxWaitTime = Math.max(m_maxWaitTime, waitTime);
+        m_maxExecutionTime = Math.max(m_maxExecutionTime, executionTime);
+    }
+}
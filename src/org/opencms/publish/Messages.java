@@ -178,6 +178,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String RPT_PUBLISH_JOB_ABORT_SHUTDOWN_0 = "RPT_PUBLISH_JOB_ABORT_SHUTDOWN_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_PUBLISH_JOB_COALESCED_1 = "RPT_PUBLISH_JOB_COALESCED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String RPT_PUBLISH_PROJECT_BEGIN_0 = "RPT_PUBLISH_PROJECT_BEGIN_0";
 
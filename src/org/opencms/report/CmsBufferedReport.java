@@ -0,0 +1,177 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.report;
+
+import org.opencms.i18n.CmsMessageContainer;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Report that collects its output and writes it to another report on request.<p>
+ *
+ * This is used if several threads work in parallel for the same report, so that
+ * the output of each thread can be written to the report as a whole,
+ * without being mixed up with the output of the other threads.<p>
+ *
+ * @since 8.5.2
+ */
+public class CmsBufferedReport extends A_CmsReport {
+
+    /** The collected report entries. */
+    private List<Object[]> m_entries;
+
+    /** The report to write the collected output to. */
+    private I_CmsReport m_report;
+
+    /**
+     * Creates a new buffered report for the given report.<p>
+     *
+     * @param report the report to write the collected output to
+     */
+    public CmsBufferedReport(I_CmsReport report) {
+
+        init(report.getLocale(), null);
+        m_report = report;
+        m_entries = new ArrayList<Object[]>();
+    }
+
+    /**
+     * Writes the collected output to the underlying report and clears this buffer.<p>
+     */
+    public synchronized void flush() {
+
+        synchronized (m_report) {
+            Iterator<Object[]> itEntries = m_entries.iterator();
+            while (itEntries.hasNext()) {
+                Object[] entry = itEntries.next();
+                if (entry[0] instanceof Throwable) {
+                    m_report.println((Throwable)entry[0]);
+                } else if (entry[0] == null) {
+                    m_report.println();
+                } else if (((Boolean)entry[2]).booleanValue()) {
+                    m_report.println((CmsMessageContainer)entry[0], ((Integer)entry[1]).intValue());
+                } else {
+                    m_report.print((CmsMessageContainer)entry[0], ((Integer)entry[1]).intValue());
+                }
+            }
+        }
+        m_entries.clear();
+    }
+
+    /**
+     * Returns the report this buffer writes its output to.<p>
+     *
+     * @return the underlying report
+     */
+    public I_CmsReport getReport() {
+
+        return m_report;
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#getReportUpdate()
+     */
+    public String getReportUpdate() {
+
+        return "";
+    }
+
+    /**
+     * @see org.opencms.report.A_CmsReport#print(org.opencms.i18n.CmsMessageContainer)
+     */
+    @Override
+    public void print(CmsMessageContainer container) {
+
+        print(container, FORMAT_DEFAULT);
+    }
+
+    /**
+     * @see org.opencms.report.A_CmsReport#print(org.opencms.i18n.CmsMessageContainer, int)
+     */
+    @Override
+    public synchronized void print(CmsMessageContainer container, int format) {
+
+        m_entries.add(new Object[] {container, new Integer(format), Boolean.FALSE});
+        setLastEntryTime(System.currentTimeMillis());
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#println()
+     */
+    public synchronized void println() {
+
+        m_entries.add(new Object[] {null, null, Boolean.TRUE});
+    }
+
+    /**
+     * @see org.opencms.report.A_CmsReport#println(org.opencms.i18n.CmsMessageContainer)
+     */
+    @Override
+    public void println(CmsMessageContainer container) {
+
+        println(container, FORMAT_DEFAULT);
+    }
+
+    /**
+     * @see org.opencms.report.A_CmsReport#println(org.opencms.i18n.CmsMessageContainer, int)
+     */
+    @Override
+    public synchronized void println(CmsMessageContainer container, int format) {
+
+        m_entries.add(new Object[] {container, new Integer(format), Boolean.TRUE});
+        setLastEntryTime(System.currentTimeMillis());
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#println(java.lang.Throwable)
+     */
+    public synchronized void println(Throwable t) {
+
+        m_entries.add(new Object[] {t, null, Boolean.TRUE});
+    }
+
+    /**
+     * @see org.opencms.report.A_CmsReport#removeSiteRoot(java.lang.String)
+     */
+    @Override
+    public String removeSiteRoot(String resourcename) {
+
+        return m_report.removeSiteRoot(resourcename);
+    }
+
+    /**
+     * @see org.opencms.report.A_CmsReport#print(java.lang.String, int)
+     */
+    @Override
+    protected void print(String value, int format) {
+
+        print(Messages.get().container(Messages.RPT_ARGUMENT_1, value), format);
+    }
+}
@@ -46,12 +46,17 @@ import javax.servlet.ServletException;
 /**
  * A schedulable OpenCms job to write a complete static export (e.g. nightly exports).<p>
  * 
- * This job does not have any parameters.<p>
+ * The parameter <code>incremental</code> can be set to <code>true</code> to write an incremental 
+ * export, which only exports resources whose sources have changed since the last incremental export, 
+ * instead of purging and re-rendering the complete export. The default is <code>false</code>.<p>
  * 
  * @since 6.0.0 
  */
 public class CmsStaticExportJob implements I_CmsScheduledJob {
 
+    /** Name of the parameter to enable the incremental export. */
+    public static final String PARAM_INCREMENTAL = "incremental";
+
     /**
      * @see org.opencms.scheduler.I_CmsScheduledJob#launch(CmsObject, Map)
      */
@@ -61,9 +66,14 @@ public class CmsStaticExportJob implements I_CmsScheduledJob {
 
         try {
             report = new CmsLogReport(cms.getRequestContext().getLocale(), CmsStaticExportJob.class);
-            OpenCms.getStaticExportManager().exportFullStaticRender(true, report);
+            boolean incremental = Boolean.valueOf(parameters.get(PARAM_INCREMENTAL)).booleanValue();
+            if (incremental) {
+                OpenCms.getStaticExportManager().exportIncrementalStaticRender(report);
+            } else {
+                OpenCms.getStaticExportManager().exportFullStaticRender(true, report);
+            }
             Map<String, Object> eventData = new HashMap<String, Object>();
-            eventData.put("purge", Boolean.TRUE);
+            eventData.put("purge", Boolean.valueOf(!incremental));
             eventData.put(I_CmsEventListener.KEY_REPORT, report);
             OpenCms.fireCmsEvent(new CmsEvent(I_CmsEventListener.EVENT_FULLSTATIC_EXPORT, eventData));
         } catch (CmsException e) {
@@ -117,16 +117,18 @@ public class CmsIndexingThread extends Thread {
             m_result = createIndexDocument(m_cms, m_res, m_index, m_count, m_report);
             docOk = true;
 
-            // check if the thread was interrupted
-            if (isInterrupted() && LOG.isDebugEnabled()) {
+            // check if the thread was interrupted, this may also be a worker thread executing this
+            if (Thread.currentThread().isInterrupted() && LOG.isDebugEnabled()) {
                 LOG.debug(Messages.get().getBundle().key(Messages.LOG_ABANDONED_THREAD_FINISHED_1, m_res.getRootPath()));
             }
 
         } catch (CmsIndexNoContentException e) {
             // Ignore exception caused by empty documents, so that the report is not messed up with error message
-            m_report.println(
-                org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
-                I_CmsReport.FORMAT_OK);
+            if (m_report != null) {
+                m_report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
+                    I_CmsReport.FORMAT_OK);
+            }
         } catch (Exception exc) {
             if (m_report != null) {
                 m_report.println(
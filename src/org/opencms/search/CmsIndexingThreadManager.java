@@ -27,38 +27,144 @@
 
 package org.opencms.search;
 
+import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
 import org.opencms.i18n.CmsMessageContainer;
+import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
+import org.opencms.report.CmsBufferedReport;
 import org.opencms.report.CmsLogReport;
 import org.opencms.report.I_CmsReport;
 
 import java.io.IOException;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 
 /**
  * Implements the management of indexing threads.<p>
  * 
+ * If more than one indexing thread is configured, the text extraction of the documents 
+ * is done by a pool of worker threads, while the documents are written to the index
+ * by the thread that calls this manager, in the order the resources have been added.
+ * The timeout for abandoning the extraction of a single document is kept in this case, 
+ * the worker thread of an abandoned document is replaced with a new one.<p>
+ * 
  * @since 6.0.0 
  */
 public class CmsIndexingThreadManager {
 
+    /**
+     * An indexing task executed by the worker thread pool.<p>
+     */
+    private class CmsIndexingTask implements Callable<I_CmsSearchDocument> {
+
+        /** Task state: abandoned because of a timeout. */
+        private static final int STATE_ABANDONED = 2;
+
+        /** Task state: finished normally. */
+        private static final int STATE_FINISHED = 1;
+
+        /** Task state: still running. */
+        private static final int STATE_RUNNING = 0;
+
+        /** The future of the task. */
+        private Future<I_CmsSearchDocument> m_future;
+
+        /** The indexer the task was created for. */
+        private CmsVfsIndexer m_indexer;
+
+        /** The report buffer of the task, or <code>null</code> if no report is used. */
+        private CmsBufferedReport m_report;
+
+        /** The resource to index. */
+        private CmsResource m_resource;
+
+        /** The state of the task. */
+        private AtomicInteger m_state;
+
+        /** The time the task was submitted. */
+        private long m_submitTime;
+
+        /** The indexing thread which contains the extraction logic, it is executed by a worker thread. */
+        private CmsIndexingThread m_thread;
+
+        /**
+         * Creates a new indexing task.<p>
+         * 
+         * @param indexer the indexer 
+         * @param cms the OpenCms user context to use for the extraction
+         * @param res the resource to index
+         * @param count the report count
+         */
+        CmsIndexingTask(CmsVfsIndexer indexer, CmsObject cms, CmsResource res, int count) {
+
+            m_indexer = indexer;
+            m_resource = res;
+            m_state = new AtomicInteger(STATE_RUNNING);
+            if (indexer.getReport() != null) {
+                m_report = new CmsBufferedReport(indexer.getReport());
+            }
+            m_thread = new CmsIndexingThread(cms, res, indexer.getIndex(), count, m_report);
+        }
+
+        /**
+         * @see java.util.concurrent.Callable#call()
+         */
+        public I_CmsSearchDocument call() {
+
+            try {
+                m_thread.run();
+            } finally {
+                if (!m_state.compareAndSet(STATE_RUNNING, STATE_FINISHED)) {
+                    // this task has been abandoned before, give back the additional worker
+                    releaseWorker();
+                }
+            }
+            return m_thread.getResult();
+        }
+    }
+
+    /** The prefix for the names of the indexing worker threads. */
+    private static final String WORKER_THREAD_NAME = "OpenCms: Indexing worker ";
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsIndexingThreadManager.class);
 
     /** Number of threads abandoned. */
     private int m_abandonedCounter;
 
+    /** The worker thread pool, only used if more than one indexing thread is configured. */
+    private ThreadPoolExecutor m_executor;
+
     /** The time the last error was written to the log. */
     private long m_lastLogErrorTime;
 
     /** The time the last warning was written to the log. */
     private long m_lastLogWarnTime;
 
+    /** The maximum number of parallel indexing threads. */
+    private int m_maxIndexingThreads;
+
     /** The maximum number of modifications before a commit in the search index is triggered. */
     private int m_maxModificationsBeforeCommit;
 
+    /** The index writer for the pending indexing tasks. */
+    private I_CmsIndexWriter m_pendingWriter;
+
+    /** The submitted indexing tasks whose documents have not yet been written to the index, in submit order. */
+    private LinkedList<CmsIndexingTask> m_pendingTasks;
+
     /** Number of thread returned. */
     private int m_returnedCounter;
 
@@ -68,6 +174,9 @@ public class CmsIndexingThreadManager {
     /** Timeout for abandoning threads. */
     private long m_timeout;
 
+    /** Counter for the names of the worker threads. */
+    private AtomicInteger m_workerCounter;
+
     /**
      * Creates and starts a thread manager for indexing threads.<p>
      * 
@@ -76,8 +185,23 @@ public class CmsIndexingThreadManager {
      */
     public CmsIndexingThreadManager(long timeout, int maxModificationsBeforeCommit) {
 
+        this(timeout, maxModificationsBeforeCommit, 1);
+    }
+
+    /**
+     * Creates and starts a thread manager for indexing threads.<p>
+     * 
+     * @param timeout timeout after a thread is abandoned
+     * @param maxModificationsBeforeCommit the maximum number of modifications before a commit in the search index is triggered
+     * @param maxIndexingThreads the maximum number of threads extracting documents in parallel
+     */
+    public CmsIndexingThreadManager(long timeout, int maxModificationsBeforeCommit, int maxIndexingThreads) {
+
         m_timeout = timeout;
         m_maxModificationsBeforeCommit = maxModificationsBeforeCommit;
+        m_maxIndexingThreads = Math.max(1, maxIndexingThreads);
+        m_pendingTasks = new LinkedList<CmsIndexingTask>();
+        m_workerCounter = new AtomicInteger();
     }
 
     /**
@@ -88,12 +212,21 @@ public class CmsIndexingThreadManager {
      * value. If the timeout value is reached, the indexing thread is
      * aborted by an interrupt signal.<p>
      * 
+     * If more than one indexing thread is configured, the extraction is handed over 
+     * to the worker thread pool instead, and this method only waits if all workers are busy.
+     * The documents are written to the index in the order the resources were added, 
+     * the remaining documents are written when {@link #isRunning()} is called.<p>
+     * 
      * @param indexer the VFS indexer to create the index thread for 
      * @param writer the index writer that can update the index
      * @param res the resource
      */
     public void createIndexingThread(CmsVfsIndexer indexer, I_CmsIndexWriter writer, CmsResource res) {
 
+        if (m_maxIndexingThreads > 1) {
+            submitIndexingTask(indexer, writer, res);
+            return;
+        }
         I_CmsReport report = indexer.getReport();
         m_startedCounter++;
         CmsIndexingThread thread = new CmsIndexingThread(
@@ -113,18 +246,7 @@ public class CmsIndexingThreadManager {
             // the thread has not finished - so it must be marked as an abandoned thread 
             m_abandonedCounter++;
             thread.interrupt();
-            if (LOG.isWarnEnabled()) {
-                LOG.warn(Messages.get().getBundle().key(Messages.LOG_INDEXING_TIMEOUT_1, res.getRootPath()));
-            }
-            if (report != null) {
-                report.println();
-                report.print(
-                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
-                    I_CmsReport.FORMAT_WARNING);
-                report.println(
-                    Messages.get().container(Messages.RPT_SEARCH_INDEXING_TIMEOUT_1, res.getRootPath()),
-                    I_CmsReport.FORMAT_WARNING);
-            }
+            reportTimeout(report, res);
         } else {
             // the thread finished normally
             m_returnedCounter++;
@@ -135,18 +257,7 @@ public class CmsIndexingThreadManager {
             indexer.updateResource(writer, res.getRootPath(), doc);
         }
         if ((m_startedCounter % m_maxModificationsBeforeCommit) == 0) {
-            try {
-                writer.commit();
-            } catch (IOException e) {
-                if (LOG.isWarnEnabled()) {
-                    LOG.warn(
-                        Messages.get().getBundle().key(
-                            Messages.LOG_IO_INDEX_WRITER_COMMIT_2,
-                            indexer.getIndex().getName(),
-                            indexer.getIndex().getPath()),
-                        e);
-                }
-            }
+            commit(indexer, writer);
         }
     }
 
@@ -157,6 +268,16 @@ public class CmsIndexingThreadManager {
      */
     public boolean isRunning() {
 
+        if (!m_pendingTasks.isEmpty()) {
+            // write the documents of all remaining indexing tasks to the index
+            writePendingDocuments(0);
+        }
+        if (m_executor != null) {
+            // all tasks are done, let the worker threads terminate
+            m_executor.shutdown();
+            m_executor = null;
+        }
+
         if (m_lastLogErrorTime <= 0) {
             m_lastLogErrorTime = System.currentTimeMillis();
             m_lastLogWarnTime = m_lastLogErrorTime;
@@ -218,4 +339,181 @@ public class CmsIndexingThreadManager {
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Commits the changes of the given index writer.<p>
+     * 
+     * @param indexer the indexer 
+     * @param writer the index writer
+     */
+    private void commit(CmsVfsIndexer indexer, I_CmsIndexWriter writer) {
+
+        try {
+            writer.commit();
+        } catch (IOException e) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_IO_INDEX_WRITER_COMMIT_2,
+                        indexer.getIndex().getName(),
+                        indexer.getIndex().getPath()),
+                    e);
+            }
+        }
+    }
+
+    /**
+     * Returns the worker thread pool, creating it if required.<p>
+     * 
+     * @return the worker thread pool
+     */
+    private synchronized ThreadPoolExecutor getExecutor() {
+
+        if (m_executor == null) {
+            m_executor = new ThreadPoolExecutor(
+                m_maxIndexingThreads,
+                m_maxIndexingThreads,
+                m_timeout,
+                TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+
+                    public Thread newThread(Runnable r) {
+
+                        Thread thread = new Thread(r, WORKER_THREAD_NAME + m_workerCounter.incrementAndGet());
+                        thread.setDaemon(true);
+                        thread.setPriority(Thread.MIN_PRIORITY);
+                        return thread;
+                    }
+                });
+        }
+        return m_executor;
+    }
+
+    /**
+     * Removes the additional worker thread that was added to the pool when a task was abandoned.<p>
+     * 
+     * This is called by the abandoned task once it eventually finishes.<p>
+     */
+    private synchronized void releaseWorker() {
+
+        if ((m_executor != null) && (m_executor.getCorePoolSize() > m_maxIndexingThreads)) {
+            m_executor.setCorePoolSize(m_executor.getCorePoolSize() - 1);
+            m_executor.setMaximumPoolSize(m_executor.getCorePoolSize());
+        }
+    }
+
+    /**
+     * Writes the timeout information for a resource to the report.<p>
+     * 
+     * @param report the report, may be <code>null</code> 
+     * @param res the resource that could not be indexed in time
+     */
+    private void reportTimeout(I_CmsReport report, CmsResource res) {
+
+        if (LOG.isWarnEnabled()) {
+            LOG.warn(Messages.get().getBundle().key(Messages.LOG_INDEXING_TIMEOUT_1, res.getRootPath()));
+        }
+        if (report != null) {
+            report.println();
+            report.print(
+                org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
+                I_CmsReport.FORMAT_WARNING);
+            report.println(
+                Messages.get().container(Messages.RPT_SEARCH_INDEXING_TIMEOUT_1, res.getRootPath()),
+                I_CmsReport.FORMAT_WARNING);
+        }
+    }
+
+    /**
+     * Hands over the document extraction for a resource to the worker thread pool.<p>
+     * 
+     * If all workers are busy, the documents of the oldest tasks are written to the index first.<p>
+     * 
+     * @param indexer the VFS indexer to create the index thread for 
+     * @param writer the index writer that can update the index
+     * @param res the resource
+     */
+    private void submitIndexingTask(CmsVfsIndexer indexer, I_CmsIndexWriter writer, CmsResource res) {
+
+        // make sure the workers are not busy with older tasks
+        writePendingDocuments(m_maxIndexingThreads - 1);
+
+        CmsObject cms;
+        try {
+            // the request context is not shared between the worker threads
+            cms = OpenCms.initCmsObject(indexer.getCms());
+        } catch (CmsException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+            cms = indexer.getCms();
+        }
+        m_startedCounter++;
+        CmsIndexingTask task = new CmsIndexingTask(indexer, cms, res, m_startedCounter);
+        task.m_submitTime = System.currentTimeMillis();
+        task.m_future = getExecutor().submit(task);
+        m_pendingTasks.add(task);
+        // remember the writer for the pending documents
+        m_pendingWriter = writer;
+    }
+
+    /**
+     * Waits for the oldest pending indexing tasks and writes their documents to the index, 
+     * until no more than the given number of tasks are pending.<p>
+     * 
+     * If a task does not finish within the timeout, it is abandoned.<p>
+     * 
+     * @param maxPending the maximum number of tasks that may remain pending
+     */
+    private void writePendingDocuments(int maxPending) {
+
+        while (m_pendingTasks.size() > maxPending) {
+            CmsIndexingTask task = m_pendingTasks.removeFirst();
+            I_CmsSearchDocument doc = null;
+            boolean finished = false;
+            try {
+                long wait = Math.max(1, (task.m_submitTime + m_timeout) - System.currentTimeMillis());
+                doc = task.m_future.get(wait, TimeUnit.MILLISECONDS);
+                finished = true;
+            } catch (TimeoutException e) {
+                // handled below
+            } catch (InterruptedException e) {
+                // handled below
+            } catch (ExecutionException e) {
+                // the indexing thread catches all exceptions, so this should not happen
+                LOG.error(e.getLocalizedMessage(), e);
+                finished = true;
+            }
+            if (!finished && task.m_state.compareAndSet(CmsIndexingTask.STATE_RUNNING, CmsIndexingTask.STATE_ABANDONED)) {
+                // the task has not finished - so it must be marked as abandoned 
+                m_abandonedCounter++;
+                synchronized (this) {
+                    // add a new worker, since the abandoned one may be blocked forever
+                    m_executor.setMaximumPoolSize(m_executor.getMaximumPoolSize() + 1);
+                    m_executor.setCorePoolSize(m_executor.getCorePoolSize() + 1);
+                }
+                task.m_future.cancel(true);
+                if (task.m_report != null) {
+                    task.m_report.flush();
+                }
+                reportTimeout(task.m_indexer.getReport(), task.m_resource);
+            } else {
+                // the task finished normally
+                if (!finished) {
+                    // the task finished just after the timeout
+                    doc = task.m_thread.getResult();
+                }
+                m_returnedCounter++;
+                if (task.m_report != null) {
+                    task.m_report.flush();
+                }
+            }
+            if (doc != null) {
+                // write the document to the index
+                task.m_indexer.updateResource(m_pendingWriter, task.m_resource.getRootPath(), doc);
+            }
+            if (((m_returnedCounter + m_abandonedCounter) % m_maxModificationsBeforeCommit) == 0) {
+                commit(task.m_indexer, m_pendingWriter);
+            }
+        }
+    }
+}
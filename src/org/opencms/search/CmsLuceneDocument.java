@@ -40,6 +40,7 @@ import org.opencms.search.fields.CmsSearchFieldConfiguration;
 
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
@@ -198,6 +199,22 @@ public class CmsLuceneDocument implements I_CmsSearchDocument {
         m_doc.add(field);
     }
 
+    /**
+     * @see org.opencms.search.I_CmsSearchDocument#addReadPrincipalsField(java.util.List)
+     */
+    public void addReadPrincipalsField(List<String> principals) {
+
+        for (String principal : principals) {
+            Fieldable field = new Field(
+                CmsSearchField.FIELD_READ_PRINCIPALS,
+                principal,
+                Field.Store.YES,
+                Field.Index.NOT_ANALYZED_NO_NORMS);
+            field.setBoost(0.0F);
+            m_doc.add(field);
+        }
+    }
+
     /**
      * @see org.opencms.search.I_CmsSearchDocument#addResourceLocales(java.util.List)
      */
@@ -309,6 +326,10 @@ public class CmsLuceneDocument implements I_CmsSearchDocument {
      */
     public List<String> getMultivaluedFieldAsStringList(String fieldName) {
 
+        String[] values = m_doc.getValues(fieldName);
+        if (values.length > 1) {
+            return Arrays.asList(values);
+        }
         return Collections.singletonList(getFieldValueAsString(fieldName));
     }
 
@@ -33,10 +33,12 @@ package org.opencms.search;
 
 import org.opencms.configuration.CmsParameterConfiguration;
 import org.opencms.configuration.I_CmsConfigurationParameterHandler;
+import org.opencms.file.CmsGroup;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsPropertyDefinition;
 import org.opencms.file.CmsResource;
 import org.opencms.file.CmsResourceFilter;
+import org.opencms.file.CmsUser;
 import org.opencms.file.types.CmsResourceTypeXmlContent;
 import org.opencms.i18n.CmsLocaleManager;
 import org.opencms.i18n.CmsMessageContainer;
@@ -50,6 +52,8 @@ import org.opencms.search.documents.I_CmsTermHighlighter;
 import org.opencms.search.fields.CmsLuceneFieldConfiguration;
 import org.opencms.search.fields.CmsSearchField;
 import org.opencms.search.fields.CmsSearchFieldConfiguration;
+import org.opencms.security.CmsAccessControlEntry;
+import org.opencms.security.CmsRole;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsStringUtil;
 
@@ -61,10 +65,13 @@ import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.lucene.analysis.Analyzer;
@@ -96,6 +103,7 @@ import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TermsFilter;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldCollector;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 import org.apache.lucene.util.Version;
@@ -327,8 +335,8 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
     /** The name of the search field configuration used by this index. */
     private String m_fieldConfigurationName;
 
-    /** The Lucene index searcher to use. */
-    private IndexSearcher m_indexSearcher;
+    /** The Lucene index searcher to use, replaced with a new instance when the index has changed. */
+    private volatile IndexSearcher m_indexSearcher;
 
     /** The index writer to use. */
     private I_CmsIndexWriter m_indexWriter;
@@ -821,10 +829,10 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
      * 
      * @return the first document where the given term matches the selected index field
      */
-    public synchronized I_CmsSearchDocument getDocument(String field, String term) {
+    public I_CmsSearchDocument getDocument(String field, String term) {
 
         Document result = null;
-        IndexSearcher searcher = getSearcher();
+        IndexSearcher searcher = acquireSearcher();
         if (searcher != null) {
             // search for an exact match on the selected field
             Term resultTerm = new Term(field, term);
@@ -835,6 +843,8 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
                 }
             } catch (IOException e) {
                 // ignore, return null and assume document was not found
+            } finally {
+                releaseSearcher(searcher);
             }
         }
         if (result != null) {
@@ -1057,6 +1067,9 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
     /**
      * Returns the Lucene index searcher used for this search index.<p>
      *
+     * The searcher is closed when the index is updated, so code that may run concurrently 
+     * with an index update should use {@link #acquireSearcher()} instead.<p>
+     *
      * @return the Lucene index searcher used for this search index
      */
     public IndexSearcher getSearcher() {
@@ -1338,7 +1351,7 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
      * 
      * @throws CmsSearchException if something goes wrong
      */
-    public synchronized CmsSearchResultList search(CmsObject cms, CmsSearchParameters params) throws CmsSearchException {
+    public CmsSearchResultList search(CmsObject cms, CmsSearchParameters params) throws CmsSearchException {
 
         long timeTotal = -System.currentTimeMillis();
         long timeLucene;
@@ -1356,6 +1369,9 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
 
         int previousPriority = Thread.currentThread().getPriority();
 
+        // the searcher is kept open until the search is finished, even if the index is updated meanwhile
+        IndexSearcher searcher = null;
+
         try {
             // copy the user OpenCms context
             CmsObject searchCms = OpenCms.initCmsObject(cms);
@@ -1392,9 +1408,10 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
             // store separate fields query for excerpt highlighting  
             Query fieldsQuery = null;
 
-            // get an index searcher that is certainly up to date
-            indexSearcherUpdate();
-            IndexSearcher searcher = getSearcher();
+            searcher = acquireSearcher();
+
+            // the principals of the current user, to skip the VFS read for the hits the user may not read
+            Set<String> principals = getReadPrincipals(searchCms);
 
             if (!params.isIgnoreQuery()) {
                 // since OpenCms 8 the query can be empty in which case only filters are used for the result
@@ -1494,8 +1511,17 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
                 hits = searcher.search(query, filter, getMaxHits());
             } else {
                 // if  a sort order is provided, we must check if scoring must be calculated by the searcher
-                prepareSortScoring(searcher, params.getSort());
-                hits = searcher.search(query, filter, getMaxHits(), params.getSort());
+                // this is set for the collector of this search, since the searcher is shared by concurrent searches
+                boolean doScoring = isSortScoring(params.getSort());
+                TopFieldCollector collector = TopFieldCollector.create(
+                    params.getSort(),
+                    Math.max(1, Math.min(getMaxHits(), searcher.maxDoc())),
+                    true,
+                    doScoring,
+                    doScoring,
+                    false);
+                searcher.search(query, filter, collector);
+                hits = collector.topDocs();
             }
 
             timeLucene += System.currentTimeMillis();
@@ -1527,7 +1553,7 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
                         doc = searcher.doc(hits.scoreDocs[i].doc);
                         I_CmsSearchDocument searchDoc = new CmsLuceneDocument(doc);
                         searchDoc.setScore(hits.scoreDocs[i].score);
-                        if ((isInTimeRange(doc, params)) && (hasReadPermission(searchCms, searchDoc))) {
+                        if ((isInTimeRange(doc, params)) && (hasReadPermission(searchCms, searchDoc, principals))) {
                             // user has read permission
                             if (cnt >= start) {
                                 // do not use the resource to obtain the raw content, read it from the lucene document!
@@ -1569,6 +1595,7 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
 
             // re-set thread to previous priority
             Thread.currentThread().setPriority(previousPriority);
+            releaseSearcher(searcher);
         }
 
         if (LOG.isDebugEnabled()) {
@@ -1786,6 +1813,36 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
         return getName();
     }
 
+    /**
+     * Returns the current Lucene index searcher and marks it as being in use.<p>
+     * 
+     * The searcher is not closed by an index update before it has been released again, 
+     * so each searcher acquired by this method must be released with {@link #releaseSearcher(IndexSearcher)}.<p>
+     * 
+     * @return the current Lucene index searcher, or <code>null</code> if the index can not be opened
+     */
+    protected IndexSearcher acquireSearcher() {
+
+        if (m_indexSearcher == null) {
+            // the index has not been opened yet
+            indexSearcherUpdate();
+        }
+        while (true) {
+            IndexSearcher searcher = m_indexSearcher;
+            if (searcher == null) {
+                return null;
+            }
+            if (searcher.getIndexReader().tryIncRef()) {
+                return searcher;
+            }
+            if (searcher == m_indexSearcher) {
+                // the reader has been closed but not been replaced
+                return null;
+            }
+            // the searcher has been replaced in the meantime, try again with the new one
+        }
+    }
+
     /**
      * Appends the a category filter to the given filter clause that matches all given categories.<p>
      * 
@@ -2192,7 +2249,8 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
             }
             termsStr = buf.toString();
         }
-        Filter result = m_displayFilters.get((new StringBuffer(64)).append(field).append('|').append(termsStr).toString());
+        String key = (new StringBuffer(64)).append(field).append('|').append(termsStr).toString();
+        Filter result = m_displayFilters.get(key);
         if (result == null) {
             TermsFilter filter = new TermsFilter();
             if (termsList == null) {
@@ -2202,8 +2260,53 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
                 filter.addTerm(new Term(field, termsList.get(i)));
             }
             result = new CachingWrapperFilter(filter);
-            m_displayFilters.put(field + termsStr, result);
+            m_displayFilters.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the ids of the principals of the current user that are matched 
+     * against the read principals field of the documents.<p>
+     * 
+     * These are the ids of the user, the groups and the roles of the user, 
+     * and the id of the "all others" principal.<p>
+     * 
+     * @param cms the current users OpenCms context
+     * 
+     * @return the ids of the principals of the current user, or <code>null</code> if the 
+     *      permissions of the user can not be decided by the indexed read principals
+     */
+    protected Set<String> getReadPrincipals(CmsObject cms) {
+
+        if (!isCheckingPermissions()) {
+            // no permission check is performed at all
+            return null;
+        }
+        CmsUser user = cms.getRequestContext().getCurrentUser();
+        Set<String> result = new HashSet<String>();
+        try {
+            List<CmsRole> roles = OpenCms.getRoleManager().getRolesOfUser(cms, user.getName(), "", true, false, false);
+            for (CmsRole role : roles) {
+                List<CmsRole> impliedRoles = role.getChildren(true);
+                impliedRoles.add(role);
+                for (CmsRole impliedRole : impliedRoles) {
+                    if (impliedRole.getRoleName().equals(CmsRole.VFS_MANAGER.getRoleName())) {
+                        // the permissions of VFS managers are not restricted by the access control lists
+                        return null;
+                    }
+                }
+                result.add(role.forOrgUnit(null).getId().toString());
+            }
+            for (CmsGroup group : cms.getGroupsOfUser(user.getName(), false)) {
+                result.add(group.getId().toString());
+            }
+        } catch (CmsException e) {
+            LOG.warn(Messages.get().getBundle().key(Messages.LOG_READ_PRINCIPALS_FAILED_1, user.getName()), e);
+            return null;
         }
+        result.add(user.getId().toString());
+        result.add(CmsAccessControlEntry.PRINCIPAL_ALL_OTHERS_ID.toString());
         return result;
     }
 
@@ -2266,6 +2369,37 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
         return !needsPermissionCheck(doc) ? true : (null != getResource(cms, doc));
     }
 
+    /**
+     * Checks if the OpenCms resource referenced by the result document can be read 
+     * by the user of the given OpenCms context, using the read principals stored in the document.<p>
+     * 
+     * If none of the given principals is stored in the document, the user is not permitted to read 
+     * the resource and the VFS is not read. Otherwise the read principals are only a hint: they are not 
+     * updated if the permissions of a parent folder change, so the permissions are confirmed in the VFS.<p>
+     * 
+     * @param cms the OpenCms user context to use for permission testing
+     * @param doc the search result document to check
+     * @param principals the ids of the principals of the current user, 
+     *      if <code>null</code> the permissions are always checked in the VFS
+     * 
+     * @return <code>true</code> if the user has read permissions to the resource
+     * 
+     * @see #getReadPrincipals(CmsObject)
+     */
+    protected boolean hasReadPermission(CmsObject cms, I_CmsSearchDocument doc, Set<String> principals) {
+
+        if ((principals != null) && needsPermissionCheck(doc)) {
+            List<String> docPrincipals = doc.getMultivaluedFieldAsStringList(CmsSearchField.FIELD_READ_PRINCIPALS);
+            if ((docPrincipals != null)
+                && !docPrincipals.contains(CmsSearchField.READ_PRINCIPALS_VFS_CHECK)
+                && Collections.disjoint(docPrincipals, principals)) {
+                // none of the principals of the user is granted read permission
+                return false;
+            }
+        }
+        return hasReadPermission(cms, doc);
+    }
+
     /**
      * Closes the index searcher for this index.<p>
      * 
@@ -2273,12 +2407,17 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
      */
     protected synchronized void indexSearcherClose() {
 
-        indexSearcherClose(m_indexSearcher);
+        IndexSearcher searcher = m_indexSearcher;
+        m_indexSearcher = null;
+        indexSearcherClose(searcher);
     }
 
     /**
      * Closes the given Lucene index searcher.<p>
      * 
+     * The index reader of the searcher is reference counted, so searches that have acquired the searcher 
+     * with {@link #acquireSearcher()} can still finish, the reader is closed when the last search has released it.<p>
+     * 
      * @param searcher the searcher to close
      */
     protected synchronized void indexSearcherClose(IndexSearcher searcher) {
@@ -2286,6 +2425,7 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
         // in case there is an index searcher available close it
         if ((searcher != null) && (searcher.getIndexReader() != null)) {
             try {
+                // this only releases the reference held by this index
                 searcher.getIndexReader().close();
                 searcher.close();
             } catch (Exception e) {
@@ -2317,7 +2457,7 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
                     oldSearcher = m_indexSearcher;
                 }
                 m_indexSearcher = new IndexSearcher(reader);
-                m_displayFilters = new HashMap<String, Filter>();
+                m_displayFilters = new ConcurrentHashMap<String, Filter>();
             }
         } catch (IOException e) {
             LOG.error(Messages.get().getBundle().key(Messages.ERR_INDEX_SEARCHER_1, getName()), e);
@@ -2433,6 +2573,42 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
         return true;
     }
 
+    /**
+     * Checks if the score for the results must be calculated based on the provided sort option.<p>  
+     * 
+     * Since Lucene 3 apparently the score is no longer calculated by default, but only if the 
+     * searcher is explicitly told so. This methods checks if, based on the given sort, 
+     * the score must be calculated.<p> 
+     * 
+     * @param sort the sort option to use
+     * 
+     * @return <code>true</code> if the score must be calculated for the given sort option
+     */
+    protected boolean isSortScoring(Sort sort) {
+
+        boolean doScoring = false;
+        if (sort != null) {
+            if ((sort == CmsSearchParameters.SORT_DEFAULT) || (sort == CmsSearchParameters.SORT_TITLE)) {
+                // these default sorts do need score calculation
+                doScoring = true;
+            } else if ((sort == CmsSearchParameters.SORT_DATE_CREATED)
+                || (sort == CmsSearchParameters.SORT_DATE_LASTMODIFIED)) {
+                // these default sorts don't need score calculation
+                doScoring = false;
+            } else {
+                // for all non-defaults: check if the score field is present, in that case we must calculate the score
+                SortField[] fields = sort.getSort();
+                for (SortField field : fields) {
+                    if (field == SortField.FIELD_SCORE) {
+                        doScoring = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return doScoring;
+    }
+
     /**
      * Checks if the OpenCms resource referenced by the result document needs to be checked.<p>
      * 
@@ -2463,36 +2639,33 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
     /**
      * Checks if the score for the results must be calculated based on the provided sort option.<p>  
      * 
-     * Since Lucene 3 apparently the score is no longer calculated by default, but only if the 
-     * searcher is explicitly told so. This methods checks if, based on the given sort, 
-     * the score must be calculated.<p> 
-     * 
      * @param searcher the index searcher to prepare 
      * @param sort the sort option to use
+     * 
+     * @deprecated the searcher is shared by concurrent searches, so changing its default scoring is not safe,
+     *      use {@link #isSortScoring(Sort)} to configure the collector of a single search instead
      */
+    @Deprecated
     protected void prepareSortScoring(IndexSearcher searcher, Sort sort) {
 
-        boolean doScoring = false;
-        if (sort != null) {
-            if ((sort == CmsSearchParameters.SORT_DEFAULT) || (sort == CmsSearchParameters.SORT_TITLE)) {
-                // these default sorts do need score calculation
-                doScoring = true;
-            } else if ((sort == CmsSearchParameters.SORT_DATE_CREATED)
-                || (sort == CmsSearchParameters.SORT_DATE_LASTMODIFIED)) {
-                // these default sorts don't need score calculation
-                doScoring = false;
-            } else {
-                // for all non-defaults: check if the score field is present, in that case we must calculate the score
-                SortField[] fields = sort.getSort();
-                for (SortField field : fields) {
-                    if (field == SortField.FIELD_SCORE) {
-                        doScoring = true;
-                        break;
-                    }
-                }
+        boolean doScoring = isSortScoring(sort);
+        searcher.setDefaultFieldSortScoring(doScoring, doScoring);
+    }
+
+    /**
+     * Releases a searcher that has been acquired with {@link #acquireSearcher()}.<p>
+     * 
+     * @param searcher the searcher to release, may be <code>null</code>
+     */
+    protected void releaseSearcher(IndexSearcher searcher) {
+
+        if (searcher != null) {
+            try {
+                searcher.getIndexReader().decRef();
+            } catch (IOException e) {
+                LOG.error(Messages.get().getBundle().key(Messages.ERR_INDEX_SEARCHER_CLOSE_1, getName()), e);
             }
         }
-        searcher.setDefaultFieldSortScoring(doScoring, doScoring);
     }
 
     /**
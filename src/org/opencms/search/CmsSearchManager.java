@@ -591,6 +591,9 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
     /** Default for the maximum number of modifications before a commit in the search index is triggered (500). */
     public static final int DEFAULT_MAX_MODIFICATIONS_BEFORE_COMMIT = 500;
 
+    /** The default maximum number of parallel indexing threads. */
+    public static final int DEFAULT_MAX_INDEXING_THREADS = 1;
+
     /** The default update frequency for offline indexes (15000 msec = 15 sec). */
     public static final int DEFAULT_OFFLINE_UPDATE_FREQNENCY = 15000;
 
@@ -660,6 +663,9 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
     /** The max. char. length of the excerpt in the search result. */
     private int m_maxExcerptLength;
 
+    /** The maximum number of parallel threads used for extracting the documents during indexing. */
+    private int m_maxIndexingThreads;
+
     /** The maximum number of modifications before a commit in the search index is triggered. */
     private int m_maxModificationsBeforeCommit;
 
@@ -693,6 +699,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         m_maxExcerptLength = DEFAULT_EXCERPT_LENGTH;
         m_offlineUpdateFrequency = DEFAULT_OFFLINE_UPDATE_FREQNENCY;
         m_maxModificationsBeforeCommit = DEFAULT_MAX_MODIFICATIONS_BEFORE_COMMIT;
+        m_maxIndexingThreads = DEFAULT_MAX_INDEXING_THREADS;
 
         m_fieldConfigurations = new HashMap<String, CmsSearchFieldConfiguration>();
         // make sure we have a "standard" field configuration
@@ -1363,6 +1370,16 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         return m_maxExcerptLength;
     }
 
+    /**
+     * Returns the maximum number of parallel threads used for extracting the documents during indexing.<p>
+     *
+     * @return the maximum number of parallel indexing threads
+     */
+    public int getMaxIndexingThreads() {
+
+        return m_maxIndexingThreads;
+    }
+
     /**
      * Returns the maximum number of modifications before a commit in the search index is triggered.<p>
      *
@@ -2058,6 +2075,36 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         }
     }
 
+    /**
+     * Sets the maximum number of parallel threads used for extracting the documents during indexing.<p>
+     *
+     * @param maxIndexingThreads the maximum number of parallel indexing threads to set
+     */
+    public void setMaxIndexingThreads(int maxIndexingThreads) {
+
+        m_maxIndexingThreads = Math.max(1, maxIndexingThreads);
+    }
+
+    /**
+     * Sets the maximum number of parallel threads used for extracting the documents during indexing as a string.<p>
+     *
+     * @param value the maximum number of parallel indexing threads to set
+     */
+    public void setMaxIndexingThreads(String value) {
+
+        try {
+            setMaxIndexingThreads(Integer.parseInt(value));
+        } catch (Exception e) {
+            LOG.error(
+                Messages.get().getBundle().key(
+                    Messages.LOG_PARSE_MAXTHREADS_FAILED_2,
+                    value,
+                    new Integer(DEFAULT_MAX_INDEXING_THREADS)),
+                e);
+            setMaxIndexingThreads(DEFAULT_MAX_INDEXING_THREADS);
+        }
+    }
+
     /**
      * Sets the maximum number of modifications before a commit in the search index is triggered.<p>
      *
@@ -2250,7 +2297,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
      */
     protected CmsIndexingThreadManager getThreadManager() {
 
-        return new CmsIndexingThreadManager(m_timeout, m_maxModificationsBeforeCommit);
+        return new CmsIndexingThreadManager(m_timeout, m_maxModificationsBeforeCommit, m_maxIndexingThreads);
     }
 
     /**
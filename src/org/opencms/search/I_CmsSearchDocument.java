@@ -98,6 +98,13 @@ public interface I_CmsSearchDocument {
      */
     void addPathField(String rootPath);
 
+    /**
+     * Adds the ids of the principals with read and view permission on the resource to this document.<p>
+     * 
+     * @param principals the ids of the principals
+     */
+    void addReadPrincipalsField(List<String> principals);
+
     /**
      * Adds the locales of the resource to this document.<p>
      * 
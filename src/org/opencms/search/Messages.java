@@ -349,6 +349,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_PARSE_MAXCOMMIT_FAILED_2 = "LOG_PARSE_MAXCOMMIT_FAILED_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_PARSE_MAXTHREADS_FAILED_2 = "LOG_PARSE_MAXTHREADS_FAILED_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_PARSE_OFFLINE_UPDATE_FAILED_2 = "LOG_PARSE_OFFLINE_UPDATE_FAILED_2";
 
@@ -361,6 +364,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_READING_CHANGED_RESOURCES_FAILED_1 = "LOG_READING_CHANGED_RESOURCES_FAILED_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_READ_PRINCIPALS_FAILED_1 = "LOG_READ_PRINCIPALS_FAILED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_REBUILD_INDEX_FAILED_1 = "LOG_REBUILD_INDEX_FAILED_1";
 
@@ -134,6 +134,9 @@ public class CmsSearchField implements Serializable {
      */
     public static final String FIELD_PRIORITY = "priority";
 
+    /** Name of the field that contains the ids of the principals with read and view permission on the resource. */
+    public static final String FIELD_READ_PRINCIPALS = "read_principals";
+
     /** Name of the field that contains the resource locales of the document. */
     public static final String FIELD_RESOURCE_LOCALES = "res_locales";
 
@@ -169,6 +172,12 @@ public class CmsSearchField implements Serializable {
     /** Name of the field that contains the type of the document. */
     public static final String FIELD_TYPE = "type";
 
+    /** 
+     * Value of the read principals field for resources where the permissions of a user can not be decided 
+     * by the indexed principals alone, so that the permissions must be checked in the VFS.
+     */
+    public static final String READ_PRINCIPALS_VFS_CHECK = "vfs_check";
+
     /** Serial version UID. */
     private static final long serialVersionUID = 3185631015824549119L;
 
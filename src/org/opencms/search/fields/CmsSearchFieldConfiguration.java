@@ -43,7 +43,12 @@ import org.opencms.relations.CmsCategoryService;
 import org.opencms.search.CmsSearchIndex;
 import org.opencms.search.I_CmsSearchDocument;
 import org.opencms.search.extractors.I_CmsExtractionResult;
+import org.opencms.security.CmsAccessControlEntry;
+import org.opencms.security.CmsAccessControlList;
+import org.opencms.security.CmsPermissionSet;
+import org.opencms.security.CmsPermissionSetCustom;
 import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -147,6 +152,62 @@ public class CmsSearchFieldConfiguration implements Comparable<CmsSearchFieldCon
         return result.toString();
     }
 
+    /**
+     * Returns the ids of the principals that are allowed to read and view the given resource.<p>
+     * 
+     * The permissions of a user are the combination of the entries of the user, the groups and the roles 
+     * in the access control list, and the "all others" entry only applies if none of these entries exist.
+     * The principals can only be used to decide the read permission of a user without a VFS check 
+     * if there are no denied permissions and no combinations that grant only read or only view permission. 
+     * If this is not the case, or if the resource is internal, deleted, or has a release or expiration date, 
+     * the list contains {@link CmsSearchField#READ_PRINCIPALS_VFS_CHECK}.<p>
+     * 
+     * @param resource the resource to get the principals for
+     * @param acl the resolved access control list of the resource, including the inherited entries
+     * 
+     * @return the ids of the principals that are allowed to read and view the given resource
+     */
+    public static List<String> getReadPrincipals(CmsResource resource, CmsAccessControlList acl) {
+
+        List<String> result = new ArrayList<String>();
+        boolean vfsCheck = resource.isInternal()
+            || resource.getState().isDeleted()
+            || (resource.getDateReleased() != CmsResource.DATE_RELEASED_DEFAULT)
+            || (resource.getDateExpired() != CmsResource.DATE_EXPIRED_DEFAULT);
+        int readView = CmsPermissionSet.PERMISSION_READ | CmsPermissionSet.PERMISSION_VIEW;
+        boolean hasPrincipalEntries = false;
+        for (Map.Entry<CmsUUID, CmsPermissionSetCustom> entry : acl.getPermissionMap().entrySet()) {
+            CmsUUID principalId = entry.getKey();
+            if (principalId.equals(CmsAccessControlEntry.PRINCIPAL_OVERWRITE_ALL_ID)) {
+                // this entry is only used for resolving the inherited entries
+                continue;
+            }
+            if (!principalId.equals(CmsAccessControlEntry.PRINCIPAL_ALL_OTHERS_ID)) {
+                hasPrincipalEntries = true;
+            }
+            CmsPermissionSetCustom permissions = entry.getValue();
+            if ((permissions.getDeniedPermissions() & readView) != 0) {
+                // denied permissions overrule the permissions granted by other principals of a user 
+                vfsCheck = true;
+            }
+            int granted = permissions.getPermissions() & readView;
+            if (granted == readView) {
+                result.add(principalId.toString());
+            } else if (granted != 0) {
+                // read and view permission may be granted by different principals of a user
+                vfsCheck = true;
+            }
+        }
+        if (hasPrincipalEntries && acl.getPermissionMap().containsKey(CmsAccessControlEntry.PRINCIPAL_ALL_OTHERS_ID)) {
+            // the "all others" entry does not apply to users with an own entry
+            vfsCheck = true;
+        }
+        if (vfsCheck) {
+            result.add(CmsSearchField.READ_PRINCIPALS_VFS_CHECK);
+        }
+        return result;
+    }
+
     /**
      * Adds a field to this search field configuration.<p>
      * 
@@ -221,6 +282,7 @@ public class CmsSearchFieldConfiguration implements Comparable<CmsSearchFieldCon
         document = appendLocales(document, cms, resource, extraction, properties, propertiesSearched);
         document = appendProperties(document, cms, resource, extraction, properties, propertiesSearched);
         document = appendCategories(document, cms, resource, extraction, properties, propertiesSearched);
+        document = appendReadPrincipals(document, cms, resource, extraction, properties, propertiesSearched);
         document = appendFieldMappings(document, cms, resource, extraction, properties, propertiesSearched);
         document = setBoost(document, cms, resource, extraction, properties, propertiesSearched);
 
@@ -622,6 +684,37 @@ public class CmsSearchFieldConfiguration implements Comparable<CmsSearchFieldCon
         return document;
     }
 
+    /**
+     * Extends the given document by a field that contains the ids of the principals 
+     * with read and view permission on the resource.<p>
+     * 
+     * @param document the document to extend
+     * @param cms the OpenCms context used for building the search index
+     * @param resource the resource that is indexed
+     * @param extractionResult the plain text extraction result from the resource
+     * @param properties the list of all properties directly attached to the resource (not searched)
+     * @param propertiesSearched the list of all searched properties of the resource  
+     * 
+     * @return the document extended by a field that contains the ids of the principals with read permission
+     * 
+     * @throws CmsException if something goes wrong
+     * 
+     * @see #getReadPrincipals(CmsResource, CmsAccessControlList)
+     */
+    protected I_CmsSearchDocument appendReadPrincipals(
+        I_CmsSearchDocument document,
+        CmsObject cms,
+        CmsResource resource,
+        I_CmsExtractionResult extractionResult,
+        List<CmsProperty> properties,
+        List<CmsProperty> propertiesSearched) throws CmsException {
+
+        CmsAccessControlList acl = cms.getAccessControlList(cms.getSitePath(resource));
+        document.addReadPrincipalsField(getReadPrincipals(resource, acl));
+
+        return document;
+    }
+
     /**
      * Extends the given document by a field that contains the resource type name.<p>
      * 
@@ -56,6 +56,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 
 import org.apache.commons.logging.Log;
 import org.apache.lucene.document.Document;
@@ -69,6 +70,7 @@ import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TermsFilter;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldCollector;
 
 /**
  * Implements the search within a the gallery index.<p>
@@ -233,7 +235,7 @@ public class CmsGallerySearchIndex extends CmsSearchIndex {
      * 
      * @throws CmsSearchException if something goes wrong
      */
-    public synchronized CmsGallerySearchResultList searchGallery(CmsObject cms, CmsGallerySearchParameters params)
+    public CmsGallerySearchResultList searchGallery(CmsObject cms, CmsGallerySearchParameters params)
     throws CmsSearchException {
 
         // the hits found during the search
@@ -242,6 +244,9 @@ public class CmsGallerySearchIndex extends CmsSearchIndex {
         // storage for the results found
         CmsGallerySearchResultList searchResults = new CmsGallerySearchResultList();
 
+        // the searcher is kept open until the search is finished, even if the index is updated meanwhile
+        IndexSearcher searcher = null;
+
         try {
             // copy the user OpenCms context
             CmsObject searchCms = OpenCms.initCmsObject(cms);
@@ -305,9 +310,10 @@ public class CmsGallerySearchIndex extends CmsSearchIndex {
             // store separate fields query for excerpt highlighting  
             Query fieldsQuery = null;
 
-            // get an index searcher that is certainly up to date
-            indexSearcherUpdate();
-            IndexSearcher searcher = getSearcher();
+            searcher = acquireSearcher();
+
+            // the principals of the current user, to skip the VFS read for the hits the user may not read
+            Set<String> principals = getReadPrincipals(searchCms);
 
             Locale locale = params.getLocale() == null ? null : CmsLocaleManager.getLocale(params.getLocale());
             if (params.getSearchWords() != null) {
@@ -334,9 +340,16 @@ public class CmsGallerySearchIndex extends CmsSearchIndex {
                 query = new MatchAllDocsQuery();
             }
 
-            // perform the search operation          
-            searcher.setDefaultFieldSortScoring(true, true);
-            hits = searcher.search(query, filter, getMaxHits(), params.getSort());
+            // perform the search operation, the score is always calculated by the collector of this search
+            TopFieldCollector collector = TopFieldCollector.create(
+                params.getSort(),
+                Math.max(1, Math.min(getMaxHits(), searcher.maxDoc())),
+                true,
+                true,
+                true,
+                false);
+            searcher.search(query, filter, collector);
+            hits = collector.topDocs();
 
             if (hits != null) {
                 int hitCount = hits.totalHits > hits.scoreDocs.length ? hits.scoreDocs.length : hits.totalHits;
@@ -362,9 +375,9 @@ public class CmsGallerySearchIndex extends CmsSearchIndex {
                 int visibleHitCount = hitCount;
                 for (int i = 0, cnt = 0; (i < hitCount) && (cnt < end); i++) {
                     try {
-                        doc = getSearcher().doc(hits.scoreDocs[i].doc);
+                        doc = searcher.doc(hits.scoreDocs[i].doc);
                         I_CmsSearchDocument searchDoc = new CmsLuceneDocument(doc);
-                        if (hasReadPermission(searchCms, searchDoc)) {
+                        if (hasReadPermission(searchCms, searchDoc, principals)) {
                             // user has read permission
                             if (cnt >= start) {
                                 // do not use the resource to obtain the raw content, read it from the lucene document!
@@ -407,6 +420,8 @@ public class CmsGallerySearchIndex extends CmsSearchIndex {
             throw new CmsSearchException(Messages.get().container(Messages.ERR_SEARCH_PARAMS_1, params), e);
         } catch (Exception e) {
             throw new CmsSearchException(Messages.get().container(Messages.ERR_SEARCH_PARAMS_1, params), e);
+        } finally {
+            releaseSearcher(searcher);
         }
 
         return searchResults;
@@ -0,0 +1,215 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.search.solr;
+
+import org.opencms.main.CmsIllegalArgumentException;
+import org.opencms.search.fields.CmsSearchField;
+import org.opencms.util.CmsStringUtil;
+
+import java.util.Date;
+
+import org.apache.solr.client.solrj.util.ClientUtils;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.util.DateUtil;
+
+/**
+ * A cursor for paging through the documents of a Solr query.<p>
+ * 
+ * The documents are sorted by an optional sort field, and by the unique id of the documents 
+ * to get a stable order. Instead of skipping the documents of the previous pages with an offset,
+ * the next page is selected by a filter query that matches only the documents behind the last document
+ * of the previous page, so that deep pages are as cheap as the first one.<p>
+ * 
+ * The cursor mark is the id of the last document and, if a sort field is used, its sort value.
+ * The sort field has to be set for all documents of the index, e.g. the path or the date of last modification.<p>
+ * 
+ * @since 8.5.2
+ */
+public class CmsSolrCursor {
+
+    /** The separator between the id and the sort value in the cursor mark. */
+    private static final char SEPARATOR = ',';
+
+    /** Signals if the documents are sorted ascending by the sort field. */
+    private boolean m_ascending;
+
+    /** The id of the last document, or <code>null</code> for the start of the result. */
+    private String m_lastId;
+
+    /** The sort value of the last document. */
+    private String m_lastValue;
+
+    /** The name of the sort field, or <code>null</code> if only the id is used. */
+    private String m_sortField;
+
+    /**
+     * Creates a new cursor.<p>
+     * 
+     * Only the first sort clause of the given sort is used, sorting by score 
+     * or by a function is not supported for cursors, in this case the documents are only sorted by id.<p>
+     * 
+     * @param sort the value of the sort parameter of the query, may be <code>null</code>
+     * @param cursorMark the cursor mark, <code>null</code> or {@link CmsSolrQuery#CURSOR_MARK_START} for the start
+     * 
+     * @throws CmsIllegalArgumentException if the cursor mark is invalid 
+     */
+    public CmsSolrCursor(String sort, String cursorMark)
+    throws CmsIllegalArgumentException {
+
+        m_ascending = true;
+        if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(sort)) {
+            String clause = CmsStringUtil.splitAsList(sort, ',').get(0).trim();
+            String[] parts = clause.split("\\s+");
+            String field = parts[0];
+            if (!field.equals(CmsSearchField.FIELD_SCORE)
+                && !field.equals(CmsSearchField.FIELD_ID)
+                && (field.indexOf('(') == -1)) {
+                m_sortField = field;
+                m_ascending = (parts.length < 2) || !"desc".equalsIgnoreCase(parts[1]);
+            }
+        }
+        if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(cursorMark) && !CmsSolrQuery.CURSOR_MARK_START.equals(cursorMark)) {
+            if (m_sortField == null) {
+                m_lastId = cursorMark;
+            } else {
+                int pos = cursorMark.indexOf(SEPARATOR);
+                if (pos < 1) {
+                    throw new CmsIllegalArgumentException(Messages.get().container(
+                        Messages.LOG_SOLR_ERR_INVALID_CURSOR_MARK_2,
+                        cursorMark,
+                        m_sortField));
+                }
+                m_lastId = cursorMark.substring(0, pos);
+                m_lastValue = cursorMark.substring(pos + 1);
+            }
+        }
+    }
+
+    /**
+     * Returns the filter query that matches the documents behind the current position of this cursor.<p>
+     * 
+     * @return the filter query, or <code>null</code> if this cursor is at the start of the result
+     */
+    public String getFilterQuery() {
+
+        if (isStart()) {
+            return null;
+        }
+        StringBuffer result = new StringBuffer(128);
+        if (m_sortField != null) {
+            String value = ClientUtils.escapeQueryChars(m_lastValue);
+            result.append(m_sortField).append(':');
+            if (m_ascending) {
+                result.append('{').append(value).append(" TO *}");
+            } else {
+                result.append("{* TO ").append(value).append('}');
+            }
+            result.append(" OR (").append(m_sortField).append(':').append(value).append(" AND ");
+        }
+        result.append(CmsSearchField.FIELD_ID).append(":{").append(ClientUtils.escapeQueryChars(m_lastId)).append(
+            " TO *}");
+        if (m_sortField != null) {
+            result.append(')');
+        }
+        return result.toString();
+    }
+
+    /**
+     * Returns the cursor mark for the current position of this cursor.<p>
+     * 
+     * @return the cursor mark
+     */
+    public String getMark() {
+
+        if (isStart()) {
+            return CmsSolrQuery.CURSOR_MARK_START;
+        }
+        return m_sortField == null ? m_lastId : m_lastId + SEPARATOR + m_lastValue;
+    }
+
+    /**
+     * Returns the value for the sort parameter of the query.<p>
+     * 
+     * @return the value for the sort parameter of the query
+     */
+    public String getSort() {
+
+        String idSort = CmsSearchField.FIELD_ID + " asc";
+        if (m_sortField == null) {
+            return idSort;
+        }
+        return m_sortField + (m_ascending ? " asc," : " desc,") + idSort;
+    }
+
+    /**
+     * Returns the name of the sort field.<p>
+     * 
+     * @return the name of the sort field, or <code>null</code> if the documents are only sorted by id
+     */
+    public String getSortField() {
+
+        return m_sortField;
+    }
+
+    /**
+     * Returns if this cursor is at the start of the result.<p>
+     * 
+     * @return <code>true</code> if this cursor is at the start of the result
+     */
+    public boolean isStart() {
+
+        return m_lastId == null;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        return getMark();
+    }
+
+    /**
+     * Moves this cursor behind the given document.<p>
+     * 
+     * @param doc the last document that has been read
+     */
+    public void update(SolrDocument doc) {
+
+        m_lastId = String.valueOf(doc.getFirstValue(CmsSearchField.FIELD_ID));
+        if (m_sortField != null) {
+            Object value = doc.getFirstValue(m_sortField);
+            if (value instanceof Date) {
+                m_lastValue = DateUtil.getThreadLocalDateFormat().format((Date)value);
+            } else {
+                m_lastValue = String.valueOf(value);
+            }
+        }
+    }
+}
@@ -210,6 +210,16 @@ public class CmsSolrDocument implements I_CmsSearchDocument {
         }
     }
 
+    /**
+     * @see org.opencms.search.I_CmsSearchDocument#addReadPrincipalsField(java.util.List)
+     */
+    public void addReadPrincipalsField(List<String> principals) {
+
+        for (String principal : principals) {
+            m_doc.addField(CmsSearchField.FIELD_READ_PRINCIPALS, principal);
+        }
+    }
+
     /**
      * @see org.opencms.search.I_CmsSearchDocument#addResourceLocales(java.util.List)
      */
@@ -42,6 +42,7 @@ import org.opencms.i18n.CmsEncoder;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsIllegalArgumentException;
 import org.opencms.main.CmsLog;
+import org.opencms.main.CmsRuntimeException;
 import org.opencms.main.OpenCms;
 import org.opencms.report.I_CmsReport;
 import org.opencms.search.CmsSearchException;
@@ -62,9 +63,12 @@ import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 import javax.servlet.ServletResponse;
 
@@ -77,6 +81,7 @@ import org.apache.solr.client.solrj.util.ClientUtils;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
 import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.util.ContentStreamBase;
 import org.apache.solr.common.util.FastWriter;
@@ -118,6 +123,9 @@ public class CmsSolrIndex extends CmsSearchIndex {
     /** Indicates the maximum number of documents from the complete result set to return. */
     private static final int ROWS_MAX = 50;
 
+    /** The number of additional rows requested for the documents removed by the permission check. */
+    private static final int ROWS_PERMISSION_MARGIN = 10;
+
     /** A constant for UTF-8 charset. */
     private static final Charset UTF8 = Charset.forName("UTF-8");
 
@@ -323,6 +331,87 @@ public class CmsSolrIndex extends CmsSearchIndex {
         }
     }
 
+    /**
+     * Iterates over all documents found by the given query, page by page.<p>
+     * 
+     * The result is read with a {@link CmsSolrCursor}, so only the documents of the current page 
+     * are held in memory, and deep pages are as cheap as the first one. This is the method of choice 
+     * to export large results, e.g. to generate a sitemap or a feed.<p>
+     * 
+     * The rows of the given query are the size of the pages. Each returned result list contains 
+     * the readable documents of one page, the last page may be smaller. If the query does not 
+     * contain a cursor mark, the iteration begins with the first document.<p>
+     * 
+     * The iterator throws a {@link CmsRuntimeException} if a search fails.<p>
+     * 
+     * @param cms the current OpenCms context
+     * @param query the OpenCms Solr query, should be sorted by a field that is set for all documents
+     * 
+     * @return an iterator over the pages of the result
+     * 
+     * @see CmsSolrQuery#setCursorMark(String)
+     */
+    public Iterator<CmsSolrResultList> iterate(final CmsObject cms, CmsSolrQuery query) {
+
+        final CmsSolrQuery pageQuery = query.clone();
+        if (pageQuery.getCursorMark() == null) {
+            pageQuery.setCursorMark(CmsSolrQuery.CURSOR_MARK_START);
+        }
+        return new Iterator<CmsSolrResultList>() {
+
+            /** Signals if the last page has been read. */
+            private boolean m_finished;
+
+            /** The next page to return. */
+            private CmsSolrResultList m_next;
+
+            /**
+             * @see java.util.Iterator#hasNext()
+             */
+            public boolean hasNext() {
+
+                if ((m_next == null) && !m_finished) {
+                    try {
+                        CmsSolrResultList result = searchCursor(cms, pageQuery, true);
+                        int rows = result.getRows().intValue();
+                        m_finished = (rows < 1)
+                            || (result.size() < rows)
+                            || pageQuery.getCursorMark().equals(result.getNextCursorMark());
+                        if (!result.isEmpty()) {
+                            m_next = result;
+                        }
+                        pageQuery.setCursorMark(result.getNextCursorMark());
+                    } catch (CmsSearchException e) {
+                        m_finished = true;
+                        throw new CmsRuntimeException(e.getMessageContainer(), e);
+                    }
+                }
+                return m_next != null;
+            }
+
+            /**
+             * @see java.util.Iterator#next()
+             */
+            public CmsSolrResultList next() {
+
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                CmsSolrResultList result = m_next;
+                m_next = null;
+                return result;
+            }
+
+            /**
+             * @see java.util.Iterator#remove()
+             */
+            public void remove() {
+
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
     /**
      * Not yet implemented for Solr.<p>
      * 
@@ -376,16 +465,23 @@ public class CmsSolrIndex extends CmsSearchIndex {
      * the requested amount of search results and to provide a working pagination with
      * security check.</li>
      * 
-     * <li>To be sure we get enough documents left even the permission check reduces the amount
-     * of found documents, the rows are multiplied by <code>'5'</code> and the current page 
-     * additionally the offset is added. The count of documents we don't have enough 
-     * permissions for grows with increasing page number, that's why we also multiply 
-     * the rows by the current page count.</li>
+     * <li>The found documents are filtered by the indexed read principals of the current user, 
+     * so that the documents the user is not permitted to read according to the index are not returned 
+     * by Solr. Only a few of the remaining documents are removed by the permission check, so the rows 
+     * up to the end of the requested page are requested with a small margin. In case the permission 
+     * check removes more documents, the following documents are requested from Solr.</li>
      * 
      * <li>Also make sure we perform the permission check for all found documents, so start with
-     * the first found doc.</li>
+     * the first found doc. The indexed read principals of a document are only a hint, since 
+     * they are not updated if the permissions of a parent folder change, so the permissions 
+     * of all found documents are confirmed in the VFS.</li>
      * </ul>
      * 
+     * If the query contains a cursor mark, the result is not paged by the 'start' offset but with 
+     * a {@link CmsSolrCursor}: the page behind the cursor mark is returned, and the cursor mark for 
+     * the following page is available from {@link CmsSolrResultList#getNextCursorMark()}. 
+     * In this case the hit count is the count of documents behind the cursor mark.<p>
+     * 
      * <b>NOTE:</b> If latter pages than the current one are containing protected documents the
      * total hit count will be incorrect, because the permission check ends if we have 
      * enough results found for the page to display. With other words latter pages than 
@@ -408,6 +504,10 @@ public class CmsSolrIndex extends CmsSearchIndex {
     public CmsSolrResultList search(CmsObject cms, final CmsSolrQuery query, boolean ignoreMaxRows)
     throws CmsSearchException {
 
+        if (query.getCursorMark() != null) {
+            return searchCursor(cms, query, ignoreMaxRows);
+        }
+
         int previousPriority = Thread.currentThread().getPriority();
         long startTime = System.currentTimeMillis();
 
@@ -442,9 +542,15 @@ public class CmsSolrIndex extends CmsSearchIndex {
                 page = Math.round(start / rows) + 1;
             }
 
-            // set the start to '0' and expand the rows before performing the query
+            // only request the documents the current user may read according to the indexed read principals
+            Set<String> principals = getReadPrincipals(searchCms);
+            if (principals != null) {
+                setReadPrincipalsFilterQuery(query, principals);
+            }
+
+            // set the start to '0' and expand the rows by a margin for the documents removed by the permission check
             query.setStart(new Integer(0));
-            query.setRows(new Integer((5 * rows * page) + start));
+            query.setRows(new Integer(start + rows + ROWS_PERMISSION_MARGIN));
 
             // perform the Solr query and remember the original Solr response
             QueryResponse queryResponse = m_solr.query(query);
@@ -470,38 +576,60 @@ public class CmsSolrIndex extends CmsSearchIndex {
             float maxScore = 0;
 
             // process found documents
-            List<CmsSearchResource> allDocs = new ArrayList<CmsSearchResource>();
+            List<CmsSolrDocument> allDocs = new ArrayList<CmsSolrDocument>();
+            SolrDocumentList foundDocs = queryResponse.getResults();
+            int offset = 0;
             int cnt = 0;
-            for (int i = 0; (i < queryResponse.getResults().size()) && (cnt < end); i++) {
-                try {
-                    SolrDocument doc = queryResponse.getResults().get(i);
-                    CmsSolrDocument searchDoc = new CmsSolrDocument(doc);
-                    if (needsPermissionCheck(searchDoc)) {
-                        // only if the document is an OpenCms internal resource perform the permission check
-                        CmsResource resource = getResource(searchCms, searchDoc);
-                        if (resource != null) {
-                            // permission check performed successfully: the user has read permissions!
-                            if (cnt >= start) {
-                                if (m_postProcessor != null) {
-                                    doc = m_postProcessor.process(
-                                        searchCms,
-                                        resource,
-                                        (SolrInputDocument)searchDoc.getDocument());
+            while (true) {
+                for (int i = 0; (i < foundDocs.size()) && (cnt < end); i++) {
+                    try {
+                        SolrDocument doc = foundDocs.get(i);
+                        CmsSolrDocument searchDoc = new CmsSolrDocument(doc);
+                        if (needsPermissionCheck(searchDoc)) {
+                            // only if the document is an OpenCms internal resource perform the permission check
+                            if (cnt < start) {
+                                // the documents before the requested page are only counted
+                                if (hasReadPermission(searchCms, searchDoc)) {
+                                    allDocs.add(searchDoc);
+                                    cnt++;
+                                } else {
+                                    visibleHitCount--;
+                                }
+                            } else {
+                                CmsResource resource = getResource(searchCms, searchDoc);
+                                if (resource != null) {
+                                    // permission check performed successfully: the user has read permissions!
+                                    if (m_postProcessor != null) {
+                                        doc = m_postProcessor.process(
+                                            searchCms,
+                                            resource,
+                                            (SolrInputDocument)searchDoc.getDocument());
+                                    }
+                                    resourceDocumentList.add(new CmsSearchResource(resource, searchDoc));
+                                    solrDocumentList.add(doc);
+                                    maxScore = maxScore < searchDoc.getScore() ? searchDoc.getScore() : maxScore;
+                                    allDocs.add(searchDoc);
+                                    cnt++;
+                                } else {
+                                    visibleHitCount--;
                                 }
-                                resourceDocumentList.add(new CmsSearchResource(resource, searchDoc));
-                                solrDocumentList.add(doc);
-                                maxScore = maxScore < searchDoc.getScore() ? searchDoc.getScore() : maxScore;
                             }
-                            allDocs.add(new CmsSearchResource(resource, searchDoc));
-                            cnt++;
-                        } else {
-                            visibleHitCount--;
                         }
+                    } catch (Exception e) {
+                        // should not happen, but if it does we want to go on with the next result nevertheless
+                        LOG.warn(Messages.get().getBundle().key(Messages.LOG_SOLR_ERR_RESULT_ITERATION_FAILED_0), e);
                     }
-                } catch (Exception e) {
-                    // should not happen, but if it does we want to go on with the next result nevertheless                        
-                    LOG.warn(Messages.get().getBundle().key(Messages.LOG_SOLR_ERR_RESULT_ITERATION_FAILED_0), e);
                 }
+                offset += foundDocs.size();
+                if ((cnt >= end) || foundDocs.isEmpty() || (offset >= hitCount)) {
+                    break;
+                }
+                // the permission check removed more documents than the margin, request the following documents
+                long solrStartTime = System.currentTimeMillis();
+                query.setStart(new Integer(offset));
+                query.setRows(new Integer((end - cnt) + ROWS_PERMISSION_MARGIN));
+                foundDocs = m_solr.query(query).getResults();
+                solrTime += System.currentTimeMillis() - solrStartTime;
             }
             // the last documents were all secret so let's take the last found docs
             if (resourceDocumentList.isEmpty() && (allDocs.size() > 0)) {
@@ -511,10 +639,14 @@ public class CmsSolrIndex extends CmsSearchIndex {
                 start = allDocs.size() - new Long(showCount).intValue();
                 end = allDocs.size();
                 if (allDocs.size() > start) {
-                    resourceDocumentList = allDocs.subList(start, end);
-                    for (CmsSearchResource r : resourceDocumentList) {
-                        maxScore = maxScore < r.getDocument().getScore() ? r.getDocument().getScore() : maxScore;
-                        solrDocumentList.add(((CmsSolrDocument)r.getDocument()).getSolrDocument());
+                    for (CmsSolrDocument searchDoc : allDocs.subList(start, end)) {
+                        // the resources of the documents before the requested page have not been read yet
+                        CmsResource resource = getResource(searchCms, searchDoc);
+                        if (resource != null) {
+                            resourceDocumentList.add(new CmsSearchResource(resource, searchDoc));
+                            maxScore = maxScore < searchDoc.getScore() ? searchDoc.getScore() : maxScore;
+                            solrDocumentList.add(searchDoc.getSolrDocument());
+                        }
                     }
                 }
             }
@@ -782,4 +914,192 @@ public class CmsSolrIndex extends CmsSearchIndex {
         }
         return false;
     }
+
+    /**
+     * Performs a search that returns the page behind the cursor mark of the given query.<p>
+     * 
+     * The documents are read in batches of the requested rows behind the cursor mark, 
+     * until enough readable documents have been found or all documents have been read.<p>
+     * 
+     * @param cms the current OpenCms context
+     * @param query the OpenCms Solr query with a cursor mark
+     * @param ignoreMaxRows <code>true</code> to return all all requested rows, <code>false</code> to use max rows
+     * 
+     * @return the page behind the cursor mark
+     * 
+     * @throws CmsSearchException if something goes wrong
+     */
+    private CmsSolrResultList searchCursor(CmsObject cms, CmsSolrQuery query, boolean ignoreMaxRows)
+    throws CmsSearchException {
+
+        int previousPriority = Thread.currentThread().getPriority();
+        long startTime = System.currentTimeMillis();
+
+        // remember the initial query
+        SolrQuery initQuery = query.clone();
+
+        CmsSolrQuery batchQuery = query.clone();
+        try {
+            CmsSolrCursor cursor = new CmsSolrCursor(query.getSortField(), query.getCursorMark());
+
+            // initialize the search context
+            CmsObject searchCms = OpenCms.initCmsObject(cms);
+
+            // change thread priority in order to reduce search impact on overall system performance
+            if (getPriority() > 0) {
+                Thread.currentThread().setPriority(getPriority());
+            }
+
+            int rows = query.getRows() != null ? query.getRows().intValue() : CmsSolrQuery.DEFAULT_ROWS.intValue();
+            if (!ignoreMaxRows && (rows > ROWS_MAX)) {
+                rows = ROWS_MAX;
+            }
+
+            // the batches are selected by the cursor filter query instead of an offset 
+            batchQuery.setHighlight(false);
+            batchQuery.setCursorMark(null);
+            batchQuery.setStart(new Integer(0));
+            batchQuery.setRows(new Integer(rows));
+            batchQuery.set(CommonParams.SORT, cursor.getSort());
+            String[] fields = batchQuery.getParams(CommonParams.FL);
+            if ((cursor.getSortField() != null) && (fields != null)) {
+                // the cursor needs the sort value of the last document
+                List<String> fieldList = CmsStringUtil.splitAsList(CmsStringUtil.arrayAsString(fields, ","), ',', true);
+                if (!fieldList.contains("*") && !fieldList.contains(cursor.getSortField())) {
+                    batchQuery.addField(cursor.getSortField());
+                }
+            }
+            // only request the documents the current user may read according to the indexed read principals
+            Set<String> principals = getReadPrincipals(searchCms);
+            if (principals != null) {
+                setReadPrincipalsFilterQuery(batchQuery, principals);
+            }
+
+            List<CmsSearchResource> resourceDocumentList = new ArrayList<CmsSearchResource>();
+            SolrDocumentList solrDocumentList = new SolrDocumentList();
+            QueryResponse firstResponse = null;
+            long visibleHitCount = 0;
+            float maxScore = 0;
+            long solrTime = 0;
+            String cursorFilterQuery = null;
+            boolean hasMoreDocs;
+            do {
+                // replace the filter query of the previous batch
+                if (cursorFilterQuery != null) {
+                    batchQuery.removeFilterQuery(cursorFilterQuery);
+                }
+                cursorFilterQuery = cursor.getFilterQuery();
+                if (cursorFilterQuery != null) {
+                    batchQuery.addFilterQuery(cursorFilterQuery);
+                }
+                long solrStartTime = System.currentTimeMillis();
+                QueryResponse queryResponse = m_solr.query(batchQuery);
+                solrTime += System.currentTimeMillis() - solrStartTime;
+                if (firstResponse == null) {
+                    firstResponse = queryResponse;
+                    visibleHitCount = queryResponse.getResults().getNumFound();
+                }
+                SolrDocumentList docs = queryResponse.getResults();
+                for (int i = 0; (i < docs.size()) && (resourceDocumentList.size() < rows); i++) {
+                    SolrDocument doc = docs.get(i);
+                    cursor.update(doc);
+                    try {
+                        CmsSolrDocument searchDoc = new CmsSolrDocument(doc);
+                        if (needsPermissionCheck(searchDoc)) {
+                            CmsResource resource = getResource(searchCms, searchDoc);
+                            if (resource != null) {
+                                if (m_postProcessor != null) {
+                                    doc = m_postProcessor.process(
+                                        searchCms,
+                                        resource,
+                                        (SolrInputDocument)searchDoc.getDocument());
+                                }
+                                resourceDocumentList.add(new CmsSearchResource(resource, searchDoc));
+                                solrDocumentList.add(doc);
+                                maxScore = maxScore < searchDoc.getScore() ? searchDoc.getScore() : maxScore;
+                            } else {
+                                visibleHitCount--;
+                            }
+                        }
+                    } catch (Exception e) {
+                        // should not happen, but if it does we want to go on with the next result nevertheless
+                        LOG.warn(Messages.get().getBundle().key(Messages.LOG_SOLR_ERR_RESULT_ITERATION_FAILED_0), e);
+                    }
+                }
+                // a batch smaller than the rows is the last one
+                hasMoreDocs = (rows > 0) && (docs.size() == rows) && (resourceDocumentList.size() < rows);
+            } while (hasMoreDocs);
+            long processTime = System.currentTimeMillis() - startTime - solrTime;
+
+            // create and return the result
+            SolrCore core = m_solr instanceof EmbeddedSolrServer
+            ? ((EmbeddedSolrServer)m_solr).getCoreContainer().getCore(getName())
+            : null;
+            CmsSolrResultList result = new CmsSolrResultList(
+                core,
+                initQuery,
+                firstResponse,
+                solrDocumentList,
+                resourceDocumentList,
+                0,
+                new Integer(rows),
+                resourceDocumentList.size(),
+                1,
+                visibleHitCount,
+                new Float(maxScore),
+                startTime);
+            result.setNextCursorMark(cursor.getMark());
+
+            if (LOG.isDebugEnabled()) {
+                Object[] logParams = new Object[] {
+                    new Long(System.currentTimeMillis() - startTime),
+                    new Long(result.getNumFound()),
+                    new Long(solrTime),
+                    new Long(processTime),
+                    new Long(result.getHighlightEndTime() != 0 ? result.getHighlightEndTime() - startTime : 0)};
+                LOG.debug(batchQuery.toString()
+                    + "\n"
+                    + Messages.get().getBundle().key(Messages.LOG_SOLR_SEARCH_EXECUTED_5, logParams));
+            }
+            return result;
+        } catch (Exception e) {
+            throw new CmsSearchException(Messages.get().container(
+                Messages.LOG_SOLR_ERR_SEARCH_EXECUTION_FAILD_1,
+                CmsEncoder.decode(batchQuery.toString())), e);
+        } finally {
+            // re-set thread to previous priority
+            Thread.currentThread().setPriority(previousPriority);
+        }
+    }
+
+    /**
+     * Sets the filter query that matches the documents that may be read by a user with the given principals.<p>
+     * 
+     * Documents that require a permission check in the VFS, and documents that have been indexed 
+     * without read principals are always matched. Documents that are matched because of the indexed 
+     * read principals must still be checked in the VFS, since the read principals of a document are 
+     * not updated if the permissions of a parent folder change.<p>
+     * 
+     * @param query the query to set the filter query for
+     * @param principals the ids of the principals of the current user
+     */
+    private void setReadPrincipalsFilterQuery(SolrQuery query, Set<String> principals) {
+
+        String fieldName = CmsSearchField.FIELD_READ_PRINCIPALS;
+        if (query.getFilterQueries() != null) {
+            for (String fq : query.getFilterQueries()) {
+                if (fq.startsWith(fieldName + ":")) {
+                    query.removeFilterQuery(fq);
+                }
+            }
+        }
+        StringBuffer filterQuery = new StringBuffer(64 * (principals.size() + 2));
+        filterQuery.append(fieldName).append(":(");
+        for (String principal : principals) {
+            filterQuery.append('"').append(principal).append("\" OR ");
+        }
+        filterQuery.append('"').append(CmsSearchField.READ_PRINCIPALS_VFS_CHECK).append("\")");
+        filterQuery.append(" OR (*:* -").append(fieldName).append(":[* TO *])");
+        query.addFilterQuery(filterQuery.toString());
+    }
 }
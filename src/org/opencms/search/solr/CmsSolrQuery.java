@@ -60,6 +60,9 @@ public class CmsSolrQuery extends SolrQuery {
     /** A constant to add the score field to the result documents. */
     public static final String ALL_RETURN_FIELDS = "*,score";
 
+    /** The cursor mark for the start of the result. */
+    public static final String CURSOR_MARK_START = "*";
+
     /** The default facet date gap. */
     public static final String DEFAULT_FACET_DATE_GAP = "+1DAY";
 
@@ -115,6 +118,9 @@ public class CmsSolrQuery extends SolrQuery {
         + ","
         + CmsSearchField.FIELD_PARENT_FOLDERS;
 
+    /** The name of the cursor mark parameter. */
+    public static final String PARAM_CURSOR_MARK = "cursorMark";
+
     /** The serial version UID. */
     private static final long serialVersionUID = -2387357736597627703L;
 
@@ -219,6 +225,18 @@ public class CmsSolrQuery extends SolrQuery {
         }
     }
 
+    /**
+     * Returns the cursor mark of this query.<p>
+     *
+     * @return the cursor mark, or <code>null</code> if the result is paged by offset
+     *
+     * @see #setCursorMark(String)
+     */
+    public String getCursorMark() {
+
+        return get(PARAM_CURSOR_MARK);
+    }
+
     /**
      * Sets the categories only if not set in the query parameters.<p>
      *
@@ -241,6 +259,26 @@ public class CmsSolrQuery extends SolrQuery {
         setCategories(Arrays.asList(categories));
     }
 
+    /**
+     * Sets the cursor mark of this query.<p>
+     *
+     * If a cursor mark is set, the result is paged with a {@link CmsSolrCursor} instead of the 'start' offset.
+     * Use {@link #CURSOR_MARK_START} for the first page and the next cursor mark of the result list
+     * for the following pages.<p>
+     *
+     * @param cursorMark the cursor mark to set, or <code>null</code> to page by offset
+     *
+     * @see CmsSolrResultList#getNextCursorMark()
+     */
+    public void setCursorMark(String cursorMark) {
+
+        if (cursorMark == null) {
+            remove(PARAM_CURSOR_MARK);
+        } else {
+            set(PARAM_CURSOR_MARK, cursorMark);
+        }
+    }
+
     /**
      * Sets date ranges.<p>
      * 
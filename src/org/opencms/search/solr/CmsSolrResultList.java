@@ -53,6 +53,9 @@ public class CmsSolrResultList extends ArrayList<CmsSearchResource> {
     /** The name for the parameters key of the response header. */
     private static final String HEADER_PARAMS_NAME = "params";
 
+    /** The name of the next cursor mark in the query response. */
+    private static final String NEXT_CURSOR_MARK_NAME = "nextCursorMark";
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsSolrResultList.class);
 
@@ -71,6 +74,9 @@ public class CmsSolrResultList extends ArrayList<CmsSearchResource> {
     /** The time in ms when the highlighting is finished. */
     private long m_highlightEndTime;
 
+    /** The cursor mark for the next page, <code>null</code> if the result is paged by offset. */
+    private String m_nextCursorMark;
+
     /** The current page (start / rows), used to build a pagination. */
     private int m_page;
 
@@ -261,6 +267,20 @@ public class CmsSolrResultList extends ArrayList<CmsSearchResource> {
         return m_resultDocuments.getMaxScore();
     }
 
+    /**
+     * Returns the cursor mark to request the page behind this result.<p>
+     * 
+     * If the next cursor mark equals the cursor mark of the query, there are no more documents.<p>
+     * 
+     * @return the cursor mark for the next page, or <code>null</code> if the query did not use a cursor
+     * 
+     * @see CmsSolrQuery#setCursorMark(String)
+     */
+    public String getNextCursorMark() {
+
+        return m_nextCursorMark;
+    }
+
     /**
      * Returns the count of docs that have been found.<p>
      * 
@@ -351,6 +371,22 @@ public class CmsSolrResultList extends ArrayList<CmsSearchResource> {
         return m_solrQueryResponse;
     }
 
+    /**
+     * Sets the cursor mark for the next page and adds it to the query response.<p>
+     * 
+     * @param nextCursorMark the cursor mark for the next page
+     */
+    protected void setNextCursorMark(String nextCursorMark) {
+
+        m_nextCursorMark = nextCursorMark;
+        int index = m_queryResponse.getResponse().indexOf(NEXT_CURSOR_MARK_NAME, 0);
+        if (index < 0) {
+            m_queryResponse.getResponse().add(NEXT_CURSOR_MARK_NAME, nextCursorMark);
+        } else {
+            m_queryResponse.getResponse().setVal(index, nextCursorMark);
+        }
+    }
+
     /**
      * Initializes the Solr query response.<p>
      * 
@@ -46,6 +46,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_SOLR_ERR_CONFIG_XML_NOT_READABLE_1 = "LOG_SOLR_ERR_CONFIG_XML_NOT_READABLE_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_SOLR_ERR_INVALID_CURSOR_MARK_2 = "LOG_SOLR_ERR_INVALID_CURSOR_MARK_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_SOLR_ERR_POST_PROCESSOR_NOT_EXIST_1 = "LOG_SOLR_ERR_POST_PROCESSOR_NOT_EXIST_1";
 
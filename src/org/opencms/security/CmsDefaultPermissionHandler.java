@@ -33,6 +33,7 @@ import org.opencms.db.CmsDbContext;
 import org.opencms.db.CmsDriverManager;
 import org.opencms.db.CmsSecurityManager;
 import org.opencms.db.I_CmsCacheKey;
+import org.opencms.db.I_CmsPermissionCacheKeyGenerator;
 import org.opencms.file.CmsProject;
 import org.opencms.file.CmsResource;
 import org.opencms.file.CmsResourceFilter;
@@ -85,16 +86,28 @@ public class CmsDefaultPermissionHandler implements I_CmsPermissionHandler {
 
         // checking the filter is less cost intensive then checking the cache,
         // this is why basic filter results are not cached
-        String cacheKey = m_keyGenerator.getCacheKeyForUserPermissions(
-            filter.requireVisible() && checkLock ? "11" : (!filter.requireVisible() && checkLock
-            ? "01"
-            : (filter.requireVisible() && !checkLock ? "10" : "00")),
-            dbc,
-            resource,
-            requiredPermissions);
-        CmsPermissionCheckResult cacheResult = OpenCms.getMemoryMonitor().getCachedPermission(cacheKey);
-        if (cacheResult != null) {
-            return cacheResult;
+        Object cacheKey;
+        if (m_keyGenerator instanceof I_CmsPermissionCacheKeyGenerator) {
+            cacheKey = ((I_CmsPermissionCacheKeyGenerator)m_keyGenerator).getCacheKeyForPermissions(
+                filter.requireVisible(),
+                checkLock,
+                dbc,
+                resource,
+                requiredPermissions);
+        } else {
+            cacheKey = m_keyGenerator.getCacheKeyForUserPermissions(
+                filter.requireVisible() && checkLock ? "11" : (!filter.requireVisible() && checkLock
+                ? "01"
+                : (filter.requireVisible() && !checkLock ? "10" : "00")),
+                dbc,
+                resource,
+                requiredPermissions);
+        }
+        if (cacheKey != null) {
+            CmsPermissionCheckResult cacheResult = OpenCms.getMemoryMonitor().getCachedPermission(cacheKey);
+            if (cacheResult != null) {
+                return cacheResult;
+            }
         }
 
         int denied = 0;
@@ -211,7 +224,7 @@ public class CmsDefaultPermissionHandler implements I_CmsPermissionHandler {
                         permissions.getPermissionString()}));
             }
         }
-        if (dbc.getProjectId().isNullUUID()) {
+        if ((cacheKey != null) && dbc.getProjectId().isNullUUID()) {
             OpenCms.getMemoryMonitor().cachePermission(cacheKey, result);
         }
 
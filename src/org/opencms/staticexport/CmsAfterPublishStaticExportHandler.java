@@ -37,6 +37,7 @@ import org.opencms.loader.I_CmsResourceLoader;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
+import org.opencms.report.CmsBufferedReport;
 import org.opencms.report.I_CmsReport;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsRequestUtil;
@@ -57,6 +58,12 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletResponse;
@@ -86,6 +93,30 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
     /** Request property cookie constant. */
     private static final String REQUEST_PROPERTY_COOKIE = "Cookie";
 
+    /** Delay in milliseconds before the first retry of a failed export request, doubled for each further retry. */
+    private static final long RETRY_DELAY = 500;
+
+    /** The manifest of the incremental export performed by this handler, or <code>null</code> for a normal export. */
+    private CmsStaticExportManifest m_exportManifest;
+
+    /**
+     * Default constructor.<p>
+     */
+    public CmsAfterPublishStaticExportHandler() {
+
+        // NOOP
+    }
+
+    /**
+     * Creates a handler that performs an incremental export with the given manifest.<p>
+     * 
+     * @param exportManifest the manifest of the incremental export
+     */
+    protected CmsAfterPublishStaticExportHandler(CmsStaticExportManifest exportManifest) {
+
+        m_exportManifest = exportManifest;
+    }
+
     /**
      * Does the actual static export.<p>
      *  
@@ -336,11 +367,15 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
                 org.opencms.report.Messages.RPT_ARGUMENT_1,
                 exportData.getVfsName()));
             report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
-            int status = manager.export(null, null, cms, exportData);
+            int status = manager.export(null, null, cms, exportData, m_exportManifest);
             if (status == HttpServletResponse.SC_OK) {
                 report.println(
                     org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
                     I_CmsReport.FORMAT_OK);
+            } else if (status == HttpServletResponse.SC_NOT_MODIFIED) {
+                report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_SKIPPED_0),
+                    I_CmsReport.FORMAT_NOTE);
             } else {
                 report.println(
                     org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
@@ -560,12 +595,17 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
                 }
             }
         }
-        urlcon.setIfModifiedSince(dateLastModified);
-        if (LOG.isDebugEnabled()) {
-            LOG.debug(Messages.get().getBundle().key(
-                Messages.LOG_IF_MODIFIED_SINCE_SET_2,
-                exportFile.getName(),
-                new Long((dateLastModified / 1000) * 1000)));
+        if (m_exportManifest != null) {
+            // the incremental export decides itself whether the resource must be generated again
+            urlcon.setRequestProperty(CmsRequestUtil.HEADER_OPENCMS_EXPORT_MANIFEST, m_exportManifest.getId());
+        } else {
+            urlcon.setIfModifiedSince(dateLastModified);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(Messages.get().getBundle().key(
+                    Messages.LOG_IF_MODIFIED_SINCE_SET_2,
+                    exportFile.getName(),
+                    new Long((dateLastModified / 1000) * 1000)));
+            }
         }
         if (cookies.length() > 0) {
             // set the cookies, included the session id to keep the same session
@@ -604,8 +644,7 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
     protected void exportTemplateResources(CmsObject cms, List<String> publishedTemplateResources, I_CmsReport report) {
 
         CmsStaticExportManager manager = OpenCms.getStaticExportManager();
-        int size = publishedTemplateResources.size();
-        int count = 1;
+        final int size = publishedTemplateResources.size();
 
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_EXPORT_TEMPLATES_1, new Integer(size)));
@@ -614,11 +653,19 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
             Messages.get().container(Messages.RPT_STATICEXPORT_TEMPLATE_RESOURCES_BEGIN_0),
             I_CmsReport.FORMAT_HEADLINE);
 
-        StringBuffer cookies = new StringBuffer();
+        final StringBuffer cookies = new StringBuffer();
+        final AtomicInteger count = new AtomicInteger();
+        final AtomicInteger requests = new AtomicInteger();
+        final AtomicInteger failures = new AtomicInteger();
+        final Semaphore connections = (manager.getExportConnectionsPerHost() > 0) ? new Semaphore(
+            manager.getExportConnectionsPerHost()) : null;
+        ExecutorService executor = null;
+        long startTime = System.currentTimeMillis();
+
         // now loop through all of them and request them from the server
         Iterator<String> i = publishedTemplateResources.iterator();
         while (i.hasNext()) {
-            String rfsName = i.next();
+            final String rfsName = i.next();
             CmsStaticExportData data = null;
             try {
                 data = manager.getVfsNameInternal(cms, rfsName);
@@ -638,68 +685,102 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
                     }
                 }
             }
-            if (data != null) {
-                data.setRfsName(rfsName);
-                report.print(
-                    org.opencms.report.Messages.get().container(
-                        org.opencms.report.Messages.RPT_SUCCESSION_2,
-                        new Integer(count++),
-                        new Integer(size)),
-                    I_CmsReport.FORMAT_NOTE);
-                report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
-                report.print(org.opencms.report.Messages.get().container(
-                    org.opencms.report.Messages.RPT_ARGUMENT_1,
-                    rfsName));
-                report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
-            } else {
+            if (data == null) {
                 // no valid resource found for rfs name (already deleted), skip it
                 continue;
             }
+            data.setRfsName(rfsName);
 
+            // the detail pages are exported before the resource itself
+            final List<CmsStaticExportData> exportData = new ArrayList<CmsStaticExportData>();
             try {
                 CmsResource resource = data.getResource();
-                try {
-                    Collection<String> detailPages = CmsDetailPageUtil.getAllDetailPagesWithUrlName(cms, resource);
-                    for (String detailPageUri : detailPages) {
-                        String altRfsName = manager.getRfsName(cms, detailPageUri);
-                        CmsStaticExportData detailData = new CmsStaticExportData(
-                            data.getVfsName(),
-                            altRfsName,
-                            data.getResource(),
-                            data.getParameters());
-                        exportTemplateResource(detailData, cookies);
-                    }
-                } catch (CmsException e) {
-                    LOG.error(e.getLocalizedMessage(), e);
+                Collection<String> detailPages = CmsDetailPageUtil.getAllDetailPagesWithUrlName(cms, resource);
+                for (String detailPageUri : detailPages) {
+                    String altRfsName = manager.getRfsName(cms, detailPageUri);
+                    exportData.add(new CmsStaticExportData(
+                        data.getVfsName(),
+                        altRfsName,
+                        data.getResource(),
+                        data.getParameters()));
                 }
+            } catch (CmsException e) {
+                LOG.error(e.getLocalizedMessage(), e);
+            }
+            exportData.add(data);
+
+            if ((manager.getExportThreads() <= 1) || (cookies.length() == 0)) {
+                // the first request is always sent directly, since it creates the session used by all other requests
+                exportTemplateResource(
+                    exportData,
+                    rfsName,
+                    count.incrementAndGet(),
+                    size,
+                    cookies,
+                    connections,
+                    requests,
+                    failures,
+                    report);
+                //don't lock up the CPU exclusively - allow other Threads to run as well 
+                Thread.yield();
+            } else {
+                if (executor == null) {
+                    final AtomicInteger workerCounter = new AtomicInteger();
+                    final String threadName = Thread.currentThread().getName();
+                    executor = Executors.newFixedThreadPool(manager.getExportThreads(), new ThreadFactory() {
 
-                int status = exportTemplateResource(data, cookies);
-
-                // write the report
-                if (status == HttpServletResponse.SC_OK) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
-                        I_CmsReport.FORMAT_OK);
-                } else if (status == HttpServletResponse.SC_NOT_MODIFIED) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_SKIPPED_0),
-                        I_CmsReport.FORMAT_NOTE);
-                } else if (status == HttpServletResponse.SC_SEE_OTHER) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
-                        I_CmsReport.FORMAT_NOTE);
-                } else {
-                    report.println(
-                        org.opencms.report.Messages.get().container(
-                            org.opencms.report.Messages.RPT_ARGUMENT_1,
-                            new Integer(status)),
-                        I_CmsReport.FORMAT_OK);
+                        public Thread newThread(Runnable r) {
+
+                            return new Thread(r, threadName + " - worker " + workerCounter.incrementAndGet());
+                        }
+                    });
                 }
-            } catch (IOException e) {
-                report.println(e);
+                final I_CmsReport workerReport = report;
+                executor.execute(new Runnable() {
+
+                    public void run() {
+
+                        CmsBufferedReport bufferedReport = new CmsBufferedReport(workerReport);
+                        try {
+                            exportTemplateResource(
+                                exportData,
+                                rfsName,
+                                count.incrementAndGet(),
+                                size,
+                                cookies,
+                                connections,
+                                requests,
+                                failures,
+                                bufferedReport);
+                        } finally {
+                            // write the output of each resource as a whole
+                            bufferedReport.flush();
+                        }
+                    }
+                });
             }
-            //don't lock up the CPU exclusively - allow other Threads to run as well 
-            Thread.yield();
+        }
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                    // wait until all resources are exported
+                }
+            } catch (InterruptedException e) {
+                // the export has been abandoned, stop sending requests
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (requests.get() > 0) {
+            long time = Math.max(1, System.currentTimeMillis() - startTime);
+            report.println(Messages.get().container(
+                Messages.RPT_STATICEXPORT_TEMPLATE_RESOURCES_STATS_4,
+                new Object[] {
+                    new Integer(requests.get()),
+                    new Long(time / 1000),
+                    new Long((requests.get() * 1000L) / time),
+                    new Integer(failures.get())}), I_CmsReport.FORMAT_NOTE);
         }
         report.println(
             Messages.get().container(Messages.RPT_STATICEXPORT_TEMPLATE_RESOURCES_END_0),
@@ -890,4 +971,155 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
 
         return templatesFound;
     }
-}
\ No newline at end of file
+
+    /**
+     * Sends the export requests for a single template resource and writes the result to the report.<p>
+     * 
+     * @param exportData the export data of the detail pages, followed by the export data of the resource itself
+     * @param rfsName the RFS name of the resource
+     * @param count the position of the resource in the list of resources to export
+     * @param size the number of resources to export
+     * @param cookies cookies to keep the session
+     * @param connections the limit for parallel requests to the export server, or <code>null</code>
+     * @param requests the counter for the sent requests
+     * @param failures the counter for the failed requests
+     * @param report the report to write to
+     */
+    private void exportTemplateResource(
+        List<CmsStaticExportData> exportData,
+        String rfsName,
+        int count,
+        int size,
+        StringBuffer cookies,
+        Semaphore connections,
+        AtomicInteger requests,
+        AtomicInteger failures,
+        I_CmsReport report) {
+
+        report.print(org.opencms.report.Messages.get().container(
+            org.opencms.report.Messages.RPT_SUCCESSION_2,
+            new Integer(count),
+            new Integer(size)), I_CmsReport.FORMAT_NOTE);
+        report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
+        report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_ARGUMENT_1, rfsName));
+        report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
+
+        try {
+            int status = HttpServletResponse.SC_OK;
+            Iterator<CmsStaticExportData> itData = exportData.iterator();
+            while (itData.hasNext()) {
+                requests.incrementAndGet();
+                try {
+                    status = exportTemplateResourceWithRetries(itData.next(), cookies, connections);
+                } catch (IOException e) {
+                    failures.incrementAndGet();
+                    throw e;
+                }
+                if (!isExportStatus(status)) {
+                    failures.incrementAndGet();
+                }
+            }
+
+            // write the report
+            if (status == HttpServletResponse.SC_OK) {
+                report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
+                    I_CmsReport.FORMAT_OK);
+            } else if (status == HttpServletResponse.SC_NOT_MODIFIED) {
+                report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_SKIPPED_0),
+                    I_CmsReport.FORMAT_NOTE);
+            } else if (status == HttpServletResponse.SC_SEE_OTHER) {
+                report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
+                    I_CmsReport.FORMAT_NOTE);
+            } else {
+                report.println(
+                    org.opencms.report.Messages.get().container(
+                        org.opencms.report.Messages.RPT_ARGUMENT_1,
+                        new Integer(status)),
+                    I_CmsReport.FORMAT_OK);
+            }
+        } catch (IOException e) {
+            report.println(e);
+        }
+    }
+
+    /**
+     * Exports a single (template) resource, retrying the request with an increasing delay 
+     * if it fails with an I/O error or a server error.<p>
+     * 
+     * A "304 - not modified" response is never retried.<p>
+     * 
+     * @param data the export data
+     * @param cookies cookies to keep the session
+     * @param connections the limit for parallel requests to the export server, or <code>null</code>
+     * 
+     * @return the status of the last http request used to perform the export
+     * 
+     * @throws IOException if the last http request fails
+     */
+    private int exportTemplateResourceWithRetries(
+        CmsStaticExportData data,
+        StringBuffer cookies,
+        Semaphore connections) throws IOException {
+
+        int retries = OpenCms.getStaticExportManager().getExportRetries();
+        for (int attempt = 0;; attempt++) {
+            int status = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+            IOException error = null;
+            if (connections != null) {
+                connections.acquireUninterruptibly();
+            }
+            try {
+                status = exportTemplateResource(data, cookies);
+            } catch (IOException e) {
+                error = e;
+            } finally {
+                if (connections != null) {
+                    connections.release();
+                }
+            }
+            if ((error == null) && (status < HttpServletResponse.SC_INTERNAL_SERVER_ERROR)) {
+                return status;
+            }
+            if (attempt < retries) {
+                long delay = RETRY_DELAY << attempt;
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_EXPORT_RETRY_3,
+                            data.getRfsName(),
+                            new Long(delay),
+                            new Integer(attempt + 1)),
+                        error);
+                }
+                try {
+                    Thread.sleep(delay);
+                    continue;
+                } catch (InterruptedException e) {
+                    // the export has been abandoned, do not retry
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (error != null) {
+                throw error;
+            }
+            return status;
+        }
+    }
+
+    /**
+     * Checks if the given status of an export request means that the request was successful.<p>
+     * 
+     * @param status the status of the export request
+     * 
+     * @return <code>true</code> if the export request was successful
+     */
+    private boolean isExportStatus(int status) {
+
+        return (status == HttpServletResponse.SC_OK)
+            || (status == HttpServletResponse.SC_NOT_MODIFIED)
+            || (status == HttpServletResponse.SC_SEE_OTHER);
+    }
+}
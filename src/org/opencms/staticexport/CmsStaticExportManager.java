@@ -34,6 +34,7 @@ import org.opencms.file.CmsObject;
 import org.opencms.file.CmsProperty;
 import org.opencms.file.CmsPropertyDefinition;
 import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
 import org.opencms.file.CmsVfsResourceNotFoundException;
 import org.opencms.file.types.CmsResourceTypeJsp;
 import org.opencms.i18n.CmsAcceptLanguageHeaderParser;
@@ -48,6 +49,8 @@ import org.opencms.main.CmsLog;
 import org.opencms.main.CmsSystemInfo;
 import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
+import org.opencms.relations.CmsRelation;
+import org.opencms.relations.CmsRelationFilter;
 import org.opencms.report.CmsLogReport;
 import org.opencms.report.I_CmsReport;
 import org.opencms.security.CmsSecurityException;
@@ -72,7 +75,10 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -112,12 +118,21 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** Name for the folder default index file. */
     public static final String EXPORT_DEFAULT_FILE = "index_export.html";
 
+    /** Default number of retries for failed export requests. */
+    public static final int EXPORT_DEFAULT_RETRIES = 0;
+
+    /** Default number of threads that send export requests in parallel. */
+    public static final int EXPORT_DEFAULT_THREADS = 1;
+
     /** Name for the default work path. */
     public static final String EXPORT_DEFAULT_WORKPATH = CmsSystemInfo.FOLDER_WEBINF + "temp";
 
     /** Flag value for links without parameters. */
     public static final int EXPORT_LINK_WITH_PARAMETER = 2;
 
+    /** Name of the manifest file of the incremental export, relative to the OpenCms WEB-INF directory. */
+    public static final String EXPORT_MANIFEST_FILE = "staticexport.manifest";
+
     /** Flag value for links without parameters. */
     public static final int EXPORT_LINK_WITHOUT_PARAMETER = 1;
 
@@ -163,6 +178,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** OpenCms default locale header. */
     private String m_defaultAcceptLanguageHeader;
 
+    /** The maximum number of parallel export requests to the same host, zero for no limit. */
+    private int m_exportConnectionsPerHost;
+
     /** Matcher for  selecting those resources which should be part of the static export. */
     private CmsExportFolderMatcher m_exportFolderMatcher;
 
@@ -181,12 +199,18 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** Indicates if links in the static export should be relative. */
     private boolean m_exportRelativeLinks;
 
+    /** The number of retries for failed export requests. */
+    private int m_exportRetries = EXPORT_DEFAULT_RETRIES;
+
     /** List of export rules. */
     private List<CmsStaticExportExportRule> m_exportRules;
 
     /** List of export suffixes where the "export" property default is always <code>true</code>. */
     private List<String> m_exportSuffixes;
 
+    /** The number of threads that send export requests in parallel. */
+    private int m_exportThreads = EXPORT_DEFAULT_THREADS;
+
     /** Temporary variable for reading the xml config file. */
     private CmsStaticExportExportRule m_exportTmpRule;
 
@@ -205,6 +229,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** Handler class for static export. */
     private I_CmsStaticExportHandler m_handler;
 
+    /** The manifests of the running incremental exports, by manifest id. */
+    private Map<String, CmsStaticExportManifest> m_incrementalExportManifests;
+
     /** The configured link substitution handler. */
     private I_CmsLinkSubstitutionHandler m_linkSubstitutionHandler;
 
@@ -282,6 +309,7 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         m_exportTmpRule = new CmsStaticExportExportRule("", "");
         m_rfsTmpRule = new CmsStaticExportRfsRule("", "", "", "", "", "", null, null);
         m_fullStaticExport = false;
+        m_incrementalExportManifests = new ConcurrentHashMap<String, CmsStaticExportManifest>();
     }
 
     /**
@@ -487,6 +515,36 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     public int export(HttpServletRequest req, HttpServletResponse res, CmsObject cms, CmsStaticExportData data)
     throws CmsException, IOException, ServletException, CmsStaticExportException {
 
+        return export(req, res, cms, data, getIncrementalExportManifest(req));
+    }
+
+    /**
+     * Exports the requested uri and at the same time writes the uri to the response output stream
+     * if required.<p>
+     * 
+     * If a manifest is given, the export is part of an incremental export: the uri is only exported 
+     * if its sources have changed, and the exported files are recorded in the manifest.<p>
+     * 
+     * @param req the current request
+     * @param res the current response
+     * @param cms an initialised cms context (should be initialised with the "Guest" user only)
+     * @param data the static export data set
+     * @param manifest the manifest of the incremental export, or <code>null</code> for a normal export
+     * 
+     * @return status code of the export operation, status codes are the same as http status codes (200,303,304)
+     * 
+     * @throws CmsException in case of errors accessing the VFS
+     * @throws ServletException in case of errors accessing the servlet 
+     * @throws IOException in case of errors writing to the export output stream
+     * @throws CmsStaticExportException if static export is disabled
+     */
+    public int export(
+        HttpServletRequest req,
+        HttpServletResponse res,
+        CmsObject cms,
+        CmsStaticExportData data,
+        CmsStaticExportManifest manifest) throws CmsException, IOException, ServletException, CmsStaticExportException {
+
         CmsResource resource = data.getResource();
         String vfsName = data.getVfsName();
         String rfsName;
@@ -577,6 +635,7 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         List<Locale> locales = OpenCms.getLocaleManager().getDefaultLocales(exportCms, vfsName);
         boolean exported = false;
         boolean matched = false;
+        String sources = (manifest != null) ? getExportSources(exportCms, file) : null;
         // iterate over all rules
         Iterator<CmsStaticExportRfsRule> it = getRfsRules().iterator();
         while (it.hasNext()) {
@@ -597,26 +656,36 @@ public class CmsStaticExportManager implements I_CmsEventListener {
                     ctxInfo.setLocale(locale);
                     locCms = OpenCms.initCmsObject(exportCms, ctxInfo);
                 }
+                String locRfsName = rfsName;
+                if (locales.contains(locale)) {
+                    locRfsName = rule.getLocalizedRfsName(rfsName, "/");
+                }
+                if ((manifest != null)
+                    && manifest.isUnchanged(
+                        CmsFileUtil.normalizePath(rule.getExportPath() + locRfsName),
+                        sources)) {
+                    // the sources of the exported file have not changed
+                    continue;
+                }
                 // read the content in the matching locale
                 byte[] content = loader.export(locCms, file, req, wrapRes);
                 if (content != null) {
                     // write to rfs
                     exported = true;
-                    String locRfsName = rfsName;
-                    if (locales.contains(locale)) {
-                        locRfsName = rule.getLocalizedRfsName(rfsName, "/");
-                    }
-                    writeResource(req, rule.getExportPath(), locRfsName, resource, content);
+                    writeResource(req, rule.getExportPath(), locRfsName, resource, content, manifest, sources);
                 }
             }
         }
         if (!matched) {
             // no rule matched
             String exportPath = getExportPath(siteRoot + vfsName);
-            byte[] content = loader.export(exportCms, file, req, wrapRes);
-            if (content != null) {
-                exported = true;
-                writeResource(req, exportPath, rfsName, resource, content);
+            if ((manifest == null)
+                || !manifest.isUnchanged(CmsFileUtil.normalizePath(exportPath + rfsName), sources)) {
+                byte[] content = loader.export(exportCms, file, req, wrapRes);
+                if (content != null) {
+                    exported = true;
+                    writeResource(req, exportPath, rfsName, resource, content, manifest, sources);
+                }
             }
         }
 
@@ -667,6 +736,8 @@ public class CmsStaticExportManager implements I_CmsEventListener {
             OpenCms.fireCmsEvent(clearCacheEvent);
 
             scrubExportFolders(report);
+            // the files recorded in the manifest of the incremental export do not exist any more
+            new File(getExportManifestPath()).delete();
             // this will always use the root site
             CmsObject cms = OpenCms.initCmsObject(OpenCms.getDefaultUsers().getUserExport());
             cms.deleteAllStaticExportPublishedResources(EXPORT_LINK_WITHOUT_PARAMETER);
@@ -715,6 +786,56 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         }
     }
 
+    /**
+     * Starts an incremental static export of all resources.<p>
+     * 
+     * In contrast to {@link #exportFullStaticRender(boolean, I_CmsReport)}, the export folders are neither 
+     * purged nor replaced. For every exported file, the date of last modification of the exported resource 
+     * and the resources it depends on according to the relations table are recorded in a manifest, together 
+     * with a hash of the generated content. Resources whose sources have not changed since the last 
+     * incremental export are not exported again, and files whose content has not changed are not written, 
+     * so that their date of last modification is kept.<p>
+     * 
+     * Dependencies that are not stored as relations, for example the navigation, are not detected. 
+     * A full static export is required if such dependencies change.<p>
+     * 
+     * @param report an I_CmsReport instance to print output message, or null to write messages to the log file   
+     * 
+     * @throws CmsException in case of errors accessing the VFS
+     * @throws IOException in case of errors writing to the export output stream
+     * @throws ServletException in case of errors accessing the servlet 
+     */
+    public synchronized void exportIncrementalStaticRender(I_CmsReport report)
+    throws CmsException, IOException, ServletException {
+
+        CmsStaticExportManifest manifest = new CmsStaticExportManifest(getExportManifestPath());
+        try {
+            manifest.load();
+        } catch (IOException e) {
+            // export everything again
+            LOG.error(e.getLocalizedMessage(), e);
+        }
+
+        // internal export requests find the manifest of this export by its id
+        m_incrementalExportManifests.put(manifest.getId(), manifest);
+        try {
+            // export everything
+            CmsAfterPublishStaticExportHandler handler = new CmsAfterPublishStaticExportHandler(manifest);
+            handler.doExportAfterPublish(null, report);
+        } finally {
+            m_incrementalExportManifests.remove(manifest.getId());
+        }
+
+        // entries of files that are no longer exported are removed, but the files are kept 
+        manifest.removeUnvisited();
+        manifest.save();
+        report.println(Messages.get().container(
+            Messages.RPT_STATICEXPORT_INCREMENTAL_3,
+            new Integer(manifest.getSkippedCount()),
+            new Integer(manifest.getUnchangedCount()),
+            new Integer(manifest.getWrittenCount())), I_CmsReport.FORMAT_NOTE);
+    }
+
     /**
      * Returns the accept-charset header used for internal requests.<p>
      * 
@@ -887,6 +1008,16 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         return String.valueOf(m_staticExportEnabled);
     }
 
+    /**
+     * Returns the maximum number of parallel export requests to the same host.<p>
+     * 
+     * @return the maximum number of parallel export requests to the same host, zero for no limit
+     */
+    public int getExportConnectionsPerHost() {
+
+        return m_exportConnectionsPerHost;
+    }
+
     /**
      * Returns the current folder matcher.<p>
      * 
@@ -944,6 +1075,18 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         return Collections.unmodifiableMap(sortedMap);
     }
 
+    /**
+     * Returns the absolute path of the manifest file of the incremental static export.<p>
+     * 
+     * @return the absolute path of the manifest file of the incremental static export
+     * 
+     * @see #exportIncrementalStaticRender(I_CmsReport)
+     */
+    public String getExportManifestPath() {
+
+        return OpenCms.getSystemInfo().getAbsoluteRfsPathRelativeToWebInf(EXPORT_MANIFEST_FILE);
+    }
+
     /**
      * Returns the export path for the static export, that is the folder where the 
      * static exported resources will be written to.<p>
@@ -1007,6 +1150,16 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         return m_exportPropertyDefault;
     }
 
+    /**
+     * Returns the number of retries for export requests that failed with an I/O error or a server error.<p>
+     * 
+     * @return the number of retries for failed export requests
+     */
+    public int getExportRetries() {
+
+        return m_exportRetries;
+    }
+
     /**
      * Returns the export Rules.<p>
      *
@@ -1027,6 +1180,16 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         return m_exportSuffixes;
     }
 
+    /**
+     * Returns the number of threads that send the requests for exporting template resources in parallel.<p>
+     * 
+     * @return the number of threads that send export requests in parallel
+     */
+    public int getExportThreads() {
+
+        return m_exportThreads;
+    }
+
     /**
      * Returns the export URL used for internal requests for exporting resources that require a 
      * request / response (like JSP).<p>
@@ -1105,6 +1268,26 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         return m_handler;
     }
 
+    /**
+     * Returns the manifest of the incremental export the given request is part of.<p>
+     * 
+     * @param req the current request, may be <code>null</code>
+     * 
+     * @return the manifest of the incremental export, or <code>null</code> if the request is not part of 
+     *      a running incremental export
+     */
+    public CmsStaticExportManifest getIncrementalExportManifest(HttpServletRequest req) {
+
+        if (req == null) {
+            return null;
+        }
+        String manifestId = req.getHeader(CmsRequestUtil.HEADER_OPENCMS_EXPORT_MANIFEST);
+        if (manifestId == null) {
+            return null;
+        }
+        return m_incrementalExportManifests.get(manifestId);
+    }
+
     /**
      * Returns the configured link substitution handler class.<p>
      * 
@@ -2062,6 +2245,26 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         m_staticExportWorkPathConfigured = path;
     }
 
+    /**
+     * Sets the settings for sending the requests for exporting template resources in parallel.<p>
+     * 
+     * @param threads the number of threads that send export requests in parallel
+     * @param connectionsPerHost the maximum number of parallel requests to the same host, zero for no limit
+     * @param retries the number of retries for failed export requests
+     */
+    public void setExportWorkers(String threads, String connectionsPerHost, String retries) {
+
+        if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(threads)) {
+            m_exportThreads = Math.max(1, Integer.parseInt(threads.trim()));
+        }
+        if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(connectionsPerHost)) {
+            m_exportConnectionsPerHost = Math.max(0, Integer.parseInt(connectionsPerHost.trim()));
+        }
+        if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(retries)) {
+            m_exportRetries = Math.max(0, Integer.parseInt(retries.trim()));
+        }
+    }
+
     /**
      * Sets the link substitution handler class.<p>
      * 
@@ -2817,4 +3020,87 @@ public class CmsStaticExportManager implements I_CmsEventListener {
             return Collections.emptyMap();
         }
     }
+
+    /**
+     * Returns the sources of the export files generated for the given resource, 
+     * which are stored in the manifest of an incremental export.<p>
+     * 
+     * The sources consist of the date of last modification of the resource, followed by the 
+     * sorted root paths and dates of last modification of all relation targets of the resource.<p>
+     * 
+     * @param cms the current OpenCms context
+     * @param resource the exported resource
+     * 
+     * @return the sources of the export files generated for the given resource
+     */
+    private String getExportSources(CmsObject cms, CmsResource resource) {
+
+        StringBuffer result = new StringBuffer(64);
+        result.append(resource.getDateLastModified());
+        Set<String> dependencies = new TreeSet<String>();
+        try {
+            List<CmsRelation> relations = cms.getRelationsForResource(resource, CmsRelationFilter.TARGETS);
+            Iterator<CmsRelation> itRelations = relations.iterator();
+            while (itRelations.hasNext()) {
+                CmsRelation relation = itRelations.next();
+                long dateLastModified;
+                try {
+                    dateLastModified = relation.getTarget(cms, CmsResourceFilter.ALL).getDateLastModified();
+                } catch (CmsException e) {
+                    // the target does not exist
+                    dateLastModified = -1;
+                }
+                dependencies.add(relation.getTargetPath() + "@" + dateLastModified);
+            }
+        } catch (CmsException e) {
+            // the dependencies are unknown, make sure the resource is exported again
+            LOG.error(e.getLocalizedMessage(), e);
+            dependencies.add(new CmsUUID().toString());
+        }
+        Iterator<String> itDependencies = dependencies.iterator();
+        while (itDependencies.hasNext()) {
+            result.append(',');
+            result.append(itDependencies.next());
+        }
+        return result.toString();
+    }
+
+    /**
+     * Writes a resource to the given export path with the given rfs name and the given content,
+     * unless the manifest of the running incremental export shows that the file already has this content.<p>
+     * 
+     * @param req the current request
+     * @param exportPath the path to export the resource
+     * @param rfsName the rfs name
+     * @param resource the resource
+     * @param content the content
+     * @param manifest the manifest of the running incremental export, or <code>null</code>
+     * @param sources the sources of the exported file, only used if a manifest is given
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    private void writeResource(
+        HttpServletRequest req,
+        String exportPath,
+        String rfsName,
+        CmsResource resource,
+        byte[] content,
+        CmsStaticExportManifest manifest,
+        String sources) throws CmsException {
+
+        if (manifest == null) {
+            writeResource(req, exportPath, rfsName, resource, content);
+            return;
+        }
+        String exportFileName = CmsFileUtil.normalizePath(exportPath + rfsName);
+        if (manifest.update(exportFileName, sources, CmsStaticExportManifest.getHash(content))) {
+            try {
+                writeResource(req, exportPath, rfsName, resource, content);
+            } catch (CmsException e) {
+                // make sure the file is generated again with the next export
+                manifest.remove(exportFileName);
+                throw e;
+            }
+        }
+    }
 }
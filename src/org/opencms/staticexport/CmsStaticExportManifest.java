@@ -0,0 +1,308 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.staticexport;
+
+import org.opencms.i18n.CmsEncoder;
+import org.opencms.main.CmsLog;
+import org.opencms.util.CmsUUID;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.logging.Log;
+
+/**
+ * Manifest of the files written by an incremental static export.<p>
+ * 
+ * For each exported file, the manifest records the sources the file was generated from 
+ * (the date of last modification of the exported resource and the set of resources it depends on, 
+ * together with their dates of last modification) and a hash of the generated content.<p>
+ * 
+ * This allows an incremental export to skip resources whose sources have not changed, 
+ * and to leave files untouched if the generated content has not changed.<p>
+ * 
+ * The manifest is stored as a text file with one line per exported file.
+ * All methods are thread safe.<p>
+ * 
+ * @since 8.5.2
+ */
+public class CmsStaticExportManifest {
+
+    /** The separator between the columns of a line in the manifest file. */
+    private static final char SEPARATOR = '\t';
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsStaticExportManifest.class);
+
+    /** The entries of the manifest: hash and sources of the content, by export file name. */
+    private Map<String, String[]> m_entries;
+
+    /** The name of the manifest file. */
+    private String m_fileName;
+
+    /** The id of this manifest, used to identify the incremental export in internal export requests. */
+    private String m_id;
+
+    /** The number of files that were skipped since their sources have not changed. */
+    private int m_skippedCount;
+
+    /** The number of files that were generated, but not written since their content has not changed. */
+    private int m_unchangedCount;
+
+    /** The export file names that were checked or updated since the manifest was loaded. */
+    private Set<String> m_visited;
+
+    /** The number of files that were written. */
+    private int m_writtenCount;
+
+    /**
+     * Creates a new, empty manifest for the given manifest file.<p>
+     * 
+     * @param fileName the name of the manifest file
+     */
+    public CmsStaticExportManifest(String fileName) {
+
+        m_fileName = fileName;
+        m_id = new CmsUUID().toString();
+        m_entries = new HashMap<String, String[]>();
+        m_visited = new HashSet<String>();
+    }
+
+    /**
+     * Returns the hash of the given content, as stored in the manifest.<p>
+     * 
+     * @param content the content
+     * 
+     * @return the hash of the given content
+     */
+    public static String getHash(byte[] content) {
+
+        return DigestUtils.md5Hex(content);
+    }
+
+    /**
+     * Returns the name of the manifest file.<p>
+     * 
+     * @return the name of the manifest file
+     */
+    public String getFileName() {
+
+        return m_fileName;
+    }
+
+    /**
+     * Returns the id of this manifest, used to identify the incremental export in internal export requests.<p>
+     * 
+     * @return the id of this manifest
+     */
+    public String getId() {
+
+        return m_id;
+    }
+
+    /**
+     * Returns the number of files that were skipped since their sources have not changed.<p>
+     * 
+     * @return the number of skipped files
+     */
+    public synchronized int getSkippedCount() {
+
+        return m_skippedCount;
+    }
+
+    /**
+     * Returns the number of files that were generated, but not written since their content has not changed.<p>
+     * 
+     * @return the number of unchanged files
+     */
+    public synchronized int getUnchangedCount() {
+
+        return m_unchangedCount;
+    }
+
+    /**
+     * Returns the number of files that were written.<p>
+     * 
+     * @return the number of written files
+     */
+    public synchronized int getWrittenCount() {
+
+        return m_writtenCount;
+    }
+
+    /**
+     * Checks if the given export file exists and has been generated from the given sources.<p>
+     * 
+     * If so, the file is counted as skipped.<p>
+     * 
+     * @param exportFileName the name of the export file
+     * @param sources the current sources of the export file
+     * 
+     * @return <code>true</code> if the given export file does not need to be generated again
+     */
+    public synchronized boolean isUnchanged(String exportFileName, String sources) {
+
+        m_visited.add(exportFileName);
+        String[] entry = m_entries.get(exportFileName);
+        if ((entry != null) && entry[1].equals(sources) && new File(exportFileName).exists()) {
+            m_skippedCount++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Loads the manifest from the manifest file.<p>
+     * 
+     * If the manifest file does not exist, the manifest is empty.<p>
+     * 
+     * @throws IOException if the manifest file could not be read
+     */
+    public synchronized void load() throws IOException {
+
+        m_entries.clear();
+        File file = new File(m_fileName);
+        if (!file.exists()) {
+            return;
+        }
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+            new FileInputStream(file),
+            CmsEncoder.ENCODING_UTF_8));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int first = line.indexOf(SEPARATOR);
+                int last = line.lastIndexOf(SEPARATOR);
+                if ((first > 0) && (last > first)) {
+                    m_entries.put(
+                        line.substring(0, first),
+                        new String[] {line.substring(last + 1), line.substring(first + 1, last)});
+                } else if (LOG.isWarnEnabled()) {
+                    LOG.warn(Messages.get().getBundle().key(Messages.LOG_INVALID_MANIFEST_LINE_2, m_fileName, line));
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Removes the entry of the given export file, for example if the file could not be written.<p>
+     * 
+     * @param exportFileName the name of the export file
+     */
+    public synchronized void remove(String exportFileName) {
+
+        m_entries.remove(exportFileName);
+    }
+
+    /**
+     * Removes the entries of all export files that were neither checked nor updated since the manifest was loaded.<p>
+     * 
+     * @return the names of the export files whose entries were removed
+     */
+    public synchronized List<String> removeUnvisited() {
+
+        List<String> result = new ArrayList<String>();
+        Iterator<String> itFileNames = m_entries.keySet().iterator();
+        while (itFileNames.hasNext()) {
+            String fileName = itFileNames.next();
+            if (!m_visited.contains(fileName)) {
+                result.add(fileName);
+                itFileNames.remove();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Saves the manifest to the manifest file.<p>
+     * 
+     * @throws IOException if the manifest file could not be written
+     */
+    public synchronized void save() throws IOException {
+
+        File file = new File(m_fileName);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+            new FileOutputStream(file),
+            CmsEncoder.ENCODING_UTF_8));
+        try {
+            Iterator<Map.Entry<String, String[]>> itEntries = m_entries.entrySet().iterator();
+            while (itEntries.hasNext()) {
+                Map.Entry<String, String[]> entry = itEntries.next();
+                writer.write(entry.getKey());
+                writer.write(SEPARATOR);
+                writer.write(entry.getValue()[1]);
+                writer.write(SEPARATOR);
+                writer.write(entry.getValue()[0]);
+                writer.newLine();
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Records that the given export file has been generated from the given sources.<p>
+     * 
+     * @param exportFileName the name of the export file
+     * @param sources the sources of the export file
+     * @param hash the hash of the generated content
+     * 
+     * @return <code>true</code> if the generated content differs from the content in the export file, 
+     *      which must then be written
+     */
+    public synchronized boolean update(String exportFileName, String sources, String hash) {
+
+        m_visited.add(exportFileName);
+        String[] entry = m_entries.put(exportFileName, new String[] {hash, sources});
+        if ((entry != null) && entry[0].equals(hash) && new File(exportFileName).exists()) {
+            m_unchangedCount++;
+            return false;
+        }
+        m_writtenCount++;
+        return true;
+    }
+}
@@ -166,6 +166,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_EXPORT_FILE_STATUS_3 = "LOG_EXPORT_FILE_STATUS_3";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_EXPORT_RETRY_3 = "LOG_EXPORT_RETRY_3";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_EXPORT_TEMPLATES_1 = "LOG_EXPORT_TEMPLATES_1";
 
@@ -205,6 +208,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_INIT_FAILED_0 = "LOG_INIT_FAILED_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_INVALID_MANIFEST_LINE_2 = "LOG_INVALID_MANIFEST_LINE_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_INVALID_PARAM_1 = "LOG_INVALID_PARAM_1";
 
@@ -301,6 +307,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String RPT_STATICEXPORT_END_0 = "RPT_STATICEXPORT_END_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_STATICEXPORT_INCREMENTAL_3 = "RPT_STATICEXPORT_INCREMENTAL_3";
+
     /** Message constant for key in the resource bundle. */
     public static final String RPT_STATICEXPORT_NONTEMPLATE_RESOURCES_BEGIN_0 = "RPT_STATICEXPORT_NONTEMPLATE_RESOURCES_BEGIN_0";
 
@@ -313,6 +322,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String RPT_STATICEXPORT_TEMPLATE_RESOURCES_END_0 = "RPT_STATICEXPORT_TEMPLATE_RESOURCES_END_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_STATICEXPORT_TEMPLATE_RESOURCES_STATS_4 = "RPT_STATICEXPORT_TEMPLATE_RESOURCES_STATS_4";
+
     /** Name of the used resource bundle. */
     private static final String BUNDLE_NAME = "org.opencms.staticexport.messages";
 
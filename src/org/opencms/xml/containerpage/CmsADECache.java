@@ -43,6 +43,7 @@ import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.commons.logging.Log;
+import org.dom4j.Document;
 
 /**
  * Cache object instance for simultaneously cache online and offline items.<p>
@@ -69,6 +70,12 @@ public final class CmsADECache extends CmsVfsCache {
     /** Read-write lock to ensure that the cache maps aren't accessed while we iterate through them to remove invalid entries. */
     private ReadWriteLock m_lock = new ReentrantReadWriteLock(true);
 
+    /** Cache for the parsed documents of offline XML contents. */
+    private Map<String, Document> m_xmlContentsOffline;
+
+    /** Cache for the parsed documents of online XML contents. */
+    private Map<String, Document> m_xmlContentsOnline;
+
     /**
      * Initializes the cache. Only intended to be called during startup.<p>
      * 
@@ -121,6 +128,25 @@ public final class CmsADECache extends CmsVfsCache {
         }
     }
 
+    /**
+     * Flushes the XML contents cache.<p>
+     * 
+     * @param online if to flush the online or offline cache
+     */
+    public void flushXmlContents(boolean online) {
+
+        try {
+            m_lock.writeLock().lock();
+            if (online) {
+                m_xmlContentsOnline.clear();
+            } else {
+                m_xmlContentsOffline.clear();
+            }
+        } finally {
+            m_lock.writeLock().unlock();
+        }
+    }
+
     /**
      * Returns the cached container page under the given key and for the given project.<p>
      * 
@@ -233,6 +259,58 @@ public final class CmsADECache extends CmsVfsCache {
         return structureId.toString() + "_" + keepEncoding;
     }
 
+    /**
+     * Returns the cached document of an XML content under the given key and for the given project.<p>
+     * 
+     * The returned instance is shared, so it must not be modified or handed out to callers.<p>
+     * 
+     * @param key the cache key
+     * @param online if cached in online or offline project
+     * 
+     * @return the cached document or <code>null</code> if not found
+     * 
+     * @see org.opencms.xml.content.CmsXmlContentFactory#unmarshal(org.opencms.file.CmsObject, org.opencms.file.CmsFile, boolean)
+     */
+    public Document getCacheXmlDocument(String key, boolean online) {
+
+        try {
+            m_lock.readLock().lock();
+            Document retValue;
+            if (online) {
+                retValue = m_xmlContentsOnline.get(key);
+                if (LOG.isDebugEnabled()) {
+                    if (retValue == null) {
+                        LOG.debug(Messages.get().getBundle().key(
+                            Messages.LOG_DEBUG_CACHE_MISSED_ONLINE_1,
+                            new Object[] {key}));
+
+                    } else {
+                        LOG.debug(Messages.get().getBundle().key(
+                            Messages.LOG_DEBUG_CACHE_MATCHED_ONLINE_2,
+                            new Object[] {key, retValue}));
+                    }
+                }
+            } else {
+                retValue = m_xmlContentsOffline.get(key);
+                if (LOG.isDebugEnabled()) {
+                    if (retValue == null) {
+                        LOG.debug(Messages.get().getBundle().key(
+                            Messages.LOG_DEBUG_CACHE_MISSED_OFFLINE_1,
+                            new Object[] {key}));
+
+                    } else {
+                        LOG.debug(Messages.get().getBundle().key(
+                            Messages.LOG_DEBUG_CACHE_MATCHED_OFFLINE_2,
+                            new Object[] {key, retValue}));
+                    }
+                }
+            }
+            return retValue;
+        } finally {
+            m_lock.readLock().unlock();
+        }
+    }
+
     /**
      * Caches the given container page under the given key and for the given project.<p>
      * 
@@ -297,6 +375,40 @@ public final class CmsADECache extends CmsVfsCache {
         }
     }
 
+    /**
+     * Caches the given document of an XML content under the given key and for the given project.<p>
+     * 
+     * The key must start with the structure id and the resource id of the XML content, 
+     * separated by <code>'_'</code>, so that the document can be removed if the resource is modified.<p>
+     * 
+     * @param key the cache key
+     * @param document the document to cache, must not be modified after it has been cached
+     * @param online if to cache in online or offline project
+     */
+    public void setCacheXmlDocument(String key, Document document, boolean online) {
+
+        try {
+            m_lock.writeLock().lock();
+            if (online) {
+                m_xmlContentsOnline.put(key, document);
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(Messages.get().getBundle().key(
+                        Messages.LOG_DEBUG_CACHE_SET_ONLINE_2,
+                        new Object[] {key, document}));
+                }
+            } else {
+                m_xmlContentsOffline.put(key, document);
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(Messages.get().getBundle().key(
+                        Messages.LOG_DEBUG_CACHE_SET_OFFLINE_2,
+                        new Object[] {key, document}));
+                }
+            }
+        } finally {
+            m_lock.writeLock().unlock();
+        }
+    }
+
     /**
      * Removes the container page identified by its structure id from the cache.<p>
      * 
@@ -351,6 +463,7 @@ public final class CmsADECache extends CmsVfsCache {
             m_lock.writeLock().lock();
             flushContainerPages(online);
             flushGroupContainers(online);
+            flushXmlContents(online);
         } finally {
             m_lock.writeLock().unlock();
         }
@@ -373,6 +486,7 @@ public final class CmsADECache extends CmsVfsCache {
             } else {
                 removeCachedContent(resource, m_groupContainersOffline);
             }
+            removeCachedDocuments(resource, m_xmlContentsOffline);
         } finally {
             m_lock.writeLock().unlock();
         }
@@ -403,6 +517,15 @@ public final class CmsADECache extends CmsVfsCache {
         lruMapGroupContainer = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getGroupContainerOnlineSize());
         m_groupContainersOnline = Collections.synchronizedMap(lruMapGroupContainer);
         memMonitor.register(CmsADECache.class.getName() + ".groupContainersOnline", lruMapGroupContainer);
+
+        // XML content caches
+        Map<String, Document> lruMapXmlContent = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getXmlContentOfflineSize());
+        m_xmlContentsOffline = Collections.synchronizedMap(lruMapXmlContent);
+        memMonitor.register(CmsADECache.class.getName() + ".xmlContentsOffline", lruMapXmlContent);
+
+        lruMapXmlContent = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getXmlContentOnlineSize());
+        m_xmlContentsOnline = Collections.synchronizedMap(lruMapXmlContent);
+        memMonitor.register(CmsADECache.class.getName() + ".xmlContentsOnline", lruMapXmlContent);
     }
 
     /**
@@ -425,4 +548,25 @@ public final class CmsADECache extends CmsVfsCache {
         }
 
     }
+
+    /**
+     * Removes the cached documents of the XML content that matches the given resource from the cache.<p>
+     * 
+     * @param resource the resource for which the cached documents should be removed
+     * @param cache the cache from which to remove the documents
+     * 
+     * @see #setCacheXmlDocument(String, Document, boolean)
+     */
+    private void removeCachedDocuments(CmsResource resource, Map<String, Document> cache) {
+
+        String structureId = resource.getStructureId().toString() + "_";
+        String resourceId = "_" + resource.getResourceId().toString() + "_";
+        Iterator<String> iterator = cache.keySet().iterator();
+        while (iterator.hasNext()) {
+            String key = iterator.next();
+            if (key.startsWith(structureId) || key.startsWith(resourceId, structureId.length() - 1)) {
+                iterator.remove();
+            }
+        }
+    }
 }
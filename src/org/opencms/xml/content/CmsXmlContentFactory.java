@@ -27,10 +27,12 @@
 
 package org.opencms.xml.content;
 
+import org.opencms.ade.configuration.CmsADEManager;
 import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsPropertyDefinition;
 import org.opencms.file.CmsResource;
+import org.opencms.file.history.I_CmsHistoryResource;
 import org.opencms.file.types.CmsResourceTypeXmlContent;
 import org.opencms.i18n.CmsEncoder;
 import org.opencms.loader.CmsLoaderException;
@@ -40,6 +42,7 @@ import org.opencms.xml.CmsXmlContentDefinition;
 import org.opencms.xml.CmsXmlEntityResolver;
 import org.opencms.xml.CmsXmlException;
 import org.opencms.xml.CmsXmlUtils;
+import org.opencms.xml.containerpage.CmsADECache;
 
 import java.io.UnsupportedEncodingException;
 import java.util.Locale;
@@ -229,20 +232,44 @@ public final class CmsXmlContentFactory {
         CmsXmlContent content;
         if (contentBytes.length > 0) {
             // content is initialized
-            if (keepEncoding) {
-                // use the encoding from the content
-                content = unmarshal(cms, contentBytes, encoding, new CmsXmlEntityResolver(cms));
-            } else {
-                // use the encoding from the file property
-                // this usually only triggered by a save operation                
-                try {
-                    String contentStr = new String(contentBytes, encoding);
-                    content = unmarshal(cms, contentStr, encoding, new CmsXmlEntityResolver(cms));
-                } catch (UnsupportedEncodingException e) {
-                    // this will not happen since the encodig has already been validated
-                    throw new CmsXmlException(Messages.get().container(Messages.ERR_XMLCONTENT_INVALID_ENC_1, filename));
+            CmsXmlEntityResolver resolver = new CmsXmlEntityResolver(cms);
+            Document document = null;
+            String cacheKey = getCacheKey(cms, file, keepEncoding, encoding);
+            if (cacheKey != null) {
+                // check the cache, the cached document is never handed out, only copies of it
+                Document cachedDocument = getCache().getCacheXmlDocument(cacheKey, isOnline(cms));
+                if (cachedDocument != null) {
+                    // dom4j may initialize internal node lists while reading, so the document is cloned under its lock
+                    synchronized (cachedDocument) {
+                        document = (Document)cachedDocument.clone();
+                    }
                 }
             }
+            if (document == null) {
+                if (keepEncoding) {
+                    // use the encoding from the content
+                    document = CmsXmlUtils.unmarshalHelper(contentBytes, resolver);
+                } else {
+                    // use the encoding from the file property
+                    // this usually only triggered by a save operation                
+                    try {
+                        String contentStr = new String(contentBytes, encoding);
+                        document = CmsXmlUtils.unmarshalHelper(contentStr, resolver);
+                    } catch (UnsupportedEncodingException e) {
+                        // this will not happen since the encodig has already been validated
+                        throw new CmsXmlException(Messages.get().container(
+                            Messages.ERR_XMLCONTENT_INVALID_ENC_1,
+                            filename));
+                    }
+                }
+                if (cacheKey != null) {
+                    // cache the unmodified document, since broken links are removed depending on the current user
+                    getCache().setCacheXmlDocument(cacheKey, (Document)document.clone(), isOnline(cms));
+                }
+            }
+            // only the document is cached, the content definition is resolved for every request 
+            // with the context of the current user, so that changes of the XML schema are reflected
+            content = unmarshal(cms, document, encoding, resolver);
         } else {
             // content is empty
             content = new CmsXmlContent(cms, DocumentHelper.createDocument(), encoding, new CmsXmlEntityResolver(cms));
@@ -372,4 +399,57 @@ public final class CmsXmlContentFactory {
 
         return unmarshal(null, xmlData, encoding, resolver);
     }
+
+    /**
+     * Gets the ADE cache from the ADE manager.<p>
+     * 
+     * @return the ADE cache, or <code>null</code> if the ADE manager is not available 
+     */
+    private static CmsADECache getCache() {
+
+        CmsADEManager adeManager = OpenCms.getADEManager();
+        return adeManager != null ? adeManager.getCache() : null;
+    }
+
+    /**
+     * Returns the key under which the parsed document of the XML content of the given file is cached.<p>
+     * 
+     * Besides the structure id and the resource id, the key contains the modification dates and the length of 
+     * the file content, so that modified file contents that have not been written yet are not 
+     * mixed up with the cached version.<p>
+     * 
+     * @param cms the current cms object
+     * @param file the file with the XML data to unmarshal
+     * @param keepEncoding if the encoding from the XML header is used
+     * @param encoding the encoding from the VFS file property
+     * 
+     * @return the cache key, or <code>null</code> if the file can not be cached
+     */
+    private static String getCacheKey(CmsObject cms, CmsFile file, boolean keepEncoding, String encoding) {
+
+        if ((cms == null) || (file instanceof I_CmsHistoryResource) || (getCache() == null)) {
+            return null;
+        }
+        StringBuffer key = new StringBuffer(96);
+        key.append(file.getStructureId().toString());
+        key.append('_').append(file.getResourceId().toString());
+        key.append('_').append(file.getDateLastModified());
+        key.append('_').append(file.getDateContent());
+        key.append('_').append(file.getLength());
+        key.append('_').append(keepEncoding);
+        key.append('_').append(encoding);
+        return key.toString();
+    }
+
+    /**
+     * Checks if the current project of the given cms context is the online project.<p>
+     * 
+     * @param cms the current cms object
+     * 
+     * @return <code>true</code> if the current project is the online project
+     */
+    private static boolean isOnline(CmsObject cms) {
+
+        return cms.getRequestContext().getCurrentProject().isOnlineProject();
+    }
 }
\ No newline at end of file
@@ -57,6 +57,7 @@ public final class AllTests {
         //$JUnit-BEGIN$
         suite.addTest(TestConfig.suite());
         suite.addTest(TestLiveConfig.suite());
+        suite.addTestSuite(TestConfigurationSnapshot.class);
         //$JUnit-END$
         return suite;
     }
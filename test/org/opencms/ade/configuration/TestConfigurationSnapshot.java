@@ -0,0 +1,113 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.ade.configuration;
+
+import org.opencms.util.CmsStringUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the lookup of sitemap configurations in the configuration snapshot.<p>
+ *
+ * @since 8.5.2
+ */
+public class TestConfigurationSnapshot extends TestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestConfigurationSnapshot(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Looks up the configuration by scanning all base paths, like the configuration cache did 
+     * before the snapshot was introduced.<p>
+     *
+     * @param configs the configurations, by base path
+     * @param path the path to look up
+     *
+     * @return the configuration with the longest matching base path, or <code>null</code>
+     */
+    private static CmsADEConfigData scanSiteConfigData(Map<String, CmsADEConfigData> configs, String path) {
+
+        String normalizedPath = CmsStringUtil.joinPaths("/", path, "/");
+        List<String> prefixes = new ArrayList<String>();
+        for (String key : configs.keySet()) {
+            if (normalizedPath.startsWith(CmsStringUtil.joinPaths("/", key, "/"))) {
+                prefixes.add(key);
+            }
+        }
+        if (prefixes.size() == 0) {
+            return null;
+        }
+        Collections.sort(prefixes);
+        return configs.get(prefixes.get(prefixes.size() - 1));
+    }
+
+    /**
+     * Tests the longest prefix lookup of sitemap configurations.<p>
+     */
+    public void testLongestPrefix() {
+
+        Map<String, CmsADEConfigData> configs = new HashMap<String, CmsADEConfigData>();
+        String[] basePaths = {"/a", "/a/b/c", "/a/b/x", "/a/b/c/d/e"};
+        for (String basePath : basePaths) {
+            configs.put(basePath, new CmsADEConfigData(basePath));
+        }
+        CmsConfigurationSnapshot snapshot = new CmsConfigurationSnapshot(
+            configs,
+            new HashMap<String, String>(),
+            null);
+
+        assertSame(configs.get("/a/b/c"), snapshot.getSiteConfigData("/a/b/c/d"));
+        assertSame(configs.get("/a/b/c"), snapshot.getSiteConfigData("/a/b/c/d/"));
+        assertSame(configs.get("/a/b/c"), snapshot.getSiteConfigData("/a/b/c"));
+        assertSame(configs.get("/a/b/c/d/e"), snapshot.getSiteConfigData("/a/b/c/d/e/f.html"));
+        assertSame(configs.get("/a/b/x"), snapshot.getSiteConfigData("/a/b/x/"));
+        assertSame(configs.get("/a"), snapshot.getSiteConfigData("/a/b/"));
+        // a path segment must match completely
+        assertSame(configs.get("/a"), snapshot.getSiteConfigData("/a/b/cd/"));
+        assertNull(snapshot.getSiteConfigData("/ab/"));
+        assertNull(snapshot.getSiteConfigData("/"));
+        assertNull(new CmsConfigurationSnapshot().getSiteConfigData("/a/"));
+
+        for (String path : new String[] {"/a/b/c/d", "/a/b/cd/", "/ab/", "/", "/a/b/x/y/z.html"}) {
+            assertSame(path, scanSiteConfigData(configs, path), snapshot.getSiteConfigData(path));
+        }
+    }
+}
@@ -0,0 +1,329 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import org.opencms.monitor.CmsCacheStatistics;
+import org.opencms.monitor.CmsConcurrentCacheMap;
+
+import java.util.Collections;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.collections.map.LRUMap;
+
+/**
+ * Compares the throughput of Flex cache hits with the synchronized LRU cache, LRU map and 
+ * hash tables and with the segmented LRU cache and the concurrent maps for 1 to 64 threads.<p>
+ * 
+ * This is a standalone harness and not part of the unit tests, since timings are not reliable 
+ * enough to be asserted. Run it with <code>java org.opencms.cache.CmsFlexCacheBenchmark</code> 
+ * and the test classpath, it prints the ops/ms for every thread count.<p>
+ * 
+ * @since 8.5.2
+ */
+public final class CmsFlexCacheBenchmark {
+
+    /**
+     * Cache entry that removes itself from its variation map like a Flex cache entry.<p>
+     */
+    private static class CmsBenchmarkCacheEntry implements I_CmsLruCacheObject {
+
+        /** The next object in the LRU list. */
+        private I_CmsLruCacheObject m_next;
+
+        /** The previous object in the LRU list. */
+        private I_CmsLruCacheObject m_previous;
+
+        /** The variation of this entry. */
+        private String m_variation;
+
+        /** The variation map this entry is stored in. */
+        private Map<String, I_CmsLruCacheObject> m_variationMap;
+
+        /**
+         * Creates a new cache entry.<p>
+         * 
+         * @param variation the variation
+         * @param variationMap the variation map the entry is stored in
+         */
+        CmsBenchmarkCacheEntry(String variation, Map<String, I_CmsLruCacheObject> variationMap) {
+
+            m_variation = variation;
+            m_variationMap = variationMap;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#addToLruCache()
+         */
+        public void addToLruCache() {
+
+            // empty
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getLruCacheCosts()
+         */
+        public int getLruCacheCosts() {
+
+            return 100;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getNextLruObject()
+         */
+        public I_CmsLruCacheObject getNextLruObject() {
+
+            return m_next;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getPreviousLruObject()
+         */
+        public I_CmsLruCacheObject getPreviousLruObject() {
+
+            return m_previous;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getValue()
+         */
+        public Object getValue() {
+
+            return this;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#removeFromLruCache()
+         */
+        public void removeFromLruCache() {
+
+            m_variationMap.remove(m_variation);
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#setNextLruObject(org.opencms.cache.I_CmsLruCacheObject)
+         */
+        public void setNextLruObject(I_CmsLruCacheObject theNextObject) {
+
+            m_next = theNextObject;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#setPreviousLruObject(org.opencms.cache.I_CmsLruCacheObject)
+         */
+        public void setPreviousLruObject(I_CmsLruCacheObject thePreviousObject) {
+
+            m_previous = thePreviousObject;
+        }
+    }
+
+    /** Number of resources in the benchmark. */
+    private static final int RESOURCES = 1000;
+
+    /** Total number of cache lookups of all threads in one measurement. */
+    private static final int TOTAL_LOOKUPS = 640000;
+
+    /** Number of variations per resource. */
+    private static final int VARIATIONS = 4;
+
+    /**
+     * Hides the public constructor.<p>
+     */
+    private CmsFlexCacheBenchmark() {
+
+        // empty
+    }
+
+    /**
+     * Runs the benchmark.<p>
+     * 
+     * @param args not used
+     * 
+     * @throws InterruptedException if the benchmark is interrupted
+     */
+    @SuppressWarnings("unchecked")
+    public static void main(String[] args) throws InterruptedException {
+
+        int[] threadCounts = new int[] {1, 2, 4, 8, 16, 32, 64};
+        for (int t = 0; t < threadCounts.length; t++) {
+            int threads = threadCounts[t];
+
+            CmsLruCache syncCache = new CmsLruCache(RESOURCES * VARIATIONS * 1000, RESOURCES * VARIATIONS * 800, 1000);
+            Map<String, Map<String, I_CmsLruCacheObject>> syncKeys = Collections.synchronizedMap(new LRUMap(
+                RESOURCES * 2));
+            fillFlexCache(syncKeys, syncCache, false);
+
+            CmsLruCache concurrentCache = new CmsLruCache(
+                RESOURCES * VARIATIONS * 1000,
+                RESOURCES * VARIATIONS * 800,
+                1000,
+                16);
+            Map<String, Map<String, I_CmsLruCacheObject>> concurrentKeys;
+            concurrentKeys = new CmsConcurrentCacheMap<String, Map<String, I_CmsLruCacheObject>>(
+                RESOURCES * 2,
+                false,
+                8,
+                16,
+                new CmsCacheStatistics(),
+                null);
+            fillFlexCache(concurrentKeys, concurrentCache, true);
+
+            // warm up both paths before measuring
+            runLookups(syncKeys, syncCache, false, threads);
+            runLookups(concurrentKeys, concurrentCache, true, threads);
+
+            long syncOps = runLookups(syncKeys, syncCache, false, threads);
+            long concurrentOps = runLookups(concurrentKeys, concurrentCache, true, threads);
+            System.out.println("Flex cache hits with "
+                + threads
+                + " threads: synchronized "
+                + syncOps
+                + " ops/ms, concurrent "
+                + concurrentOps
+                + " ops/ms");
+        }
+    }
+
+    /**
+     * Fills the given key map and LRU cache like the Flex cache stores its entries.<p>
+     * 
+     * @param keyMap the map of the resources to their variation maps
+     * @param lruCache the LRU cache
+     * @param concurrent if <code>true</code> the variation maps are concurrent, otherwise synchronized
+     */
+    private static void fillFlexCache(
+        Map<String, Map<String, I_CmsLruCacheObject>> keyMap,
+        CmsLruCache lruCache,
+        boolean concurrent) {
+
+        for (int r = 0; r < RESOURCES; r++) {
+            Map<String, I_CmsLruCacheObject> variations = concurrent
+            ? new ConcurrentHashMap<String, I_CmsLruCacheObject>(8)
+            : new Hashtable<String, I_CmsLruCacheObject>(8);
+            for (int v = 0; v < VARIATIONS; v++) {
+                String variation = "v" + v;
+                CmsBenchmarkCacheEntry entry = new CmsBenchmarkCacheEntry(variation, variations);
+                lruCache.add(entry);
+                variations.put(variation, entry);
+            }
+            keyMap.put(getResource(r), variations);
+        }
+    }
+
+    /**
+     * Returns the name of the resource with the given number.<p>
+     * 
+     * @param r the number of the resource
+     * 
+     * @return the resource name
+     */
+    private static String getResource(int r) {
+
+        return "/sites/default/element" + r + ".jsp [online]";
+    }
+
+    /**
+     * Runs the Flex cache lookups with the given number of threads.<p>
+     * 
+     * Every lookup reads the variation map of a resource from the key map, reads an entry 
+     * from the variation map and updates the recency of the entry in the LRU cache.<p>
+     * 
+     * @param keyMap the map of the resources to their variation maps
+     * @param lruCache the LRU cache
+     * @param recordAccess if <code>true</code> the accesses are recorded without blocking, 
+     *      otherwise the entries are touched
+     * @param threads the number of threads
+     * 
+     * @return the number of lookups per millisecond
+     * 
+     * @throws InterruptedException if the benchmark is interrupted
+     */
+    private static long runLookups(
+        final Map<String, Map<String, I_CmsLruCacheObject>> keyMap,
+        final CmsLruCache lruCache,
+        final boolean recordAccess,
+        int threads) throws InterruptedException {
+
+        final String[] resources = new String[RESOURCES];
+        for (int r = 0; r < RESOURCES; r++) {
+            resources[r] = getResource(r);
+        }
+        final int lookups = TOTAL_LOOKUPS / threads;
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        final AtomicLong found = new AtomicLong();
+        for (int t = 0; t < threads; t++) {
+            final int seed = t;
+            Thread thread = new Thread() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        start.await();
+                        int key = seed;
+                        long hits = 0;
+                        for (int i = 0; i < lookups; i++) {
+                            key = ((key * 1103515245) + 12345) & 0x7fffffff;
+                            Map<String, I_CmsLruCacheObject> variations = keyMap.get(resources[key % RESOURCES]);
+                            if (variations == null) {
+                                continue;
+                            }
+                            I_CmsLruCacheObject entry = variations.get("v" + (key % VARIATIONS));
+                            if (entry != null) {
+                                if (recordAccess) {
+                                    lruCache.recordAccess(entry);
+                                } else {
+                                    lruCache.touch(entry);
+                                }
+                                hits++;
+                            }
+                        }
+                        found.addAndGet(hits);
+                    } catch (InterruptedException e) {
+                        // ignore
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            };
+            thread.start();
+        }
+        long startTime = System.currentTimeMillis();
+        start.countDown();
+        done.await();
+        long time = Math.max(1, System.currentTimeMillis() - startTime);
+        if (found.get() == 0) {
+            throw new IllegalStateException("No cache hits");
+        }
+        return ((long)lookups * threads) / time;
+    }
+}
@@ -0,0 +1,305 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the LRU cache.<p>
+ * 
+ * @since 8.5.2
+ */
+public class TestCmsLruCache extends TestCase {
+
+    /**
+     * Simple cache object that remembers if it is cached.<p>
+     */
+    private static class CmsTestCacheObject implements I_CmsLruCacheObject {
+
+        /** Flag indicating if the object is cached. */
+        volatile boolean m_cached;
+
+        /** The costs of the object. */
+        private int m_costs;
+
+        /** The next object in the LRU list. */
+        private I_CmsLruCacheObject m_next;
+
+        /** The previous object in the LRU list. */
+        private I_CmsLruCacheObject m_previous;
+
+        /**
+         * Creates a new test cache object.<p>
+         * 
+         * @param costs the costs of the object
+         */
+        CmsTestCacheObject(int costs) {
+
+            m_costs = costs;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#addToLruCache()
+         */
+        public void addToLruCache() {
+
+            m_cached = true;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getLruCacheCosts()
+         */
+        public int getLruCacheCosts() {
+
+            return m_costs;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getNextLruObject()
+         */
+        public I_CmsLruCacheObject getNextLruObject() {
+
+            return m_next;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getPreviousLruObject()
+         */
+        public I_CmsLruCacheObject getPreviousLruObject() {
+
+            return m_previous;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getValue()
+         */
+        public Object getValue() {
+
+            return this;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#removeFromLruCache()
+         */
+        public void removeFromLruCache() {
+
+            m_cached = false;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#setNextLruObject(org.opencms.cache.I_CmsLruCacheObject)
+         */
+        public void setNextLruObject(I_CmsLruCacheObject theNextObject) {
+
+            m_next = theNextObject;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#setPreviousLruObject(org.opencms.cache.I_CmsLruCacheObject)
+         */
+        public void setPreviousLruObject(I_CmsLruCacheObject thePreviousObject) {
+
+            m_previous = thePreviousObject;
+        }
+    }
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsLruCache(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests that concurrent adds, touches, recorded accesses and removals keep the cache consistent.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testConcurrentConsistency() throws Exception {
+
+        final CmsLruCache cache = new CmsLruCache(20000, 15000, 100, 8);
+        final List<CmsTestCacheObject> objects = new ArrayList<CmsTestCacheObject>();
+        for (int i = 0; i < 1000; i++) {
+            objects.add(new CmsTestCacheObject(10 + (i % 50)));
+        }
+        int threads = 8;
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final int seed = t;
+            new Thread() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        int key = seed;
+                        for (int i = 0; i < 20000; i++) {
+                            key = ((key * 1103515245) + 12345) & 0x7fffffff;
+                            CmsTestCacheObject o = objects.get(key % objects.size());
+                            switch (i % 4) {
+                                case 0:
+                                    cache.add(o);
+                                    break;
+                                case 1:
+                                    cache.touch(o);
+                                    break;
+                                case 2:
+                                    cache.recordAccess(o);
+                                    break;
+                                default:
+                                    if ((i % 16) == 3) {
+                                        cache.remove(o);
+                                    }
+                            }
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }.start();
+        }
+        done.await();
+
+        int count = 0;
+        int costs = 0;
+        for (CmsTestCacheObject o : objects) {
+            if (o.m_cached) {
+                count++;
+                costs += o.getLruCacheCosts();
+            }
+        }
+        assertEquals(count, cache.size());
+        assertEquals(costs, cache.getObjectCosts());
+        assertTrue(cache.getObjectCosts() <= cache.getMaxCacheCosts());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getObjectCosts());
+        for (CmsTestCacheObject o : objects) {
+            assertFalse(o.m_cached);
+        }
+    }
+
+    /**
+     * Tests that the costs of the cached objects are bounded and too expensive objects are not cached.<p>
+     */
+    public void testCostBound() {
+
+        CmsLruCache cache = new CmsLruCache(100, 70, 20);
+        List<CmsTestCacheObject> objects = new ArrayList<CmsTestCacheObject>();
+        for (int i = 0; i < 20; i++) {
+            CmsTestCacheObject o = new CmsTestCacheObject(10);
+            objects.add(o);
+            assertTrue(cache.add(o));
+            assertTrue(cache.getObjectCosts() <= 100);
+        }
+        int cached = 0;
+        for (CmsTestCacheObject o : objects) {
+            if (o.m_cached) {
+                cached++;
+            }
+        }
+        assertEquals(cached, cache.size());
+        assertEquals(cached * 10, cache.getObjectCosts());
+
+        CmsTestCacheObject expensive = new CmsTestCacheObject(21);
+        assertFalse(cache.add(expensive));
+        assertFalse(expensive.m_cached);
+    }
+
+    /**
+     * Tests the eviction order of touched objects and of objects with recorded accesses.<p>
+     */
+    public void testLruOrder() {
+
+        CmsLruCache cache = new CmsLruCache(50, 30, -1);
+        CmsTestCacheObject[] objects = new CmsTestCacheObject[6];
+        for (int i = 0; i < 5; i++) {
+            objects[i] = new CmsTestCacheObject(10);
+            cache.add(objects[i]);
+        }
+        // the touched object becomes the most recently used one
+        assertTrue(cache.touch(objects[0]));
+        objects[5] = new CmsTestCacheObject(10);
+        cache.add(objects[5]);
+        // the costs of 60 exceed the max. costs, so the oldest objects are removed until the costs are below 30
+        assertTrue(objects[0].m_cached);
+        assertFalse(objects[1].m_cached);
+        assertFalse(objects[2].m_cached);
+        assertFalse(objects[3].m_cached);
+        assertFalse(objects[4].m_cached);
+        assertTrue(objects[5].m_cached);
+        assertEquals(2, cache.size());
+
+        cache.clear();
+        for (int i = 0; i < 5; i++) {
+            objects[i] = new CmsTestCacheObject(10);
+            cache.add(objects[i]);
+        }
+        // a recorded access is applied before the next object is added
+        cache.recordAccess(objects[1]);
+        objects[5] = new CmsTestCacheObject(10);
+        cache.add(objects[5]);
+        assertFalse(objects[0].m_cached);
+        assertTrue(objects[1].m_cached);
+        assertFalse(objects[2].m_cached);
+        assertTrue(objects[5].m_cached);
+
+        // removed objects can not be touched
+        assertNotNull(cache.remove(objects[1]));
+        assertFalse(objects[1].m_cached);
+        assertFalse(cache.touch(objects[1]));
+        assertNull(cache.remove(objects[1]));
+    }
+
+    /**
+     * Tests the number of segments and that the segments share the costs.<p>
+     */
+    public void testSegments() {
+
+        assertEquals(1, new CmsLruCache(1000, 800, 100).getSegmentCount());
+        // each segment must be able to hold an object with the max. costs 
+        assertEquals(8, new CmsLruCache(1000, 800, 100, 16).getSegmentCount());
+        assertEquals(8, new CmsLruCache(1000, 800, -1, 10).getSegmentCount());
+        assertEquals(1, new CmsLruCache(1000, 800, 600, 16).getSegmentCount());
+
+        CmsLruCache cache = new CmsLruCache(1000, 800, 100, 4);
+        for (int i = 0; i < 1000; i++) {
+            cache.add(new CmsTestCacheObject(10));
+            assertTrue(cache.getObjectCosts() <= 1000);
+        }
+        assertTrue(cache.size() >= 70);
+    }
+}
@@ -64,6 +64,10 @@ public final class AllTests {
         suite.addTest(TestPublishHistory.suite());
         suite.addTest(TestSubscriptionManager.suite());
         suite.addTest(TestAliases.suite());
+        suite.addTest(new TestSuite(TestCmsStatementPool.class));
+        suite.addTest(new TestSuite(TestCmsConcurrentDbPool.class));
+        suite.addTest(new TestSuite(TestCmsDbReplicaRouting.class));
+        suite.addTest(new TestSuite(TestCmsPermissionCacheKey.class));
         // $JUnit-END$
         return suite;
     }
@@ -0,0 +1,235 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.apache.commons.dbcp.ConnectionFactory;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the concurrent database connection pool and the pool statistics.<p>
+ * 
+ * @since 8.5.2
+ */
+public class TestCmsConcurrentDbPool extends TestCase {
+
+    /**
+     * Connection factory that creates connection stubs and records their state.<p>
+     */
+    private static class TestConnectionFactory implements ConnectionFactory {
+
+        /** The number of closed connections. */
+        int m_closed;
+
+        /** The number of created connections. */
+        int m_created;
+
+        /** The number of rollbacks. */
+        int m_rollbacks;
+
+        /**
+         * @see org.apache.commons.dbcp.ConnectionFactory#createConnection()
+         */
+        public Connection createConnection() {
+
+            m_created++;
+            return (Connection)Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class},
+                new InvocationHandler() {
+
+                    /** The auto commit flag of the connection. */
+                    private boolean m_autoCommit = true;
+
+                    /** Flag indicating if the connection has been closed. */
+                    private boolean m_isClosed;
+
+                    /**
+                     * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.Object[])
+                     */
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+
+                        String name = method.getName();
+                        if ("close".equals(name)) {
+                            m_isClosed = true;
+                            m_closed++;
+                        } else if ("isClosed".equals(name)) {
+                            return Boolean.valueOf(m_isClosed);
+                        } else if ("getAutoCommit".equals(name)) {
+                            return Boolean.valueOf(m_autoCommit);
+                        } else if ("setAutoCommit".equals(name)) {
+                            m_autoCommit = ((Boolean)args[0]).booleanValue();
+                        } else if ("rollback".equals(name)) {
+                            m_rollbacks++;
+                        }
+                        return null;
+                    }
+                });
+        }
+    }
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsConcurrentDbPool(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests that connections are reused and the number of connections in use is limited.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testConnectionLimits() throws Exception {
+
+        TestConnectionFactory factory = new TestConnectionFactory();
+        CmsConcurrentDbPool pool = new CmsConcurrentDbPool();
+        pool.initialize("opencms:test", factory, 2, 1, 50, 0);
+
+        Connection con1 = pool.getConnection();
+        Connection con2 = pool.getConnection();
+        assertEquals(2, pool.getNumActive());
+        try {
+            pool.getConnection();
+            fail("The pool must be exhausted");
+        } catch (SQLException e) {
+            // expected
+        }
+        assertEquals(1, pool.getStatistics().getTimeouts());
+
+        con1.close();
+        assertTrue(con1.isClosed());
+        assertEquals(1, pool.getNumActive());
+        assertEquals(1, pool.getNumIdle());
+        try {
+            con1.createStatement();
+            fail("A returned connection must not be usable");
+        } catch (SQLException e) {
+            // expected
+        }
+
+        // the idle connection is reused
+        Connection con3 = pool.getConnection();
+        assertEquals(2, factory.m_created);
+        assertFalse(con3.isClosed());
+
+        // only one connection is kept idle, closing twice has no effect
+        con2.close();
+        con3.close();
+        con3.close();
+        assertEquals(0, pool.getNumActive());
+        assertEquals(1, pool.getNumIdle());
+        assertEquals(1, factory.m_closed);
+        assertEquals(3, pool.getStatistics().getBorrows());
+
+        pool.close();
+        assertEquals(0, pool.getNumIdle());
+        assertEquals(2, factory.m_closed);
+    }
+
+    /**
+     * Tests the detection of connections that are not returned to the pool.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testLeakDetection() throws Exception {
+
+        TestConnectionFactory factory = new TestConnectionFactory();
+        CmsConcurrentDbPool pool = new CmsConcurrentDbPool();
+        pool.initialize("opencms:test", factory, 2, 1, 50, 1);
+        try {
+            Connection con = pool.getConnection();
+            Thread.sleep(10);
+            pool.checkLeaks();
+            assertEquals(1, pool.getStatistics().getLeaks());
+            // every connection is reported only once
+            pool.checkLeaks();
+            assertEquals(1, pool.getStatistics().getLeaks());
+            con.close();
+            pool.checkLeaks();
+            assertEquals(1, pool.getStatistics().getLeaks());
+        } finally {
+            pool.close();
+        }
+    }
+
+    /**
+     * Tests that open transactions are rolled back when a connection is returned to the pool.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testRollbackOnReturn() throws Exception {
+
+        TestConnectionFactory factory = new TestConnectionFactory();
+        CmsConcurrentDbPool pool = new CmsConcurrentDbPool();
+        pool.initialize("opencms:test", factory, 2, 1, 50, 0);
+
+        Connection con = pool.getConnection();
+        con.setAutoCommit(false);
+        con.close();
+        assertEquals(1, factory.m_rollbacks);
+
+        con = pool.getConnection();
+        assertTrue(con.getAutoCommit());
+        con.close();
+        assertEquals(1, factory.m_rollbacks);
+        pool.close();
+    }
+
+    /**
+     * Tests the borrow time histogram of the pool statistics.<p>
+     */
+    public void testStatistics() {
+
+        CmsDbPoolStatistics statistics = new CmsDbPoolStatistics();
+        statistics.addBorrow(500000L);
+        statistics.addBorrow(7000000L);
+        statistics.addBorrow(6000000000L);
+        assertEquals(3, statistics.getBorrows());
+        assertEquals(6000, statistics.getMaxTime());
+        long[] histogram = statistics.getHistogram();
+        assertEquals(CmsDbPoolStatistics.BUCKET_LIMITS.length + 1, histogram.length);
+        assertEquals(1, histogram[0]);
+        assertEquals(1, histogram[2]);
+        assertEquals(1, histogram[histogram.length - 1]);
+        assertEquals(6007.5 / 3, statistics.getAverageTime(), 0.001);
+
+        statistics.reset();
+        assertEquals(0, statistics.getBorrows());
+        assertEquals(0, statistics.getHistogram()[0]);
+    }
+}
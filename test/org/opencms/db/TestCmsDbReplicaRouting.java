@@ -0,0 +1,209 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.configuration.CmsParameterConfiguration;
+
+import java.sql.Connection;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the routing of reads to the read replicas of a database pool.<p>
+ * 
+ * @since 8.5.2
+ */
+public class TestCmsDbReplicaRouting extends TestCase {
+
+    /**
+     * Pool that does not connect to a database.<p>
+     */
+    public static class TestPool implements I_CmsDbPool {
+
+        /** The URL of the pool. */
+        private String m_poolUrl;
+
+        /**
+         * @see org.opencms.db.I_CmsDbPool#close()
+         */
+        public void close() {
+
+            // noop
+        }
+
+        /**
+         * @see org.opencms.db.I_CmsDbPool#getConnection()
+         */
+        public Connection getConnection() {
+
+            return null;
+        }
+
+        /**
+         * @see org.opencms.db.I_CmsDbPool#getNumActive()
+         */
+        public int getNumActive() {
+
+            return 0;
+        }
+
+        /**
+         * @see org.opencms.db.I_CmsDbPool#getNumIdle()
+         */
+        public int getNumIdle() {
+
+            return 0;
+        }
+
+        /**
+         * @see org.opencms.db.I_CmsDbPool#getPoolUrl()
+         */
+        public String getPoolUrl() {
+
+            return m_poolUrl;
+        }
+
+        /**
+         * @see org.opencms.db.I_CmsDbPool#getStatistics()
+         */
+        public CmsDbPoolStatistics getStatistics() {
+
+            return new CmsDbPoolStatistics();
+        }
+
+        /**
+         * @see org.opencms.db.I_CmsDbPool#initialize(org.opencms.configuration.CmsParameterConfiguration, java.lang.String)
+         */
+        public void initialize(CmsParameterConfiguration config, String key) {
+
+            m_poolUrl = CmsDbPool.getDbPoolName(config, key);
+        }
+    }
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsDbReplicaRouting(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests that reads stay on the primary pool for the replication lag after a publish.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testReplicaLag() throws Exception {
+
+        CmsParameterConfiguration config = createConfiguration("60000");
+        I_CmsDbPool primary = CmsDbPool.createConnectionPool(config, "primary");
+        I_CmsDbPool replica = CmsDbPool.createConnectionPool(config, "replica1");
+        try {
+            CmsDbPool.pinPrimary();
+            CmsDbPool.unpinPrimary();
+            assertTrue(CmsDbPool.isPrimaryPinned("opencms:primary"));
+            assertEquals("opencms:primary", CmsDbPool.getReadPoolUrl("opencms:primary"));
+        } finally {
+            CmsDbPool.closePool(replica);
+            CmsDbPool.closePool(primary);
+        }
+    }
+
+    /**
+     * Tests that reads are distributed over the replicas and pinned to the primary pool while publishing.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testReplicaRouting() throws Exception {
+
+        CmsParameterConfiguration config = createConfiguration("0");
+        I_CmsDbPool primary = CmsDbPool.createConnectionPool(config, "primary");
+        I_CmsDbPool replica1 = null;
+        I_CmsDbPool replica2 = null;
+        try {
+            // replicas that have not been created are not used
+            assertEquals("opencms:primary", CmsDbPool.getReadPoolUrl("opencms:primary"));
+
+            replica1 = CmsDbPool.createConnectionPool(config, "replica1");
+            replica2 = CmsDbPool.createConnectionPool(config, "replica2");
+            Set<String> readPools = new HashSet<String>();
+            readPools.add(CmsDbPool.getReadPoolUrl("opencms:primary"));
+            readPools.add(CmsDbPool.getReadPoolUrl("opencms:primary"));
+            assertEquals(2, readPools.size());
+            assertTrue(readPools.contains("opencms:replica1"));
+            assertTrue(readPools.contains("opencms:replica2"));
+
+            // a pool without replicas always reads from itself
+            assertEquals("opencms:replica1", CmsDbPool.getReadPoolUrl("opencms:replica1"));
+
+            CmsDbPool.pinPrimary();
+            try {
+                assertEquals("opencms:primary", CmsDbPool.getReadPoolUrl("opencms:primary"));
+            } finally {
+                CmsDbPool.unpinPrimary();
+            }
+            assertFalse(CmsDbPool.isPrimaryPinned("opencms:primary"));
+            assertFalse("opencms:primary".equals(CmsDbPool.getReadPoolUrl("opencms:primary")));
+        } finally {
+            if (replica2 != null) {
+                CmsDbPool.closePool(replica2);
+            }
+            if (replica1 != null) {
+                CmsDbPool.closePool(replica1);
+            }
+            CmsDbPool.closePool(primary);
+        }
+        assertNull(CmsDbPool.getPool("opencms:primary"));
+    }
+
+    /**
+     * Creates a configuration with a primary pool and two replica pools.<p>
+     * 
+     * @param replicaLag the replication lag of the primary pool
+     * 
+     * @return the configuration
+     */
+    private CmsParameterConfiguration createConfiguration(String replicaLag) {
+
+        CmsParameterConfiguration config = new CmsParameterConfiguration();
+        String[] pools = {"primary", "replica1", "replica2"};
+        for (String pool : pools) {
+            String prefix = CmsDbPool.KEY_DATABASE_POOL + '.' + pool + '.';
+            config.put(prefix + CmsDbPool.KEY_POOL_CLASS, TestPool.class.getName());
+            config.put(prefix + CmsDbPool.KEY_POOL_URL, "opencms:" + pool);
+        }
+        config.add(CmsDbPool.KEY_DATABASE_POOL + ".primary." + CmsDbPool.KEY_REPLICAS, "replica1");
+        config.add(CmsDbPool.KEY_DATABASE_POOL + ".primary." + CmsDbPool.KEY_REPLICAS, "replica2");
+        config.put(CmsDbPool.KEY_DATABASE_POOL + ".primary." + CmsDbPool.KEY_REPLICA_LAG, replicaLag);
+        return config;
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsRequestContext;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsUser;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.security.CmsPermissionSet;
+import org.opencms.security.I_CmsPrincipal;
+import org.opencms.util.CmsUUID;
+
+import java.util.Locale;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the keys of the permission cache.<p>
+ * 
+ * @since 8.5.2
+ */
+public class TestCmsPermissionCacheKey extends TestCase {
+
+    /**
+     * Tests equality and hash codes of access control list cache keys.<p>
+     */
+    public void testAccessControlListKeyEquality() {
+
+        CmsUUID structureId = CmsUUID.getConstantUUID("resource");
+        int flags = CmsAccessControlListCacheKey.getFlags(false, true, true);
+
+        CmsAccessControlListCacheKey key = new CmsAccessControlListCacheKey(structureId, 1, flags);
+        CmsAccessControlListCacheKey same = new CmsAccessControlListCacheKey(
+            CmsUUID.getConstantUUID("resource"),
+            1,
+            flags);
+        assertEquals(key, same);
+        assertEquals(key.hashCode(), same.hashCode());
+        assertEquals(key.toString(), same.toString());
+
+        assertFalse(key.equals(new CmsAccessControlListCacheKey(structureId, 2, flags)));
+        assertFalse(key.equals(new CmsAccessControlListCacheKey(
+            structureId,
+            1,
+            CmsAccessControlListCacheKey.getFlags(true, true, true))));
+        assertFalse(key.equals(new CmsAccessControlListCacheKey(
+            structureId,
+            1,
+            CmsAccessControlListCacheKey.getFlags(false, true, false))));
+        assertFalse(key.equals(new CmsAccessControlListCacheKey(CmsUUID.getConstantUUID("other"), 1, flags)));
+    }
+
+    /**
+     * Tests the key generator of the permission cache.<p>
+     */
+    public void testGenerator() {
+
+        CmsCacheKey generator = new CmsCacheKey();
+        CmsUser user = createUser("Admin");
+        CmsResource resource = createResource("/sites/default/index.html");
+        CmsDbContext online = createDbContext(user, true);
+        CmsDbContext offline = createDbContext(user, false);
+
+        Object key = generator.getCacheKeyForPermissions(true, false, online, resource, CmsPermissionSet.ACCESS_READ);
+        assertEquals(
+            key,
+            generator.getCacheKeyForPermissions(true, false, online, resource, CmsPermissionSet.ACCESS_READ));
+        assertFalse(key.equals(generator.getCacheKeyForPermissions(
+            true,
+            false,
+            offline,
+            resource,
+            CmsPermissionSet.ACCESS_READ)));
+        assertFalse(key.equals(generator.getCacheKeyForPermissions(
+            true,
+            false,
+            createDbContext(createUser("Guest"), true),
+            resource,
+            CmsPermissionSet.ACCESS_READ)));
+
+        // temporary project contexts must not be cached
+        online.setProjectId(new CmsUUID());
+        assertNull(generator.getCacheKeyForPermissions(true, false, online, resource, CmsPermissionSet.ACCESS_READ));
+    }
+
+    /**
+     * Tests equality and hash codes of permission cache keys.<p>
+     */
+    public void testKeyEquality() {
+
+        CmsUUID userId = CmsUUID.getConstantUUID("user");
+        CmsUUID structureId = CmsUUID.getConstantUUID("resource");
+        int flags = CmsPermissionCacheKey.getFlags(true, false, true);
+
+        CmsPermissionCacheKey key = new CmsPermissionCacheKey(
+            userId,
+            structureId,
+            CmsPermissionSet.ACCESS_READ,
+            flags);
+        // equal ids in other instances
+        CmsPermissionCacheKey same = new CmsPermissionCacheKey(
+            CmsUUID.getConstantUUID("user"),
+            CmsUUID.getConstantUUID("resource"),
+            new CmsPermissionSet(
+                CmsPermissionSet.ACCESS_READ.getAllowedPermissions(),
+                CmsPermissionSet.ACCESS_READ.getDeniedPermissions()),
+            flags);
+        assertEquals(key, same);
+        assertEquals(key.hashCode(), same.hashCode());
+        assertEquals(key.toString(), same.toString());
+
+        assertFalse(key.equals(new CmsPermissionCacheKey(userId, structureId, CmsPermissionSet.ACCESS_WRITE, flags)));
+        assertFalse(key.equals(new CmsPermissionCacheKey(
+            userId,
+            structureId,
+            CmsPermissionSet.ACCESS_READ,
+            CmsPermissionCacheKey.getFlags(true, true, true))));
+        assertFalse(key.equals(new CmsPermissionCacheKey(
+            userId,
+            CmsUUID.getConstantUUID("other"),
+            CmsPermissionSet.ACCESS_READ,
+            flags)));
+        assertFalse(key.equals(new CmsPermissionCacheKey(
+            CmsUUID.getConstantUUID("other"),
+            structureId,
+            CmsPermissionSet.ACCESS_READ,
+            flags)));
+
+        assertEquals(
+            CmsPermissionCacheKey.FLAG_REQUIRE_VISIBLE | CmsPermissionCacheKey.FLAG_ONLINE,
+            CmsPermissionCacheKey.getFlags(true, false, true));
+        assertEquals(0, CmsPermissionCacheKey.getFlags(false, false, false));
+    }
+
+    /**
+     * Creates a database context for the given user.<p>
+     * 
+     * @param user the user
+     * @param online if the online project should be used
+     * 
+     * @return the database context
+     */
+    private CmsDbContext createDbContext(CmsUser user, boolean online) {
+
+        CmsProject project = new CmsProject(
+            online ? CmsProject.ONLINE_PROJECT_ID : CmsUUID.getConstantUUID("offline"),
+            online ? CmsProject.ONLINE_PROJECT_NAME : "Offline",
+            "",
+            user.getId(),
+            CmsUUID.getNullUUID(),
+            CmsUUID.getNullUUID(),
+            0,
+            0,
+            CmsProject.PROJECT_TYPE_NORMAL);
+        return new CmsDbContext(new CmsRequestContext(
+            user,
+            project,
+            "/",
+            "",
+            Locale.ENGLISH,
+            "UTF-8",
+            "127.0.0.1",
+            0,
+            null,
+            null,
+            ""));
+    }
+
+    /**
+     * Creates a resource with the given root path.<p>
+     * 
+     * @param rootPath the root path
+     * 
+     * @return the resource
+     */
+    private CmsResource createResource(String rootPath) {
+
+        return new CmsResource(
+            CmsUUID.getConstantUUID(rootPath),
+            CmsUUID.getConstantUUID(rootPath + "#"),
+            rootPath,
+            CmsResourceTypePlain.getStaticTypeId(),
+            false,
+            0,
+            CmsProject.ONLINE_PROJECT_ID,
+            CmsResource.STATE_UNCHANGED,
+            0,
+            CmsUUID.getNullUUID(),
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.DATE_RELEASED_DEFAULT,
+            CmsResource.DATE_EXPIRED_DEFAULT,
+            1,
+            0,
+            0,
+            0);
+    }
+
+    /**
+     * Creates a user with the given name.<p>
+     * 
+     * @param name the user name
+     * 
+     * @return the user
+     */
+    private CmsUser createUser(String name) {
+
+        return new CmsUser(
+            CmsUUID.getConstantUUID(name),
+            name,
+            "",
+            "",
+            "",
+            "",
+            0,
+            I_CmsPrincipal.FLAG_ENABLED,
+            0,
+            null);
+    }
+}
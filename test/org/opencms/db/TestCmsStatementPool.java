@@ -0,0 +1,219 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.db.generic.CmsSqlManager;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.pool.KeyedObjectPool;
+import org.apache.commons.pool.KeyedPoolableObjectFactory;
+import org.apache.commons.pool.impl.GenericKeyedObjectPool;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the prepared statement pool and the batched writes of the SQL manager.<p>
+ * 
+ * @since 8.5.2
+ */
+public class TestCmsStatementPool extends TestCase {
+
+    /**
+     * Statement factory that creates strings instead of statements and records the destroyed objects.<p>
+     */
+    private static class TestStatementFactory implements KeyedPoolableObjectFactory {
+
+        /** The destroyed objects. */
+        List<Object> m_destroyed = new ArrayList<Object>();
+
+        /** The number of created objects. */
+        int m_created;
+
+        /**
+         * @see org.apache.commons.pool.KeyedPoolableObjectFactory#activateObject(java.lang.Object, java.lang.Object)
+         */
+        public void activateObject(Object key, Object obj) {
+
+            // noop
+        }
+
+        /**
+         * @see org.apache.commons.pool.KeyedPoolableObjectFactory#destroyObject(java.lang.Object, java.lang.Object)
+         */
+        public void destroyObject(Object key, Object obj) {
+
+            m_destroyed.add(obj);
+        }
+
+        /**
+         * @see org.apache.commons.pool.KeyedPoolableObjectFactory#makeObject(java.lang.Object)
+         */
+        public Object makeObject(Object key) {
+
+            m_created++;
+            return key + "#" + m_created;
+        }
+
+        /**
+         * @see org.apache.commons.pool.KeyedPoolableObjectFactory#passivateObject(java.lang.Object, java.lang.Object)
+         */
+        public void passivateObject(Object key, Object obj) {
+
+            // noop
+        }
+
+        /**
+         * @see org.apache.commons.pool.KeyedPoolableObjectFactory#validateObject(java.lang.Object, java.lang.Object)
+         */
+        public boolean validateObject(Object key, Object obj) {
+
+            return true;
+        }
+    }
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsStatementPool(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests that the SQL manager executes batches when the maximum batch size is reached.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testBatchSize() throws Exception {
+
+        final int[] calls = new int[2];
+        PreparedStatement stmt = (PreparedStatement)Proxy.newProxyInstance(
+            getClass().getClassLoader(),
+            new Class<?>[] {PreparedStatement.class},
+            new InvocationHandler() {
+
+                public Object invoke(Object proxy, Method method, Object[] args) {
+
+                    if (method.getName().equals("addBatch")) {
+                        calls[0]++;
+                    } else if (method.getName().equals("executeBatch")) {
+                        calls[1]++;
+                        return new int[0];
+                    }
+                    return null;
+                }
+            });
+
+        CmsSqlStatistics statistics = CmsSqlStatistics.getInstance();
+        statistics.reset();
+        CmsSqlManager sqlManager = new CmsSqlManager();
+        int rows = (CmsSqlManager.MAX_BATCH_SIZE * 2) + 5;
+        int pending = 0;
+        for (int i = 0; i < rows; i++) {
+            pending = sqlManager.addBatch(stmt, pending);
+        }
+        assertEquals(5, pending);
+        assertEquals(2, calls[1]);
+        sqlManager.executeBatch(stmt, pending);
+        assertEquals(rows, calls[0]);
+        assertEquals(3, calls[1]);
+        assertEquals(3, statistics.getBatches());
+        assertEquals(rows, statistics.getBatchedRows());
+
+        // nothing to do for an empty batch
+        sqlManager.executeBatch(stmt, 0);
+        assertEquals(3, calls[1]);
+    }
+
+    /**
+     * Tests that statements are reused and counted, and that the statements of the 
+     * least recently used SQL are closed.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    @SuppressWarnings("deprecation")
+    public void testStatementReuse() throws Exception {
+
+        CmsSqlStatistics statistics = CmsSqlStatistics.getInstance();
+        statistics.reset();
+        KeyedObjectPool pool = new CmsStatementPoolFactory(
+            10,
+            GenericKeyedObjectPool.WHEN_EXHAUSTED_GROW,
+            100,
+            10,
+            3).createPool();
+        TestStatementFactory factory = new TestStatementFactory();
+        pool.setFactory(factory);
+
+        // the same SQL is only prepared once
+        for (int i = 0; i < 5; i++) {
+            Object stmt = pool.borrowObject("SELECT 1");
+            assertEquals("SELECT 1#1", stmt);
+            pool.returnObject("SELECT 1", stmt);
+        }
+        assertEquals(5, statistics.getStatementRequests());
+        assertEquals(1, statistics.getStatementsPrepared());
+        assertEquals(4, statistics.getReusedStatements());
+
+        // fill the pool up to the limit, then the least recently used statement is closed
+        pool.returnObject("SELECT 2", pool.borrowObject("SELECT 2"));
+        pool.returnObject("SELECT 3", pool.borrowObject("SELECT 3"));
+        assertTrue(factory.m_destroyed.isEmpty());
+        pool.returnObject("SELECT 4", pool.borrowObject("SELECT 4"));
+        assertEquals(1, factory.m_destroyed.size());
+        assertEquals("SELECT 1#1", factory.m_destroyed.get(0));
+        assertEquals(4, statistics.getStatementsPrepared());
+
+        // using a statement again makes it the most recently used one
+        pool.returnObject("SELECT 2", pool.borrowObject("SELECT 2"));
+        pool.returnObject("SELECT 5", pool.borrowObject("SELECT 5"));
+        assertEquals(2, factory.m_destroyed.size());
+        assertEquals("SELECT 3#3", factory.m_destroyed.get(1));
+        pool.returnObject("SELECT 6", pool.borrowObject("SELECT 6"));
+        assertEquals(3, factory.m_destroyed.size());
+        assertEquals("SELECT 4#4", factory.m_destroyed.get(2));
+        assertEquals(1, pool.getNumIdle("SELECT 2"));
+
+        // a statement that is in use is not closed
+        Object stmt2 = pool.borrowObject("SELECT 2");
+        pool.returnObject("SELECT 7", pool.borrowObject("SELECT 7"));
+        pool.returnObject("SELECT 8", pool.borrowObject("SELECT 8"));
+        pool.returnObject("SELECT 9", pool.borrowObject("SELECT 9"));
+        assertFalse(factory.m_destroyed.contains(stmt2));
+        pool.returnObject("SELECT 2", stmt2);
+        assertEquals(1, pool.getNumIdle("SELECT 2"));
+    }
+}
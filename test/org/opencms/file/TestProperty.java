@@ -30,11 +30,13 @@ package org.opencms.file;
 import org.opencms.file.types.CmsResourceTypePlain;
 import org.opencms.main.CmsRuntimeException;
 import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMemoryMonitor;
 import org.opencms.report.CmsShellReport;
 import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
 import org.opencms.test.OpenCmsTestResourceFilter;
 import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -90,6 +92,7 @@ public class TestProperty extends OpenCmsTestCase {
         suite.addTest(new TestProperty("testDefaultPropertyCreation"));
         suite.addTest(new TestProperty("testCaseSensitiveProperties"));
         suite.addTest(new TestProperty("testReadResourcesWithProperty"));
+        suite.addTest(new TestProperty("testReadPropertyObjectsForResources"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -575,6 +578,48 @@ public class TestProperty extends OpenCmsTestCase {
         writeProperty(this, cms, "/folder2/", property10);
     }
 
+    /**
+     * Tests reading the properties of a list of resources at once.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testReadPropertyObjectsForResources() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing reading the properties of a list of resources");
+
+        // the resource tree contains siblings, which share the resource record properties
+        List<CmsResource> resources = cms.readResources("/", CmsResourceFilter.ALL, true);
+
+        // read the expected properties one by one before the batch read
+        OpenCms.getMemoryMonitor().flushCache(CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+        Map<CmsUUID, List<CmsProperty>> expectedProperties = new HashMap<CmsUUID, List<CmsProperty>>();
+        for (CmsResource resource : resources) {
+            expectedProperties.put(resource.getStructureId(), cms.readPropertyObjects(resource, false));
+        }
+
+        // make sure the batch read does not return the property lists cached by the single reads
+        OpenCms.getMemoryMonitor().flushCache(CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+        Map<CmsUUID, List<CmsProperty>> result = cms.readPropertyObjects(resources);
+        assertEquals(resources.size(), result.size());
+        for (CmsResource resource : resources) {
+            List<CmsProperty> expected = expectedProperties.get(resource.getStructureId());
+            List<CmsProperty> properties = result.get(resource.getStructureId());
+            assertNotNull(properties);
+            assertEquals(expected.size(), properties.size());
+            Map<String, CmsProperty> expectedMap = new HashMap<String, CmsProperty>();
+            for (CmsProperty property : expected) {
+                expectedMap.put(property.getName(), property);
+            }
+            for (CmsProperty property : properties) {
+                CmsProperty expectedProperty = expectedMap.get(property.getName());
+                assertNotNull(expectedProperty);
+                assertEquals(expectedProperty.getStructureValue(), property.getStructureValue());
+                assertEquals(expectedProperty.getResourceValue(), property.getResourceValue());
+            }
+        }
+    }
+
     /**
      * Tests the writePropertyObject method for writing of a property on a folder.<p>
      * 
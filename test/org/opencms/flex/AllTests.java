@@ -59,6 +59,8 @@ public final class AllTests {
         OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
         //$JUnit-BEGIN$
         suite.addTest(new TestSuite(TestCmsFlexCacheEntry.class));
+        suite.addTest(new TestSuite(TestCmsFlexCacheArena.class));
+        suite.addTest(new TestSuite(TestCmsFlexCacheDiskStore.class));
         suite.addTest(TestCmsFlexResponse.suite());
         //$JUnit-END$
         return suite;
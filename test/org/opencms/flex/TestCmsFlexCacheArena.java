@@ -0,0 +1,192 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import org.opencms.flex.CmsFlexCacheArena.CmsArenaFragment;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the off-heap storage of the Flex cache.<p>
+ * 
+ * @since 8.5.2
+ */
+public class TestCmsFlexCacheArena extends TestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsFlexCacheArena(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Creates a byte array with a recognizable content.<p>
+     * 
+     * @param length the length of the array
+     * @param seed the seed for the content
+     * 
+     * @return the byte array
+     */
+    private static byte[] createBytes(int length, int seed) {
+
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte)(i + seed);
+        }
+        return bytes;
+    }
+
+    /**
+     * Tests that freed blocks are reused and that a full arena rejects new fragments.<p>
+     */
+    public void testAllocation() {
+
+        CmsFlexCacheArena arena = new CmsFlexCacheArena(1024, 128);
+        assertEquals(1024, arena.getCapacity());
+        assertEquals(0, arena.getOccupancy());
+
+        List<CmsArenaFragment> fragments = new ArrayList<CmsArenaFragment>();
+        for (int i = 0; i < 4; i++) {
+            CmsArenaFragment fragment = arena.store(createBytes(200, i));
+            assertNotNull(fragment);
+            assertEquals(2, fragment.getBlockCount());
+            fragments.add(fragment);
+        }
+        assertEquals(100, arena.getOccupancy());
+        assertEquals(800, arena.getStoredBytes());
+        // 56 of 256 bytes of each fragment are unused
+        assertEquals(21, arena.getFragmentation());
+        assertNull(arena.store(new byte[1]));
+
+        arena.free(fragments.get(1));
+        assertEquals(75, arena.getOccupancy());
+        CmsArenaFragment fragment = arena.store(createBytes(256, 9));
+        assertNotNull(fragment);
+        assertTrue(Arrays.equals(createBytes(256, 9), arena.toByteArray(fragment)));
+        // the other fragments are not changed
+        assertTrue(Arrays.equals(createBytes(200, 0), arena.toByteArray(fragments.get(0))));
+        assertTrue(Arrays.equals(createBytes(200, 3), arena.toByteArray(fragments.get(3))));
+
+        arena.free(fragment);
+        arena.free(fragments.get(0));
+        arena.free(fragments.get(2));
+        arena.free(fragments.get(3));
+        assertEquals(0, arena.getUsedBytes());
+        assertEquals(0, arena.getStoredBytes());
+        assertEquals(0, arena.getFragmentation());
+    }
+
+    /**
+     * Tests that the output of an entry is moved to the arena, delivered and freed with the last reference.<p>
+     */
+    public void testEntryReferences() {
+
+        CmsFlexCacheArena arena = new CmsFlexCacheArena(64 * 1024, 1024);
+        CmsFlexCacheEntry entry = new CmsFlexCacheEntry();
+        entry.add(createBytes(3000, 1));
+        entry.complete();
+        int heapCosts = entry.getLruCacheCosts();
+        entry.moveToArena(arena);
+        assertTrue(entry.isOffHeap());
+        assertEquals(3072, arena.getUsedBytes());
+        // the costs now include the arena blocks instead of the byte array 
+        assertTrue(entry.getLruCacheCosts() > (heapCosts - 3000));
+        assertTrue(entry.getLruCacheCosts() >= 3072);
+
+        // a request delivers the entry while it is removed from the cache
+        assertTrue(entry.addReference());
+        entry.removeFromLruCache();
+        assertEquals(3072, arena.getUsedBytes());
+        entry.removeReference();
+        assertEquals(0, arena.getUsedBytes());
+        // the freed entry can not be used anymore
+        assertFalse(entry.addReference());
+
+        // entries that are not completed stay on the heap
+        CmsFlexCacheEntry openEntry = new CmsFlexCacheEntry();
+        openEntry.add(createBytes(100, 2));
+        openEntry.moveToArena(arena);
+        assertFalse(openEntry.isOffHeap());
+        assertTrue(openEntry.addReference());
+    }
+
+    /**
+     * Tests an arena in a memory-mapped file.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testMappedFile() throws Exception {
+
+        File file = File.createTempFile("flexcache", ".arena");
+        file.deleteOnExit();
+        CmsFlexCacheArena arena = new CmsFlexCacheArena(16 * 8192, 8192, file);
+        assertEquals(CmsFlexCacheArena.MODE_MAPPED, arena.getMode());
+        assertEquals(16 * 8192, file.length());
+
+        byte[] bytes = createBytes(20000, 5);
+        CmsArenaFragment fragment = arena.store(bytes);
+        assertEquals(3, fragment.getBlockCount());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        arena.writeTo(fragment, out);
+        assertTrue(Arrays.equals(bytes, out.toByteArray()));
+        arena.free(fragment);
+        assertEquals(0, arena.getOccupancy());
+    }
+
+    /**
+     * Tests writing fragments to an output stream.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testWriteTo() throws Exception {
+
+        CmsFlexCacheArena arena = new CmsFlexCacheArena(1024 * 1024, CmsFlexCacheArena.DEFAULT_BLOCK_SIZE);
+        assertEquals(CmsFlexCacheArena.MODE_DIRECT, arena.getMode());
+        int[] sizes = new int[] {0, 1, 8191, 8192, 8193, 100000};
+        for (int i = 0; i < sizes.length; i++) {
+            byte[] bytes = createBytes(sizes[i], i);
+            CmsArenaFragment fragment = arena.store(bytes);
+            assertEquals(sizes[i], fragment.getLength());
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            arena.writeTo(fragment, out);
+            assertTrue(Arrays.equals(bytes, out.toByteArray()));
+            arena.free(fragment);
+        }
+        assertEquals(0, arena.getUsedBytes());
+    }
+}
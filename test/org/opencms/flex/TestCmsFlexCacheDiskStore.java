@@ -0,0 +1,224 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import org.opencms.flex.CmsFlexCache.CmsFlexCacheVariation;
+import org.opencms.util.CmsFileUtil;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the persistent store of the Flex cache.<p>
+ * 
+ * @since 8.5.2
+ */
+public class TestCmsFlexCacheDiskStore extends TestCase {
+
+    /** The resource used in the tests. */
+    private static final String RESOURCE = "/sites/default/index.jsp";
+
+    /** The folder of the store used in the tests. */
+    private File m_folder;
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsFlexCacheDiskStore(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Creates a completed cache entry with output, an include call and headers.<p>
+     * 
+     * @param output the output of the entry
+     * 
+     * @return the cache entry
+     */
+    private static CmsFlexCacheEntry createEntry(String output) {
+
+        CmsFlexCacheEntry entry = new CmsFlexCacheEntry();
+        Map<String, List<String>> headers = new HashMap<String, List<String>>();
+        headers.put("Content-Type", Arrays.asList(new String[] {"text/html"}));
+        entry.addHeaders(headers);
+        entry.add(output.getBytes());
+        Map<String, String[]> params = new HashMap<String, String[]>();
+        params.put("p", new String[] {"a", "b"});
+        entry.add("/system/modules/test/elements/include.jsp", params, null);
+        entry.add("</body>".getBytes());
+        entry.setDateExpires(System.currentTimeMillis() + 60000);
+        entry.setDateLastModified(1000);
+        entry.complete();
+        return entry;
+    }
+
+    /**
+     * Tests that stored entries are restored by a new store for the same publish history id.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testStoreAndLoad() throws Exception {
+
+        CmsFlexCacheDiskStore store = new CmsFlexCacheDiskStore(m_folder.getAbsolutePath(), "p1");
+        CmsFlexCacheKey key = new CmsFlexCacheKey(RESOURCE, "always", true);
+        assertTrue(store.store(key, "v1", createEntry("<body>one"), null));
+        assertTrue(store.store(key, "v2", createEntry("<body>two"), null));
+        assertTrue(new File(store.getFileName(RESOURCE)).exists());
+
+        // the store files survive a restart
+        store = new CmsFlexCacheDiskStore(m_folder.getAbsolutePath(), "p1");
+        CmsFlexCacheVariation stored = store.load(key.getResource());
+        assertNotNull(stored);
+        assertEquals(key.getResource(), stored.m_key.getResource());
+        assertEquals("always", stored.m_key.getCacheDirectives());
+        assertEquals(2, stored.m_map.size());
+        CmsFlexCacheEntry entry = (CmsFlexCacheEntry)stored.m_map.get("v1");
+        assertEquals(1000, entry.getDateLastModified());
+        assertEquals("text/html", entry.getHeaders().get("Content-Type").get(0));
+        List<Object> elements = entry.elements();
+        assertEquals(5, elements.size());
+        assertEquals("<body>one", new String((byte[])elements.get(0)));
+        assertEquals("/system/modules/test/elements/include.jsp", elements.get(1));
+        assertTrue(Arrays.equals(new String[] {"a", "b"}, (String[])((Map<?, ?>)elements.get(2)).get("p")));
+        assertEquals("</body>", new String((byte[])elements.get(4)));
+
+        // every resource is only read once
+        assertNull(store.load(key.getResource()));
+    }
+
+    /**
+     * Tests that files written for another publish history id are discarded.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testOutdatedFile() throws Exception {
+
+        CmsFlexCacheDiskStore store = new CmsFlexCacheDiskStore(m_folder.getAbsolutePath(), "p1");
+        CmsFlexCacheKey key = new CmsFlexCacheKey(RESOURCE, "always", true);
+        assertTrue(store.store(key, "v1", createEntry("<body>one"), null));
+
+        store = new CmsFlexCacheDiskStore(m_folder.getAbsolutePath(), "p2");
+        assertNull(store.load(key.getResource()));
+        assertFalse(new File(store.getFileName(RESOURCE)).exists());
+
+        // after a publish event, the file is replaced with the next write
+        store = new CmsFlexCacheDiskStore(m_folder.getAbsolutePath(), "p2");
+        assertTrue(store.store(key, "v1", createEntry("<body>one"), null));
+        store.setPublishId("p3");
+        assertTrue(store.store(key, "v2", createEntry("<body>two"), null));
+        store = new CmsFlexCacheDiskStore(m_folder.getAbsolutePath(), "p3");
+        CmsFlexCacheVariation stored = store.load(key.getResource());
+        assertEquals(1, stored.m_map.size());
+        assertNotNull(stored.m_map.get("v2"));
+    }
+
+    /**
+     * Tests that replaced entries are compacted and an incomplete last record is ignored.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testCompaction() throws Exception {
+
+        CmsFlexCacheDiskStore store = new CmsFlexCacheDiskStore(m_folder.getAbsolutePath(), "p1");
+        CmsFlexCacheKey key = new CmsFlexCacheKey(RESOURCE, "always", true);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(store.store(key, "v1", createEntry("<body>" + i), null));
+        }
+        File file = new File(store.getFileName(RESOURCE));
+        long size = file.length();
+        // simulate a server stop while a record was written
+        FileOutputStream out = new FileOutputStream(file, true);
+        out.write(new byte[] {0, 0, 1, 0, 1, 2, 3});
+        out.close();
+
+        store = new CmsFlexCacheDiskStore(m_folder.getAbsolutePath(), "p1");
+        CmsFlexCacheVariation stored = store.load(key.getResource());
+        assertEquals(1, stored.m_map.size());
+        assertEquals("<body>9", new String((byte[])((CmsFlexCacheEntry)stored.m_map.get("v1")).elements().get(0)));
+        assertTrue(file.length() < (size / 5));
+
+        // new entries are appended to the compacted file
+        assertTrue(store.store(key, "v2", createEntry("<body>two"), null));
+        store = new CmsFlexCacheDiskStore(m_folder.getAbsolutePath(), "p1");
+        assertEquals(2, store.load(key.getResource()).m_map.size());
+    }
+
+    /**
+     * Tests that offline entries, expired entries and entries with request attributes are not restored.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testNotStorable() throws Exception {
+
+        CmsFlexCacheDiskStore store = new CmsFlexCacheDiskStore(m_folder.getAbsolutePath(), "p1");
+        assertFalse(store.store(new CmsFlexCacheKey(RESOURCE, "always", false), "v1", createEntry("one"), null));
+
+        CmsFlexCacheKey key = new CmsFlexCacheKey(RESOURCE, "always", true);
+        CmsFlexCacheEntry entry = new CmsFlexCacheEntry();
+        Map<String, Object> attrs = new HashMap<String, Object>();
+        attrs.put("a", new Object());
+        entry.add("/include.jsp", null, attrs);
+        entry.complete();
+        assertFalse(store.store(key, "v1", entry, null));
+
+        entry = createEntry("expired");
+        entry.setDateExpires(System.currentTimeMillis() - 1000);
+        assertTrue(store.store(key, "v1", entry, null));
+        store = new CmsFlexCacheDiskStore(m_folder.getAbsolutePath(), "p1");
+        assertNull(store.load(key.getResource()));
+    }
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp() throws Exception {
+
+        m_folder = File.createTempFile("flexcache", "store");
+        m_folder.delete();
+        m_folder.mkdirs();
+    }
+
+    /**
+     * @see junit.framework.TestCase#tearDown()
+     */
+    @Override
+    protected void tearDown() throws Exception {
+
+        CmsFileUtil.purgeDirectory(m_folder);
+    }
+}
@@ -59,6 +59,9 @@ public final class AllTests {
         //$JUnit-BEGIN$
         suite.addTest(new TestSuite(TestCmsImageScaler.class));
         suite.addTest(new TestSuite(TestCmsDefaultFileNameGenerator.class));
+        suite.addTest(new TestSuite(TestCmsImageScalingExecutor.class));
+        suite.addTest(new TestSuite(TestCmsByteRange.class));
+        suite.addTest(new TestSuite(TestCmsJspFreshnessIndex.class));
         //$JUnit-END$
         return suite;
     }
@@ -0,0 +1,115 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.loader;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the parsing of HTTP "Range" headers.<p>
+ * 
+ * @since 8.5.2
+ */
+public class TestCmsByteRange extends TestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsByteRange(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests headers for which the complete content must be sent.<p>
+     */
+    public void testCompleteContent() {
+
+        assertNull(CmsByteRange.parse(null, 1000));
+        assertNull(CmsByteRange.parse("", 1000));
+        assertNull(CmsByteRange.parse("items=0-10", 1000));
+        assertNull(CmsByteRange.parse("bytes=abc", 1000));
+        assertNull(CmsByteRange.parse("bytes=a-10", 1000));
+        assertNull(CmsByteRange.parse("bytes=-", 1000));
+        assertNull(CmsByteRange.parse("bytes=20-10", 1000));
+        // multiple ranges are not supported
+        assertNull(CmsByteRange.parse("bytes=0-10,20-30", 1000));
+    }
+
+    /**
+     * Tests ranges with a first and an optional last byte position.<p>
+     */
+    public void testRange() {
+
+        CmsByteRange range = CmsByteRange.parse("bytes=0-499", 1000);
+        assertTrue(range.isSatisfiable());
+        assertEquals(0, range.getStart());
+        assertEquals(499, range.getEnd());
+        assertEquals(500, range.getCount());
+        assertEquals("bytes 0-499/1000", range.getContentRange());
+
+        range = CmsByteRange.parse("bytes=500-", 1000);
+        assertEquals(500, range.getStart());
+        assertEquals(999, range.getEnd());
+        assertEquals("bytes 500-999/1000", range.getContentRange());
+
+        // the last position is limited to the content length
+        range = CmsByteRange.parse("bytes=900-2000", 1000);
+        assertEquals(999, range.getEnd());
+        assertEquals(100, range.getCount());
+    }
+
+    /**
+     * Tests suffix ranges.<p>
+     */
+    public void testSuffixRange() {
+
+        CmsByteRange range = CmsByteRange.parse("bytes=-100", 1000);
+        assertEquals(900, range.getStart());
+        assertEquals(999, range.getEnd());
+
+        range = CmsByteRange.parse("bytes=-2000", 1000);
+        assertEquals(0, range.getStart());
+        assertEquals(1000, range.getCount());
+    }
+
+    /**
+     * Tests ranges that can not be satisfied.<p>
+     */
+    public void testUnsatisfiable() {
+
+        CmsByteRange range = CmsByteRange.parse("bytes=1000-", 1000);
+        assertFalse(range.isSatisfiable());
+        assertEquals(0, range.getCount());
+        assertEquals("bytes */1000", range.getContentRange());
+
+        assertFalse(CmsByteRange.parse("bytes=-0", 1000).isSatisfiable());
+        assertFalse(CmsByteRange.parse("bytes=0-", 0).isSatisfiable());
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.loader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the image scaling pool.<p>
+ * 
+ * @since 8.5.2
+ */
+public class TestCmsImageScalingExecutor extends TestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsImageScalingExecutor(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests that concurrent requests for the same key are served by a single operation.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testDeduplication() throws Exception {
+
+        final CmsImageScalingExecutor executor = new CmsImageScalingExecutor(2, 10);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+        final Callable<byte[]> operation = new Callable<byte[]>() {
+
+            public byte[] call() throws Exception {
+
+                calls.incrementAndGet();
+                release.await(10, TimeUnit.SECONDS);
+                return new byte[] {1, 2, 3};
+            }
+        };
+        int requests = 20;
+        final CountDownLatch started = new CountDownLatch(requests);
+        final List<byte[]> results = new ArrayList<byte[]>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < requests; i++) {
+            Thread thread = new Thread() {
+
+                @Override
+                public void run() {
+
+                    started.countDown();
+                    try {
+                        byte[] result = executor.scale("/img.jpg", operation);
+                        synchronized (results) {
+                            results.add(result);
+                        }
+                    } catch (Exception e) {
+                        // result is missing
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        started.await();
+        // wait until all requests either started or joined the operation
+        long timeout = System.currentTimeMillis() + 10000;
+        while (((executor.getDeduplicatedCount() + calls.get()) < requests) && (System.currentTimeMillis() < timeout)) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+        for (int i = 0; i < threads.size(); i++) {
+            threads.get(i).join(10000);
+        }
+        assertEquals(requests, results.size());
+        assertEquals(1, calls.get());
+        assertEquals(requests - 1, executor.getDeduplicatedCount());
+        assertEquals(1, executor.getScaledCount());
+        assertEquals(3, results.get(0).length);
+
+        // after the operation has finished, the next request starts a new one
+        executor.scale("/img.jpg", operation);
+        assertEquals(2, calls.get());
+        executor.shutdown();
+    }
+
+    /**
+     * Tests that the exceptions of an operation are passed to the requesting thread.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testException() throws Exception {
+
+        CmsImageScalingExecutor executor = new CmsImageScalingExecutor(1, 1);
+        try {
+            executor.scale("/img.jpg", new Callable<byte[]>() {
+
+                public byte[] call() throws Exception {
+
+                    throw new CmsLoaderException(Messages.get().container(
+                        Messages.ERR_IMAGE_SCALING_FAILED_1,
+                        "/img.jpg"));
+                }
+            });
+            fail("expected exception not thrown");
+        } catch (CmsLoaderException e) {
+            // expected
+        }
+        assertEquals(0, executor.getScaledCount());
+        executor.shutdown();
+    }
+
+    /**
+     * Tests that operations are rejected if the queue is full.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testRejection() throws Exception {
+
+        CmsImageScalingExecutor executor = new CmsImageScalingExecutor(1, 1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Callable<byte[]> blocking = new Callable<byte[]>() {
+
+            public byte[] call() throws Exception {
+
+                release.await(10, TimeUnit.SECONDS);
+                return new byte[0];
+            }
+        };
+        // the first operation occupies the worker thread, the second one the queue
+        assertTrue(executor.submit("/a.jpg", blocking));
+        assertTrue(executor.submit("/b.jpg", blocking));
+        // the same key is not started twice
+        assertFalse(executor.submit("/b.jpg", blocking));
+        assertEquals(0, executor.getRejectedCount());
+        // the queue is full
+        assertFalse(executor.submit("/c.jpg", blocking));
+        assertEquals(1, executor.getRejectedCount());
+
+        // a blocking request is executed by the requesting thread if the queue is full
+        byte[] result = executor.scale("/d.jpg", new Callable<byte[]>() {
+
+            public byte[] call() {
+
+                return new byte[] {1};
+            }
+        });
+        assertEquals(1, result.length);
+        assertEquals(2, executor.getRejectedCount());
+
+        release.countDown();
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.loader;
+
+import org.opencms.file.CmsResource;
+import org.opencms.file.types.CmsResourceTypeJsp;
+import org.opencms.util.CmsUUID;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the index of up to date JSPs in the "real" file system.<p>
+ * 
+ * @since 8.5.2
+ */
+public class TestCmsJspFreshnessIndex extends TestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsJspFreshnessIndex(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests that the size of the index is limited.<p>
+     */
+    public void testMaxSize() {
+
+        CmsJspFreshnessIndex index = new CmsJspFreshnessIndex(2);
+        Set<String> noLinks = Collections.emptySet();
+        index.put(createResource("/system/a.jsp", 100), 200, noLinks);
+        index.put(createResource("/system/b.jsp", 100), 200, noLinks);
+        index.put(createResource("/system/a.jsp", 110), 210, noLinks);
+        assertEquals(2, index.size());
+        index.put(createResource("/system/c.jsp", 100), 200, noLinks);
+        assertEquals(2, index.size());
+        assertNotNull(index.get(createResource("/system/c.jsp", 100)));
+        index.clear();
+        assertEquals(0, index.size());
+    }
+
+    /**
+     * Tests that modified resources are not up to date.<p>
+     */
+    public void testModifiedResource() {
+
+        CmsJspFreshnessIndex index = new CmsJspFreshnessIndex(10);
+        Set<String> noLinks = Collections.emptySet();
+        index.put(createResource("/system/a.jsp", 100), 200, noLinks);
+
+        CmsJspFreshnessIndex.Entry entry = index.get(createResource("/system/a.jsp", 100));
+        assertNotNull(entry);
+        assertEquals(100, entry.getDateLastModified());
+        assertEquals(200, entry.getFileDate());
+        assertNull(index.get(createResource("/system/a.jsp", 101)));
+        assertNull(index.get(createResource("/system/b.jsp", 100)));
+    }
+
+    /**
+     * Tests that the JSPs including a removed JSP with a strong link are removed, too.<p>
+     */
+    public void testRemoveStrongLinks() {
+
+        CmsJspFreshnessIndex index = new CmsJspFreshnessIndex(10);
+        Set<String> noLinks = Collections.emptySet();
+        index.put(createResource("/system/element.jsp", 100), 200, noLinks);
+        index.put(
+            createResource("/system/template.jsp", 100),
+            200,
+            Collections.singleton("/system/element.jsp"));
+        Set<String> links = new HashSet<String>();
+        links.add("/system/template.jsp");
+        links.add("/system/other.jsp");
+        index.put(createResource("/system/page.jsp", 100), 200, links);
+        index.put(createResource("/system/other.jsp", 100), 200, noLinks);
+
+        index.remove(Collections.singleton("/system/element.jsp"));
+        assertNull(index.get(createResource("/system/element.jsp", 100)));
+        assertNull(index.get(createResource("/system/template.jsp", 100)));
+        assertNull(index.get(createResource("/system/page.jsp", 100)));
+        assertNotNull(index.get(createResource("/system/other.jsp", 100)));
+        assertEquals(1, index.size());
+
+        // a JSP that no longer includes a removed JSP is kept
+        index.put(createResource("/system/page.jsp", 200), 300, Collections.singleton("/system/other.jsp"));
+        index.put(createResource("/system/page.jsp", 300), 400, noLinks);
+        index.remove(Collections.singleton("/system/other.jsp"));
+        assertNotNull(index.get(createResource("/system/page.jsp", 300)));
+        assertEquals(1, index.size());
+    }
+
+    /**
+     * Creates a JSP resource.<p>
+     * 
+     * @param rootPath the root path of the resource
+     * @param dateLastModified the date of last modification
+     * 
+     * @return the resource
+     */
+    private CmsResource createResource(String rootPath, long dateLastModified) {
+
+        return new CmsResource(
+            new CmsUUID(),
+            new CmsUUID(),
+            rootPath,
+            CmsResourceTypeJsp.getJSPTypeId(),
+            false,
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.STATE_UNCHANGED,
+            0,
+            CmsUUID.getNullUUID(),
+            dateLastModified,
+            CmsUUID.getNullUUID(),
+            CmsResource.DATE_RELEASED_DEFAULT,
+            CmsResource.DATE_EXPIRED_DEFAULT,
+            1,
+            0,
+            0,
+            0);
+    }
+}
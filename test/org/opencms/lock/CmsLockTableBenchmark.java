@@ -0,0 +1,157 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.lock;
+
+import org.opencms.file.CmsProject;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Compares the parent folder lock lookup of the lock table with a scan over all locks.<p>
+ * 
+ * This is a standalone harness and not part of the unit tests, since timings are not reliable 
+ * enough to be asserted. Run it with <code>java org.opencms.lock.CmsLockTableBenchmark</code> 
+ * and the test classpath, it prints the ns/op for 1k, 10k and 100k locks.<p>
+ *
+ * @since 8.5.2
+ */
+public final class CmsLockTableBenchmark {
+
+    /** Number of lookups per measurement. */
+    private static final int LOOKUPS = 2000;
+
+    /** Number of warm up rounds before the measurement. */
+    private static final int WARM_UP_ROUNDS = 3;
+
+    /**
+     * Hides the public constructor.<p>
+     */
+    private CmsLockTableBenchmark() {
+
+        // empty
+    }
+
+    /**
+     * Runs the benchmark.<p>
+     * 
+     * @param args not used
+     */
+    public static void main(String[] args) {
+
+        CmsUUID user = new CmsUUID();
+        CmsProject project = new CmsProject(
+            new CmsUUID(),
+            "benchmark",
+            "benchmark",
+            new CmsUUID(),
+            new CmsUUID(),
+            new CmsUUID(),
+            0,
+            0,
+            CmsProject.PROJECT_TYPE_NORMAL);
+        int[] sizes = new int[] {1000, 10000, 100000};
+        for (int s = 0; s < sizes.length; s++) {
+            int size = sizes[s];
+            CmsLockTable table = new CmsLockTable();
+            for (int i = 0; i < size; i++) {
+                table.put(new CmsLock("/sites/default/folder" + (i % 100) + "/sub/res" + i + ".html", user, project, (i
+                    % 10) == 0 ? CmsLockType.EXCLUSIVE : CmsLockType.TEMPORARY));
+            }
+            table.put(new CmsLock("/sites/default/folder7/", user, project, CmsLockType.EXCLUSIVE));
+            List<CmsLock> locks = table.getAll();
+
+            String[] paths = new String[LOOKUPS];
+            for (int i = 0; i < LOOKUPS; i++) {
+                paths[i] = "/sites/default/folder" + (i % 100) + "/sub/other" + i + ".html";
+            }
+            // the scan is too slow to be repeated often for large tables
+            int scanLookups = Math.max(10, LOOKUPS / (size / 1000));
+
+            long scanTime = 0;
+            long tableTime = 0;
+            for (int round = 0; round <= WARM_UP_ROUNDS; round++) {
+                long start = System.nanoTime();
+                int scanFound = 0;
+                for (int i = 0; i < scanLookups; i++) {
+                    if (scanParentFolderLock(locks, paths[i]) != null) {
+                        scanFound++;
+                    }
+                }
+                scanTime = (System.nanoTime() - start) / scanLookups;
+
+                start = System.nanoTime();
+                int tableFound = 0;
+                for (int i = 0; i < LOOKUPS; i++) {
+                    if ((table.getParentFolderLock(paths[i]) != null) && (i < scanLookups)) {
+                        tableFound++;
+                    }
+                }
+                tableTime = (System.nanoTime() - start) / LOOKUPS;
+                if (scanFound != tableFound) {
+                    throw new IllegalStateException("Scan found " + scanFound + " locks, lock table " + tableFound);
+                }
+            }
+            System.out.println("Parent folder lock lookup with "
+                + size
+                + " locks: scan "
+                + scanTime
+                + " ns/op, lock table "
+                + tableTime
+                + " ns/op");
+        }
+    }
+
+    /**
+     * Looks up the parent folder lock by scanning all locks, 
+     * like the lock manager did before the lock table was introduced.<p>
+     *
+     * @param locks all locks
+     * @param resourceName the resource name
+     *
+     * @return the parent folder lock or <code>null</code>
+     */
+    private static CmsLock scanParentFolderLock(List<CmsLock> locks, String resourceName) {
+
+        Iterator<CmsLock> itLocks = new ArrayList<CmsLock>(locks).iterator();
+        while (itLocks.hasNext()) {
+            CmsLock lock = itLocks.next();
+            if (lock.getResourceName().endsWith("/")
+                && resourceName.startsWith(lock.getResourceName())
+                && !resourceName.equals(lock.getResourceName())) {
+                lock = lock.getEditionLock();
+                if (!lock.isUnlocked()) {
+                    return lock;
+                }
+            }
+        }
+        return null;
+    }
+}
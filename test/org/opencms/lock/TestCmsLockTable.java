@@ -0,0 +1,163 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.lock;
+
+import org.opencms.file.CmsProject;
+import org.opencms.util.CmsUUID;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the lock table used by the lock manager.<p>
+ *
+ * @since 8.5.2
+ */
+public class TestCmsLockTable extends TestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsLockTable(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Creates a test project.<p>
+     *
+     * @param name the project name
+     *
+     * @return the project
+     */
+    private static CmsProject createProject(String name) {
+
+        return new CmsProject(
+            new CmsUUID(),
+            name,
+            name,
+            new CmsUUID(),
+            new CmsUUID(),
+            new CmsUUID(),
+            0,
+            0,
+            CmsProject.PROJECT_TYPE_NORMAL);
+    }
+
+    /**
+     * Tests the prefix based lookup of the locks below a folder.<p>
+     */
+    public void testLocksBelow() {
+
+        CmsLockTable table = new CmsLockTable();
+        CmsUUID user = new CmsUUID();
+        CmsProject project = createProject("test");
+        table.put(new CmsLock("/sites/default/folder/", user, project, CmsLockType.EXCLUSIVE));
+        table.put(new CmsLock("/sites/default/folder/a.html", user, project, CmsLockType.EXCLUSIVE));
+        table.put(new CmsLock("/sites/default/folder/sub/b.html", user, project, CmsLockType.EXCLUSIVE));
+        table.put(new CmsLock("/sites/default/folder2/c.html", user, project, CmsLockType.EXCLUSIVE));
+        table.put(new CmsLock("/sites/default/index.html", user, project, CmsLockType.EXCLUSIVE));
+
+        List<CmsLock> below = table.getAllBelow("/sites/default/folder/");
+        assertEquals(3, below.size());
+        assertEquals("/sites/default/folder/", below.get(0).getResourceName());
+        assertEquals("/sites/default/folder/a.html", below.get(1).getResourceName());
+        assertEquals("/sites/default/folder/sub/b.html", below.get(2).getResourceName());
+        assertEquals(5, table.getAllBelow("/").size());
+        assertEquals(0, table.getAllBelow("/system/").size());
+    }
+
+    /**
+     * Tests the lookup of parent folder locks.<p>
+     */
+    public void testParentFolderLock() {
+
+        CmsLockTable table = new CmsLockTable();
+        CmsUUID user = new CmsUUID();
+        CmsProject project = createProject("test");
+        assertNull(table.getParentFolderLock("/sites/default/folder/a.html"));
+
+        table.put(new CmsLock("/sites/default/folder/", user, project, CmsLockType.EXCLUSIVE));
+        CmsLock lock = table.getParentFolderLock("/sites/default/folder/sub/a.html");
+        assertNotNull(lock);
+        assertEquals("/sites/default/folder/", lock.getResourceName());
+        // the folder itself is not its own parent
+        assertNull(table.getParentFolderLock("/sites/default/folder/"));
+        // a file with the same prefix is not below the folder
+        assertNull(table.getParentFolderLock("/sites/default/folder2/a.html"));
+
+        // system locks are not inherited
+        table.put(new CmsLock("/sites/other/", user, project, CmsLockType.PUBLISH));
+        assertNull(table.getParentFolderLock("/sites/other/a.html"));
+    }
+
+    /**
+     * Tests the lookups by project and by user.<p>
+     */
+    public void testProjectAndUserIndex() {
+
+        CmsLockTable table = new CmsLockTable();
+        CmsUUID user1 = new CmsUUID();
+        CmsUUID user2 = new CmsUUID();
+        CmsProject project1 = createProject("p1");
+        CmsProject project2 = createProject("p2");
+        table.put(new CmsLock("/a.html", user1, project1, CmsLockType.EXCLUSIVE));
+        table.put(new CmsLock("/b.html", user1, project2, CmsLockType.EXCLUSIVE));
+        table.put(new CmsLock("/c.html", user2, project2, CmsLockType.EXCLUSIVE));
+
+        assertEquals(2, table.getAllOfUser(user1).size());
+        assertEquals(1, table.getAllOfUser(user2).size());
+        assertEquals(1, table.getAllInProject(project1.getUuid()).size());
+        assertEquals(2, table.getAllInProject(project2.getUuid()).size());
+
+        // replacing a lock updates the indexes
+        table.put(new CmsLock("/a.html", user2, project2, CmsLockType.EXCLUSIVE));
+        assertEquals(1, table.getAllOfUser(user1).size());
+        assertEquals(2, table.getAllOfUser(user2).size());
+        assertEquals(0, table.getAllInProject(project1.getUuid()).size());
+
+        // a system lock with a related edition lock of another user is found for both users
+        CmsLock sysLock = new CmsLock("/b.html", user2, project2, CmsLockType.PUBLISH);
+        sysLock.setRelatedLock(table.get("/b.html"));
+        table.put(sysLock);
+        assertEquals(1, table.getAllOfUser(user1).size());
+        assertEquals(3, table.getAllOfUser(user2).size());
+
+        table.remove("/b.html");
+        assertEquals(0, table.getAllOfUser(user1).size());
+        assertEquals(2, table.getAllOfUser(user2).size());
+        assertEquals(2, table.size());
+
+        table.clear();
+        assertEquals(0, table.getAllOfUser(user2).size());
+        assertEquals(0, table.size());
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.main;
+
+import org.opencms.configuration.CmsConfigurationException;
+import org.opencms.report.CmsLogReport;
+import org.opencms.util.CmsFileUtil;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the asynchronous event delivery and the cluster event channel.<p>
+ * 
+ * @since 8.5.2
+ */
+public class TestCmsEventChannel extends TestCase {
+
+    /** The event directory used by the tests. */
+    private File m_directory;
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsEventChannel(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests that asynchronous event listeners do not block the thread firing the event.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testAsyncListener() throws Exception {
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        final Thread[] listenerThread = new Thread[1];
+        CmsEventManager manager = new CmsEventManager();
+        manager.addCmsEventListener(new I_CmsAsyncEventListener() {
+
+            public void cmsEvent(CmsEvent event) {
+
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    // ignore
+                }
+                listenerThread[0] = Thread.currentThread();
+                done.countDown();
+            }
+        }, new int[] {I_CmsEventListener.EVENT_CLEAR_CACHES});
+        CmsTestEventListener syncListener = new CmsTestEventListener();
+        manager.addCmsEventListener(syncListener, new int[] {I_CmsEventListener.EVENT_CLEAR_CACHES});
+
+        // the slow asynchronous listener must not block firing the event
+        manager.fireEvent(I_CmsEventListener.EVENT_CLEAR_CACHES);
+        assertEquals(1, syncListener.getEvents().size());
+        assertEquals(1, done.getCount());
+
+        release.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertNotSame(Thread.currentThread(), listenerThread[0]);
+        manager.shutDown();
+    }
+
+    /**
+     * Tests sending events between two cluster nodes using a file event channel.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testFileEventChannel() throws Exception {
+
+        CmsEventManager node1 = new CmsEventManager();
+        CmsEventManager node2 = new CmsEventManager();
+        node1.setEventChannel(createChannel());
+        node2.setEventChannel(createChannel());
+        assertFalse(node1.getNodeId().equals(node2.getNodeId()));
+
+        CmsTestEventListener listener1 = new CmsTestEventListener();
+        CmsTestEventListener listener2 = new CmsTestEventListener();
+        node1.addCmsEventListener(listener1);
+        node2.addCmsEventListener(listener2);
+
+        Map<String, Object> data = new HashMap<String, Object>();
+        data.put(I_CmsEventListener.KEY_PUBLISHID, "12345");
+        data.put(I_CmsEventListener.KEY_REPORT, new CmsLogReport(Locale.ENGLISH, getClass()));
+        node1.fireEvent(I_CmsEventListener.EVENT_PUBLISH_PROJECT, data);
+        // this event type is not sent to the other nodes
+        node1.fireEvent(I_CmsEventListener.EVENT_LOGIN_USER);
+        assertEquals(2, listener1.getEvents().size());
+
+        node2.receiveEvents();
+        assertEquals(1, listener2.getEvents().size());
+        CmsEvent received = (CmsEvent)listener2.getEvents().get(0);
+        assertEquals(I_CmsEventListener.EVENT_PUBLISH_PROJECT, received.getType());
+        assertEquals("12345", received.getData().get(I_CmsEventListener.KEY_PUBLISHID));
+        assertEquals(node1.getNodeId(), received.getData().get(I_CmsEventListener.KEY_REMOTE_NODE));
+        // the report is only valid on the sending node
+        assertFalse(received.getData().containsKey(I_CmsEventListener.KEY_REPORT));
+
+        // events are received only once, and received events are not sent back
+        node2.receiveEvents();
+        node1.receiveEvents();
+        assertEquals(1, listener2.getEvents().size());
+        assertEquals(2, listener1.getEvents().size());
+
+        node2.fireEvent(I_CmsEventListener.EVENT_CLEAR_CACHES);
+        node1.receiveEvents();
+        assertEquals(3, listener1.getEvents().size());
+        assertTrue(listener1.hasRecievedEvent(I_CmsEventListener.EVENT_CLEAR_CACHES));
+
+        node1.shutDown();
+        node2.shutDown();
+    }
+
+    /**
+     * Tests that outdated event files are removed by every node and that events sent before the start are ignored.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testFileEventChannelCleanup() throws Exception {
+
+        assertTrue(m_directory.mkdirs());
+        // files of a node that no longer exists
+        File outdated = new File(m_directory, "1000_removednode_1" + CmsFileEventChannel.EVENT_FILE_SUFFIX);
+        assertTrue(outdated.createNewFile());
+        File temp = new File(m_directory, "1000_removednode_2" + CmsFileEventChannel.EVENT_FILE_SUFFIX + ".tmp");
+        assertTrue(temp.createNewFile());
+        assertTrue(temp.setLastModified(1000));
+        // event sent before the node has been started
+        File previous = new File(m_directory, System.currentTimeMillis()
+            + "_othernode_1"
+            + CmsFileEventChannel.EVENT_FILE_SUFFIX);
+        assertTrue(previous.createNewFile());
+
+        CmsEventManager node = new CmsEventManager();
+        node.setEventChannel(createChannel());
+        CmsTestEventListener listener = new CmsTestEventListener();
+        node.addCmsEventListener(listener);
+        node.receiveEvents();
+
+        assertFalse(outdated.exists());
+        assertFalse(temp.exists());
+        assertTrue(previous.exists());
+        assertEquals(0, listener.getEvents().size());
+
+        // events sent after the start are still received
+        CmsEventManager other = new CmsEventManager();
+        other.setEventChannel(createChannel());
+        other.fireEvent(I_CmsEventListener.EVENT_CLEAR_CACHES);
+        node.receiveEvents();
+        assertEquals(1, listener.getEvents().size());
+
+        node.shutDown();
+        other.shutDown();
+    }
+
+    /**
+     * Tests that invalid event types in the configuration are reported.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testInvalidEventType() throws Exception {
+
+        CmsFileEventChannel channel = new CmsFileEventChannel();
+        channel.addConfigurationParameter(CmsFileEventChannel.PARAM_EVENT_TYPES, "2, publish");
+        try {
+            channel.initConfiguration();
+            fail("Invalid event type not detected");
+        } catch (CmsConfigurationException e) {
+            assertTrue(e.getMessage().indexOf("publish") > -1);
+        }
+    }
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp() throws Exception {
+
+        m_directory = new File(System.getProperty("java.io.tmpdir"), "opencms-events-" + System.nanoTime());
+    }
+
+    /**
+     * @see junit.framework.TestCase#tearDown()
+     */
+    @Override
+    protected void tearDown() throws Exception {
+
+        CmsFileUtil.purgeDirectory(m_directory);
+    }
+
+    /**
+     * Creates a file event channel for the test directory.<p>
+     * 
+     * @return the event channel
+     * 
+     * @throws Exception if something goes wrong
+     */
+    private I_CmsEventChannel createChannel() throws Exception {
+
+        CmsFileEventChannel channel = new CmsFileEventChannel();
+        channel.addConfigurationParameter(CmsFileEventChannel.PARAM_DIRECTORY, m_directory.getAbsolutePath());
+        // the tests check for events manually
+        channel.addConfigurationParameter(CmsFileEventChannel.PARAM_POLL_INTERVAL, "3600000");
+        channel.initConfiguration();
+        return channel;
+    }
+}
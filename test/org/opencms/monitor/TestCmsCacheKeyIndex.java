@@ -0,0 +1,134 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the path index of the cache keys of the memory monitor.<p>
+ * 
+ * @since 8.5.2
+ */
+public class TestCmsCacheKeyIndex extends TestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsCacheKeyIndex(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests that evicted keys are counted and removed from the index.<p>
+     */
+    public void testEviction() {
+
+        CmsCacheStatistics statistics = new CmsCacheStatistics();
+        CmsCacheKeyIndex index = new CmsCacheKeyIndex();
+        CmsMonitoredLruMap map = new CmsMonitoredLruMap(2, statistics, index);
+        for (int i = 0; i < 3; i++) {
+            String key = "key" + i;
+            map.put(key, "value" + i);
+            index.add(CmsCacheKeyIndex.getIndexPath(true, "/sites/default/" + i + ".html"), key);
+        }
+        assertEquals(2, map.size());
+        assertEquals(1, statistics.getEvictions());
+        assertFalse(map.containsKey("key0"));
+        assertEquals(2, index.size());
+        assertTrue(index.removePath(CmsCacheKeyIndex.getIndexPath(true, "/sites/default/0.html")).isEmpty());
+    }
+
+    /**
+     * Tests that the online and offline keys are kept apart.<p>
+     */
+    public void testOnlineOffline() {
+
+        CmsCacheKeyIndex index = new CmsCacheKeyIndex();
+        index.add(CmsCacheKeyIndex.getIndexPath(true, "/sites/default/a.html"), "online");
+        index.add(CmsCacheKeyIndex.getIndexPath(false, "/sites/default/a.html"), "offline");
+
+        Set<String> removed = index.removePathsBelow(CmsCacheKeyIndex.getIndexPath(false, "/sites/default/"));
+        assertEquals(1, removed.size());
+        assertTrue(removed.contains("offline"));
+        assertEquals(1, index.size());
+    }
+
+    /**
+     * Tests the removal of the keys for a path and for all paths below a folder.<p>
+     */
+    public void testRemovePath() {
+
+        CmsCacheKeyIndex index = new CmsCacheKeyIndex();
+        index.add("-/sites/default/folder/", "k1");
+        index.add("-/sites/default/folder/a.html", "k2");
+        index.add("-/sites/default/folder/a.html", "k3");
+        index.add("-/sites/default/folder/sub/b.html", "k4");
+        index.add("-/sites/default/folder2/c.html", "k5");
+        assertEquals(5, index.size());
+
+        Set<String> removed = index.removePath("-/sites/default/folder/a.html");
+        assertEquals(2, removed.size());
+        assertTrue(removed.contains("k2"));
+        assertTrue(removed.contains("k3"));
+        assertEquals(3, index.size());
+
+        removed = index.removePathsBelow("-/sites/default/folder/");
+        assertEquals(2, removed.size());
+        assertTrue(removed.contains("k1"));
+        assertTrue(removed.contains("k4"));
+        // a folder with the same prefix is not below the folder
+        assertEquals(1, index.size());
+        assertTrue(index.removePathsBelow("-/sites/default/folder/").isEmpty());
+    }
+
+    /**
+     * Tests that re-adding a key moves it to the new path and that the unindexed flag is reset by clearing.<p>
+     */
+    public void testReindexAndClear() {
+
+        CmsCacheKeyIndex index = new CmsCacheKeyIndex();
+        index.add("+/a.html", "key");
+        index.add("+/b.html", "key");
+        assertEquals(1, index.size());
+        assertTrue(index.removePath("+/a.html").isEmpty());
+
+        index.remove("key");
+        assertEquals(0, index.size());
+        assertTrue(index.removePath("+/b.html").isEmpty());
+
+        index.setUnindexedKeys();
+        assertTrue(index.hasUnindexedKeys());
+        index.clear();
+        assertFalse(index.hasUnindexedKeys());
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the concurrent cache map.<p>
+ * 
+ * @since 8.5.2
+ */
+public class TestCmsConcurrentCacheMap extends TestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsConcurrentCacheMap(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests that the map is bounded by the number of entries if it is not weighted.<p>
+     */
+    public void testEntryBound() {
+
+        CmsCacheStatistics statistics = new CmsCacheStatistics();
+        CmsCacheKeyIndex index = new CmsCacheKeyIndex();
+        CmsConcurrentCacheMap<String, String> map = new CmsConcurrentCacheMap<String, String>(
+            100,
+            false,
+            8,
+            4,
+            statistics,
+            index);
+        for (int i = 0; i < 1000; i++) {
+            String key = "key" + i;
+            map.put(key, "value" + i);
+            index.add("+/" + i, key);
+        }
+        assertEquals(100, map.size());
+        assertEquals(100, map.getWeight());
+        assertEquals(900, statistics.getEvictions());
+        assertEquals(100, index.size());
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertEquals(0, map.getWeight());
+    }
+
+    /**
+     * Tests that recently read entries are preferred over entries that were not read.<p>
+     */
+    public void testRecentlyUsedEntriesSurvive() {
+
+        CmsConcurrentCacheMap<String, String> map = new CmsConcurrentCacheMap<String, String>(
+            100,
+            false,
+            16,
+            4,
+            new CmsCacheStatistics(),
+            null);
+        for (int i = 0; i < 100; i++) {
+            map.put("key" + i, "value" + i);
+        }
+        for (int n = 0; n < 50; n++) {
+            // keep reading the first 10 entries while new entries are added
+            for (int i = 0; i < 10; i++) {
+                assertNotNull(map.get("key" + i));
+            }
+            map.put("new" + n, "value");
+        }
+        int survived = 0;
+        for (int i = 0; i < 10; i++) {
+            if (map.containsKey("key" + i)) {
+                survived++;
+            }
+        }
+        assertEquals(10, survived);
+    }
+
+    /**
+     * Tests that the map is bounded by the memory size of the entries.<p>
+     */
+    public void testWeightBound() {
+
+        CmsCacheStatistics statistics = new CmsCacheStatistics();
+        CmsConcurrentCacheMap<String, byte[]> map = new CmsConcurrentCacheMap<String, byte[]>(
+            100000,
+            true,
+            8,
+            4,
+            statistics,
+            null);
+        List<String> keys = new ArrayList<String>();
+        for (int i = 0; i < 100; i++) {
+            String key = "key" + i;
+            keys.add(key);
+            map.put(key, new byte[10000]);
+        }
+        assertTrue(map.getWeight() <= map.getMaxWeight());
+        assertTrue(map.size() < 10);
+        assertTrue(statistics.getEvictions() > 90);
+
+        // an entry heavier than the complete map is not cached
+        map.put("huge", new byte[200000]);
+        assertFalse(map.containsKey("huge"));
+
+        // replacing and removing entries updates the weight
+        map.clear();
+        map.put("a", new byte[100]);
+        long weight = map.getWeight();
+        map.put("a", new byte[1000]);
+        assertTrue(map.getWeight() > weight);
+        map.remove("a");
+        assertEquals(0, map.getWeight());
+        assertNull(map.putIfAbsent("b", new byte[10]));
+        assertNotNull(map.putIfAbsent("b", new byte[10]));
+        assertEquals(1, map.size());
+    }
+}
@@ -58,6 +58,8 @@ public final class AllTests {
         OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
         //$JUnit-BEGIN$
         suite.addTest(TestPublishManager.suite());
+        suite.addTest(TestPublishBenchmark.suite());
+        suite.addTestSuite(TestPublishScheduling.class);
         //$JUnit-END$
         return suite;
     }
@@ -0,0 +1,215 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.publish;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.file.types.CmsResourceTypeFolder;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.main.OpenCms;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Measures the publish throughput for a single large publish job and for several 
+ * publish jobs with disjoint resources.<p>
+ * 
+ * The number of parallel publish jobs and publish threads are taken from the 
+ * publish manager configuration.<p>
+ * 
+ * @since 8.5.2
+ */
+public class TestPublishBenchmark extends OpenCmsTestCase {
+
+    /** The number of files published in each measurement. */
+    private static final int FILES = 200;
+
+    /** The number of publish jobs the files are split into for the parallel measurement. */
+    private static final int JOBS = 4;
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestPublishBenchmark(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     * 
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestPublishBenchmark.class.getName());
+
+        suite.addTest(new TestPublishBenchmark("testPublishSingleJob"));
+        suite.addTest(new TestPublishBenchmark("testPublishDisjointJobs"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Publishes several publish jobs with disjoint resources and reports the throughput.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testPublishDisjointJobs() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Benchmarking " + JOBS + " publish jobs with " + (FILES / JOBS) + " files each");
+
+        for (int j = 0; j < JOBS; j++) {
+            createFiles(cms, "/benchmark_disjoint" + j + "/", FILES / JOBS);
+        }
+        long start = System.currentTimeMillis();
+        for (int j = 0; j < JOBS; j++) {
+            OpenCms.getPublishManager().publishResource(cms, "/benchmark_disjoint" + j + "/");
+        }
+        OpenCms.getPublishManager().waitWhileRunning();
+        printThroughput("disjoint publish jobs", ((FILES / JOBS) + 1) * JOBS, start);
+
+        for (int j = 0; j < JOBS; j++) {
+            assertPublished(cms, "/benchmark_disjoint" + j + "/", FILES / JOBS);
+        }
+    }
+
+    /**
+     * Publishes a single publish job and reports the throughput.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testPublishSingleJob() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Benchmarking a publish job with " + FILES + " files");
+
+        createFiles(cms, "/benchmark_single/", FILES);
+        long start = System.currentTimeMillis();
+        OpenCms.getPublishManager().publishResource(cms, "/benchmark_single/");
+        OpenCms.getPublishManager().waitWhileRunning();
+        printThroughput("single publish job", FILES + 1, start);
+
+        assertPublished(cms, "/benchmark_single/", FILES);
+    }
+
+    /**
+     * Asserts that the given folder and its files are published.<p>
+     * 
+     * @param cms the cms context
+     * @param folder the folder
+     * @param count the number of files in the folder
+     * 
+     * @throws Exception if something goes wrong
+     */
+    private void assertPublished(CmsObject cms, String folder, int count) throws Exception {
+
+        CmsProject offlineProject = cms.getRequestContext().getCurrentProject();
+        cms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        try {
+            assertEquals(count, cms.getFilesInFolder(folder).size());
+        } finally {
+            cms.getRequestContext().setCurrentProject(offlineProject);
+        }
+        assertTrue(cms.readResource(folder).getState().isUnchanged());
+        for (int i = 0; i < count; i++) {
+            assertTrue(cms.readResource(folder + "file" + i + ".txt").getState().isUnchanged());
+        }
+    }
+
+    /**
+     * Creates a new folder with the given number of files.<p>
+     * 
+     * @param cms the cms context
+     * @param folder the folder to create
+     * @param count the number of files to create
+     * 
+     * @throws Exception if something goes wrong
+     */
+    private void createFiles(CmsObject cms, String folder, int count) throws Exception {
+
+        cms.createResource(folder, CmsResourceTypeFolder.getStaticTypeId());
+        for (int i = 0; i < count; i++) {
+            cms.createResource(
+                folder + "file" + i + ".txt",
+                CmsResourceTypePlain.getStaticTypeId(),
+                ("Benchmark content " + i).getBytes(),
+                null);
+        }
+    }
+
+    /**
+     * Prints the number of published resources per second.<p>
+     * 
+     * @param name the name of the measurement
+     * @param resources the number of published resources
+     * @param start the start time of the measurement
+     */
+    private void printThroughput(String name, int resources, long start) {
+
+        long time = Math.max(1, System.currentTimeMillis() - start);
+        echo("Publish benchmark, "
+            + name
+            + ": "
+            + resources
+            + " resources in "
+            + time
+            + " ms, "
+            + ((resources * 1000L) / time)
+            + " resources/s (parallel jobs: "
+            + OpenCms.getPublishManager().getParallelPublishJobs()
+            + ", publish threads: "
+            + OpenCms.getPublishManager().getPublishThreads()
+            + ")");
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.publish;
+
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the scheduling of the waiting publish jobs and the publish statistics.<p>
+ *
+ * @since 8.5.2
+ */
+public class TestPublishScheduling extends TestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestPublishScheduling(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Creates a test publish job.<p>
+     *
+     * @param userId the user id
+     * @param size the number of resources
+     * @param interactive if the publish job is interactive
+     * @param enqueueTime the enqueue time
+     * @param startTime the start time
+     * @param finishTime the finish time
+     *
+     * @return the publish job
+     */
+    private static CmsPublishJobInfoBean createJob(
+        CmsUUID userId,
+        int size,
+        boolean interactive,
+        long enqueueTime,
+        long startTime,
+        long finishTime) {
+
+        CmsPublishJobInfoBean publishJob = new CmsPublishJobInfoBean(
+            new CmsUUID(),
+            new CmsUUID(),
+            "test",
+            userId,
+            "en",
+            0,
+            size,
+            enqueueTime,
+            startTime,
+            finishTime);
+        publishJob.setInteractive(interactive);
+        return publishJob;
+    }
+
+    /**
+     * Tests that the publish jobs of different users are started in turns.<p>
+     */
+    public void testFairScheduling() {
+
+        CmsUUID user1 = new CmsUUID();
+        CmsUUID user2 = new CmsUUID();
+        CmsUUID user3 = new CmsUUID();
+        List<CmsPublishJobInfoBean> waiting = new ArrayList<CmsPublishJobInfoBean>();
+        CmsPublishJobInfoBean job1a = createJob(user1, 1000, false, 1, 0, 0);
+        CmsPublishJobInfoBean job1b = createJob(user1, 1000, false, 2, 0, 0);
+        CmsPublishJobInfoBean job1c = createJob(user1, 1000, false, 3, 0, 0);
+        CmsPublishJobInfoBean job2a = createJob(user2, 1000, false, 4, 0, 0);
+        CmsPublishJobInfoBean job3a = createJob(user3, 1000, false, 5, 0, 0);
+        CmsPublishJobInfoBean job2b = createJob(user2, 1000, false, 6, 0, 0);
+        waiting.add(job1a);
+        waiting.add(job1b);
+        waiting.add(job1c);
+        waiting.add(job2a);
+        waiting.add(job3a);
+        waiting.add(job2b);
+
+        CmsPublishQueue queue = new CmsPublishQueue(null);
+        List<CmsPublishJobInfoBean> result = queue.schedule(
+            waiting,
+            Collections.<CmsPublishJobInfoBean> emptyList());
+        assertEquals(6, result.size());
+        assertSame(job1a, result.get(0));
+        assertSame(job2a, result.get(1));
+        assertSame(job3a, result.get(2));
+        assertSame(job1b, result.get(3));
+        assertSame(job2b, result.get(4));
+        assertSame(job1c, result.get(5));
+
+        // a running job of user 1 moves the waiting jobs of user 1 back
+        List<CmsPublishJobInfoBean> running = new ArrayList<CmsPublishJobInfoBean>();
+        running.add(createJob(user1, 1000, false, 0, 1, 0));
+        result = queue.schedule(waiting, running);
+        assertSame(job2a, result.get(0));
+        assertSame(job3a, result.get(1));
+        assertSame(job1a, result.get(2));
+        assertSame(job2b, result.get(3));
+        assertSame(job1b, result.get(4));
+        assertSame(job1c, result.get(5));
+    }
+
+    /**
+     * Tests that interactive publish jobs are started before bulk publish jobs.<p>
+     */
+    public void testPriorityScheduling() {
+
+        CmsUUID user1 = new CmsUUID();
+        CmsUUID user2 = new CmsUUID();
+        List<CmsPublishJobInfoBean> waiting = new ArrayList<CmsPublishJobInfoBean>();
+        CmsPublishJobInfoBean bulk1 = createJob(user1, 5000, false, 1, 0, 0);
+        CmsPublishJobInfoBean bulk2 = createJob(user2, 5000, false, 2, 0, 0);
+        CmsPublishJobInfoBean small1 = createJob(user1, 1, true, 3, 0, 0);
+        CmsPublishJobInfoBean small2 = createJob(user2, 2, true, 4, 0, 0);
+        CmsPublishJobInfoBean small3 = createJob(user2, 3, true, 5, 0, 0);
+        waiting.add(bulk1);
+        waiting.add(bulk2);
+        waiting.add(small1);
+        waiting.add(small2);
+        waiting.add(small3);
+
+        List<CmsPublishJobInfoBean> result = new CmsPublishQueue(null).schedule(
+            waiting,
+            Collections.<CmsPublishJobInfoBean> emptyList());
+        assertSame(small1, result.get(0));
+        assertSame(small2, result.get(1));
+        assertSame(small3, result.get(2));
+        assertSame(bulk1, result.get(3));
+        assertSame(bulk2, result.get(4));
+    }
+
+    /**
+     * Tests the queue wait and execution time statistics.<p>
+     */
+    public void testPublishStatistics() {
+
+        CmsUUID user = new CmsUUID();
+        CmsPublishStatistics statistics = new CmsPublishStatistics();
+        assertEquals(0, statistics.getJobCount());
+        assertEquals(0, statistics.getAverageWaitTime());
+
+        statistics.add(createJob(user, 10, true, 1000, 1100, 1600));
+        statistics.add(createJob(user, 30, true, 2000, 2300, 2400));
+        // aborted while waiting, not counted
+        statistics.add(createJob(user, 10, true, 3000, 0, 3500));
+
+        assertEquals(2, statistics.getJobCount());
+        assertEquals(40, statistics.getResourceCount());
+        assertEquals(400, statistics.getTotalWaitTime());
+        assertEquals(200, statistics.getAverageWaitTime());
+        assertEquals(300, statistics.getMaxWaitTime());
+        assertEquals(600, statistics.getTotalExecutionTime());
+        assertEquals(300, statistics.getAverageExecutionTime());
+        assertEquals(500, statistics.getMaxExecutionTime());
+
+        CmsPublishJobFinished finished = new CmsPublishJobFinished(createJob(user, 10, true, 1000, 1100, 1600));
+        assertEquals(100, finished.getQueueWaitTime());
+        assertEquals(500, finished.getExecutionTime());
+        finished = new CmsPublishJobFinished(createJob(user, 10, true, 3000, 0, 3500));
+        assertEquals(500, finished.getQueueWaitTime());
+        assertEquals(0, finished.getExecutionTime());
+    }
+}
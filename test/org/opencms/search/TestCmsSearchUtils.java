@@ -27,8 +27,15 @@
 
 package org.opencms.search;
 
+import org.opencms.file.CmsResource;
+import org.opencms.search.fields.CmsSearchField;
 import org.opencms.search.fields.CmsSearchFieldConfiguration;
+import org.opencms.security.CmsAccessControlEntry;
+import org.opencms.security.CmsAccessControlList;
+import org.opencms.security.CmsPermissionSet;
+import org.opencms.util.CmsUUID;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
@@ -133,4 +140,86 @@ public class TestCmsSearchUtils extends TestCase {
             CmsSearchFieldConfiguration.getParentFolderTokens("/sites/default/"));
         assertEquals("/ /sites/", CmsSearchFieldConfiguration.getParentFolderTokens("/sites/default"));
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests the calculation of the indexed read principals from an access control list.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testReadPrincipals() throws Exception {
+
+        CmsUUID users = CmsUUID.getConstantUUID("users");
+        CmsUUID editors = CmsUUID.getConstantUUID("editors");
+        CmsUUID guest = CmsUUID.getConstantUUID("guest");
+        int readView = CmsPermissionSet.PERMISSION_READ | CmsPermissionSet.PERMISSION_VIEW;
+        CmsResource resource = createResource(CmsResource.DATE_RELEASED_DEFAULT);
+
+        // principals granting read and view permission are indexed
+        CmsAccessControlList acl = new CmsAccessControlList();
+        acl.add(new CmsAccessControlEntry(null, users, readView, 0, 0));
+        acl.add(new CmsAccessControlEntry(null, editors, readView | CmsPermissionSet.PERMISSION_WRITE, 0, 0));
+        acl.add(new CmsAccessControlEntry(null, guest, CmsPermissionSet.PERMISSION_WRITE, 0, 0));
+        List<String> principals = CmsSearchFieldConfiguration.getReadPrincipals(resource, acl);
+        assertEquals(2, principals.size());
+        assertTrue(principals.containsAll(Arrays.asList(users.toString(), editors.toString())));
+
+        // a denied permission requires a check in the VFS
+        acl.add(new CmsAccessControlEntry(null, guest, 0, CmsPermissionSet.PERMISSION_READ, 0));
+        principals = CmsSearchFieldConfiguration.getReadPrincipals(resource, acl);
+        assertTrue(principals.contains(CmsSearchField.READ_PRINCIPALS_VFS_CHECK));
+
+        // read permission without view permission requires a check in the VFS
+        acl = new CmsAccessControlList();
+        acl.add(new CmsAccessControlEntry(null, users, CmsPermissionSet.PERMISSION_READ, 0, 0));
+        principals = CmsSearchFieldConfiguration.getReadPrincipals(resource, acl);
+        assertEquals(Arrays.asList(CmsSearchField.READ_PRINCIPALS_VFS_CHECK), principals);
+
+        // the "all others" entry alone is sufficient
+        acl = new CmsAccessControlList();
+        acl.add(new CmsAccessControlEntry(null, CmsAccessControlEntry.PRINCIPAL_ALL_OTHERS_ID, readView, 0, 0));
+        principals = CmsSearchFieldConfiguration.getReadPrincipals(resource, acl);
+        assertEquals(Arrays.asList(CmsAccessControlEntry.PRINCIPAL_ALL_OTHERS_ID.toString()), principals);
+
+        // but not if there are other entries that may overrule it
+        acl.add(new CmsAccessControlEntry(null, users, readView, 0, 0));
+        principals = CmsSearchFieldConfiguration.getReadPrincipals(resource, acl);
+        assertTrue(principals.contains(CmsSearchField.READ_PRINCIPALS_VFS_CHECK));
+
+        // resources with a release date are always checked in the VFS
+        acl = new CmsAccessControlList();
+        acl.add(new CmsAccessControlEntry(null, users, readView, 0, 0));
+        principals = CmsSearchFieldConfiguration.getReadPrincipals(createResource(System.currentTimeMillis()), acl);
+        assertTrue(principals.contains(users.toString()));
+        assertTrue(principals.contains(CmsSearchField.READ_PRINCIPALS_VFS_CHECK));
+    }
+
+    /**
+     * Creates a resource for testing.<p>
+     * 
+     * @param dateReleased the release date of the resource
+     * 
+     * @return the resource
+     */
+    private CmsResource createResource(long dateReleased) {
+
+        return new CmsResource(
+            CmsUUID.getConstantUUID("structure"),
+            CmsUUID.getConstantUUID("resource"),
+            "/sites/default/index.html",
+            1,
+            false,
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.STATE_UNCHANGED,
+            0,
+            CmsUUID.getNullUUID(),
+            0,
+            CmsUUID.getNullUUID(),
+            dateReleased,
+            CmsResource.DATE_EXPIRED_DEFAULT,
+            1,
+            0,
+            0,
+            0);
+    }
+}
@@ -46,6 +46,7 @@ import org.opencms.util.CmsRequestUtil;
 import org.opencms.xml.content.CmsXmlContent;
 import org.opencms.xml.content.CmsXmlContentFactory;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.Iterator;
@@ -91,6 +92,7 @@ public class TestSolrSearch extends OpenCmsTestCase {
         TestSuite suite = new TestSuite();
         suite.setName(TestSolrSearch.class.getName());
 
+        suite.addTest(new TestSolrSearch("testCursorPaging"));
         suite.addTest(new TestSolrSearch("testDocumentTypes"));
         suite.addTest(new TestSolrSearch("testFolderName"));
         suite.addTest(new TestSolrSearch("testIndexer"));
@@ -256,6 +258,48 @@ public class TestSolrSearch extends OpenCmsTestCase {
         // TODO: implement
     }
 
+    /**
+     * Tests paging through a search result with a cursor.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testCursorPaging() throws Exception {
+
+        echo("Testing paging through a search result with a cursor");
+        CmsSolrIndex index = OpenCms.getSearchManager().getIndexSolr(AllTests.SOLR_ONLINE);
+
+        String query = "q=*:*&fq=parent-folders:/sites/default/&sort=path asc&rows=200";
+        CmsSolrResultList results = index.search(
+            getCmsObject(),
+            new CmsSolrQuery(null, CmsRequestUtil.createParameterMap(query)),
+            true);
+        List<String> expected = getRootPaths(results);
+        assertTrue(expected.size() > 7);
+
+        // iterate with a page size that does not divide the result size
+        CmsSolrQuery cursorQuery = new CmsSolrQuery(null, CmsRequestUtil.createParameterMap(query));
+        cursorQuery.setRows(new Integer(7));
+        List<String> paths = new ArrayList<String>();
+        Iterator<CmsSolrResultList> pages = index.iterate(getCmsObject(), cursorQuery);
+        while (pages.hasNext()) {
+            CmsSolrResultList page = pages.next();
+            assertTrue(page.size() <= 7);
+            assertNotNull(page.getNextCursorMark());
+            paths.addAll(getRootPaths(page));
+        }
+        assertEquals(expected, paths);
+
+        // request a single page behind a cursor mark
+        cursorQuery = new CmsSolrQuery(null, CmsRequestUtil.createParameterMap(query));
+        cursorQuery.setRows(new Integer(3));
+        cursorQuery.setCursorMark(CmsSolrQuery.CURSOR_MARK_START);
+        CmsSolrResultList page = index.search(getCmsObject(), cursorQuery);
+        assertEquals(expected.subList(0, 3), getRootPaths(page));
+        cursorQuery.setCursorMark(page.getNextCursorMark());
+        page = index.search(getCmsObject(), cursorQuery);
+        assertEquals(expected.subList(3, 6), getRootPaths(page));
+    }
+
     /**
      * Tests searching in various document types.<p>
      * 
@@ -864,6 +908,22 @@ public class TestSolrSearch extends OpenCmsTestCase {
         // assertEquals("/sites/default/xmlcontent/article_0004.html", ((CmsSearchResult)results.get(1)).getPath());
     }
 
+    /**
+     * Returns the root paths of the resources in the given result.<p>
+     * 
+     * @param results the search result
+     * 
+     * @return the root paths
+     */
+    private List<String> getRootPaths(CmsSolrResultList results) {
+
+        List<String> paths = new ArrayList<String>();
+        for (CmsSearchResource res : results) {
+            paths.add(res.getRootPath());
+        }
+        return paths;
+    }
+
     /**
      * Internal helper for test with same name.<p>
      * 
@@ -0,0 +1,145 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.security;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Measures permission checks of the {@link CmsDefaultPermissionHandler} that are answered from the permission cache.<p>
+ * 
+ * This is a standalone harness and not part of the unit tests, since timings are not reliable 
+ * enough to be asserted. Run it with <code>java org.opencms.security.CmsPermissionCheckBenchmark</code> 
+ * and the test classpath and test properties, it prints the ns/op of a cached permission check.<p>
+ * 
+ * @since 8.5.2
+ */
+public class CmsPermissionCheckBenchmark extends OpenCmsTestCase {
+
+    /** Number of permission checks per measurement. */
+    private static final int CHECKS = 1000000;
+
+    /** Number of warm up rounds before the measurement. */
+    private static final int WARM_UP_ROUNDS = 3;
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public CmsPermissionCheckBenchmark(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Runs the benchmark.<p>
+     * 
+     * @param args not used
+     */
+    public static void main(String[] args) {
+
+        junit.textui.TestRunner.run(suite());
+    }
+
+    /**
+     * Returns the suite of the benchmark.<p>
+     * 
+     * @return the suite of the benchmark
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(CmsPermissionCheckBenchmark.class.getName());
+
+        suite.addTest(new CmsPermissionCheckBenchmark("testCachedPermissionChecks"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Measures the permission checks answered from the permission cache in the offline and the online project.<p>
+     * 
+     * @throws Exception if the benchmark fails
+     */
+    public void testCachedPermissionChecks() throws Exception {
+
+        CmsObject offline = getCmsObject();
+        CmsObject online = getCmsObject();
+        online.getRequestContext().setCurrentProject(online.readProject("Online"));
+        measure("offline", offline, offline.readResource("/index.html"));
+        measure("online", online, online.readResource("/index.html"));
+    }
+
+    /**
+     * Measures the cached permission checks for the given resource and prints the result.<p>
+     * 
+     * @param name the name of the measurement
+     * @param cms the OpenCms context
+     * @param resource the resource
+     * 
+     * @throws Exception if the permissions can not be checked
+     */
+    private void measure(String name, CmsObject cms, CmsResource resource) throws Exception {
+
+        // the first check fills the permission cache
+        assertTrue(cms.hasPermissions(resource, CmsPermissionSet.ACCESS_READ));
+        long time = 0;
+        for (int round = 0; round <= WARM_UP_ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < CHECKS; i++) {
+                cms.hasPermissions(resource, CmsPermissionSet.ACCESS_READ);
+            }
+            time = System.nanoTime() - start;
+        }
+        echo("Cached permission check in the " + name + " project: " + ((time * 1.0) / CHECKS) + " ns/op");
+    }
+}
@@ -63,6 +63,7 @@ public final class AllTests {
         suite.addTest(TestExportFile.suite());
         suite.addTest(TestSecure.suite());
         suite.addTest(TestCmsExternalLinksValidator.suite());
+        suite.addTest(new TestSuite(TestCmsStaticExportManifest.class));
         //$JUnit-END$
         return suite;
     }
@@ -0,0 +1,128 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.staticexport;
+
+import org.opencms.util.CmsFileUtil;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the manifest of the incremental static export.<p>
+ * 
+ * @since 8.5.2
+ */
+public class TestCmsStaticExportManifest extends TestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsStaticExportManifest(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests the detection of unchanged sources and contents, and storing and loading the manifest.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testManifest() throws Exception {
+
+        File folder = File.createTempFile("manifest", "");
+        folder.delete();
+        folder.mkdirs();
+        try {
+            String manifestFile = new File(folder, "export.manifest").getAbsolutePath();
+            String exportFile = new File(folder, "index.html").getAbsolutePath();
+            String otherFile = new File(folder, "other.html").getAbsolutePath();
+            byte[] content = "<html>content</html>".getBytes("UTF-8");
+            String sources = "1000,/sites/default/a.html@2000";
+
+            CmsStaticExportManifest manifest = new CmsStaticExportManifest(manifestFile);
+            manifest.load();
+            assertFalse(manifest.isUnchanged(exportFile, sources));
+            assertTrue(manifest.update(exportFile, sources, CmsStaticExportManifest.getHash(content)));
+            // the file does not exist yet
+            assertFalse(manifest.isUnchanged(exportFile, sources));
+            writeFile(exportFile, content);
+            assertTrue(manifest.isUnchanged(exportFile, sources));
+            // changed sources with the same content
+            String newSources = "1000,/sites/default/a.html@3000";
+            assertFalse(manifest.isUnchanged(exportFile, newSources));
+            assertFalse(manifest.update(exportFile, newSources, CmsStaticExportManifest.getHash(content)));
+            assertTrue(manifest.update(otherFile, sources, CmsStaticExportManifest.getHash(content)));
+            writeFile(otherFile, content);
+            assertEquals(2, manifest.getSkippedCount() + manifest.getUnchangedCount());
+            assertEquals(2, manifest.getWrittenCount());
+            manifest.save();
+
+            // load the manifest again, only the first file is exported again
+            manifest = new CmsStaticExportManifest(manifestFile);
+            manifest.load();
+            assertTrue(manifest.isUnchanged(exportFile, newSources));
+            assertFalse(manifest.isUnchanged(exportFile, sources));
+            byte[] newContent = "<html>new content</html>".getBytes("UTF-8");
+            assertTrue(manifest.update(exportFile, sources, CmsStaticExportManifest.getHash(newContent)));
+            List<String> removed = manifest.removeUnvisited();
+            assertEquals(1, removed.size());
+            assertEquals(otherFile, removed.get(0));
+            manifest.save();
+
+            manifest = new CmsStaticExportManifest(manifestFile);
+            manifest.load();
+            assertTrue(manifest.isUnchanged(exportFile, sources));
+            assertFalse(manifest.isUnchanged(otherFile, sources));
+        } finally {
+            CmsFileUtil.purgeDirectory(folder);
+        }
+    }
+
+    /**
+     * Writes the given content to a file.<p>
+     * 
+     * @param fileName the file name
+     * @param content the content
+     * 
+     * @throws Exception if the file can not be written
+     */
+    private void writeFile(String fileName, byte[] content) throws Exception {
+
+        FileOutputStream out = new FileOutputStream(fileName);
+        try {
+            out.write(content);
+        } finally {
+            out.close();
+        }
+    }
+}
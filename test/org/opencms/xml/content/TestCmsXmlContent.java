@@ -31,6 +31,7 @@ import org.opencms.i18n.CmsEncoder;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.xml.CmsXmlContentDefinition;
 import org.opencms.xml.CmsXmlEntityResolver;
+import org.opencms.xml.CmsXmlUtils;
 import org.opencms.xml.types.CmsXmlDateTimeValue;
 import org.opencms.xml.types.CmsXmlHtmlValue;
 import org.opencms.xml.types.CmsXmlLocaleValue;
@@ -41,6 +42,8 @@ import java.util.Locale;
 
 import junit.framework.TestCase;
 
+import org.dom4j.Document;
+
 /**
  * Tests for generating an XML content.<p>
  * 
@@ -60,6 +63,68 @@ public class TestCmsXmlContent extends TestCase {
         super(arg0);
     }
 
+    /**
+     * Tests that XML contents created from copies of a (cached) document do not share state with the document.<p>
+     *
+     * @throws Exception in case something goes wrong
+     */
+    public void testCopyContent() throws Exception {
+
+        CmsXmlEntityResolver resolver = new CmsXmlEntityResolver(null);
+
+        String content;
+        // unmarshal content definition
+        content = CmsFileUtil.readFile("org/opencms/xml/content/xmlcontent-definition-1.xsd", CmsEncoder.ENCODING_UTF_8);
+        CmsXmlContentDefinition definition = CmsXmlContentDefinition.unmarshal(content, SCHEMA_SYSTEM_ID_1, resolver);
+        // store content definition in entitiy resolver
+        content = CmsFileUtil.readFile("org/opencms/xml/content/xmlcontent-1.xml", CmsEncoder.ENCODING_UTF_8);
+        CmsXmlEntityResolver.cacheSystemId(
+            SCHEMA_SYSTEM_ID_1,
+            definition.getSchema().asXML().getBytes(CmsEncoder.ENCODING_UTF_8));
+        Document document = CmsXmlUtils.unmarshalHelper(content, resolver);
+        CmsXmlContent original = CmsXmlContentFactory.unmarshal(
+            null,
+            (Document)document.clone(),
+            CmsEncoder.ENCODING_UTF_8,
+            resolver);
+        String originalXml = original.toString();
+
+        CmsXmlContent copy1 = CmsXmlContentFactory.unmarshal(
+            null,
+            (Document)document.clone(),
+            CmsEncoder.ENCODING_UTF_8,
+            resolver);
+        CmsXmlContent copy2 = CmsXmlContentFactory.unmarshal(
+            null,
+            (Document)document.clone(),
+            CmsEncoder.ENCODING_UTF_8,
+            resolver);
+        assertSame(original.getContentDefinition(), copy1.getContentDefinition());
+        assertEquals(original.getEncoding(), copy1.getEncoding());
+        assertEquals(originalXml, copy1.toString());
+
+        // modify the first copy
+        copy1.getValue("String", Locale.ENGLISH).setStringValue(null, "Modified");
+        copy1.addValue(null, "String", Locale.ENGLISH, 1).setStringValue(null, "Added");
+        copy1.addLocale(null, Locale.GERMAN);
+        assertEquals("Modified", copy1.getValue("String", Locale.ENGLISH).getStringValue(null));
+        assertEquals(2, copy1.getIndexCount("String", Locale.ENGLISH));
+
+        // neither the original, the other copy nor the cached document must be affected
+        assertEquals(originalXml, original.toString());
+        assertEquals(originalXml, CmsXmlContentFactory.unmarshal(
+            null,
+            (Document)document.clone(),
+            CmsEncoder.ENCODING_UTF_8,
+            resolver).toString());
+        assertEquals("Multitest 1", original.getValue("String", Locale.ENGLISH).getStringValue(null));
+        assertEquals(1, original.getIndexCount("String", Locale.ENGLISH));
+        assertFalse(original.hasLocale(Locale.GERMAN));
+        assertEquals("Multitest 1", copy2.getValue("String", Locale.ENGLISH).getStringValue(null));
+        assertEquals(1, copy2.getIndexCount("String", Locale.ENGLISH));
+        assertFalse(copy2.hasLocale(Locale.GERMAN));
+    }
+
     /**
      * Test unmarshalling an XML content from a String.<p>
      * 